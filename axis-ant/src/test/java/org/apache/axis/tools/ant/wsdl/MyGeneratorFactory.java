@@ -36,8 +36,9 @@ public class MyGeneratorFactory extends JavaGeneratorFactory {
         if (include(service.getQName())) {
             Generator writer = new MyServiceWriter(emitter, service, symbolTable);
             ServiceEntry sEntry = symbolTable.getServiceEntry(service.getQName());
-            serviceWriters.addStuff(writer, sEntry, symbolTable);
-            return serviceWriters;
+            Writers writers = serviceWriters.copy();
+            writers.addStuff(writer, sEntry, symbolTable);
+            return writers;
         }
         else {
             return new NoopGenerator();
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import javax.activation.DataHandler;
+
+import org.apache.axis.Message;
+import org.apache.axis.attachments.AttachmentPart;
+import org.apache.axis.attachments.Attachments;
+import org.apache.axis.attachments.ManagedMemoryDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the parsing of MIME and DIME messages with attachments, up to
+ * the reading of the content of every attachment. The messages are written
+ * once by Axis itself, so the input is the same as on the wire.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttachmentsBenchmark {
+    @Param({"MIME", "DIME"})
+    public String format;
+
+    @Param({"1", "16"})
+    public int attachments;
+
+    @Param({"4096", "262144"})
+    public int size;
+
+    private byte[] bytes;
+    private String contentType;
+    private final byte[] buffer = new byte[8192];
+
+    @Setup
+    public void setUp() throws Exception {
+        Message message = new Message(Payloads.documentLiteralRequest(1));
+        Attachments impl = message.getAttachmentsImpl();
+        impl.setSendType(format.equals("DIME") ? Attachments.SEND_TYPE_DIME
+                                               : Attachments.SEND_TYPE_MIME);
+        for (int i = 0; i < attachments; i++) {
+            message.addAttachmentPart(new AttachmentPart(new DataHandler(
+                    new ManagedMemoryDataSource(new ByteArrayInputStream(Payloads.attachment(i, size)),
+                            size + 1, "application/octet-stream", true))));
+        }
+        contentType = impl.getContentType();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        bytes = out.toByteArray();
+    }
+
+    @Benchmark
+    public long parse() throws Exception {
+        Message message = new Message(new ByteArrayInputStream(bytes), false, contentType, null);
+        long total = 0;
+        for (Iterator i = message.getAttachments(); i.hasNext();) {
+            InputStream in = ((AttachmentPart) i.next()).getDataHandler().getInputStream();
+            for (int n; (n = in.read(buffer)) != -1;) {
+                total += n;
+            }
+            in.close();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two sets of benchmark results, written by JMH with
+ * <code>-rf csv -rff &lt;file&gt;</code>, and reports the change of every
+ * benchmark found in both. Run it with
+ * <pre>
+ * java -cp target/benchmarks.jar org.apache.axis.benchmarks.CompareResults \
+ *     baseline.csv current.csv [threshold]
+ * </pre>
+ * The exit status is 1 if any benchmark got worse by more than the
+ * threshold, in percent (5 by default), so that it can be used in a build.
+ */
+public final class CompareResults {
+    private CompareResults() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: CompareResults <baseline.csv> <current.csv> [threshold]");
+            System.exit(2);
+        }
+        double threshold = args.length == 3 ? Double.parseDouble(args[2]) : 5;
+        Map<String, Result> baseline = read(args[0]);
+        Map<String, Result> current = read(args[1]);
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result before = baseline.get(entry.getKey());
+            Result after = entry.getValue();
+            if (before == null) {
+                System.out.println(String.format("%-64s %12s %12.3f %s  (new)",
+                        entry.getKey(), "", after.score, after.unit));
+                continue;
+            }
+            double change = (after.score - before.score) / before.score * 100;
+            // a higher score is better for throughput, worse for times
+            double worse = after.mode.equals("thrpt") ? -change : change;
+            boolean regression = worse > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.println(String.format("%-64s %12.3f %12.3f %s %+8.2f%%%s",
+                    entry.getKey(), before.score, after.score, after.unit, change,
+                    regression ? "  REGRESSION" : ""));
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.println(String.format("%-64s  (missing)", key));
+            }
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than "
+                    + threshold + "%");
+            System.exit(1);
+        }
+    }
+
+    private static final class Result {
+        final String mode;
+        final double score;
+        final String unit;
+
+        Result(String mode, double score, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+        }
+    }
+
+    /**
+     * Reads a JMH CSV result file, keyed by the benchmark name followed by
+     * its parameters.
+     */
+    private static Map<String, Result> read(String file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<String, Result>();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            List<String> header = parseLine(reader.readLine());
+            int benchmark = indexOf(header, "Benchmark", file);
+            int mode = indexOf(header, "Mode", file);
+            int score = indexOf(header, "Score", file);
+            int unit = indexOf(header, "Unit", file);
+            for (String line; (line = reader.readLine()) != null;) {
+                if (line.trim().length() == 0) {
+                    continue;
+                }
+                List<String> fields = parseLine(line);
+                // the class and method are enough to tell benchmarks apart
+                String name = fields.get(benchmark);
+                int method = name.lastIndexOf('.');
+                StringBuilder key = new StringBuilder(
+                        name.substring(name.lastIndexOf('.', method - 1) + 1));
+                key.append(" [").append(fields.get(mode)).append(']');
+                for (int i = 0; i < header.size(); i++) {
+                    if (header.get(i).startsWith("Param: ") && i < fields.size()
+                            && fields.get(i).length() > 0) {
+                        key.append(' ').append(header.get(i).substring(7))
+                           .append('=').append(fields.get(i));
+                    }
+                }
+                results.put(key.toString(), new Result(fields.get(mode),
+                        Double.parseDouble(fields.get(score)), fields.get(unit)));
+            }
+        } finally {
+            reader.close();
+        }
+        return results;
+    }
+
+    private static int indexOf(List<String> header, String column, String file)
+            throws IOException {
+        int index = header.indexOf(column);
+        if (index == -1) {
+            throw new IOException(file + " is not a JMH CSV result file: no "
+                    + column + " column");
+        }
+        return index;
+    }
+
+    /**
+     * Splits a CSV line, with fields optionally in double quotes.
+     */
+    private static List<String> parseLine(String line) throws IOException {
+        if (line == null) {
+            throw new IOException("empty result file");
+        }
+        List<String> fields = new ArrayList<String>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
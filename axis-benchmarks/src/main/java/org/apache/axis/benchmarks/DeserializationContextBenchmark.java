@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axis.Message;
+import org.apache.axis.MessageContext;
+import org.apache.axis.encoding.DeserializationContext;
+import org.apache.axis.message.RPCElement;
+import org.apache.axis.message.SOAPEnvelope;
+import org.apache.axis.server.AxisServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.InputSource;
+
+/**
+ * Measures the parsing of request envelopes by the
+ * {@link DeserializationContext}, on its own and followed by the
+ * deserialization of the parameters into {@link Item} beans, as the
+ * provider of the service would do it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeserializationContextBenchmark {
+    @Param({"rpc/encoded", "document/literal"})
+    public String style;
+
+    @Param({"10", "1000"})
+    public int items;
+
+    private AxisServer server;
+    private String service;
+    private String request;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = EchoService.newServer();
+        if (style.equals("rpc/encoded")) {
+            service = EchoService.SERVICE_NAME;
+            request = Payloads.rpcEncodedArrayRequest(items);
+        } else {
+            service = EchoService.DOCUMENT_SERVICE_NAME;
+            request = Payloads.documentLiteralRequest(items);
+        }
+    }
+
+    private DeserializationContext parse() throws Exception {
+        MessageContext msgContext = new MessageContext(server);
+        msgContext.setTargetService(service);
+        DeserializationContext context = new DeserializationContext(
+                new InputSource(new StringReader(request)), msgContext, Message.REQUEST);
+        context.parse();
+        return context;
+    }
+
+    @Benchmark
+    public SOAPEnvelope parseEnvelope() throws Exception {
+        return parse().getEnvelope();
+    }
+
+    @Benchmark
+    public Object deserialize() throws Exception {
+        RPCElement body = (RPCElement) parse().getEnvelope().getFirstBody();
+        return body.getParams();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.benchmarks;
+
+import org.apache.axis.AxisFault;
+import org.apache.axis.configuration.XMLStringProvider;
+import org.apache.axis.server.AxisServer;
+
+/**
+ * The service called by the benchmarks, which returns its argument, and
+ * the deployment of it.
+ */
+public class EchoService {
+    public static final String NAMESPACE = "urn:benchmark";
+
+    public static final String SERVICE_NAME = "echo";
+
+    /** The name of the same service, deployed as document/literal */
+    public static final String DOCUMENT_SERVICE_NAME = "echoDocument";
+
+    private static final String DEPLOYMENT =
+            "<deployment xmlns=\"http://xml.apache.org/axis/wsdd/\"" +
+            " xmlns:java=\"http://xml.apache.org/axis/wsdd/providers/java\">" +
+            "<service name=\"" + SERVICE_NAME + "\" provider=\"java:RPC\">" +
+            "<parameter name=\"className\" value=\"" + EchoService.class.getName() + "\"/>" +
+            "<parameter name=\"allowedMethods\" value=\"echo\"/>" +
+            "<namespace>" + NAMESPACE + "</namespace>" +
+            "<beanMapping xmlns:ns1=\"" + NAMESPACE + "\" qname=\"ns1:Item\"" +
+            " languageSpecificType=\"java:" + Item.class.getName() + "\"/>" +
+            "</service>" +
+            "<service name=\"" + DOCUMENT_SERVICE_NAME + "\" provider=\"java:RPC\"" +
+            " style=\"document\" use=\"literal\">" +
+            "<parameter name=\"className\" value=\"" + EchoService.class.getName() + "\"/>" +
+            "<parameter name=\"allowedMethods\" value=\"echo\"/>" +
+            "<namespace>" + NAMESPACE + "</namespace>" +
+            "<beanMapping xmlns:ns1=\"" + NAMESPACE + "\" qname=\"ns1:Item\"" +
+            " languageSpecificType=\"java:" + Item.class.getName() + "\" encodingStyle=\"\"/>" +
+            "</service>" +
+            "<transport name=\"local\">" +
+            "<responseFlow>" +
+            "<handler type=\"java:org.apache.axis.transport.local.LocalResponder\"/>" +
+            "</responseFlow>" +
+            "</transport>" +
+            "</deployment>";
+
+    public Item[] echo(Item[] items) {
+        return items;
+    }
+
+    /**
+     * Creates a server with the service deployed.
+     */
+    public static AxisServer newServer() throws AxisFault {
+        AxisServer server = new AxisServer(new XMLStringProvider(DEPLOYMENT));
+        server.init();
+        return server;
+    }
+}
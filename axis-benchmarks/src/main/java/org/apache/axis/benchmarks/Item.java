@@ -16,20 +16,35 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-package org.apache.axis.wsdl.symbolTable;
+package org.apache.axis.benchmarks;
 
-import java.io.IOException;
+/**
+ * The struct exchanged by the benchmarks, mapped as a bean.
+ */
+public class Item {
+    private String name;
+    private int value;
+
+    public Item() {}
+
+    public Item(String name, int value) {
+        this.name = name;
+        this.value = value;
+    }
 
-import org.xml.sax.EntityResolver;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
 
-class NullEntityResolver implements EntityResolver {
-    static final NullEntityResolver INSTANCE = new NullEntityResolver();
-    
-    private NullEntityResolver() {}
+    public int getValue() {
+        return value;
+    }
 
-    public InputSource resolveEntity(String publicId, String systemId) throws SAXException, IOException {
-        return null;
+    public void setValue(int value) {
+        this.value = value;
     }
 }
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+import javax.xml.rpc.ParameterMode;
+
+import org.apache.axis.Constants;
+import org.apache.axis.client.Call;
+import org.apache.axis.client.Service;
+import org.apache.axis.encoding.ser.BeanDeserializerFactory;
+import org.apache.axis.encoding.ser.BeanSerializerFactory;
+import org.apache.axis.server.AxisServer;
+import org.apache.axis.transport.local.LocalTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a complete call to {@link EchoService} through the client and
+ * server engines, with the {@link LocalTransport} in between, so that the
+ * whole message processing pipeline is covered without any network.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalTransportBenchmark {
+    @Param({"10", "1000"})
+    public int items;
+
+    private Service service;
+    private LocalTransport transport;
+    private Object[] arguments;
+
+    @Setup
+    public void setUp() throws Exception {
+        AxisServer server = EchoService.newServer();
+        transport = new LocalTransport(server);
+        transport.setRemoteService(EchoService.SERVICE_NAME);
+        service = new Service();
+        arguments = new Object[] {Payloads.items(items)};
+    }
+
+    @Benchmark
+    public Object echo() throws Exception {
+        Call call = (Call) service.createCall();
+        call.setTransport(transport);
+        call.setOperationName(new QName(EchoService.NAMESPACE, "echo"));
+        call.registerTypeMapping(Item.class, new QName(EchoService.NAMESPACE, "Item"),
+                BeanSerializerFactory.class, BeanDeserializerFactory.class);
+        call.addParameter("items", Constants.SOAP_ARRAY, Item[].class, ParameterMode.IN);
+        call.setReturnType(Constants.SOAP_ARRAY, Item[].class);
+        Object result = call.invoke(arguments);
+        if (((Item[]) result).length != items) {
+            throw new IllegalStateException("unexpected response");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.benchmarks;
+
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axis.Message;
+import org.apache.axis.MessageContext;
+import org.apache.axis.encoding.DeserializationContext;
+import org.apache.axis.message.MessageElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ * Measures the DOM style access to a parsed document/literal body through
+ * {@link MessageElement}, as done by message style services and handlers.
+ * The envelope is parsed once, so only the access itself is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageElementBenchmark {
+    @Param({"10", "1000"})
+    public int items;
+
+    private MessageElement body;
+
+    @Setup
+    public void setUp() throws Exception {
+        MessageContext msgContext = new MessageContext(EchoService.newServer());
+        msgContext.setTargetService(EchoService.DOCUMENT_SERVICE_NAME);
+        DeserializationContext context = new DeserializationContext(
+                new InputSource(new StringReader(Payloads.documentLiteralRequest(items))),
+                msgContext, Message.REQUEST);
+        context.parse();
+        body = context.getEnvelope().getFirstBody();
+    }
+
+    @Benchmark
+    public void childElements(Blackhole blackhole) {
+        for (Iterator i = body.getChildElements(); i.hasNext();) {
+            MessageElement item = (MessageElement) i.next();
+            for (Iterator j = item.getChildElements(); j.hasNext();) {
+                blackhole.consume(((MessageElement) j.next()).getValue());
+            }
+        }
+    }
+
+    @Benchmark
+    public void elementsByTagName(Blackhole blackhole) {
+        NodeList values = body.getElementsByTagName("value");
+        for (int i = 0; i < values.getLength(); i++) {
+            blackhole.consume(values.item(i));
+        }
+    }
+
+    @Benchmark
+    public Object asDOM() throws Exception {
+        return body.getAsDOM();
+    }
+
+    @Benchmark
+    public String asString() throws Exception {
+        return body.getAsString();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.benchmarks;
+
+/**
+ * Generates the SOAP envelopes used as benchmark input. The output only
+ * depends on the arguments, so that runs are reproducible.
+ */
+public final class Payloads {
+    private Payloads() {}
+
+    /**
+     * Generates an RPC/encoded style request with the given number of
+     * parameters, each a small struct with a string and an int field.
+     */
+    public static String rpcEncodedRequest(int items) {
+        StringBuilder buffer = new StringBuilder(items * 160 + 512);
+        buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        buffer.append("<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"");
+        buffer.append(" xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\"");
+        buffer.append(" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">");
+        buffer.append("<soapenv:Body>");
+        buffer.append("<ns1:echo soapenv:encodingStyle=\"http://schemas.xmlsoap.org/soap/encoding/\"");
+        buffer.append(" xmlns:ns1=\"urn:benchmark\">");
+        for (int i = 0; i < items; i++) {
+            buffer.append("<item xsi:type=\"ns1:Item\">");
+            buffer.append("<name xsi:type=\"xsd:string\">item &amp; name ").append(i).append("</name>");
+            buffer.append("<value xsi:type=\"xsd:int\">").append(i).append("</value>");
+            buffer.append("</item>");
+        }
+        buffer.append("</ns1:echo>");
+        buffer.append("</soapenv:Body></soapenv:Envelope>");
+        return buffer.toString();
+    }
+
+    /**
+     * Generates an RPC/encoded style request for {@link EchoService#echo},
+     * with a SOAP encoded array of the given number of structs.
+     */
+    public static String rpcEncodedArrayRequest(int items) {
+        StringBuilder buffer = new StringBuilder(items * 160 + 768);
+        buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        buffer.append("<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"");
+        buffer.append(" xmlns:soapenc=\"http://schemas.xmlsoap.org/soap/encoding/\"");
+        buffer.append(" xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\"");
+        buffer.append(" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">");
+        buffer.append("<soapenv:Body>");
+        buffer.append("<ns1:echo soapenv:encodingStyle=\"http://schemas.xmlsoap.org/soap/encoding/\"");
+        buffer.append(" xmlns:ns1=\"urn:benchmark\">");
+        buffer.append("<items xsi:type=\"soapenc:Array\" soapenc:arrayType=\"ns1:Item[");
+        buffer.append(items).append("]\">");
+        for (int i = 0; i < items; i++) {
+            buffer.append("<item xsi:type=\"ns1:Item\">");
+            buffer.append("<name xsi:type=\"xsd:string\">item &amp; name ").append(i).append("</name>");
+            buffer.append("<value xsi:type=\"xsd:int\">").append(i).append("</value>");
+            buffer.append("</item>");
+        }
+        buffer.append("</items>");
+        buffer.append("</ns1:echo>");
+        buffer.append("</soapenv:Body></soapenv:Envelope>");
+        return buffer.toString();
+    }
+
+    /**
+     * Generates a document/literal style request with the same content as
+     * {@link #rpcEncodedArrayRequest}, without type attributes.
+     */
+    public static String documentLiteralRequest(int items) {
+        StringBuilder buffer = new StringBuilder(items * 100 + 512);
+        buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        buffer.append("<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">");
+        buffer.append("<soapenv:Body>");
+        buffer.append("<echo xmlns=\"urn:benchmark\">");
+        for (int i = 0; i < items; i++) {
+            buffer.append("<item>");
+            buffer.append("<name>item &amp; name ").append(i).append("</name>");
+            buffer.append("<value>").append(i).append("</value>");
+            buffer.append("</item>");
+        }
+        buffer.append("</echo>");
+        buffer.append("</soapenv:Body></soapenv:Envelope>");
+        return buffer.toString();
+    }
+
+    /**
+     * Generates the beans carried by the requests above.
+     */
+    public static Item[] items(int items) {
+        Item[] result = new Item[items];
+        for (int i = 0; i < items; i++) {
+            result[i] = new Item("item & name " + i, i);
+        }
+        return result;
+    }
+
+    /**
+     * Generates the content of an attachment. The bytes follow a fixed
+     * pseudo-random sequence, so that they are neither trivially
+     * compressible nor different between runs.
+     */
+    public static byte[] attachment(int index, int size) {
+        byte[] content = new byte[size];
+        int seed = 0x9E3779B9 * (index + 1);
+        for (int i = 0; i < size; i++) {
+            seed = seed * 1103515245 + 12345;
+            content[i] = (byte) (seed >>> 24);
+        }
+        return content;
+    }
+}
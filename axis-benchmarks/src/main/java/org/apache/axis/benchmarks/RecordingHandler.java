@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.benchmarks;
+
+import org.apache.axis.message.SAX2EventRecorder;
+import org.xml.sax.Attributes;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Forwards SAX events into a {@link SAX2EventRecorder}, the same way
+ * {@link org.apache.axis.encoding.DeserializationContext} records them.
+ */
+final class RecordingHandler extends DefaultHandler implements LexicalHandler {
+    private final SAX2EventRecorder recorder;
+
+    RecordingHandler(SAX2EventRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public void startDocument() {
+        recorder.startDocument();
+    }
+
+    @Override
+    public void endDocument() {
+        recorder.endDocument();
+    }
+
+    @Override
+    public void startPrefixMapping(String prefix, String uri) {
+        recorder.startPrefixMapping(prefix, uri);
+    }
+
+    @Override
+    public void endPrefixMapping(String prefix) {
+        recorder.endPrefixMapping(prefix);
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        recorder.startElement(uri, localName, qName, new AttributesImpl(attributes));
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        recorder.endElement(uri, localName, qName);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        recorder.characters(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+        recorder.ignorableWhitespace(ch, start, length);
+    }
+
+    public void startDTD(String name, String publicId, String systemId) {
+        recorder.startDTD(name, publicId, systemId);
+    }
+
+    public void endDTD() {
+        recorder.endDTD();
+    }
+
+    public void startEntity(String name) {
+        recorder.startEntity(name);
+    }
+
+    public void endEntity(String name) {
+        recorder.endEntity(name);
+    }
+
+    public void startCDATA() {
+        recorder.startCDATA();
+    }
+
+    public void endCDATA() {
+        recorder.endCDATA();
+    }
+
+    public void comment(char[] ch, int start, int length) {
+        recorder.comment(ch, start, length);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axis.message.CompactSAX2EventRecorder;
+import org.apache.axis.message.SAX2EventRecorder;
+import org.apache.axis.utils.XMLUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Compares the default {@link SAX2EventRecorder} with the
+ * {@link CompactSAX2EventRecorder}. Recording is measured by replaying a
+ * pre-recorded envelope into a fresh recorder, so that XML parsing does not
+ * dominate the result; run with <code>-prof gc</code> to compare allocation
+ * rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SAX2EventRecorderBenchmark {
+    @Param({"default", "compact"})
+    public String recorder;
+
+    @Param({"10", "1000"})
+    public int items;
+
+    private SAX2EventRecorder source;
+    private SAX2EventRecorder recorded;
+    private SAX2EventRecorder reused;
+
+    private SAX2EventRecorder newRecorder() {
+        return recorder.equals("compact") ? new CompactSAX2EventRecorder() : new SAX2EventRecorder();
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        source = new SAX2EventRecorder();
+        XMLReader reader = XMLUtils.getSAXParser().getXMLReader();
+        RecordingHandler handler = new RecordingHandler(source);
+        reader.setContentHandler(handler);
+        reader.parse(new InputSource(new StringReader(Payloads.rpcEncodedRequest(items))));
+        recorded = newRecorder();
+        source.replay(new RecordingHandler(recorded));
+        reused = newRecorder();
+    }
+
+    @Benchmark
+    public SAX2EventRecorder record() throws Exception {
+        SAX2EventRecorder target = newRecorder();
+        source.replay(new RecordingHandler(target));
+        return target;
+    }
+
+    @Benchmark
+    public SAX2EventRecorder recordCleared() throws Exception {
+        reused.clear();
+        source.replay(new RecordingHandler(reused));
+        return reused;
+    }
+
+    @Benchmark
+    public void replay(final Blackhole blackhole) throws Exception {
+        recorded.replay(new DefaultHandler() {
+            @Override
+            public void characters(char[] ch, int start, int length) {
+                blackhole.consume(length);
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) {
+                blackhole.consume(localName);
+            }
+        });
+    }
+}
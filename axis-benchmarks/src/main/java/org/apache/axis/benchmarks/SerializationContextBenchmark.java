@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.benchmarks;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axis.MessageContext;
+import org.apache.axis.encoding.SerializationContext;
+import org.apache.axis.message.RPCElement;
+import org.apache.axis.message.RPCParam;
+import org.apache.axis.message.SOAPEnvelope;
+import org.apache.axis.server.AxisServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the serialization of an RPC/encoded response by the
+ * {@link SerializationContext}, either as one {@link Item} bean per
+ * parameter or as a single SOAP encoded array of them. The output is
+ * counted and discarded, so that only serialization is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationContextBenchmark {
+    @Param({"beans", "array"})
+    public String shape;
+
+    @Param({"10", "1000"})
+    public int items;
+
+    private AxisServer server;
+    private SOAPEnvelope envelope;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = EchoService.newServer();
+        Item[] beans = Payloads.items(items);
+        RPCElement body = new RPCElement(EchoService.NAMESPACE, "echoResponse", null);
+        if (shape.equals("array")) {
+            body.addParam(new RPCParam("items", beans));
+        } else {
+            for (int i = 0; i < beans.length; i++) {
+                body.addParam(new RPCParam("item", beans[i]));
+            }
+        }
+        envelope = new SOAPEnvelope();
+        envelope.addBodyElement(body);
+    }
+
+    @Benchmark
+    public long serialize() throws Exception {
+        MessageContext msgContext = new MessageContext(server);
+        msgContext.setTargetService(EchoService.SERVICE_NAME);
+        CountingWriter writer = new CountingWriter();
+        SerializationContext context = new SerializationContext(writer, msgContext);
+        context.setPretty(false);
+        envelope.output(context);
+        return writer.count;
+    }
+
+    /**
+     * Counts the characters written to it, and drops them.
+     */
+    private static final class CountingWriter extends Writer {
+        long count;
+
+        @Override
+        public void write(int c) {
+            count++;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
@@ -28,12 +28,14 @@ import org.apache.axis.wsdl.gen.Parser;
 import org.apache.axis.wsdl.symbolTable.SymTabEntry;
 import org.apache.axis.wsdl.symbolTable.SymbolTable;
 import org.w3c.dom.Document;
+import org.xml.sax.EntityResolver;
 import org.xml.sax.SAXException;
 
 import javax.wsdl.WSDLException;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.ParserConfigurationException;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
@@ -43,6 +45,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.TreeMap;
 import java.util.Vector;
 
 /**
@@ -148,6 +151,9 @@ public class Emitter extends Parser {
 	/** The deploy mode flag */
     private boolean isDeploy;
 
+    /** Field incremental */
+    private boolean incremental = false;
+
     /**
      * Default constructor.
      */
@@ -592,7 +598,46 @@ public class Emitter extends Parser {
      */
     public void run(String wsdlURL) throws Exception {
         setup();
-        super.run(wsdlURL);
+
+        if (!incremental) {
+            super.run(wsdlURL);
+            return;
+        }
+
+        Properties options = new Properties();
+
+        addOptions(options);
+
+        File file = Fingerprint.getFile(outputDir, wsdlURL);
+        Fingerprint fingerprint = Fingerprint.load(file);
+
+        if ((fingerprint != null)
+                && fingerprint.isCurrent(wsdlURL, entityResolver, options)) {
+            fingerprint.restore(fileInfo);
+
+            if (verbose) {
+                System.out.println(Messages.getMessage("upToDate00", wsdlURL));
+            }
+
+            return;
+        }
+
+        // Should this run fail, the next one must not skip generating.
+        file.delete();
+
+        EntityResolver resolver = entityResolver;
+        Fingerprint.Recorder recorder = new Fingerprint.Recorder(resolver);
+
+        entityResolver = recorder;
+
+        try {
+            super.run(wsdlURL);
+        } finally {
+            entityResolver = resolver;
+        }
+
+        Fingerprint.make(wsdlURL, recorder.getSystemIds(), resolver, options,
+                fileInfo).save(file);
     }    // run
 
     /**
@@ -1053,4 +1098,65 @@ public class Emitter extends Parser {
     public void setWrapArrays(boolean wrapArrays) {
         this.wrapArrays = wrapArrays;
     }
+
+    /**
+     * Turn on/off incremental generation.  When on, run(wsdlURL) keeps a
+     * fingerprint of the documents it read and of the options affecting the
+     * generated code in the output directory.  If they are the same in the
+     * next run and the generated files are still there, nothing is parsed or
+     * generated, and only the generated file info is filled in; the symbol
+     * table is then null.  Otherwise the files whose content has not changed
+     * are left alone, so that they keep their timestamps.
+     * 
+     * @param incremental 
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Indicate if we should be generating incrementally
+     * 
+     * @return 
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Put the options which affect the generated code into the given
+     * properties, for the fingerprint of an incremental run.  Subclasses
+     * with options of their own must add them as well.
+     * 
+     * @param options 
+     */
+    protected void addOptions(Properties options) {
+        options.setProperty("serverSide", String.valueOf(bEmitServer));
+        options.setProperty("skeleton", String.valueOf(bDeploySkeleton));
+        options.setProperty("testCase", String.valueOf(bEmitTestCase));
+        options.setProperty("all", String.valueOf(bGenerateAll));
+        options.setProperty("helper", String.valueOf(bHelperGeneration));
+        options.setProperty("buildFile", String.valueOf(bBuildFileGeneration));
+        options.setProperty("typeCollisionProtection",
+                String.valueOf(typeCollisionProtection));
+        options.setProperty("allowInvalidURL", String.valueOf(allowInvalidURL));
+        options.setProperty("wrapArrays", String.valueOf(wrapArrays));
+        options.setProperty("imports", String.valueOf(imports));
+        options.setProperty("nowrap", String.valueOf(nowrap));
+        options.setProperty("deploy", String.valueOf(isDeploy));
+        options.setProperty("typeMappingVersion", String.valueOf(typeMappingVersion));
+        options.setProperty("outputDir", String.valueOf(outputDir));
+        options.setProperty("package", String.valueOf(packageName));
+        options.setProperty("scope", String.valueOf(scope));
+        options.setProperty("implementationClassName",
+                String.valueOf(implementationClassName));
+        options.setProperty("namespaces",
+                String.valueOf(new TreeMap(namespaces)));
+        options.setProperty("nsIncludes", String.valueOf(nsIncludes));
+        options.setProperty("nsExcludes", String.valueOf(nsExcludes));
+        options.setProperty("properties", String.valueOf(properties));
+        options.setProperty("factory", getFactory().getClass().getName());
+        options.setProperty("baseTypeMapping",
+                getFactory().getBaseTypeMapping().getClass().getName());
+    }    // addOptions
 }
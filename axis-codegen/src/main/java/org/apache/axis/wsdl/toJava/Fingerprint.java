@@ -0,0 +1,406 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.wsdl.toJava;
+
+import org.apache.axis.utils.IOUtils;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * What the code generated from a WSDL document was generated from: the
+ * hashes of the WSDL and schema documents read, and the options given to
+ * the emitter.  It also lists the files generated.  The fingerprint is
+ * kept in the output directory, so that the next run can tell whether it
+ * would generate the same files again.
+ */
+class Fingerprint {
+
+    /** Field WSDL */
+    private static final String WSDL = "wsdl";
+
+    /** Field INPUT */
+    private static final String INPUT = "input.";
+
+    /** Field OPTION */
+    private static final String OPTION = "option.";
+
+    /** Field FILE */
+    private static final String FILE = "file.";
+
+    /**
+     * An entity resolver recording the system ids of the documents read
+     * through it, for the fingerprint to include.
+     */
+    static class Recorder implements EntityResolver {
+
+        /** Field resolver */
+        private final EntityResolver resolver;
+
+        /** Field systemIds */
+        private final Set systemIds = new LinkedHashSet();
+
+        /**
+         * Constructor Recorder
+         *
+         * @param resolver the resolver to read the documents through, or null
+         */
+        Recorder(EntityResolver resolver) {
+            this.resolver = resolver;
+        }
+
+        /**
+         * Method resolveEntity
+         *
+         * @param publicId
+         * @param systemId
+         * @return
+         * @throws SAXException
+         * @throws IOException
+         */
+        public InputSource resolveEntity(String publicId, String systemId)
+                throws SAXException, IOException {
+
+            if (systemId != null) {
+                synchronized (systemIds) {
+                    systemIds.add(systemId);
+                }
+            }
+
+            return resolver == null
+                    ? null
+                    : resolver.resolveEntity(publicId, systemId);
+        }    // resolveEntity
+
+        /**
+         * Method getSystemIds
+         *
+         * @return
+         */
+        Collection getSystemIds() {
+            synchronized (systemIds) {
+                return new LinkedHashSet(systemIds);
+            }
+        }    // getSystemIds
+    }    // class Recorder
+
+    /** Field properties */
+    private final Properties properties;
+
+    /**
+     * Constructor Fingerprint
+     *
+     * @param properties
+     */
+    private Fingerprint(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Return the file keeping the fingerprint of the code generated from a
+     * WSDL document.  Each document has a file of its own, so that several
+     * documents can be generated into the same directory.
+     *
+     * @param outputDir
+     * @param wsdlURI
+     * @return
+     * @throws IOException
+     */
+    static File getFile(String outputDir, String wsdlURI) throws IOException {
+        String name = ".wsdl2java-"
+                + hash(wsdlURI.getBytes("UTF-8")).substring(0, 16)
+                + ".properties";
+        return new File(outputDir == null ? "." : outputDir, name);
+    }    // getFile
+
+    /**
+     * Load a fingerprint.
+     *
+     * @param file
+     * @return the fingerprint, or null if there is none to be read
+     */
+    static Fingerprint load(File file) {
+
+        if (!file.isFile()) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+
+        try {
+            InputStream in = new FileInputStream(file);
+
+            try {
+                properties.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+
+        return new Fingerprint(properties);
+    }    // load
+
+    /**
+     * Take the fingerprint of a run which has just generated code.
+     *
+     * @param wsdlURI  the WSDL document read
+     * @param inputs   the system ids of the documents it imported
+     * @param resolver the resolver they were read through, or null
+     * @param options  the options of the emitter
+     * @param fileInfo the files generated
+     * @return
+     * @throws IOException if a document cannot be read
+     */
+    static Fingerprint make(String wsdlURI, Collection inputs,
+                            EntityResolver resolver, Properties options,
+                            GeneratedFileInfo fileInfo) throws IOException {
+
+        Properties properties = new Properties();
+
+        properties.setProperty(WSDL, wsdlURI);
+
+        Set systemIds = new LinkedHashSet();
+
+        systemIds.add(wsdlURI);
+        systemIds.addAll(inputs);
+
+        int n = 0;
+
+        for (Iterator i = systemIds.iterator(); i.hasNext(); ++n) {
+            String systemId = (String) i.next();
+
+            properties.setProperty(INPUT + n, systemId);
+            properties.setProperty(INPUT + n + ".hash",
+                    hash(read(systemId, systemId.equals(wsdlURI) ? null : resolver)));
+        }
+
+        for (Iterator i = options.keySet().iterator(); i.hasNext();) {
+            String name = (String) i.next();
+
+            properties.setProperty(OPTION + name, options.getProperty(name));
+        }
+
+        List entries = fileInfo.getList();
+
+        synchronized (fileInfo) {
+            for (int i = 0; i < entries.size(); ++i) {
+                GeneratedFileInfo.Entry entry =
+                        (GeneratedFileInfo.Entry) entries.get(i);
+
+                properties.setProperty(FILE + i, entry.fileName);
+
+                if (entry.className != null) {
+                    properties.setProperty(FILE + i + ".class", entry.className);
+                }
+
+                if (entry.type != null) {
+                    properties.setProperty(FILE + i + ".type", entry.type);
+                }
+            }
+        }
+
+        return new Fingerprint(properties);
+    }    // make
+
+    /**
+     * Tell whether code generated now would be the same as the code
+     * generated when this fingerprint was taken, and is still there.
+     *
+     * @param wsdlURI
+     * @param resolver
+     * @param options
+     * @return
+     */
+    boolean isCurrent(String wsdlURI, EntityResolver resolver,
+                      Properties options) {
+
+        if (!wsdlURI.equals(properties.getProperty(WSDL))) {
+            return false;
+        }
+
+        // The same options, no more and no fewer
+        int count = 0;
+
+        for (Iterator i = properties.keySet().iterator(); i.hasNext();) {
+            if (((String) i.next()).startsWith(OPTION)) {
+                ++count;
+            }
+        }
+
+        if (count != options.size()) {
+            return false;
+        }
+
+        for (Iterator i = options.keySet().iterator(); i.hasNext();) {
+            String name = (String) i.next();
+
+            if (!options.getProperty(name).equals(
+                    properties.getProperty(OPTION + name))) {
+                return false;
+            }
+        }
+
+        for (int n = 0; properties.getProperty(FILE + n) != null; ++n) {
+            if (!new File(properties.getProperty(FILE + n)).isFile()) {
+                return false;
+            }
+        }
+
+        try {
+            for (int n = 0; properties.getProperty(INPUT + n) != null; ++n) {
+                String systemId = properties.getProperty(INPUT + n);
+                String hash = hash(read(systemId,
+                        systemId.equals(wsdlURI) ? null : resolver));
+
+                if (!hash.equals(properties.getProperty(INPUT + n + ".hash"))) {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            return false;
+        }
+
+        return true;
+    }    // isCurrent
+
+    /**
+     * Add the files generated when this fingerprint was taken to the given
+     * file info.
+     *
+     * @param fileInfo
+     */
+    void restore(GeneratedFileInfo fileInfo) {
+        for (int n = 0; properties.getProperty(FILE + n) != null; ++n) {
+            fileInfo.add(properties.getProperty(FILE + n),
+                    properties.getProperty(FILE + n + ".class"),
+                    properties.getProperty(FILE + n + ".type"));
+        }
+    }    // restore
+
+    /**
+     * Method save
+     *
+     * @param file
+     * @throws IOException
+     */
+    void save(File file) throws IOException {
+
+        File parent = file.getAbsoluteFile().getParentFile();
+
+        parent.mkdirs();
+
+        OutputStream out = new FileOutputStream(file);
+
+        try {
+            properties.store(out, "Generated by WSDL2Java; do not edit");
+        } finally {
+            out.close();
+        }
+    }    // save
+
+    /**
+     * Read a document, through the resolver if there is one, the way the
+     * symbol table reads it.
+     *
+     * @param systemId
+     * @param resolver
+     * @return
+     * @throws IOException
+     */
+    private static byte[] read(String systemId, EntityResolver resolver)
+            throws IOException {
+
+        InputSource is = null;
+
+        if (resolver != null) {
+            try {
+                is = resolver.resolveEntity(null, systemId);
+            } catch (SAXException e) {
+                throw new IOException(e.toString());
+            }
+        }
+
+        if (is != null && is.getByteStream() != null) {
+            return IOUtils.readFully(is.getByteStream());
+        }
+
+        if (is != null && is.getCharacterStream() != null) {
+            return IOUtils.readFully(is.getCharacterStream()).getBytes("UTF-8");
+        }
+
+        if (is != null && is.getSystemId() != null) {
+            systemId = is.getSystemId();
+        }
+
+        InputStream in;
+
+        try {
+            in = new URL(systemId).openStream();
+        } catch (MalformedURLException e) {
+            in = new FileInputStream(systemId);
+        }
+
+        return IOUtils.readFully(in);
+    }    // read
+
+    /**
+     * Method hash
+     *
+     * @param bytes
+     * @return the SHA-1 hash of the bytes, in hex
+     */
+    private static String hash(byte[] bytes) {
+
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+
+            // every JVM has SHA-1
+            throw new IllegalStateException(e.toString());
+        }
+
+        byte[] hash = digest.digest(bytes);
+        StringBuffer buf = new StringBuffer(hash.length * 2);
+
+        for (int i = 0; i < hash.length; i++) {
+            buf.append(Character.forDigit((hash[i] >> 4) & 0xf, 16));
+            buf.append(Character.forDigit(hash[i] & 0xf, 16));
+        }
+
+        return buf.toString();
+    }    // hash
+}    // class Fingerprint
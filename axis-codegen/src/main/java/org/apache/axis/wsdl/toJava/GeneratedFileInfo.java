@@ -22,6 +22,9 @@ import java.util.List;
 /**
  * File info available after emit to describe what
  * exactly was created by the Emitter.
+ * <p>
+ * The writers of an emitter generating with several threads register
+ * their files at the same time, so the methods are synchronized.
  * 
  * @author Tom Jordahl (tomj@macromedia.com)
  */
@@ -97,7 +100,7 @@ public class GeneratedFileInfo {
      * 
      * @return 
      */
-    public List getList() {
+    public synchronized List getList() {
         return list;
     }
 
@@ -108,7 +111,7 @@ public class GeneratedFileInfo {
      * @param className 
      * @param type      
      */
-    public void add(String name, String className, String type) {
+    public synchronized void add(String name, String className, String type) {
         list.add(new Entry(name, className, type));
     }
 
@@ -122,7 +125,7 @@ public class GeneratedFileInfo {
      * @param type of objects you want info about
      * @return A list of <code>org.apache.axis.wsdl.toJava.GeneratedFileInfo.Entry</code> objects.  Null if no objects found.
      */
-    public List findType(String type) {
+    public synchronized List findType(String type) {
 
         // look at each entry for the type we want
         ArrayList ret = null;
@@ -148,7 +151,7 @@ public class GeneratedFileInfo {
      * @param fileName name you want info about
      * @return The entry for the file name specified.  Null if not found
      */
-    public Entry findName(String fileName) {
+    public synchronized Entry findName(String fileName) {
 
         // look at each entry for the type we want
         for (Iterator i = list.iterator(); i.hasNext();) {
@@ -168,7 +171,7 @@ public class GeneratedFileInfo {
      * @param className name you want info about
      * @return The entry for the class specified.  Null if not found
      */
-    public Entry findClass(String className) {
+    public synchronized Entry findClass(String className) {
 
         // look at each entry for the type we want
         for (Iterator i = list.iterator(); i.hasNext();) {
@@ -187,7 +190,7 @@ public class GeneratedFileInfo {
      * 
      * @return 
      */
-    public List getClassNames() {
+    public synchronized List getClassNames() {
 
         // is there a better way to do this?
         ArrayList ret = new ArrayList(list.size());
@@ -206,7 +209,7 @@ public class GeneratedFileInfo {
      * 
      * @return 
      */
-    public List getFileNames() {
+    public synchronized List getFileNames() {
 
         // is there a better way to do this?
         ArrayList ret = new ArrayList(list.size());
@@ -225,7 +228,7 @@ public class GeneratedFileInfo {
      * 
      * @return 
      */
-    public String toString() {
+    public synchronized String toString() {
 
         String s = "";
 
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.wsdl.toJava;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A stream to a generated file which writes the file when it is closed,
+ * and only if the file doesn't already have the same content.  The time
+ * the file was last modified thus is the time its content last changed,
+ * so that the tools compiling it can tell it need not be compiled again.
+ */
+class GeneratedFileOutputStream extends ByteArrayOutputStream {
+
+    /** Field file */
+    private final File file;
+
+    /** Field closed */
+    private boolean closed = false;
+
+    /**
+     * Constructor GeneratedFileOutputStream
+     *
+     * @param file
+     */
+    GeneratedFileOutputStream(File file) {
+        super(8192);
+        this.file = file;
+    }
+
+    /**
+     * Write the file, unless its content is unchanged.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        if (isUnchanged()) {
+            return;
+        }
+
+        OutputStream out = new FileOutputStream(file);
+
+        try {
+            writeTo(out);
+        } finally {
+            out.close();
+        }
+    }    // close
+
+    /**
+     * Method isUnchanged
+     *
+     * @return true if the file exists and has the content written
+     */
+    private boolean isUnchanged() {
+
+        if (file.length() != count || !file.isFile()) {
+            return false;
+        }
+
+        try {
+            InputStream in = new FileInputStream(file);
+
+            try {
+                byte[] buf = new byte[8192];
+                int pos = 0;
+
+                for (int n; (n = in.read(buf)) != -1; pos += n) {
+                    if (pos + n > count) {
+                        return false;
+                    }
+
+                    for (int i = 0; i < n; ++i) {
+                        if (buf[i] != this.buf[pos + i]) {
+                            return false;
+                        }
+                    }
+                }
+
+                return pos == count;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }    // isUnchanged
+}    // class GeneratedFileOutputStream
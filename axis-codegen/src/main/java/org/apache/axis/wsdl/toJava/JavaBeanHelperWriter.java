@@ -15,6 +15,7 @@
  */
 package org.apache.axis.wsdl.toJava;
 
+import org.apache.axis.Constants;
 import org.apache.axis.utils.Messages;
 import org.apache.axis.wsdl.symbolTable.ContainedAttribute;
 import org.apache.axis.utils.JavaUtils;
@@ -60,6 +61,9 @@ public class JavaBeanHelperWriter extends JavaClassWriter {
     /** Field reservedPropNames */
     protected Set reservedPropNames;
 
+    /** Field beanProperties */
+    protected Vector beanProperties = null;    // even indices: types, odd: vars
+
     /**
      * Constructor.
      * 
@@ -111,6 +115,17 @@ public class JavaBeanHelperWriter extends JavaClassWriter {
         this.wrapperPW = pw;
     }    // setPrintWriter
 
+    /**
+     * The JavaBeanWriter passes the properties for which it writes
+     * getters and setters, so that a BeanAccessor can be written for them.
+     * No accessor is written if the bean has no such properties.
+     * 
+     * @param names even indices: the java types, odd: the variable names
+     */
+    protected void setBeanProperties(Vector names) {
+        this.beanProperties = names;
+    }    // setBeanProperties
+
     /**
      * The default behaviour (of super.getPrintWriter) is, given the
      * file name, create a PrintWriter for it.  If the bean helper
@@ -181,6 +196,7 @@ public class JavaBeanHelperWriter extends JavaClassWriter {
     protected void writeFileBody(PrintWriter pw) throws IOException {
 
         writeMetaData(pw);
+        writeBeanAccessor(pw);
         writeSerializer(pw);
         writeDeserializer(pw);
     }    // writeFileBody
@@ -411,6 +427,101 @@ public class JavaBeanHelperWriter extends JavaClassWriter {
         pw.println();
     }
 
+    /**
+     * write a BeanAccessor, which lets the bean serializers get and set
+     * the properties without using reflection.
+     * 
+     * @param pw 
+     * @throws IOException 
+     */
+    protected void writeBeanAccessor(PrintWriter pw) throws IOException {
+
+        Vector types = new Vector();
+        Vector vars = new Vector();
+
+        if (beanProperties != null) {
+            for (int i = 0; i < beanProperties.size(); i += 2) {
+                String variable = (String) beanProperties.get(i + 1);
+
+                // The any content isn't handled as a bean property
+                if (!variable.equals(Constants.ANYCONTENT)) {
+                    types.add(beanProperties.get(i));
+                    vars.add(variable);
+                }
+            }
+        }
+
+        if (vars.size() == 0) {
+            return;
+        }
+
+        String className = Utils.getJavaLocalName(type.getName());
+
+        pw.println("    private static final org.apache.axis.utils.BeanAccessor __beanAccessor =");
+        pw.println("        new org.apache.axis.utils.BeanAccessor() {");
+        pw.println("            public int getPropertyIndex(java.lang.String name) {");
+        for (int i = 0; i < vars.size(); i++) {
+            pw.println("                if (\""
+                    + getAsFieldName((String) vars.get(i))
+                    + "\".equals(name)) return " + i + ";");
+        }
+        pw.println("                return -1;");
+        pw.println("            }");
+        pw.println();
+        pw.println("            public java.lang.Object get(java.lang.Object bean, int property) {");
+        pw.println("                " + className + " _bean = (" + className
+                + ") bean;");
+        pw.println("                switch (property) {");
+        for (int i = 0; i < vars.size(); i++) {
+            String typeName = (String) types.get(i);
+            String get = typeName.equals("boolean") ? "is" : "get";
+            String value = "_bean." + get
+                    + Utils.capitalizeFirstChar((String) vars.get(i)) + "()";
+            String wrapper = JavaUtils.getWrapper(typeName);
+
+            if (wrapper != null) {
+                value = "new java.lang." + wrapper + "(" + value + ")";
+            }
+            pw.println("                case " + i + ": return " + value + ";");
+        }
+        pw.println("                default: throw new java.lang.IllegalArgumentException();");
+        pw.println("                }");
+        pw.println("            }");
+        pw.println();
+        pw.println("            public void set(java.lang.Object bean, int property, java.lang.Object value) {");
+        pw.println("                " + className + " _bean = (" + className
+                + ") bean;");
+        pw.println("                switch (property) {");
+        for (int i = 0; i < vars.size(); i++) {
+            String typeName = (String) types.get(i);
+            String wrapper = JavaUtils.getWrapper(typeName);
+            String value;
+
+            if (wrapper != null) {
+                value = "((java.lang." + wrapper + ") value)." + typeName
+                        + "Value()";
+            } else {
+                value = "(" + typeName + ") value";
+            }
+            pw.println("                case " + i + ": _bean.set"
+                    + Utils.capitalizeFirstChar((String) vars.get(i)) + "("
+                    + value + "); return;");
+        }
+        pw.println("                default: throw new java.lang.IllegalArgumentException();");
+        pw.println("                }");
+        pw.println("            }");
+        pw.println("        };");
+        pw.println();
+        pw.println("    /**");
+        pw.println("     * Return the accessor for the properties of this type");
+        pw.println("     */");
+        pw.println(
+                "    public static org.apache.axis.utils.BeanAccessor getBeanAccessor() {");
+        pw.println("        return __beanAccessor;");
+        pw.println("    }");
+        pw.println();
+    }
+
     /**
      * Utility function to get the bean property name (as will be returned
      * by the Introspector) for a given field name.  This just means
@@ -159,6 +159,10 @@ public class JavaBeanWriter extends JavaClassWriter {
 
         preprocess();
 
+        // Let the helper write a BeanAccessor for the getters and setters
+        if (enableGetters && enableSetters && !isUnion()) {
+            this.helper.setBeanProperties(names);
+        }
     }    // ctor
 
     /**
@@ -53,8 +53,8 @@ import javax.wsdl.extensions.soap.SOAPBinding;
 import javax.wsdl.extensions.soap12.SOAP12Binding;
 import javax.xml.namespace.QName;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.ArrayList;
@@ -619,7 +619,7 @@ public class JavaDeployWriter extends JavaWriter {
 
         parent.mkdirs();
 
-        FileOutputStream out = new FileOutputStream(file);
+        OutputStream out = openFile(file);
         OutputStreamWriter writer = new OutputStreamWriter(out, "UTF-8");
 
         return new PrintWriter(writer);
@@ -227,8 +227,9 @@ public class JavaGeneratorFactory implements GeneratorFactory {
     public Generator getGenerator(Message message, SymbolTable symbolTable) {
         if (include(message.getQName())) {
             MessageEntry mEntry = symbolTable.getMessageEntry(message.getQName());
-            messageWriters.addStuff(new NoopGenerator(), mEntry, symbolTable);
-            return messageWriters;
+            Writers writers = messageWriters.copy();
+            writers.addStuff(new NoopGenerator(), mEntry, symbolTable);
+            return writers;
         }
         else {
             return new NoopGenerator();
@@ -249,8 +250,9 @@ public class JavaGeneratorFactory implements GeneratorFactory {
         if (include(portType.getQName())) {
             PortTypeEntry ptEntry =
                     symbolTable.getPortTypeEntry(portType.getQName());
-            portTypeWriters.addStuff(new NoopGenerator(), ptEntry, symbolTable);
-            return portTypeWriters;
+            Writers writers = portTypeWriters.copy();
+            writers.addStuff(new NoopGenerator(), ptEntry, symbolTable);
+            return writers;
         }
         else {
             return new NoopGenerator();
@@ -272,8 +274,9 @@ public class JavaGeneratorFactory implements GeneratorFactory {
             Generator writer = new JavaBindingWriter(emitter, binding,
                     symbolTable);
             BindingEntry bEntry = symbolTable.getBindingEntry(binding.getQName());
-            bindingWriters.addStuff(writer, bEntry, symbolTable);
-            return bindingWriters;
+            Writers writers = bindingWriters.copy();
+            writers.addStuff(writer, bEntry, symbolTable);
+            return writers;
         }
         else {
             return new NoopGenerator();
@@ -295,8 +298,9 @@ public class JavaGeneratorFactory implements GeneratorFactory {
             Generator writer = new JavaServiceWriter(emitter, service,
                     symbolTable);
             ServiceEntry sEntry = symbolTable.getServiceEntry(service.getQName());
-            serviceWriters.addStuff(writer, sEntry, symbolTable);
-            return serviceWriters;
+            Writers writers = serviceWriters.copy();
+            writers.addStuff(writer, sEntry, symbolTable);
+            return writers;
         }
         else {
             return new NoopGenerator();
@@ -316,8 +320,9 @@ public class JavaGeneratorFactory implements GeneratorFactory {
     public Generator getGenerator(TypeEntry type, SymbolTable symbolTable) {
         if (include(type.getQName())) {
             Generator writer = new JavaTypeWriter(emitter, type, symbolTable);
-            typeWriters.addStuff(writer, type, symbolTable);
-            return typeWriters;
+            Writers writers = typeWriters.copy();
+            writers.addStuff(writer, type, symbolTable);
+            return writers;
         }
         else {
             return new NoopGenerator();
@@ -337,8 +342,9 @@ public class JavaGeneratorFactory implements GeneratorFactory {
     public Generator getGenerator(Definition definition,
                                   SymbolTable symbolTable) {
         if (include(definition.getQName())) {
-            defWriters.addStuff(null, definition, symbolTable);
-            return defWriters;
+            Writers writers = defWriters.copy();
+            writers.addStuff(null, definition, symbolTable);
+            return writers;
         }
         else {
             return new NoopGenerator();
@@ -380,6 +386,20 @@ public class JavaGeneratorFactory implements GeneratorFactory {
             writers.add(writer);
         }    // addWriter
 
+        /**
+         * Return new Writers with a copy of the writer classes, to be given
+         * the stuff of one entry.  Each entry thus gets a generator of its
+         * own, so that the entries can be generated at the same time, and
+         * writers added later on don't change the generators handed out.
+         *
+         * @return
+         */
+        public Writers copy() {
+            Writers copy = new Writers();
+            copy.writers = new Vector(writers);
+            return copy;
+        }    // copy
+
         /**
          * Method addStuff
          *
@@ -23,8 +23,8 @@ import javax.wsdl.Definition;
 import javax.wsdl.Port;
 import javax.wsdl.Service;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.Iterator;
@@ -170,7 +170,7 @@ public class JavaUndeployWriter extends JavaWriter {
 
         parent.mkdirs();
 
-        FileOutputStream out = new FileOutputStream(file);
+        OutputStream out = openFile(file);
         OutputStreamWriter writer = new OutputStreamWriter(out, "UTF-8");
 
         return new PrintWriter(writer);
@@ -106,12 +106,15 @@ public abstract class JavaWriter implements Generator {
 
         String file = getFileName();
 
-        if (isFileGenerated(file)) {
-            throw new DuplicateFileException(
-                    Messages.getMessage("duplicateFile00", file), file);
-        }
+        // Other writers may be generating at the same time
+        synchronized (emitter.getGeneratedFileInfo()) {
+            if (isFileGenerated(file)) {
+                throw new DuplicateFileException(
+                        Messages.getMessage("duplicateFile00", file), file);
+            }
 
-        registerFile(file);
+            registerFile(file);
+        }
 
         if (emitter.isVerbose()) {
             String msg = verboseMessage(file);
@@ -191,11 +194,27 @@ public abstract class JavaWriter implements Generator {
 
         parent.mkdirs();
 
-        FileOutputStream out = new FileOutputStream(file);
+        OutputStream out = openFile(file);
         OutputStreamWriter writer = new OutputStreamWriter(out, "UTF-8");
         return new PrintWriter(writer);
     }                                // getPrintWriter
 
+    /**
+     * Open the given file for writing.  When generating incrementally, the
+     * file is only written when the stream is closed, and not at all if its
+     * content is unchanged.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    protected OutputStream openFile(File file) throws IOException {
+        if (emitter.isIncremental()) {
+            return new GeneratedFileOutputStream(file);
+        }
+        return new FileOutputStream(file);
+    }    // openFile
+
     /**
      * This method is intended to be overridden as necessary
      * to generate file header information.  This default
@@ -26,7 +26,8 @@ import java.util.Vector;
 
 /**
  * This class is essentially a HashMap of &lt;namespace, package name&gt; pairs with
- * a few extra wizzbangs.
+ * a few extra wizzbangs.  The package names are created on demand, maybe by
+ * several writers at once, so the methods used while generating are synchronized.
  */
 public class Namespaces extends HashMap {
 
@@ -114,7 +115,7 @@ public class Namespaces extends HashMap {
      * @param create 
      * @return 
      */
-    String getCreate(String key, boolean create) {
+    synchronized String getCreate(String key, boolean create) {
 
         if (defaultPackage != null) {
             put(key, defaultPackage);
@@ -140,7 +141,7 @@ public class Namespaces extends HashMap {
      * @param key 
      * @return 
      */
-    public String getAsDir(String key) {
+    public synchronized String getAsDir(String key) {
 
         if (defaultPackage != null) {
             return toDir(defaultPackage);
@@ -250,7 +251,11 @@ public class Namespaces extends HashMap {
         this.defaultPackage = defaultPackage;
     }
     
-    public Object put(Object key, Object value) {
+    public synchronized Object get(Object key) {
+        return super.get(key);
+    }
+
+    public synchronized Object put(Object key, Object value) {
         // Store pakcage->namespaces vector mapping
         Vector v = null;
         if (!pkg2NamespacesMap.containsKey(value)) {
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.wsdl.toJava;
+
+import junit.framework.TestCase;
+import org.apache.axis.utils.AccessorPropertyDescriptor;
+import org.apache.axis.utils.BeanAccessor;
+import org.apache.axis.utils.BeanPropertyDescriptor;
+import org.apache.axis.utils.BeanUtils;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test that the BeanAccessor generated for a bean compiles and is picked up
+ * by BeanUtils in place of reflection.
+ */
+public class TestBeanAccessorGeneration extends TestCase {
+    private static final String NS = "urn:accessor";
+    private static final String XSD = "http://www.w3.org/2001/XMLSchema";
+
+    private File directory;
+    private File output;
+    private File classes;
+    private File wsdl;
+
+    protected void setUp() throws Exception {
+        directory = File.createTempFile("accessor", "");
+        directory.delete();
+        output = new File(directory, "out");
+        output.mkdirs();
+        classes = new File(directory, "classes");
+        classes.mkdirs();
+        wsdl = write("test.wsdl",
+              "<definitions xmlns='http://schemas.xmlsoap.org/wsdl/'" +
+              " xmlns:soap='http://schemas.xmlsoap.org/wsdl/soap/'" +
+              " xmlns:xsd='" + XSD + "'" +
+              " xmlns:tns='" + NS + "' targetNamespace='" + NS + "'>" +
+              "<types><xsd:schema targetNamespace='" + NS + "'>" +
+              "<xsd:complexType name='Base'><xsd:sequence>" +
+              "<xsd:element name='name' type='xsd:string'/>" +
+              "</xsd:sequence></xsd:complexType>" +
+              "<xsd:complexType name='Derived'><xsd:complexContent>" +
+              "<xsd:extension base='tns:Base'><xsd:sequence>" +
+              "<xsd:element name='flag' type='xsd:boolean'/>" +
+              "<xsd:element name='count' type='xsd:int'/>" +
+              "<xsd:element name='items' type='xsd:string'" +
+              " minOccurs='0' maxOccurs='unbounded'/>" +
+              "<xsd:element name='class' type='xsd:string'/>" +
+              "</xsd:sequence></xsd:extension>" +
+              "</xsd:complexContent></xsd:complexType></xsd:schema></types>" +
+              "<message name='request'><part name='p' type='tns:Derived'/></message>" +
+              "<message name='response'/>" +
+              "<portType name='Accessor'><operation name='op'>" +
+              "<input message='tns:request'/><output message='tns:response'/>" +
+              "</operation></portType>" +
+              "<binding name='AccessorBinding' type='tns:Accessor'>" +
+              "<soap:binding style='rpc' transport='http://schemas.xmlsoap.org/soap/http'/>" +
+              "<operation name='op'><soap:operation soapAction=''/>" +
+              "<input><soap:body use='literal' namespace='" + NS + "'/></input>" +
+              "<output><soap:body use='literal' namespace='" + NS + "'/></output>" +
+              "</operation></binding>" +
+              "<service name='AccessorService'>" +
+              "<port name='AccessorPort' binding='tns:AccessorBinding'>" +
+              "<soap:address location='http://localhost/accessor'/>" +
+              "</port></service></definitions>");
+    }
+
+    protected void tearDown() throws Exception {
+        delete(directory);
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            delete(files[i]);
+        }
+        file.delete();
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(directory, name);
+        OutputStream out = new FileOutputStream(file);
+        out.write(content.getBytes("UTF-8"));
+        out.close();
+        return file;
+    }
+
+    /**
+     * Generate and compile the beans, and load them in a fresh class loader.
+     * Returns null if no system compiler is available.
+     */
+    private ClassLoader generate(boolean helper) throws Exception {
+        Emitter emitter = new Emitter();
+        emitter.setOutputDir(output.getPath());
+        emitter.setAllWanted(true);
+        emitter.setHelperWanted(helper);
+        emitter.run(wsdl.getPath());
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            return null;
+        }
+        List args = new ArrayList();
+        args.add("-nowarn");
+        args.add("-d");
+        args.add(classes.getPath());
+        args.add("-classpath");
+        args.add(System.getProperty("java.class.path"));
+        List fileNames = emitter.getGeneratedFileNames();
+        for (int i = 0; i < fileNames.size(); i++) {
+            String fileName = (String) fileNames.get(i);
+            if (fileName.endsWith(".java")) {
+                args.add(fileName);
+            }
+        }
+        assertEquals("compilation failed", 0,
+                     compiler.run(null, null, null,
+                                  (String[]) args.toArray(new String[args.size()])));
+        return new URLClassLoader(new URL[] {classes.toURI().toURL()},
+                                  getClass().getClassLoader());
+    }
+
+    private static BeanPropertyDescriptor accessorPD(BeanPropertyDescriptor[] pd,
+                                                     String name) {
+        BeanPropertyDescriptor result = BeanUtils.getSpecificPD(pd, name);
+        assertNotNull("no " + name + " property", result);
+        assertTrue(name + " is not read through the accessor",
+                   result instanceof AccessorPropertyDescriptor);
+        return result;
+    }
+
+    private void checkAccessors(boolean helper) throws Exception {
+        ClassLoader loader = generate(helper);
+        if (loader == null) {
+            return;
+        }
+        // _Helper classes are looked up through the context class loader
+        Thread thread = Thread.currentThread();
+        ClassLoader contextLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(loader);
+        try {
+            checkBeans(loader);
+        } finally {
+            thread.setContextClassLoader(contextLoader);
+        }
+    }
+
+    private void checkBeans(ClassLoader loader) throws Exception {
+        Class base = loader.loadClass("accessor.Base");
+        Class derived = loader.loadClass("accessor.Derived");
+        assertNotNull(BeanUtils.getBeanAccessor(base));
+        BeanAccessor accessor = BeanUtils.getBeanAccessor(derived);
+        assertNotNull(accessor);
+        assertEquals(-1, accessor.getPropertyIndex("name"));
+
+        BeanPropertyDescriptor[] pd = BeanUtils.getPd(derived);
+        Object bean = derived.newInstance();
+
+        // inherited, through the accessor of the base class
+        BeanPropertyDescriptor name = accessorPD(pd, "name");
+        name.set(bean, "inherited");
+        assertEquals("inherited", name.get(bean));
+        assertEquals("inherited",
+                     base.getMethod("getName", (Class[]) null)
+                         .invoke(bean, (Object[]) null));
+
+        // boolean, read through isFlag()
+        BeanPropertyDescriptor flag = accessorPD(pd, "flag");
+        flag.set(bean, Boolean.TRUE);
+        assertEquals(Boolean.TRUE, flag.get(bean));
+        assertEquals(Boolean.TRUE,
+                     derived.getMethod("isFlag", (Class[]) null)
+                         .invoke(bean, (Object[]) null));
+
+        BeanPropertyDescriptor count = accessorPD(pd, "count");
+        count.set(bean, new Integer(42));
+        assertEquals(new Integer(42), count.get(bean));
+
+        // array, with indexed access still going through reflection
+        BeanPropertyDescriptor items = accessorPD(pd, "items");
+        items.set(bean, new String[] {"a", "b"});
+        Object value = items.get(bean);
+        assertEquals(2, Array.getLength(value));
+        assertEquals("b", items.get(bean, 1));
+
+        // a property named after a Java keyword
+        BeanPropertyDescriptor clazz = accessorPD(pd, "_class");
+        clazz.set(bean, "keyword");
+        assertEquals("keyword", clazz.get(bean));
+        assertEquals("keyword",
+                     derived.getMethod("get_class", (Class[]) null)
+                         .invoke(bean, (Object[]) null));
+    }
+
+    public void testBeanAccessor() throws Exception {
+        checkAccessors(false);
+    }
+
+    public void testHelperAccessor() throws Exception {
+        checkAccessors(true);
+    }
+}
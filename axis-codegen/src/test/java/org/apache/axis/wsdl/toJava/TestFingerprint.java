@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.wsdl.toJava;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Properties;
+
+public class TestFingerprint extends TestCase {
+    private File directory;
+    private File wsdl;
+    private File schema;
+    private File generated;
+    private Properties options;
+    private GeneratedFileInfo fileInfo;
+
+    protected void setUp() throws Exception {
+        directory = File.createTempFile("fingerprint", "");
+        directory.delete();
+        directory.mkdirs();
+        wsdl = write("test.wsdl", "<definitions/>");
+        schema = write("test.xsd", "<schema/>");
+        generated = write("Test.java", "class Test {}");
+        options = new Properties();
+        options.setProperty("serverSide", "false");
+        fileInfo = new GeneratedFileInfo();
+        fileInfo.add(generated.getPath(), "Test", "interface");
+    }
+
+    protected void tearDown() throws Exception {
+        File[] files = directory.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            files[i].delete();
+        }
+        directory.delete();
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(directory, name);
+        OutputStream out = new FileOutputStream(file);
+        out.write(content.getBytes("UTF-8"));
+        out.close();
+        return file;
+    }
+
+    private Fingerprint saveAndLoad() throws IOException {
+        File file = Fingerprint.getFile(directory.getPath(), wsdl.getPath());
+        Fingerprint.make(wsdl.getPath(),
+                Collections.singleton(schema.toURI().toString()),
+                null, options, fileInfo).save(file);
+        return Fingerprint.load(file);
+    }
+
+    public void testCurrent() throws Exception {
+        Fingerprint fingerprint = saveAndLoad();
+        assertNotNull(fingerprint);
+        assertTrue(fingerprint.isCurrent(wsdl.getPath(), null, options));
+        assertFalse(fingerprint.isCurrent(schema.getPath(), null, options));
+    }
+
+    public void testNoFingerprint() throws Exception {
+        assertNull(Fingerprint.load(new File(directory, "none.properties")));
+    }
+
+    public void testChangedInput() throws Exception {
+        Fingerprint fingerprint = saveAndLoad();
+        write("test.xsd", "<schema><element name='e'/></schema>");
+        assertFalse(fingerprint.isCurrent(wsdl.getPath(), null, options));
+
+        fingerprint = saveAndLoad();
+        write("test.wsdl", "<definitions name='d'/>");
+        assertFalse(fingerprint.isCurrent(wsdl.getPath(), null, options));
+    }
+
+    public void testChangedOptions() throws Exception {
+        Fingerprint fingerprint = saveAndLoad();
+        Properties changed = new Properties();
+        changed.setProperty("serverSide", "true");
+        assertFalse(fingerprint.isCurrent(wsdl.getPath(), null, changed));
+        changed.setProperty("serverSide", "false");
+        changed.setProperty("skeleton", "false");
+        assertFalse(fingerprint.isCurrent(wsdl.getPath(), null, changed));
+        assertFalse(fingerprint.isCurrent(wsdl.getPath(), null, new Properties()));
+    }
+
+    public void testGeneratedFileGone() throws Exception {
+        Fingerprint fingerprint = saveAndLoad();
+        generated.delete();
+        assertFalse(fingerprint.isCurrent(wsdl.getPath(), null, options));
+    }
+
+    public void testRestore() throws Exception {
+        GeneratedFileInfo restored = new GeneratedFileInfo();
+        saveAndLoad().restore(restored);
+        assertEquals(1, restored.getList().size());
+        GeneratedFileInfo.Entry entry =
+                (GeneratedFileInfo.Entry) restored.getList().get(0);
+        assertEquals(generated.getPath(), entry.fileName);
+        assertEquals("Test", entry.className);
+        assertEquals("interface", entry.type);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.wsdl.toJava;
+
+import junit.framework.TestCase;
+import org.apache.axis.utils.IOUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+public class TestGeneratedFileOutputStream extends TestCase {
+    private File file;
+
+    protected void setUp() throws Exception {
+        file = File.createTempFile("generated", ".java");
+        file.delete();
+    }
+
+    protected void tearDown() throws Exception {
+        file.delete();
+    }
+
+    private void write(String content) throws IOException {
+        OutputStream out = new GeneratedFileOutputStream(file);
+        out.write(content.getBytes("UTF-8"));
+        out.close();
+    }
+
+    private String read() throws IOException {
+        return new String(IOUtils.readFully(new FileInputStream(file)), "UTF-8");
+    }
+
+    public void testNewFile() throws Exception {
+        OutputStream out = new GeneratedFileOutputStream(file);
+        out.write("class A {}".getBytes("UTF-8"));
+        assertFalse("written before closed", file.exists());
+        out.close();
+        assertEquals("class A {}", read());
+    }
+
+    /**
+     * A file with the same content is not written again, and keeps its
+     * timestamp.
+     */
+    public void testUnchangedFile() throws Exception {
+        write("class A {}");
+        long lastModified = file.lastModified() - 10000;
+        file.setLastModified(lastModified);
+        write("class A {}");
+        assertEquals(lastModified, file.lastModified());
+    }
+
+    public void testChangedFile() throws Exception {
+        write("class A {}");
+        long lastModified = file.lastModified() - 10000;
+        file.setLastModified(lastModified);
+
+        // same length, other content
+        write("class B {}");
+        assertEquals("class B {}", read());
+        assertTrue(file.lastModified() != lastModified);
+
+        write("class B extends A {}");
+        assertEquals("class B extends A {}", read());
+    }
+}
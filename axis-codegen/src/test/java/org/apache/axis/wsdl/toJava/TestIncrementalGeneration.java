@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.wsdl.toJava;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Test that an incremental run of the emitter generates nothing when the
+ * documents and options are unchanged, and again when they have changed.
+ */
+public class TestIncrementalGeneration extends TestCase {
+    private static final String NS = "urn:incremental";
+    private static final String XSD = "http://www.w3.org/2001/XMLSchema";
+
+    private File directory;
+    private File output;
+    private File wsdl;
+
+    protected void setUp() throws Exception {
+        directory = File.createTempFile("incremental", "");
+        directory.delete();
+        output = new File(directory, "out");
+        output.mkdirs();
+        writeSchema("<xsd:complexType name='Imported'><xsd:sequence>" +
+                    "<xsd:element name='v' type='xsd:int'/>" +
+                    "</xsd:sequence></xsd:complexType>");
+        wsdl = write("test.wsdl",
+              "<definitions xmlns='http://schemas.xmlsoap.org/wsdl/'" +
+              " xmlns:soap='http://schemas.xmlsoap.org/wsdl/soap/'" +
+              " xmlns:xsd='" + XSD + "'" +
+              " xmlns:tns='" + NS + "' targetNamespace='" + NS + "'>" +
+              "<types><xsd:schema targetNamespace='" + NS + "'>" +
+              "<xsd:import namespace='" + NS + ":imported'" +
+              " schemaLocation='imported.xsd'/>" +
+              "<xsd:complexType name='Local'><xsd:sequence>" +
+              "<xsd:element name='v' type='xsd:string'/>" +
+              "</xsd:sequence></xsd:complexType></xsd:schema></types>" +
+              "<message name='request'><part name='p' type='tns:Local'/></message>" +
+              "<message name='response'/>" +
+              "<portType name='Incremental'><operation name='op'>" +
+              "<input message='tns:request'/><output message='tns:response'/>" +
+              "</operation></portType>" +
+              "<binding name='IncrementalBinding' type='tns:Incremental'>" +
+              "<soap:binding style='rpc' transport='http://schemas.xmlsoap.org/soap/http'/>" +
+              "<operation name='op'><soap:operation soapAction=''/>" +
+              "<input><soap:body use='literal' namespace='" + NS + "'/></input>" +
+              "<output><soap:body use='literal' namespace='" + NS + "'/></output>" +
+              "</operation></binding>" +
+              "<service name='IncrementalService'>" +
+              "<port name='IncrementalPort' binding='tns:IncrementalBinding'>" +
+              "<soap:address location='http://localhost/incremental'/>" +
+              "</port></service></definitions>");
+    }
+
+    protected void tearDown() throws Exception {
+        delete(directory);
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            delete(files[i]);
+        }
+        file.delete();
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(directory, name);
+        OutputStream out = new FileOutputStream(file);
+        out.write(content.getBytes("UTF-8"));
+        out.close();
+        return file;
+    }
+
+    private void writeSchema(String types) throws IOException {
+        write("imported.xsd",
+              "<xsd:schema xmlns:xsd='" + XSD + "'" +
+              " targetNamespace='" + NS + ":imported'>" + types +
+              "</xsd:schema>");
+    }
+
+    private Emitter run(boolean helper) throws Exception {
+        Emitter emitter = new Emitter();
+        emitter.setOutputDir(output.getPath());
+        emitter.setIncremental(true);
+        emitter.setAllWanted(true);
+        emitter.setHelperWanted(helper);
+        emitter.run(wsdl.getPath());
+        return emitter;
+    }
+
+    private File generatedFile(List fileNames, String suffix) {
+        for (int i = 0; i < fileNames.size(); i++) {
+            String fileName = (String) fileNames.get(i);
+            if (fileName.endsWith(suffix)) {
+                return new File(fileName);
+            }
+        }
+        fail("No " + suffix + " in " + fileNames);
+        return null;
+    }
+
+    public void testUpToDate() throws Exception {
+        Emitter first = run(false);
+        assertNotNull(first.getSymbolTable());
+        List fileNames = first.getGeneratedFileNames();
+        assertFalse(fileNames.isEmpty());
+
+        // nothing parsed, but the file info is restored
+        Emitter second = run(false);
+        assertNull("generated again", second.getSymbolTable());
+        assertEquals(fileNames, second.getGeneratedFileNames());
+        assertEquals(first.getGeneratedFileInfo().getList().toString(),
+                     second.getGeneratedFileInfo().getList().toString());
+    }
+
+    public void testChangedImport() throws Exception {
+        run(false);
+        writeSchema("<xsd:complexType name='Imported'><xsd:sequence>" +
+                    "<xsd:element name='v' type='xsd:int'/>" +
+                    "</xsd:sequence></xsd:complexType>" +
+                    "<xsd:complexType name='Added'/>");
+        Emitter emitter = run(false);
+        assertNotNull("not generated again", emitter.getSymbolTable());
+        generatedFile(emitter.getGeneratedFileNames(), "Added.java");
+    }
+
+    public void testChangedOption() throws Exception {
+        List fileNames = run(false).getGeneratedFileNames();
+
+        // Files whose content didn't change keep their timestamps
+        File local = generatedFile(fileNames, "Local.java");
+        File locator = generatedFile(fileNames, "IncrementalServiceLocator.java");
+        long lastModified = locator.lastModified() - 10000;
+        locator.setLastModified(lastModified);
+
+        Emitter emitter = run(true);
+        assertNotNull("not generated again", emitter.getSymbolTable());
+        generatedFile(emitter.getGeneratedFileNames(), "Local_Helper.java");
+        assertEquals(lastModified, locator.lastModified());
+        assertTrue(local.isFile());
+    }
+}
@@ -70,11 +70,39 @@ public abstract class AxisEngine extends BasicHandler
     public static final String PROP_TWOD_ARRAY_ENCODING = "enable2DArrayEncoding";
     public static final String PROP_XML_ENCODING = "axis.xmlEncoding";
     public static final String PROP_XML_REUSE_SAX_PARSERS = "axis.xml.reuseParsers";
+    public static final String PROP_XML_SAX_PARSER_POOL_SIZE = "axis.xml.parserPoolSize";
     public static final String PROP_BYTE_BUFFER_BACKING = "axis.byteBuffer.backing";
     public static final String PROP_BYTE_BUFFER_CACHE_INCREMENT = "axis.byteBuffer.cacheIncrement";
     public static final String PROP_BYTE_BUFFER_RESIDENT_MAX_SIZE = "axis.byteBuffer.residentMaxSize";
     public static final String PROP_BYTE_BUFFER_WORK_BUFFER_SIZE = "axis.byteBuffer.workBufferSize";
     public static final String PROP_EMIT_ALL_TYPES = "emitAllTypesInWSDL";
+    /**
+     * Set this option to 'true' to record SAX events with the
+     * allocation-light {@link org.apache.axis.message.CompactSAX2EventRecorder}.
+     */
+    public static final String PROP_COMPACT_EVENT_RECORDER = "compactEventRecorder";
+    /**
+     * Set this option to 'true' to deserialize RPC parameters straight from
+     * the parser without recording them, when the operation can be resolved
+     * from the body element or the SOAPAction.  Unlike a streaming service,
+     * the rest of the envelope, e.g. the headers, is still recorded.  Don't
+     * use it with handlers that need the original XML of the body.
+     */
+    public static final String PROP_STREAMING_DESERIALIZATION = "streamingDeserialization";
+    /**
+     * Set this option to 'true' to generate the WSDL of every service on
+     * every ?wsdl request, even of the services which ask for their WSDL to
+     * be cached until they are redeployed.
+     *
+     * @see org.apache.axis.transport.http.QSWSDLHandler#OPTION_CACHE_WSDL
+     */
+    public static final String PROP_DISABLE_WSDL_CACHE = "disableWSDLCache";
+    /**
+     * Set this option to 'true' to write UTF-8 messages to a stream through
+     * an <code>OutputStreamWriter</code> instead of encoding them straight
+     * into bytes with {@link org.apache.axis.components.encoding.UTF8ByteWriter}.
+     */
+    public static final String PROP_DISABLE_BYTE_WRITER = "disableByteWriter";
     /**
      * Set this property to 'true' when you want Axis to avoid soap encoded
      * types to work around a .NET problem where it wont accept soap encoded
@@ -83,6 +111,16 @@ public abstract class AxisEngine extends BasicHandler
     public static final String PROP_DOTNET_SOAPENC_FIX = "dotNetSoapEncFix";
     /** Compliance with WS-I Basic Profile. */
     public static final String PROP_BP10_COMPLIANCE = "ws-i.bp10Compliance";
+    /**
+     * Set this option to 'true' to have the transports reuse the message
+     * context of a request, and the objects it holds on to, for the next
+     * request on the same thread.  Only use it if no handler or service
+     * keeps a reference to the context, or to its messages, after the
+     * request is done.
+     *
+     * @see MessageContext#obtain
+     */
+    public static final String PROP_RECYCLE_MESSAGE_CONTEXTS = "recycleMessageContexts";
 
     public static final String DEFAULT_ATTACHMENT_IMPL="org.apache.axis.attachments.AttachmentsImpl";
 
@@ -121,6 +159,10 @@ public abstract class AxisEngine extends BasicHandler
      */
     private ArrayList actorURIs = new ArrayList();
 
+    /** The options read for every request; null when out of date */
+    private volatile EngineOptions optionsSnapshot = null;
+    private final Object optionsSnapshotLock = new Object();
+
     /**
      * Thread local storage used for locating the active message context.
      * This information is only valid for the lifetime of this request.
@@ -191,6 +233,8 @@ public abstract class AxisEngine extends BasicHandler
             TypeMappingImpl.dotnet_soapenc_bugfix = true;
         }
 
+        invalidateOptionsSnapshot();
+
         if (log.isDebugEnabled()) {
             log.debug("Exit: AxisEngine::init");
         }
@@ -219,6 +263,10 @@ public abstract class AxisEngine extends BasicHandler
                 session.remove(key);
             }
         }
+
+        // The threads of the container may outlive us, so they must not
+        // keep the contexts they recycled.
+        MessageContext.discardRecycled();
     }
 
     /** Write out our engine configuration.
@@ -485,6 +533,42 @@ public abstract class AxisEngine extends BasicHandler
         }
     }
 
+    public void setOption(String name, Object value) {
+        super.setOption(name, value);
+        invalidateOptionsSnapshot();
+    }
+
+    public void setOptions(Hashtable opts) {
+        super.setOptions(opts);
+        invalidateOptionsSnapshot();
+    }
+
+    /**
+     * Get the options of this engine which are read for every request.
+     *
+     * @return an immutable copy of those options as they are now
+     */
+    public EngineOptions getOptionsSnapshot() {
+        EngineOptions snapshot = optionsSnapshot;
+        if (snapshot == null) {
+            synchronized (optionsSnapshotLock) {
+                if (optionsSnapshot == null) {
+                    optionsSnapshot = new EngineOptions(this);
+                }
+                snapshot = optionsSnapshot;
+            }
+        }
+        return snapshot;
+    }
+
+    private void invalidateOptionsSnapshot() {
+        // under the lock, so that a snapshot taken while the options were
+        // being changed can't be published after this
+        synchronized (optionsSnapshotLock) {
+            optionsSnapshot = null;
+        }
+    }
+
     /**
      * (Re-)load the global options from the registry.
      *
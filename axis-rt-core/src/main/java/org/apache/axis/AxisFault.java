@@ -72,6 +72,26 @@ public class AxisFault extends java.rmi.RemoteException {
     protected Vector    faultDetails ;  // vector of Element's
     protected String    faultNode ;
 
+    /*
+     * The exception name, stack trace and hostname details which a fault
+     * gets when it is made are only turned into elements when the details
+     * are asked for, as making them, the stack trace in particular, is
+     * expensive and they are often stripped or never sent.  Until then
+     * they are not in faultDetails, but come before everything that is.
+     */
+    /** The class name for the exception name detail, or null */
+    private String      pendingExceptionName;
+    /** The exception for the stack trace detail, or null */
+    private Throwable   pendingStackTrace;
+    /** Whether the hostname detail is still to be added */
+    private boolean     pendingHostname;
+
+    /**
+     * Set while a lightweight fault is being made; the stack trace is
+     * captured by the Throwable constructor, before the fault can tell.
+     */
+    private static final ThreadLocal makingLightweight = new ThreadLocal();
+
     /** SOAP headers which should be serialized with the Fault. */
     protected ArrayList faultHeaders = null;
 
@@ -101,6 +121,40 @@ public class AxisFault extends java.rmi.RemoteException {
         return new AxisFault(e);
     }
 
+    /**
+     * Make an AxisFault for an expected exception, such as a business
+     * fault declared in the <code>FaultDesc</code>s of an operation.  It
+     * is the same as {@link #makeFault}, except that the fault has no
+     * stack trace in its details, and when the exception is wrapped, the
+     * wrapping fault doesn't capture a stack trace of its own.
+     *
+     * @param e the <code>Exception</code> to build a fault for
+     * @return  an <code>AxisFault</code> representing <code>e</code>
+     */
+    public static AxisFault makeLightweightFault(Exception e)
+    {
+        if (e instanceof InvocationTargetException) {
+            Throwable t = ((InvocationTargetException)e).getTargetException();
+            if (t instanceof Exception) {
+                e = (Exception)t;
+            }
+        }
+
+        AxisFault fault;
+        if (e instanceof AxisFault) {
+            fault = (AxisFault)e;
+        } else {
+            makingLightweight.set(Boolean.TRUE);
+            try {
+                fault = new AxisFault(e);
+            } finally {
+                makingLightweight.set(null);
+            }
+        }
+        fault.removeFaultDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE);
+        return fault;
+    }
+
     /**
      * Make a fault in the <code>Constants.NS_URI_AXIS</code> namespace.
      *
@@ -227,7 +281,7 @@ public class AxisFault extends java.rmi.RemoteException {
         super (message, t);
         setFaultCodeAsString(Constants.FAULT_SERVER_GENERAL);
         setFaultString(getMessage());
-        addHostnameIfNeeded();
+        pendingHostname = true;
     }
 
     /**
@@ -240,8 +294,8 @@ public class AxisFault extends java.rmi.RemoteException {
     private void initFromException(Exception target)
     {
         //look for old stack trace
-        Element oldStackTrace = lookupFaultDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE);
-        if (oldStackTrace != null) {
+        if (pendingStackTrace != null ||
+            lookupFaultDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE) != null) {
             // todo: Should we replace it or just let it be?
             return;
         }
@@ -258,26 +312,75 @@ public class AxisFault extends java.rmi.RemoteException {
         // and the other side uses *that* QName to figure out what exception
         // to use, because the class name may be completly different on the
         // client.
+        // The details are made by materializeDetails(), if they are
+        // needed at all; this is only called by the constructors, before
+        // any other details are added.
         if ((target instanceof AxisFault) &&
             (target.getClass() != AxisFault.class)) {
-          addFaultDetail(Constants.QNAME_FAULTDETAIL_EXCEPTIONNAME,
-                    target.getClass().getName());
+            pendingExceptionName = target.getClass().getName();
+        }
+
+        //add stack trace, unless it is an expected fault
+        if (makingLightweight.get() == null) {
+            pendingStackTrace = target;
+        }
+
+        //add the hostname
+        if (lookupFaultDetail(Constants.QNAME_FAULTDETAIL_HOSTNAME) == null) {
+            pendingHostname = true;
         }
+    }
 
-        //add stack trace
-        if (target == this) {
+    /**
+     * Turn the details which were left until they are needed into
+     * elements, in front of the other details.
+     */
+    private void materializeDetails() {
+        String exceptionName = pendingExceptionName;
+        Throwable stackTrace = pendingStackTrace;
+        boolean hostname = pendingHostname;
+        if (exceptionName == null && stackTrace == null && !hostname) {
+            return;
+        }
+        pendingExceptionName = null;
+        pendingStackTrace = null;
+        pendingHostname = false;
+
+        Vector details = new Vector();
+        if (exceptionName != null) {
+            details.add(makeDetail(Constants.QNAME_FAULTDETAIL_EXCEPTIONNAME,
+                                   exceptionName));
+        }
+        if (stackTrace == this) {
             // only add stack trace. JavaUtils.stackToString() call would
             // include dumpToString() info which is already sent as different
             // elements of this fault.
-            addFaultDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE,
-                           getPlainStackTrace());
-        } else {
-            addFaultDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE,
-                           JavaUtils.stackToString(target));
+            details.add(makeDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE,
+                                   getPlainStackTrace()));
+        } else if (stackTrace != null) {
+            details.add(makeDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE,
+                                   JavaUtils.stackToString(stackTrace)));
+        }
+        if (hostname) {
+            details.add(makeDetail(Constants.QNAME_FAULTDETAIL_HOSTNAME,
+                                   NetworkUtils.getLocalHostname()));
+        }
+        if (faultDetails != null) {
+            details.addAll(faultDetails);
         }
+        faultDetails = details;
+    }
 
-        //add the hostname
-        addHostnameIfNeeded();
+    /**
+     * Tell whether a detail is one which has not been made yet.
+     */
+    private boolean isPendingDetail(QName qname) {
+        return (pendingExceptionName != null &&
+                    qname.equals(Constants.QNAME_FAULTDETAIL_EXCEPTIONNAME))
+            || (pendingStackTrace != null &&
+                    qname.equals(Constants.QNAME_FAULTDETAIL_STACKTRACE))
+            || (pendingHostname &&
+                    qname.equals(Constants.QNAME_FAULTDETAIL_HOSTNAME));
     }
     
     /**
@@ -331,6 +434,9 @@ public class AxisFault extends java.rmi.RemoteException {
      */
     public void clearFaultDetails() {
         faultDetails=null;
+        pendingExceptionName = null;
+        pendingStackTrace = null;
+        pendingHostname = false;
     }
 
     /**
@@ -376,6 +482,7 @@ public class AxisFault extends java.rmi.RemoteException {
         buf.append(XMLUtils.xmlEncodeString(faultNode));
         buf.append(JavaUtils.LS);
         buf.append(" faultDetail: ");
+        materializeDetails();
         if (faultDetails != null) {
             for (int i=0; i < faultDetails.size(); i++) {
                 Element e = (Element) faultDetails.get(i);
@@ -600,8 +707,8 @@ public class AxisFault extends java.rmi.RemoteException {
      * @param details list of detail elements, can be null
      */
     public void setFaultDetail(Element[] details) {
+        clearFaultDetails();
         if ( details == null ) {
-            faultDetails=null;
             return ;
         }
         faultDetails = new Vector( details.length );
@@ -655,11 +762,13 @@ public class AxisFault extends java.rmi.RemoteException {
      * @param body string to use as body
      */
     public void addFaultDetail(QName qname,String body) {
-        Element detail = XMLUtils.StringToElement(qname.getNamespaceURI(),
+        addFaultDetail(makeDetail(qname, body));
+    }
+
+    private static Element makeDetail(QName qname, String body) {
+        return XMLUtils.StringToElement(qname.getNamespaceURI(),
                 qname.getLocalPart(),
                 body);
-
-        addFaultDetail(detail);
     }
 
     // fixme: should we be returning null for none or a zero length array?
@@ -669,6 +778,7 @@ public class AxisFault extends java.rmi.RemoteException {
      * @return an array of fault details, or null for none
      */
     public Element[] getFaultDetails() {
+        materializeDetails();
         if (faultDetails == null) {
             return null;
         }
@@ -686,6 +796,9 @@ public class AxisFault extends java.rmi.RemoteException {
      * @since axis1.1
      */
     public Element lookupFaultDetail(QName qname) {
+        if (isPendingDetail(qname)) {
+            materializeDetails();
+        }
         if (faultDetails != null) {
             //extract details from the qname. the empty namespace is represented
             //by the empty string
@@ -722,6 +835,22 @@ public class AxisFault extends java.rmi.RemoteException {
      * @since axis1.1
      */
     public boolean removeFaultDetail(QName qname) {
+        // no need to make a detail just to throw it away
+        if (pendingExceptionName != null &&
+                qname.equals(Constants.QNAME_FAULTDETAIL_EXCEPTIONNAME)) {
+            pendingExceptionName = null;
+            return true;
+        }
+        if (pendingStackTrace != null &&
+                qname.equals(Constants.QNAME_FAULTDETAIL_STACKTRACE)) {
+            pendingStackTrace = null;
+            return true;
+        }
+        if (pendingHostname &&
+                qname.equals(Constants.QNAME_FAULTDETAIL_HOSTNAME)) {
+            pendingHostname = false;
+            return true;
+        }
         Element elt=lookupFaultDetail(qname);
         if(elt==null) {
             return false;
@@ -768,6 +897,17 @@ public class AxisFault extends java.rmi.RemoteException {
         return faultString;
     }
 
+    /**
+     * Skips capturing the stack trace while a lightweight fault is being
+     * made; see {@link #makeLightweightFault}.
+     */
+    public synchronized Throwable fillInStackTrace() {
+        if (makingLightweight.get() != null) {
+            return this;
+        }
+        return super.fillInStackTrace();
+    }
+
     /**
      * Gets the stack trace as a string.
      */
@@ -874,7 +1014,8 @@ public class AxisFault extends java.rmi.RemoteException {
      */
     public void addHostnameIfNeeded() {
         //look for an existing declaration
-        if(lookupFaultDetail(Constants.QNAME_FAULTDETAIL_HOSTNAME)!=null) {
+        if(pendingHostname ||
+           lookupFaultDetail(Constants.QNAME_FAULTDETAIL_HOSTNAME)!=null) {
             //and do nothing if it exists
             return;
         }
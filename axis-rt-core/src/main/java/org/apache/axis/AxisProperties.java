@@ -219,6 +219,27 @@ public class AxisProperties {
         return ManagedProperties.getProperty(propertyName, dephault);
     }
 
+    /**
+     * Get the number a property bound to the current thread context class
+     * loader is set to.  A value which is not a number is warned about.
+     *
+     * @param propertyName property name.
+     * @param dephault default value.
+     * @return property value if found and a number, otherwise default.
+     */
+    public static long getLongProperty(String propertyName, long dephault) {
+        String value = getProperty(propertyName);
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn(Messages.getMessage("badIntProperty00",
+                                             propertyName, value));
+            }
+        }
+        return dephault;
+    }
+
     /**
      * Set value for property bound to the current thread context class loader.
      * @param propertyName property name
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis;
+
+import org.apache.axis.soap.SOAPConstants;
+import org.apache.axis.utils.JavaUtils;
+
+/**
+ * An immutable copy of the options of an {@link AxisEngine} which are
+ * looked at for every request, so that they don't have to be read out of
+ * the synchronized option table each time.
+ * <p>
+ * The engine makes a new snapshot whenever its options are set through
+ * {@link AxisEngine#setOption} or {@link AxisEngine#setOptions}, or the
+ * engine is initialized.  Changes made straight to the table returned by
+ * {@link AxisEngine#getOptions} are not seen until then.
+ *
+ * @see AxisEngine#getOptionsSnapshot
+ */
+public final class EngineOptions {
+    private final String attachmentsDir;
+    private final SOAPConstants soapConstants;
+    private final SOAPConstants singleSOAPVersion;
+    private final boolean compactEventRecorder;
+    private final boolean streamingDeserialization;
+    private final String xmlEncoding;
+    private final boolean recycleMessageContexts;
+
+    EngineOptions(AxisEngine engine) {
+        attachmentsDir =
+                (String) engine.getOption(AxisEngine.PROP_ATTACHMENT_DIR);
+
+        if ("1.2".equals(engine.getOption(AxisEngine.PROP_SOAP_VERSION))) {
+            soapConstants = SOAPConstants.SOAP12_CONSTANTS;
+        } else {
+            soapConstants = Constants.DEFAULT_SOAP_VERSION;
+        }
+
+        Object single = engine.getOption(AxisEngine.PROP_SOAP_ALLOWED_VERSION);
+        if ("1.2".equals(single)) {
+            singleSOAPVersion = SOAPConstants.SOAP12_CONSTANTS;
+        } else if ("1.1".equals(single)) {
+            singleSOAPVersion = SOAPConstants.SOAP11_CONSTANTS;
+        } else {
+            singleSOAPVersion = null;
+        }
+
+        compactEventRecorder = JavaUtils.isTrueExplicitly(
+                engine.getOption(AxisEngine.PROP_COMPACT_EVENT_RECORDER));
+        streamingDeserialization = JavaUtils.isTrueExplicitly(
+                engine.getOption(AxisEngine.PROP_STREAMING_DESERIALIZATION));
+        xmlEncoding = (String) engine.getOption(AxisEngine.PROP_XML_ENCODING);
+        recycleMessageContexts = JavaUtils.isTrueExplicitly(
+                engine.getOption(AxisEngine.PROP_RECYCLE_MESSAGE_CONTEXTS));
+    }
+
+    /**
+     * The directory to store attachments in.
+     *
+     * @return the {@link AxisEngine#PROP_ATTACHMENT_DIR} option, or null
+     */
+    public String getAttachmentsDir() {
+        return attachmentsDir;
+    }
+
+    /**
+     * The SOAP version new message contexts start with.
+     *
+     * @return SOAP 1.2 if the {@link AxisEngine#PROP_SOAP_VERSION} option
+     *         is "1.2", the default version otherwise
+     */
+    public SOAPConstants getSOAPConstants() {
+        return soapConstants;
+    }
+
+    /**
+     * The only SOAP version which is accepted.
+     *
+     * @return the version given by the
+     *         {@link AxisEngine#PROP_SOAP_ALLOWED_VERSION} option, or null
+     *         if both are accepted
+     */
+    public SOAPConstants getSingleSOAPVersion() {
+        return singleSOAPVersion;
+    }
+
+    /**
+     * @return the {@link AxisEngine#PROP_COMPACT_EVENT_RECORDER} option
+     */
+    public boolean isCompactEventRecorder() {
+        return compactEventRecorder;
+    }
+
+    /**
+     * @return the {@link AxisEngine#PROP_STREAMING_DESERIALIZATION} option
+     */
+    public boolean isStreamingDeserialization() {
+        return streamingDeserialization;
+    }
+
+    /**
+     * @return the {@link AxisEngine#PROP_XML_ENCODING} option, or null
+     */
+    public String getXMLEncoding() {
+        return xmlEncoding;
+    }
+
+    /**
+     * @return the {@link AxisEngine#PROP_RECYCLE_MESSAGE_CONTEXTS} option
+     */
+    public boolean isRecycleMessageContexts() {
+        return recycleMessageContexts;
+    }
+}
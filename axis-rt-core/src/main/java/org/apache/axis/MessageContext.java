@@ -26,12 +26,16 @@ import org.apache.axis.encoding.TypeMappingRegistry;
 import org.apache.axis.constants.Style;
 import org.apache.axis.constants.Use;
 import org.apache.axis.handlers.soap.SOAPService;
+import org.apache.axis.message.CompactSAX2EventRecorder;
+import org.apache.axis.message.SAX2EventRecorder;
 import org.apache.axis.schema.SchemaVersion;
 import org.apache.axis.session.Session;
 import org.apache.axis.soap.SOAPConstants;
+import org.apache.axis.statistics.RequestTimer;
 import org.apache.axis.utils.JavaUtils;
 import org.apache.axis.utils.LockableHashtable;
 import org.apache.axis.utils.Messages;
+import org.apache.axis.utils.NSStack;
 import org.apache.commons.logging.Log;
 
 import javax.xml.namespace.QName;
@@ -40,6 +44,9 @@ import javax.xml.rpc.handler.soap.SOAPMessageContext;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 // fixme: fields are declared throughout this class, some at the top, and some
 //  near to where they are used. We should move all field declarations into a
@@ -180,6 +187,31 @@ public class MessageContext implements SOAPMessageContext {
     /** Our current operation. */
     private OperationDesc currentOperation = null;
 
+    /** Times this request, if statistics are collected. */
+    private RequestTimer requestTimer = null;
+
+    /**
+     * The timer of this request.
+     *
+     * @return the <code>RequestTimer</code>, or <code>null</code> if this
+     *         request is not being timed
+     */
+    public RequestTimer getRequestTimer()
+    {
+        return requestTimer;
+    }
+
+    /**
+     * Set the timer of this request.
+     *
+     * @param requestTimer  the <code>RequestTimer</code>
+     * @see RequestTimer#start
+     */
+    public void setRequestTimer(RequestTimer requestTimer)
+    {
+        this.requestTimer = requestTimer;
+    }
+
     /**
      * The current operation.
      *
@@ -339,13 +371,16 @@ public class MessageContext implements SOAPMessageContext {
      */
     public MessageContext(AxisEngine engine) {
         this.axisEngine = engine;
+        applyEngineOptions();
+    }
 
-        if(null != engine){
-            java.util.Hashtable opts= engine.getOptions();
-            String attachmentsdir= null;
-            if(null!=opts) {
-                attachmentsdir= (String) opts.get(AxisEngine.PROP_ATTACHMENT_DIR);
-            }
+    /**
+     * Set up the properties which come from the options of the engine.
+     */
+    private void applyEngineOptions() {
+        if (null != axisEngine) {
+            EngineOptions options = axisEngine.getOptionsSnapshot();
+            String attachmentsdir = options.getAttachmentsDir();
             if(null == attachmentsdir) {
                 attachmentsdir= systemTempDir;
             }
@@ -355,26 +390,211 @@ public class MessageContext implements SOAPMessageContext {
 
             // If SOAP 1.2 has been specified as the default for the engine,
             // switch the constants over.
-            String defaultSOAPVersion = (String)engine.getOption(
-                                                 AxisEngine.PROP_SOAP_VERSION);
-            if (defaultSOAPVersion != null && "1.2".equals(defaultSOAPVersion)) {
-                setSOAPConstants(SOAPConstants.SOAP12_CONSTANTS);
+            if (options.getSOAPConstants() != soapConstants) {
+                setSOAPConstants(options.getSOAPConstants());
+            }
+
+            if (options.getSingleSOAPVersion() != null) {
+                setProperty(Constants.MC_SINGLE_SOAP_VERSION,
+                            options.getSingleSOAPVersion());
+            }
+        }
+    }
+
+    /**
+     * The contexts kept for reuse, one per thread.  Each thread has a slot
+     * holding its context, so that {@link #discardRecycled} can empty the
+     * slots of all the threads: a thread pool outliving the web application
+     * then only keeps the empty slots, and no class of the application.
+     */
+    private static ThreadLocal recycledContext = new ThreadLocal();
+
+    /**
+     * The slots of all the threads, until the threads are gone.
+     */
+    private static Map recycledSlots = new WeakHashMap();
+
+    /**
+     * Is this context recycled when it is released?
+     */
+    private boolean recyclable = false;
+
+    /**
+     * Objects used by requests through this context, which are kept for
+     * the next request when the context is recycled, and whether they are
+     * in use by the current request.
+     */
+    private SAX2EventRecorder recycledRecorder = null;
+    private boolean recorderInUse = false;
+    private NSStack recycledNamespaces = null;
+    private boolean namespacesInUse = false;
+
+    /**
+     * Get a message context for a new request.  If the
+     * {@link AxisEngine#PROP_RECYCLE_MESSAGE_CONTEXTS} option of the engine
+     * is set, this is the context last released on this thread, if there
+     * is one; otherwise it is a new context.
+     * <p>
+     * A transport which gets its contexts from here must call
+     * {@link #release} when it is done with the request.
+     *
+     * @param engine the controlling axis engine
+     * @return a context in the same state as a new one
+     */
+    public static MessageContext obtain(AxisEngine engine) {
+        if (engine == null ||
+                !engine.getOptionsSnapshot().isRecycleMessageContexts()) {
+            return new MessageContext(engine);
+        }
+        Object[] slot = getRecycledSlot();
+        MessageContext msgContext;
+        synchronized (slot) {
+            msgContext = (MessageContext) slot[0];
+            slot[0] = null;
+        }
+        if (msgContext != null) {
+            msgContext.axisEngine = engine;
+            msgContext.applyEngineOptions();
+            return msgContext;
+        }
+        msgContext = new MessageContext(engine);
+        msgContext.recyclable = true;
+        return msgContext;
+    }
+
+    /**
+     * Tell that the request is done.  If this context was got from
+     * {@link #obtain} with recycling enabled, it is {@link #recycle}d and
+     * kept for the next request on this thread, so neither the context
+     * nor its messages may be used afterwards.  Otherwise nothing happens.
+     */
+    public void release() {
+        if (!recyclable) {
+            return;
+        }
+        if (axisEngine.getOptionsSnapshot().isRecycleMessageContexts()) {
+            recycle();
+            Object[] slot = getRecycledSlot();
+            synchronized (slot) {
+                slot[0] = this;
             }
+        } else {
+            recyclable = false;
+        }
+    }
 
-            String singleSOAPVersion = (String)engine.getOption(
-                                        AxisEngine.PROP_SOAP_ALLOWED_VERSION);
-            if (singleSOAPVersion != null) {
-                if ("1.2".equals(singleSOAPVersion)) {
-                    setProperty(Constants.MC_SINGLE_SOAP_VERSION,
-                                SOAPConstants.SOAP12_CONSTANTS);
-                } else if ("1.1".equals(singleSOAPVersion)) {
-                    setProperty(Constants.MC_SINGLE_SOAP_VERSION,
-                                SOAPConstants.SOAP11_CONSTANTS);
+    /**
+     * Drop the contexts kept for reuse by all the threads, such as when an
+     * engine is cleaned up.  The contexts in use are not affected, and are
+     * kept again when released.
+     */
+    public static void discardRecycled() {
+        synchronized (recycledSlots) {
+            for (Iterator i = recycledSlots.keySet().iterator(); i.hasNext(); ) {
+                Object[] slot = (Object[]) i.next();
+                synchronized (slot) {
+                    slot[0] = null;
                 }
             }
         }
     }
 
+    private static Object[] getRecycledSlot() {
+        Object[] slot = (Object[]) recycledContext.get();
+        if (slot == null) {
+            slot = new Object[1];
+            recycledContext.set(slot);
+            synchronized (recycledSlots) {
+                recycledSlots.put(slot, null);
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Return this context to the state of a newly created one, without an
+     * engine, so that a context kept for reuse does not hold on to it.
+     * Unlike {@link #reset}, which prepares a client context for the next
+     * call, this drops everything about the current request: its messages
+     * are disposed of, and all properties, the service, the session and the
+     * settings are cleared.  The event recorder and namespace stack handed
+     * out for the request are cleared and kept for the next one.
+     */
+    public void recycle() {
+        dispose();
+        targetService = null;
+        transportName = null;
+        classLoader = null;
+        session = null;
+        maintainSession = false;
+        havePassedPivot = false;
+        timeout = Constants.DEFAULT_MESSAGE_TIMEOUT;
+        highFidelity = true;
+        if (bag != null) {
+            bag.clear();
+            bag.setParent(null);
+        }
+        username = null;
+        password = null;
+        encodingStyle = Use.ENCODED.getEncoding();
+        useSOAPAction = false;
+        SOAPActionURI = null;
+        roles = null;
+        soapConstants = Constants.DEFAULT_SOAP_VERSION;
+        schemaVersion = SchemaVersion.SCHEMA_2001;
+        currentOperation = null;
+        requestTimer = null;
+        mappingRegistry = null;
+        serviceHandler = null;
+        if (recorderInUse) {
+            recycledRecorder.clear();
+            recorderInUse = false;
+        }
+        if (recycledNamespaces != null) {
+            recycledNamespaces.reset();
+            namespacesInUse = false;
+        }
+        axisEngine = null;
+    }
+
+    /**
+     * Get the event recorder for the request, if this context is
+     * recyclable and the recorder it keeps is not in use yet.
+     *
+     * @param compact whether a {@link CompactSAX2EventRecorder} is wanted
+     * @return the recorder, or null if a new one has to be made
+     * @see SAX2EventRecorder#newInstance
+     */
+    public SAX2EventRecorder getRecycledRecorder(boolean compact) {
+        if (!recyclable || recorderInUse) {
+            return null;
+        }
+        if (recycledRecorder == null ||
+                (recycledRecorder instanceof CompactSAX2EventRecorder) != compact) {
+            recycledRecorder = compact ? new CompactSAX2EventRecorder()
+                                       : new SAX2EventRecorder();
+        }
+        recorderInUse = true;
+        return recycledRecorder;
+    }
+
+    /**
+     * Get the namespace stack for the deserialization of the request, if
+     * this context is recyclable and the stack it keeps is not in use yet.
+     *
+     * @return the stack, or null if a new one has to be made
+     */
+    public NSStack getRecycledNamespaces() {
+        if (!recyclable || namespacesInUse) {
+            return null;
+        }
+        if (recycledNamespaces == null) {
+            recycledNamespaces = new NSStack();
+        }
+        namespacesInUse = true;
+        return recycledNamespaces;
+    }
+
     /**
      * during finalization, the dispose() method is called.
      * @see #dispose()
@@ -16,6 +16,8 @@
 
 package org.apache.axis ;
 
+import org.apache.axis.components.encoding.UTF8ByteWriter;
+import org.apache.axis.components.encoding.XMLEncoderFactory;
 import org.apache.axis.components.logger.LogFactory;
 import org.apache.axis.encoding.DeserializationContext;
 import org.apache.axis.encoding.SerializationContext;
@@ -24,8 +26,10 @@ import org.apache.axis.message.MimeHeaders;
 import org.apache.axis.message.SOAPDocumentImpl;
 import org.apache.axis.message.SOAPEnvelope;
 import org.apache.axis.message.SOAPHeaderElement;
+import org.apache.axis.statistics.RequestTimer;
 import org.apache.axis.transport.http.HTTPConstants;
 import org.apache.axis.utils.ByteArray;
+import org.apache.axis.utils.JavaUtils;
 import org.apache.axis.utils.Messages;
 import org.apache.axis.utils.SessionUtils;
 import org.apache.axis.utils.XMLUtils;
@@ -114,6 +118,9 @@ public class SOAPPart extends javax.xml.soap.SOAPPart implements Part
     { "", "FORM_STRING", "FORM_INPUTSTREAM", "FORM_SOAPENVELOPE",
       "FORM_BYTES", "FORM_BODYINSTREAM", "FORM_FAULT", "FORM_OPTIMIZED" };
 
+    /** The UTF-8 writer of each thread, while it is not in use */
+    private static ThreadLocal byteWriter = new ThreadLocal();
+
     /**
      * The current representation of the SOAP contents of this part.
      * May be a String, byte[], InputStream, or SOAPEnvelope, depending
@@ -263,6 +270,23 @@ public class SOAPPart extends javax.xml.soap.SOAPPart implements Part
             os.write((byte[])currentMessage);
         } else if ( currentForm == FORM_OPTIMIZED ) {
             ((ByteArray) currentMessage).writeTo(os);
+        } else if (isByteWriterEnabled()) {
+            // Reuse the writer of this thread, and with it its buffer and
+            // the fragments it has encoded, unless it is already in use
+            UTF8ByteWriter writer = (UTF8ByteWriter) byteWriter.get();
+            if (writer == null) {
+                writer = new UTF8ByteWriter(os);
+            } else {
+                byteWriter.set(null);
+                writer.reset(os);
+            }
+            try {
+                writeTo(writer);
+                writer.flush();
+            } finally {
+                writer.reset(null);
+                byteWriter.set(writer);
+            }
         } else {
             Writer writer = new OutputStreamWriter(os, currentEncoding);
             writer = new BufferedWriter(new PrintWriter(writer));
@@ -271,6 +295,22 @@ public class SOAPPart extends javax.xml.soap.SOAPPart implements Part
         }
     }
 
+    /**
+     * Messages in UTF-8 are encoded straight into bytes unless the
+     * engine option {@link AxisEngine#PROP_DISABLE_BYTE_WRITER} is set.
+     */
+    private boolean isByteWriterEnabled() {
+        if (!XMLEncoderFactory.ENCODING_UTF_8.equalsIgnoreCase(currentEncoding)) {
+            return false;
+        }
+        MessageContext msgContext = msgObject.getMessageContext();
+        if (msgContext != null && msgContext.getAxisEngine() != null) {
+            return !JavaUtils.isTrueExplicitly(msgContext.getAxisEngine()
+                    .getOption(AxisEngine.PROP_DISABLE_BYTE_WRITER));
+        }
+        return true;
+    }
+
     /**
      * Write the contents to the specified writer.
      *
@@ -294,27 +334,35 @@ public class SOAPPart extends javax.xml.soap.SOAPPart implements Part
         
         if ( currentForm == FORM_FAULT ) {
             AxisFault env = (AxisFault)currentMessage;
+            MessageContext msgContext = getMessage().getMessageContext();
+            RequestTimer.enter(msgContext, RequestTimer.SERIALIZATION);
             try {
-                SerializationContext serContext = new SerializationContext(writer, getMessage().getMessageContext()); 
+                SerializationContext serContext = new SerializationContext(writer, msgContext); 
                 serContext.setSendDecl(inclXmlDecl);
                 serContext.setEncoding(currentEncoding);
                 env.output(serContext);
             } catch (Exception e) {
                 log.error(Messages.getMessage("exception00"), e);
                 throw env;
+            } finally {
+                RequestTimer.exit(msgContext);
             }
             return;
         }
 
         if ( currentForm == FORM_SOAPENVELOPE ) {
             SOAPEnvelope env = (SOAPEnvelope)currentMessage;
+            MessageContext msgContext = getMessage().getMessageContext();
+            RequestTimer.enter(msgContext, RequestTimer.SERIALIZATION);
             try {
-                SerializationContext serContext = new SerializationContext(writer, getMessage().getMessageContext());
+                SerializationContext serContext = new SerializationContext(writer, msgContext);
                 serContext.setSendDecl(inclXmlDecl);
                 serContext.setEncoding(currentEncoding);
                 env.output(serContext);
             } catch (Exception e) {
                 throw AxisFault.makeFault(e);
+            } finally {
+                RequestTimer.exit(msgContext);
             }
             return;
         }
@@ -691,6 +739,8 @@ public class SOAPPart extends javax.xml.soap.SOAPPart implements Part
                                            getMessage().getMessageContext(),
                                            getMessage().getMessageType());
         dser.getEnvelope().setOwnerDocument(this);
+        MessageContext msgContext = getMessage().getMessageContext();
+        RequestTimer.enter(msgContext, RequestTimer.PARSE);
         // This may throw a SAXException
         try {
             dser.parse();
@@ -699,6 +749,8 @@ public class SOAPPart extends javax.xml.soap.SOAPPart implements Part
             if (real == null)
                 real = e;
             throw AxisFault.makeFault(real);
+        } finally {
+            RequestTimer.exit(msgContext);
         }
 
         SOAPEnvelope nse= dser.getEnvelope();
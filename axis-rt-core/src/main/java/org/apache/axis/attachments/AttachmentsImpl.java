@@ -196,7 +196,7 @@ public class AttachmentsImpl implements Attachments {
         }
 
         multipart = null;
-
+        mimeWriter = null;
         dimemultipart = null;
 
         mergeinAttachments();
@@ -227,6 +227,7 @@ public class AttachmentsImpl implements Attachments {
         }
 
         multipart = null;
+        mimeWriter = null;
         dimemultipart = null;
 
         mergeinAttachments();
@@ -257,7 +258,7 @@ public class AttachmentsImpl implements Attachments {
         }
 
         multipart = null;
-
+        mimeWriter = null;
         dimemultipart = null;
 
         mergeinAttachments();
@@ -407,6 +408,7 @@ public class AttachmentsImpl implements Attachments {
         try {
             this.soapPart = (SOAPPart) newRoot;
             multipart = null;
+            mimeWriter = null;
             dimemultipart = null;
         } catch (ClassCastException e) {
             throw new ClassCastException(Messages.getMessage("onlySOAPParts"));
@@ -415,8 +417,22 @@ public class AttachmentsImpl implements Attachments {
 
     /** multipart , cached entries for the stream of attachment that are going to be sent.   */
     javax.mail.internet.MimeMultipart multipart = null;
+    MimeMultipartWriter mimeWriter = null;
     DimeMultiPart dimemultipart = null;
 
+    /**
+     * Returns the writer of the MIME message, which is kept until the
+     * attachments change, so that its boundary stays the same.
+     */
+    private MimeMultipartWriter getMimeWriter(int sendtype)
+            throws org.apache.axis.AxisFault {
+        if (mimeWriter == null) {
+            mimeWriter = new MimeMultipartWriter(soapPart, orderedAttachments,
+                                                 sendtype);
+        }
+        return mimeWriter;
+    }
+
     /**
      * Get the content length of the stream.
      *
@@ -435,8 +451,7 @@ public class AttachmentsImpl implements Attachments {
 
         try {
               if(sendtype == SEND_TYPE_MIME || sendtype == SEND_TYPE_MTOM)
-                 return org.apache.axis.attachments.MimeUtils.getContentLength(
-                                multipart != null ? multipart : (multipart = org.apache.axis.attachments.MimeUtils.createMP(soapPart.getAsString(), orderedAttachments, getSendType())));
+                 return getMimeWriter(sendtype).getContentLength();
               else if (sendtype == SEND_TYPE_DIME)return createDimeMessage().getTransmissionSize();
         } catch (Exception e) {
             throw AxisFault.makeFault(e);
@@ -490,12 +505,7 @@ public class AttachmentsImpl implements Attachments {
 
         mergeinAttachments();
         if(sendtype == SEND_TYPE_MIME || sendtype == SEND_TYPE_MTOM){
-        org.apache.axis.attachments.MimeUtils.writeToMultiPartStream(os,
-                (multipart != null)
-                ? multipart
-                : (multipart =
-                   org.apache.axis.attachments.MimeUtils.createMP(
-                        soapPart.getAsString(), orderedAttachments, getSendType())));
+        getMimeWriter(sendtype).writeTo(os);
 
         for (java.util.Iterator i = orderedAttachments.iterator();
              i.hasNext();) {
@@ -526,13 +536,7 @@ public class AttachmentsImpl implements Attachments {
         int sendtype= this.sendtype == SEND_TYPE_NOTSET ? SEND_TYPE_DEFAULT :
                this.sendtype;
         if(sendtype == SEND_TYPE_MIME || sendtype == SEND_TYPE_MTOM)
-          return org.apache.axis.attachments.MimeUtils.getContentType((multipart
-                  != null)
-                  ? multipart
-                  : (multipart =
-                  org.apache.axis.attachments.MimeUtils.createMP(
-                          soapPart.getAsString(),
-                          orderedAttachments, getSendType())));
+          return getMimeWriter(sendtype).getContentType();
         else return org.apache.axis.Message.MIME_APPLICATION_DIME;
     }
 
@@ -585,6 +589,7 @@ public class AttachmentsImpl implements Attachments {
         }
         try {
             multipart = null;
+            mimeWriter = null;
             dimemultipart = null;
             mergeinAttachments();
             attachments.clear();
@@ -653,6 +658,9 @@ public class AttachmentsImpl implements Attachments {
         throw new IllegalArgumentException("");
       if( sendtype > SEND_TYPE_MAX )
         throw new IllegalArgumentException("");
+      if (this.sendtype != sendtype) {
+        mimeWriter = null;
+      }
       this.sendtype= sendtype;
     }
 
@@ -276,6 +276,15 @@ public class DimeBodyPart {
         java.io.InputStream in = null;
         try {
             long dataSize = getDataSize();
+            DataSource ds = dh.getDataSource();
+            if (ds instanceof ManagedMemoryDataSource
+                    && ((ManagedMemoryDataSource) ds).getLength() == dataSize) {
+                // Let the data source copy itself, without an input stream.
+                sendHeader(os, position, dataSize, (byte) 0);
+                ((ManagedMemoryDataSource) ds).writeTo(os);
+                os.write(pad, 0, dimePadding(dataSize));
+                return;
+            }
             in = dh.getInputStream();
             byte[] readbuf = new byte[64 * 1024];
             int bytesread;
@@ -535,6 +544,9 @@ public class DimeBodyPart {
                                 df.getAbsolutePath()));
                 }
                 dataSize = df.length();
+            } else if (ds instanceof ManagedMemoryDataSource
+                    && ((ManagedMemoryDataSource) ds).getLength() != -1) {
+                dataSize = ((ManagedMemoryDataSource) ds).getLength();
             } else {
                 dataSize = 0;
                 java.io.InputStream in = ds.getInputStream();
@@ -15,6 +15,7 @@
  */
 package org.apache.axis.attachments;
 
+import org.apache.axis.AxisProperties;
 import org.apache.axis.InternalException;
 import org.apache.axis.MessageContext;
 import org.apache.axis.components.logger.LogFactory;
@@ -23,10 +24,25 @@ import org.apache.commons.logging.Log;
 
 import java.io.File;
 import java.io.BufferedInputStream;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * This class allows small attachments to be cached in memory, while large ones are
  * cached out.  It implements a Java Activiation Data source interface.
+ * <p>
+ * The memory held by all data sources together is limited to
+ * {@link #MEMORY_BUDGET_PROPERTY} bytes; a data source that would exceed it
+ * is cached to disk even if it is smaller than its <code>maxCached</code>.
+ * Once a disk cached data source is complete, its readers share one
+ * <code>FileChannel</code> and read from it at their own position without
+ * locking, and {@link #writeTo} transfers the file to the output stream
+ * through the channel.
  *
  * @author Rick Rineholt
  */
@@ -54,6 +70,39 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
     /** Field maxCached           */
     protected int maxCached = MAX_MEMORY_DISK_CACHED;       // max in memory cached. Default.
 
+    /**
+     * Axis property setting the number of bytes all data sources together
+     * may hold in memory while their data is being written; a data source
+     * gives its share back once it is complete.
+     */
+    public static final String MEMORY_BUDGET_PROPERTY =
+            "axis.attachments.memoryBudget";
+
+    /** Default of {@link #MEMORY_BUDGET_PROPERTY}: 32 MB */
+    public static final long DEFAULT_MEMORY_BUDGET = 32 * 1024 * 1024;
+
+    private static final long memoryBudget = getMemoryBudget();
+
+    /** Bytes held in memory by all data sources; guarded by budgetLock */
+    private static long memoryInUse = 0;
+
+    private static final Object budgetLock = new Object();
+
+    /** Bytes of the budget held by this data source */
+    private long memoryReserved = 0;
+
+    /** True once the data is complete and cached to disk. */
+    private volatile boolean spooled = false;
+
+    /**
+     * The disk cache, open while it is being read; shared by all readers,
+     * which read from it at their own position.
+     */
+    private volatile FileChannel spoolChannel = null;
+
+    /** Readers of the disk cache; guarded by this */
+    private int spoolReaders = 0;
+
     // If set the file the disk is cached to.
 
     /** Field diskCacheFile           */
@@ -67,7 +116,7 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
     /**
      * Flag to show if the resources behind this have been deleted.
      */
-    protected boolean deleted =
+    protected volatile boolean deleted =
             false;
 
     // Memory is allocated in these size chunks.
@@ -86,6 +135,27 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
     protected ManagedMemoryDataSource() {
     }
 
+    /**
+     * Create a data source that is filled through {@link #getOutputStream}.
+     *
+     * @param maxCached  This is the max memory that is to be used to cache the data.
+     * @param contentType the mime type for this data stream.
+     */
+    public ManagedMemoryDataSource(int maxCached, String contentType) {
+        if (maxCached < MIN_MEMORY_DISK_CACHED) {
+            throw new IllegalArgumentException(
+                    Messages.getMessage("badMaxCached", "" + maxCached));
+        }
+        this.maxCached = maxCached;
+
+        if ((null != contentType) && (contentType.length() != 0)) {
+            this.contentType = contentType;
+        }
+        if (log.isDebugEnabled()) {
+            debugEnabled = true;
+        }
+    }
+
     /**
      * Create a new boundary stream.
      *
@@ -142,15 +212,17 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
             byte[] readbuffer = new byte[READ_CHUNK_SZ];
             int read = 0;
 
-            do {
-                read = ss.read(readbuffer);
-
-                if (read > 0) {
-                    write(readbuffer, read);
-                }
-            } while (read > -1);
+            try {
+                do {
+                    read = ss.read(readbuffer);
 
-            close();
+                    if (read > 0) {
+                        write(readbuffer, read);
+                    }
+                } while (read > -1);
+            } finally {
+                close();
+            }
         }
     }
 
@@ -208,15 +280,39 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
     /**
      * This method returns an OutputStream where the data can be written and
      * throws the appropriate exception if it can not do so.
-     * NOT SUPPORTED, not need for axis, data sources are create by constructors.
+     * Only supported by a data source created without an input stream, until
+     * the data has been written; closing the stream completes the data.
      *
      *
-     * @return always <code>null</code>
+     * @return the stream, or <code>null</code> if the data can't be written
      *
      * @throws java.io.IOException
      */
-    public java.io.OutputStream getOutputStream() throws java.io.IOException {
-        return null;
+    public synchronized java.io.OutputStream getOutputStream()
+            throws java.io.IOException {
+        if (ss != null || closed || deleted) {
+            return null;
+        }
+        return new java.io.OutputStream() {
+            public void write(int b) throws java.io.IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            public void write(byte[] b, int off, int len)
+                    throws java.io.IOException {
+                if (off == 0) {
+                    ManagedMemoryDataSource.this.write(b, len);
+                } else {
+                    byte[] data = new byte[len];
+                    System.arraycopy(b, off, data, 0, len);
+                    ManagedMemoryDataSource.this.write(data, len);
+                }
+            }
+
+            public void close() throws java.io.IOException {
+                ManagedMemoryDataSource.this.close();
+            }
+        };
     }
 
     /** The linked list to hold the in memory buffers. */
@@ -271,10 +367,14 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
         int byteswritten = 0;
 
         if ((null != memorybuflist)
-                && (totalsz + writesz > maxCached)) {    // Cache to disk.
+                && ((totalsz + writesz > maxCached)
+                    || !reserveMemory(writesz, false))) {    // Cache to disk.
             if (null == cachediskstream) {               // Need to create a disk cache
                 flushToDisk();
             }
+            if (null != memorybuflist) {    // No disk to cache to.
+                reserveMemory(writesz, true);
+            }
         }
 
         if (memorybuflist != null) {    // Can write to memory.
@@ -334,6 +434,10 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
                 cachediskstream = null;
             }
 
+            if (null == memorybuflist && null != diskCacheFile) {
+                spooled = true;
+            }
+
             if (null != memorybuflist) {      // There is a memory buffer.
                 if (currentMemoryBufSz > 0) {
                     byte[] tmp =
@@ -348,6 +452,8 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
 
                 currentMemoryBuf = null;      // No need for this anymore.
             }
+
+            releaseMemory();                  // Complete, let others have it.
         }
     }
 
@@ -404,7 +510,7 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
                     for (java.util.Iterator it = ml.iterator();
                          it.hasNext();) {
                         byte[] rbuf = (byte[]) it.next();
-                        int bwrite = (listsz-- == 0)
+                        int bwrite = (--listsz == 0)
                                 ? currentMemoryBufSz
                                 : rbuf.length;
 
@@ -418,6 +524,11 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
                     }
 
                     memorybuflist = null;
+                    releaseMemory();
+
+                    if (closed) {
+                        spooled = true;
+                    }
                 } catch (java.lang.SecurityException se) {
                     diskCacheFile = null;
                     cachediskstream = null;
@@ -436,6 +547,8 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
         deleted = true;
 
         memorybuflist = null;
+        releaseMemory();
+        closeSpool();
 
         if (diskCacheFile != null) {
             if (cachediskstream != null) {
@@ -458,6 +571,7 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
                 }
             }
             readers.clear();
+            spoolReaders = 0;
 
             try {
                 diskCacheFile.delete();
@@ -474,6 +588,228 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
         return ret;
     }
 
+    /**
+     * Returns the number of bytes of the data, or -1 if it is still being
+     * read from its source.
+     */
+    public synchronized long getLength() {
+        return closed ? totalsz : -1;
+    }
+
+    /**
+     * Writes the data to a stream.  Data cached to disk is transferred
+     * through the file channel, which avoids copying it when the stream
+     * is backed by a channel.
+     *
+     * @param os the stream to write to
+     * @throws java.io.IOException if the data can't be read or written
+     */
+    public void writeTo(java.io.OutputStream os) throws java.io.IOException {
+        if (deleted) {
+            throw new java.io.IOException(
+                    Messages.getMessage("resourceDeleted"));
+        }
+
+        if (spooled) {
+            WritableByteChannel target = null;
+            if (os instanceof FileOutputStream) {
+                target = ((FileOutputStream) os).getChannel();
+            }
+            if (target == null) {
+                target = Channels.newChannel(os);
+            }
+            long length = totalsz;
+            long position = 0;
+            acquireSpool();
+            try {
+                while (position < length) {
+                    position += transferSpool(position, length - position,
+                            target);
+                }
+            } finally {
+                releaseSpool();
+            }
+            return;
+        }
+
+        byte[][] chunks = null;
+        long length = 0;
+        synchronized (this) {
+            if (closed && memorybuflist != null) {
+                // The buffers no longer change once closed
+                chunks = (byte[][]) memorybuflist.toArray(
+                        new byte[memorybuflist.size()][]);
+                length = totalsz;
+            }
+        }
+        if (chunks != null) {
+            for (int i = 0; i < chunks.length && length > 0; i++) {
+                int n = (int) Math.min(chunks[i].length, length);
+                os.write(chunks[i], 0, n);
+                length -= n;
+            }
+            return;
+        }
+
+        java.io.InputStream in = getInputStream();
+        try {
+            byte[] buf = new byte[READ_CHUNK_SZ];
+            int read;
+            while ((read = in.read(buf)) > 0) {
+                os.write(buf, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns the number of bytes held in memory by all data sources.
+     */
+    public static long getMemoryInUse() {
+        synchronized (budgetLock) {
+            return memoryInUse;
+        }
+    }
+
+    /**
+     * Takes bytes from the memory budget.
+     *
+     * @param force take them even if that exceeds the budget
+     * @return false if the budget doesn't allow it
+     */
+    private boolean reserveMemory(long bytes, boolean force) {
+        synchronized (budgetLock) {
+            if (!force && memoryInUse + bytes > memoryBudget) {
+                return false;
+            }
+            memoryInUse += bytes;
+        }
+        memoryReserved += bytes;
+        return true;
+    }
+
+    /**
+     * Gives the memory held by this data source back to the budget.
+     */
+    private synchronized void releaseMemory() {
+        if (memoryReserved > 0) {
+            synchronized (budgetLock) {
+                memoryInUse -= memoryReserved;
+            }
+            memoryReserved = 0;
+        }
+    }
+
+    private void openSpool() throws java.io.IOException {
+        spoolChannel = new RandomAccessFile(diskCacheFile, "r").getChannel();
+    }
+
+    /**
+     * Opens the disk cache for one more reader, unless it is open already.
+     */
+    private synchronized void acquireSpool() throws java.io.IOException {
+        if (deleted) {
+            throw new java.io.IOException(
+                    Messages.getMessage("resourceDeleted"));
+        }
+        if (spoolChannel == null) {
+            openSpool();
+        }
+        spoolReaders++;
+    }
+
+    /**
+     * Closes the disk cache once its last reader is done with it.
+     */
+    private synchronized void releaseSpool() {
+        if (spoolReaders > 0 && --spoolReaders == 0) {
+            closeSpool();
+        }
+    }
+
+    private synchronized void closeSpool() {
+        FileChannel channel = spoolChannel;
+        spoolChannel = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (java.io.IOException e) {
+                // nothing left to read anyway
+            }
+        }
+    }
+
+    /**
+     * Reopens the disk cache after its channel was closed because a thread
+     * reading from it was interrupted.
+     */
+    private synchronized void reopenSpool(FileChannel closedChannel)
+            throws java.io.IOException {
+        if (deleted) {
+            throw new java.io.IOException(
+                    Messages.getMessage("resourceDeleted"));
+        }
+        if (spoolChannel == closedChannel) {
+            openSpool();
+        }
+    }
+
+    /**
+     * Reads from the disk cache at the given position.
+     */
+    int readSpool(ByteBuffer buf, long position) throws java.io.IOException {
+        for (int attempt = 0; ; attempt++) {
+            FileChannel channel = spoolChannel;
+            if (channel == null) {
+                throw new java.io.IOException(
+                        Messages.getMessage("resourceDeleted"));
+            }
+            try {
+                return channel.read(buf, position);
+            } catch (ClosedChannelException e) {
+                if (attempt > 0 || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                reopenSpool(channel);
+            }
+        }
+    }
+
+    private long transferSpool(long position, long count,
+                               WritableByteChannel target)
+            throws java.io.IOException {
+        for (int attempt = 0; ; attempt++) {
+            FileChannel channel = spoolChannel;
+            if (channel == null) {
+                throw new java.io.IOException(
+                        Messages.getMessage("resourceDeleted"));
+            }
+            try {
+                return channel.transferTo(position, count, target);
+            } catch (ClosedChannelException e) {
+                if (attempt > 0 || Thread.currentThread().isInterrupted()
+                        || !target.isOpen()) {
+                    throw e;
+                }
+                reopenSpool(channel);
+            }
+        }
+    }
+
+    private static long getMemoryBudget() {
+        String value = AxisProperties.getProperty(MEMORY_BUDGET_PROPERTY);
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn(Messages.getMessage("badIntProperty00",
+                        MEMORY_BUDGET_PROPERTY, value));
+            }
+        }
+        return DEFAULT_MEMORY_BUDGET;
+    }
+
     // inner classes cannot have static declarations...
 
     /** Field is_log           */
@@ -505,6 +841,9 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
         /** The read stream has been closed. */
         boolean readClosed = false;
 
+        /** This stream holds the disk cache open. */
+        private boolean spoolHeld = false;
+
         /**
          * Constructor Instream.
          *
@@ -559,15 +898,13 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
          */
         public int read() throws java.io.IOException {
 
-            synchronized (ManagedMemoryDataSource.this) {
-                byte[] retb = new byte[1];
-                int br = read(retb, 0, 1);
+            byte[] retb = new byte[1];
+            int br = read(retb, 0, 1);
 
-                if (br == -1) {
-                    return -1;
-                }
-                return 0xFF & retb[0];
+            if (br == -1) {
+                return -1;
             }
+            return 0xFF & retb[0];
         }
 
         /**
@@ -630,6 +967,12 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
                 return 0;    // nothing to skip.
             }
 
+            if (spooled) {    // reads are positioned, just move on.
+                skipped = Math.min(skipped, totalsz - bread);
+                bread += skipped;
+                return skipped;
+            }
+
             synchronized (ManagedMemoryDataSource.this) {
                 skipped = Math.min(skipped,
                         totalsz
@@ -717,6 +1060,21 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
                 return 0;
             }
 
+            if (spooled) {    // complete on disk, no locking needed.
+                long left = totalsz - bread;
+                if (left <= 0) {
+                    letGoSpool();    // fully read
+                    return -1;
+                }
+                holdSpool();
+                int n = readSpool(ByteBuffer.wrap(b, off,
+                        (int) Math.min(len, left)), bread);
+                if (n > 0) {
+                    bread += n;
+                }
+                return n;
+            }
+
             int bwritten = 0;
 
             synchronized (ManagedMemoryDataSource.this) {
@@ -824,22 +1182,55 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
          *
          * @throws java.io.IOException
          */
-        public synchronized void close() throws java.io.IOException {
+        public void close() throws java.io.IOException {
 
             if (debugEnabled) {
                 is_log.debug("close()");
             }
 
-            if (!readClosed) {
-                readers.remove(this);
+            synchronized (this) {
+                if (!readClosed) {
+                    readers.remove(this);
 
-                readClosed = true;
+                    readClosed = true;
+
+                    if (fin != null) {
+                        fin.close();
+                    }
 
-                if (fin != null) {
-                    fin.close();
+                    fin = null;
                 }
+            }
+
+            // Not holding this, as the data source is locked first on delete
+            letGoSpool();
+        }
+
+        private void holdSpool() throws java.io.IOException {
+            synchronized (this) {
+                if (spoolHeld) {
+                    return;
+                }
+            }
+            acquireSpool();
+            boolean extra;
+            synchronized (this) {
+                extra = spoolHeld;
+                spoolHeld = true;
+            }
+            if (extra) {
+                releaseSpool();
+            }
+        }
 
-                fin = null;
+        private void letGoSpool() {
+            boolean held;
+            synchronized (this) {
+                held = spoolHeld;
+                spoolHeld = false;
+            }
+            if (held) {
+                releaseSpool();
             }
         }
 
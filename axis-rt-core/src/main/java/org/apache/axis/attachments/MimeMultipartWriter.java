@@ -0,0 +1,329 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.attachments;
+
+import org.apache.axis.AxisFault;
+import org.apache.axis.Part;
+import org.apache.axis.SOAPPart;
+import org.apache.axis.components.encoding.XMLEncoderFactory;
+import org.apache.axis.message.NodeImpl;
+import org.apache.axis.transport.http.HTTPConstants;
+import org.apache.axis.utils.SessionUtils;
+
+import javax.activation.DataHandler;
+import javax.activation.DataSource;
+import javax.activation.FileDataSource;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Writes a SOAP message with attachments as a multipart/related MIME
+ * message, for both SwA and MTOM.  The root part and the content of each
+ * attachment are written straight to the output stream; files are copied
+ * with <code>FileChannel.transferTo</code>.  The boundary and the headers
+ * of all parts are made once, so that the content type and the content
+ * length can be told before the message is written.  The content length
+ * is computed without reading the attachments if the sizes of their data
+ * sources are known.
+ * <p>
+ * The output has the layout that <code>javax.mail</code> produces for the
+ * {@link MimeUtils#createMP} multipart.
+ */
+public class MimeMultipartWriter {
+
+    private static final String HEADER_ENCODING = "ISO-8859-1";
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] DASHES = {'-', '-'};
+
+    private final SOAPPart soapPart;
+    private final DataHandler[] handlers;
+    private final String contentType;
+    private final byte[] boundary;
+
+    /** The headers of each part, the root part first */
+    private final byte[][] headers;
+
+    /**
+     * The content of the SOAP part the root part was last made from, and
+     * the root part: its bytes if it had to be converted to UTF-8, and
+     * its length.  They are made again once the SOAP part has other
+     * content, or its envelope has been modified.
+     */
+    private Object rootSource = null;
+    private byte[] rootBytes = null;
+    private long rootLength = -1;
+
+    /** The content length, as long as the root part is the same */
+    private long contentLength = -1;
+
+    /**
+     * @param soapPart the root part
+     * @param parts the attachment parts
+     * @param sendType {@link Attachments#SEND_TYPE_MIME} or
+     *        {@link Attachments#SEND_TYPE_MTOM}
+     */
+    public MimeMultipartWriter(SOAPPart soapPart, Collection parts,
+                               int sendType) throws AxisFault {
+        this.soapPart = soapPart;
+        String rootCID = SessionUtils.generateSessionId();
+        String boundaryStr = "MIMEBoundary" + SessionUtils.generateSessionId();
+        boundary = getBytes(boundaryStr);
+
+        StringBuffer root = new StringBuffer();
+        if (sendType == Attachments.SEND_TYPE_MTOM) {
+            contentType = "multipart/related; type=\"application/xop+xml\"; start=\"<"
+                    + rootCID + ">\"; start-info=\"text/xml; charset=utf-8\"; boundary=\""
+                    + boundaryStr + "\"";
+            appendHeader(root, HTTPConstants.HEADER_CONTENT_TYPE,
+                    "application/xop+xml; charset=utf-8; type=\"text/xml; charset=utf-8\"");
+        } else {
+            contentType = "multipart/related; type=\"text/xml\"; start=\"<"
+                    + rootCID + ">\"; boundary=\"" + boundaryStr + "\"";
+            appendHeader(root, HTTPConstants.HEADER_CONTENT_TYPE,
+                    "text/xml; charset=UTF-8");
+        }
+        appendHeader(root, HTTPConstants.HEADER_CONTENT_TRANSFER_ENCODING,
+                "binary");
+        appendHeader(root, HTTPConstants.HEADER_CONTENT_ID, "<" + rootCID + ">");
+
+        handlers = new DataHandler[parts.size()];
+        headers = new byte[handlers.length + 1][];
+        headers[0] = getBytes(root.toString());
+
+        int i = 0;
+        for (Iterator it = parts.iterator(); it.hasNext(); i++) {
+            Part part = (Part) it.next();
+            DataHandler dh = AttachmentUtils.getActivationDataHandler(part);
+            handlers[i] = dh;
+
+            String partType = part.getContentType();
+            if ((partType == null) || (partType.trim().length() == 0)) {
+                partType = dh.getContentType();
+            }
+            if ((partType == null) || (partType.trim().length() == 0)) {
+                partType = "application/octet-stream";
+            }
+
+            StringBuffer header = new StringBuffer();
+            appendHeader(header, HTTPConstants.HEADER_CONTENT_TYPE, partType);
+            appendHeader(header, HTTPConstants.HEADER_CONTENT_ID,
+                    "<" + part.getContentId() + ">");
+            appendHeader(header, HTTPConstants.HEADER_CONTENT_TRANSFER_ENCODING,
+                    "binary");
+            for (Iterator h = part.getNonMatchingMimeHeaders(new String[]{
+                    HTTPConstants.HEADER_CONTENT_TYPE,
+                    HTTPConstants.HEADER_CONTENT_ID,
+                    HTTPConstants.HEADER_CONTENT_TRANSFER_ENCODING});
+                 h.hasNext();) {
+                javax.xml.soap.MimeHeader mimeHeader =
+                        (javax.xml.soap.MimeHeader) h.next();
+                appendHeader(header, mimeHeader.getName(), mimeHeader.getValue());
+            }
+            headers[i + 1] = getBytes(header.toString());
+        }
+    }
+
+    /**
+     * Returns the content type of the message, with its boundary.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the number of bytes {@link #writeTo} writes.  Attachments
+     * whose size is not known from their data source are read to count
+     * their bytes.
+     */
+    public long getContentLength() throws IOException {
+        long rootLength = getRootLength();
+        if (contentLength != -1) {
+            return contentLength;
+        }
+        long length = CRLF.length;
+        for (int i = 0; i < headers.length; i++) {
+            length += DASHES.length + boundary.length + CRLF.length
+                    + headers[i].length + CRLF.length + CRLF.length;
+        }
+        length += DASHES.length + boundary.length + DASHES.length + CRLF.length;
+
+        length += rootLength;
+        for (int i = 0; i < handlers.length; i++) {
+            length += getDataLength(handlers[i]);
+        }
+        contentLength = length;
+        return length;
+    }
+
+    /**
+     * Writes the message.
+     */
+    public void writeTo(OutputStream os) throws IOException {
+        os.write(CRLF);
+        for (int i = 0; i < headers.length; i++) {
+            os.write(DASHES);
+            os.write(boundary);
+            os.write(CRLF);
+            os.write(headers[i]);
+            os.write(CRLF);
+            if (i == 0) {
+                writeRoot(os);
+            } else {
+                writeData(handlers[i - 1], os);
+            }
+            os.write(CRLF);
+        }
+        os.write(DASHES);
+        os.write(boundary);
+        os.write(DASHES);
+        os.write(CRLF);
+        os.flush();
+    }
+
+    /**
+     * The root part is always sent in UTF-8; if the message has that
+     * encoding, the SOAP part writes itself.
+     */
+    private boolean isRootUTF8() {
+        return XMLEncoderFactory.ENCODING_UTF_8.equalsIgnoreCase(
+                soapPart.getEncoding());
+    }
+
+    /**
+     * Tells whether the root part made last is still that of the SOAP
+     * part.  An envelope may be modified in place, so one which is dirty
+     * is always written again.
+     */
+    private boolean isRootCurrent() {
+        Object source = soapPart.getCurrentMessage();
+        return rootLength != -1 && source == rootSource
+                && !(source instanceof NodeImpl && ((NodeImpl) source).isDirty())
+                && (rootBytes == null) == isRootUTF8();
+    }
+
+    private long getRootLength() throws IOException {
+        if (!isRootCurrent()) {
+            if (isRootUTF8()) {
+                rootBytes = null;
+                rootLength = soapPart.getContentLength();
+            } else {
+                rootBytes = soapPart.getAsString().getBytes(
+                        XMLEncoderFactory.ENCODING_UTF_8);
+                rootLength = rootBytes.length;
+            }
+            rootSource = soapPart.getCurrentMessage();
+            contentLength = -1;
+        }
+        return rootLength;
+    }
+
+    private void writeRoot(OutputStream os) throws IOException {
+        if (isRootUTF8()) {
+            soapPart.writeTo(os);
+        } else {
+            getRootLength();
+            os.write(rootBytes);
+        }
+    }
+
+    private static long getDataLength(DataHandler dh) throws IOException {
+        DataSource ds = dh.getDataSource();
+        if (ds instanceof FileDataSource) {
+            return ((FileDataSource) ds).getFile().length();
+        }
+        if (ds instanceof ManagedMemoryDataSource) {
+            long length = ((ManagedMemoryDataSource) ds).getLength();
+            if (length != -1) {
+                return length;
+            }
+        }
+        CountingOutputStream counter = new CountingOutputStream();
+        dh.writeTo(counter);
+        return counter.count;
+    }
+
+    private static void writeData(DataHandler dh, OutputStream os)
+            throws IOException {
+        DataSource ds = dh.getDataSource();
+        if (ds instanceof ManagedMemoryDataSource
+                && ((ManagedMemoryDataSource) ds).getLength() != -1) {
+            ((ManagedMemoryDataSource) ds).writeTo(os);
+        } else if (ds instanceof FileDataSource) {
+            FileInputStream in =
+                    new FileInputStream(((FileDataSource) ds).getFile());
+            try {
+                FileChannel channel = in.getChannel();
+                WritableByteChannel target = null;
+                if (os instanceof FileOutputStream) {
+                    target = ((FileOutputStream) os).getChannel();
+                }
+                if (target == null) {
+                    target = Channels.newChannel(os);
+                }
+                long size = channel.size();
+                long position = 0;
+                while (position < size) {
+                    long sent = channel.transferTo(position, size - position,
+                                                   target);
+                    if (sent <= 0) {    // the file got shorter
+                        break;
+                    }
+                    position += sent;
+                }
+            } finally {
+                in.close();
+            }
+        } else {
+            dh.writeTo(os);
+        }
+    }
+
+    private static void appendHeader(StringBuffer buf, String name,
+                                     String value) {
+        buf.append(name).append(": ").append(value).append("\r\n");
+    }
+
+    private static byte[] getBytes(String str) {
+        try {
+            return str.getBytes(HEADER_ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            // Every JVM supports ISO-8859-1
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long count = 0;
+
+        public void write(int b) {
+            count++;
+        }
+
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -106,6 +106,9 @@ public class MimeUtils {
                 }
 
                 dataSize = df.length();
+            } else if (ds instanceof ManagedMemoryDataSource
+                    && ((ManagedMemoryDataSource) ds).getLength() != -1) {
+                dataSize = ((ManagedMemoryDataSource) ds).getLength();
             } else {
                 dataSize = bp.getSize();
 
@@ -26,6 +26,8 @@ import org.apache.axis.MessageContext;
 import org.apache.axis.AxisEngine;
 import org.apache.axis.SOAPPart;
 import org.apache.axis.attachments.Attachments;
+import org.apache.axis.client.async.AsyncCall;
+import org.apache.axis.client.async.AsyncResult;
 import org.apache.axis.components.logger.LogFactory;
 import org.apache.axis.description.FaultDesc;
 import org.apache.axis.description.OperationDesc;
@@ -1747,6 +1749,33 @@ public class Call implements javax.xml.rpc.Call {
         }
     } // invoke
 
+    /**
+     * Invokes a specific operation on the default executor of
+     * asynchronous calls, without waiting for its result.  This Call must
+     * not be used again before the result is done.
+     *
+     * @param operationName the operation to invoke
+     * @param params parameters for this invocation
+     * @return the pending result
+     * @see AsyncCall
+     */
+    public AsyncResult invokeAsync(QName operationName, Object[] params) {
+        return new AsyncResult(new AsyncCall(this), operationName, params);
+    }
+
+    /**
+     * Invokes the operation associated with this Call object on the
+     * default executor of asynchronous calls, without waiting for its
+     * result.  This Call must not be used again before the result is done.
+     *
+     * @param params parameters for this invocation
+     * @return the pending result
+     * @see AsyncCall
+     */
+    public AsyncResult invokeAsync(Object[] params) {
+        return invokeAsync(null, params);
+    }
+
     /**
      * Invokes the operation associated with this Call object using the
      * passed in parameters as the arguments to the method.
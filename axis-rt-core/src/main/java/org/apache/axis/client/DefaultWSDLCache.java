@@ -0,0 +1,185 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.client;
+
+import org.apache.axis.AxisProperties;
+import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.utils.Messages;
+import org.apache.axis.utils.XMLUtils;
+import org.apache.axis.wsdl.gen.Parser;
+import org.apache.commons.logging.Log;
+import org.xml.sax.InputSource;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The default {@link WSDLCache}.  It keeps a bounded number of parsed
+ * documents in memory, dropping the least recently used one when there
+ * are too many, and optionally parsing them again after some time.
+ * <p>
+ * Given a {@link WSDLDocumentStore}, the documents fetched over HTTP, and
+ * all the documents they import, are kept on disk as well, so that a new
+ * JVM can parse them without fetching them again.
+ * <p>
+ * The cache used by {@link Service} by default is configured with the
+ * Axis properties {@link #PROP_MAX_ENTRIES}, {@link #PROP_TIME_TO_LIVE},
+ * {@link #PROP_DIRECTORY} and {@link #PROP_REVALIDATE}.
+ */
+public class DefaultWSDLCache implements WSDLCache {
+
+    protected static Log log =
+        LogFactory.getLog(DefaultWSDLCache.class.getName());
+
+    /** Maximum number of parsed documents kept in memory */
+    public static final String PROP_MAX_ENTRIES = "axis.wsdlCache.maxEntries";
+    /** Milliseconds a parsed document is kept, or 0 to keep it for good */
+    public static final String PROP_TIME_TO_LIVE = "axis.wsdlCache.ttl";
+    /** Directory to keep the fetched documents in; none if not set */
+    public static final String PROP_DIRECTORY = "axis.wsdlCache.dir";
+    /** Milliseconds a document on disk is used without asking the server */
+    public static final String PROP_REVALIDATE = "axis.wsdlCache.revalidate";
+
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+    public static final long DEFAULT_TIME_TO_LIVE = 0;
+    public static final long DEFAULT_REVALIDATE = 60 * 60 * 1000;
+
+    /**
+     * A parsed document, and when it is to be parsed again.
+     */
+    private static final class Entry {
+        final Parser parser;
+        final long expires;
+
+        Entry(Parser parser, long expires) {
+            this.parser = parser;
+            this.expires = expires;
+        }
+    }
+
+    private final int maxEntries;
+    private final long timeToLive;
+    private final WSDLDocumentStore documents;
+
+    /** Entries by location, least recently used first */
+    private final Map entries = new LinkedHashMap(16, 0.75f, true);
+
+    /**
+     * Make a cache configured with the Axis properties.
+     */
+    public static DefaultWSDLCache fromProperties() {
+        WSDLDocumentStore documents = null;
+        String dir = AxisProperties.getProperty(PROP_DIRECTORY);
+        if (dir != null && dir.trim().length() > 0) {
+            documents = new WSDLDocumentStore(new File(dir.trim()),
+                    AxisProperties.getLongProperty(PROP_REVALIDATE,
+                                                   DEFAULT_REVALIDATE));
+        }
+        return new DefaultWSDLCache(
+                (int) AxisProperties.getLongProperty(PROP_MAX_ENTRIES,
+                                                     DEFAULT_MAX_ENTRIES),
+                AxisProperties.getLongProperty(PROP_TIME_TO_LIVE,
+                                               DEFAULT_TIME_TO_LIVE),
+                documents);
+    }
+
+    /**
+     * @param maxEntries the most parsed documents to keep; at least 1
+     * @param timeToLive milliseconds a parsed document is kept, or 0 to
+     *        keep it until it is dropped to make room
+     * @param documents where to keep the fetched documents, or null to
+     *        keep them in memory only
+     */
+    public DefaultWSDLCache(int maxEntries, long timeToLive,
+                            WSDLDocumentStore documents) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.timeToLive = Math.max(0, timeToLive);
+        this.documents = documents;
+    }
+
+    /**
+     * Returns where the fetched documents are kept, or null.
+     */
+    public WSDLDocumentStore getDocumentStore() {
+        return documents;
+    }
+
+    public Parser getParser(String wsdlLocation) throws Exception {
+        synchronized (entries) {
+            Entry entry = (Entry) entries.get(wsdlLocation);
+            if (entry != null) {
+                if (entry.expires == 0 ||
+                        entry.expires > System.currentTimeMillis()) {
+                    return entry.parser;
+                }
+                entries.remove(wsdlLocation);
+            }
+        }
+
+        // Parse outside the lock; if two threads parse the same document
+        // at once, the one which finishes last is kept.
+        Parser parser = parse(wsdlLocation);
+        long expires = timeToLive == 0 ?
+                0 : System.currentTimeMillis() + timeToLive;
+        synchronized (entries) {
+            entries.put(wsdlLocation, new Entry(parser, expires));
+            Iterator i = entries.keySet().iterator();
+            while (entries.size() > maxEntries) {
+                i.next();
+                i.remove();
+            }
+        }
+        return parser;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of parsed documents kept.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Parse a document, fetching it and its imports through the document
+     * store, if there is one.
+     */
+    protected Parser parse(String wsdlLocation) throws Exception {
+        Parser parser = new Parser();
+        if (documents != null) {
+            parser.setEntityResolver(documents);
+            InputSource source = documents.resolveEntity(null, wsdlLocation);
+            if (source != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug(Messages.getMessage("parsing00", wsdlLocation));
+                }
+                parser.run(wsdlLocation, XMLUtils.newDocument(source));
+                return parser;
+            }
+        }
+        parser.run(wsdlLocation);
+        return parser;
+    }
+}
@@ -55,7 +55,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
-import java.util.WeakHashMap;
 
 /**
  * Axis' JAXRPC Dynamic Invoation Interface implementation of the Service
@@ -80,7 +79,7 @@ public class Service implements javax.xml.rpc.Service, Serializable, Referenceab
     private HandlerRegistryImpl registry = new HandlerRegistryImpl();
     private Parser wsdlParser = null;
 
-    private static Map cachedWSDL = new WeakHashMap();
+    private static WSDLCache wsdlCache = null;
     private static boolean cachingWSDL = true;
 
     /**
@@ -153,14 +152,7 @@ public class Service implements javax.xml.rpc.Service, Serializable, Referenceab
         this.serviceName = serviceName;
         engine = getAxisClient();
         wsdlLocation = wsdlDoc.toString();
-        Parser parser = null;
-
-        if (cachingWSDL &&
-                (parser = (Parser) cachedWSDL.get(this.wsdlLocation.toString())) != null) {
-            initService(parser, serviceName);
-        } else {
-            initService(wsdlDoc.toString(), serviceName);
-        }
+        initService(wsdlLocation, serviceName);
     }
 
     /**
@@ -192,14 +184,7 @@ public class Service implements javax.xml.rpc.Service, Serializable, Referenceab
         this.serviceName = serviceName;
         this.wsdlLocation = wsdlLocation;
         engine = getAxisClient();
-        // Start by reading in the WSDL using Parser
-        Parser parser = null;
-        if (cachingWSDL &&
-                (parser = (Parser) cachedWSDL.get(wsdlLocation)) != null) {
-            initService(parser, serviceName);
-        } else {
-            initService(wsdlLocation, serviceName);
-        }
+        initService(wsdlLocation, serviceName);
     }
 
     /**
@@ -236,11 +221,13 @@ public class Service implements javax.xml.rpc.Service, Serializable, Referenceab
             throws ServiceException {
         try {
             // Start by reading in the WSDL using Parser
-            Parser parser = new Parser();
-            parser.run(url);
-
-            if (cachingWSDL && this.wsdlLocation != null)
-                cachedWSDL.put(url, parser);
+            Parser parser;
+            if (cachingWSDL && this.wsdlLocation != null) {
+                parser = getWSDLCache().getParser(url);
+            } else {
+                parser = new Parser();
+                parser.run(url);
+            }
 
             initService(parser, serviceName);
         } catch (Exception exp) {
@@ -848,6 +835,27 @@ public class Service implements javax.xml.rpc.Service, Serializable, Referenceab
         cachingWSDL = flag;
     }
 
+    /**
+     * Returns the cache of parsed WSDL documents used by all services;
+     * unless one has been set, a {@link DefaultWSDLCache} configured with
+     * the Axis properties.
+     */
+    public static synchronized WSDLCache getWSDLCache() {
+        if (wsdlCache == null) {
+            wsdlCache = DefaultWSDLCache.fromProperties();
+        }
+        return wsdlCache;
+    }
+
+    /**
+     * Set the cache of parsed WSDL documents used by all services.
+     *
+     * @param cache the cache, or null for the default one
+     */
+    public static synchronized void setWSDLCache(WSDLCache cache) {
+        wsdlCache = cache;
+    }
+
     protected static class HandlerRegistryImpl implements HandlerRegistry {
         Map map = new HashMap();
 
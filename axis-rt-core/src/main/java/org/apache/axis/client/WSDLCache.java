@@ -0,0 +1,45 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.client;
+
+import org.apache.axis.wsdl.gen.Parser;
+
+/**
+ * Where a {@link Service} made from the location of a WSDL document gets
+ * the parsed document.  The cache in use is set with
+ * {@link Service#setWSDLCache}; the default is a {@link DefaultWSDLCache}.
+ * <p>
+ * The parsers handed out are shared by the services made from them, so
+ * they must not be changed.
+ */
+public interface WSDLCache {
+
+    /**
+     * Get the parsed WSDL document at a location, parsing it unless it is
+     * cached.
+     *
+     * @param wsdlLocation the URL of the document, or the name of a file
+     * @return the parser which has parsed the document
+     * @throws Exception if the document cannot be read or parsed
+     */
+    Parser getParser(String wsdlLocation) throws Exception;
+
+    /**
+     * Forget the parsed documents, so that they are parsed again when
+     * they are next asked for.
+     */
+    void clear();
+}
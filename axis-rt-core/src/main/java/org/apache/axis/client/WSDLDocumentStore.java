@@ -0,0 +1,292 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.client;
+
+import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.utils.IOUtils;
+import org.apache.axis.utils.Messages;
+import org.apache.axis.wsdl.symbolTable.ThreadSafeEntityResolver;
+import org.apache.commons.logging.Log;
+import org.xml.sax.InputSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+/**
+ * Keeps copies of the WSDL and schema documents fetched over HTTP in a
+ * directory, so that they need not be fetched again, not even by another
+ * JVM.  It is used as the <code>EntityResolver</code> of a
+ * {@link org.apache.axis.wsdl.gen.Parser}, which reads the imported
+ * documents through it.
+ * <p>
+ * Each document is kept in a file named after the SHA-1 hash of its URL,
+ * next to a properties file with the hash of its content and its
+ * Last-Modified time.  A copy is used as it is for the revalidation
+ * interval after it was last checked.  After that, the server is asked
+ * for the document with an If-Modified-Since header, and the copy is
+ * replaced if the server sends a document with different content.  If
+ * the server cannot be reached, the copy is used anyway.  A copy whose
+ * content no longer has the recorded hash is ignored.
+ * <p>
+ * Documents which are not fetched over HTTP are read as usual.
+ */
+public class WSDLDocumentStore implements ThreadSafeEntityResolver {
+
+    protected static Log log =
+        LogFactory.getLog(WSDLDocumentStore.class.getName());
+
+    private static final String SYSTEM_ID = "systemId";
+    private static final String CONTENT_HASH = "contentHash";
+    private static final String LAST_MODIFIED = "lastModified";
+    private static final String CHECKED = "checked";
+
+    private final File directory;
+    private final long revalidate;
+
+    /**
+     * @param directory the directory to keep the documents in; it is made
+     *        if it doesn't exist
+     * @param revalidate milliseconds a copy is used without asking the
+     *        server whether the document has changed
+     */
+    public WSDLDocumentStore(File directory, long revalidate) {
+        this.directory = directory;
+        this.revalidate = Math.max(0, revalidate);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get a document from the store, fetching it if needed.
+     *
+     * @return the document, or null if it is not fetched over HTTP
+     * @throws IOException if the document can neither be fetched nor be
+     *         found in the store
+     */
+    public InputSource resolveEntity(String publicId, String systemId)
+            throws IOException {
+        if (systemId == null ||
+                !(systemId.startsWith("http:") ||
+                  systemId.startsWith("https:"))) {
+            return null;
+        }
+        InputSource source =
+                new InputSource(new ByteArrayInputStream(getContent(systemId)));
+        source.setSystemId(systemId);
+        return source;
+    }
+
+    /**
+     * Get the content of a document, from the store if the copy there is
+     * valid, or else from the server.
+     */
+    byte[] getContent(String systemId) throws IOException {
+        String key = hash(systemId.getBytes("UTF-8"));
+        File data = new File(directory, key + ".xml");
+        File meta = new File(directory, key + ".properties");
+        long now = System.currentTimeMillis();
+
+        Properties properties = load(meta, systemId);
+        byte[] copy = properties == null ? null : read(data, properties);
+        if (copy != null &&
+                now - getLong(properties, CHECKED) < revalidate) {
+            return copy;
+        }
+
+        URLConnection connection;
+        byte[] content;
+        try {
+            connection = new URL(systemId).openConnection();
+            long lastModified =
+                    copy == null ? 0 : getLong(properties, LAST_MODIFIED);
+            if (lastModified > 0) {
+                connection.setIfModifiedSince(lastModified);
+            }
+            if (copy != null &&
+                    connection instanceof HttpURLConnection &&
+                    ((HttpURLConnection) connection).getResponseCode() ==
+                    HttpURLConnection.HTTP_NOT_MODIFIED) {
+                properties.setProperty(CHECKED, Long.toString(now));
+                save(systemId, null, null, meta, properties);
+                return copy;
+            }
+            content = IOUtils.readFully(connection.getInputStream());
+        } catch (IOException e) {
+            if (copy == null) {
+                throw e;
+            }
+            log.warn(Messages.getMessage("wsdlCacheStale00",
+                                         systemId, e.toString()));
+            return copy;
+        }
+
+        String contentHash = hash(content);
+        boolean changed = copy == null ||
+                !contentHash.equals(properties.getProperty(CONTENT_HASH));
+        properties = new Properties();
+        properties.setProperty(SYSTEM_ID, systemId);
+        properties.setProperty(CONTENT_HASH, contentHash);
+        properties.setProperty(LAST_MODIFIED,
+                               Long.toString(connection.getLastModified()));
+        properties.setProperty(CHECKED, Long.toString(now));
+        save(systemId, changed ? data : null, content, meta, properties);
+        return content;
+    }
+
+    /**
+     * Keep a copy of a document and its properties.  The document has been
+     * fetched all the same, so a store that cannot be written to is only
+     * warned about.
+     *
+     * @param data the file to write the content to, or null if the copy
+     *        there is current
+     */
+    private void save(String systemId, File data, byte[] content,
+                      File meta, Properties properties) {
+        try {
+            if (data != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug(Messages.getMessage("wsdlCacheStore00",
+                                                  systemId, data.getPath()));
+                }
+                write(data, content);
+            }
+            store(meta, properties);
+        } catch (IOException e) {
+            log.warn(Messages.getMessage("wsdlCacheWrite00",
+                                         systemId, e.toString()));
+        }
+    }
+
+    /**
+     * Load the properties of a document, unless they are missing or are
+     * those of another document.
+     */
+    private static Properties load(File meta, String systemId) {
+        if (!meta.isFile()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try {
+            InputStream in = new FileInputStream(meta);
+            try {
+                properties.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        if (!systemId.equals(properties.getProperty(SYSTEM_ID))) {
+            return null;
+        }
+        return properties;
+    }
+
+    private void store(File meta, Properties properties) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        properties.store(out, null);
+        write(meta, out.toByteArray());
+    }
+
+    /**
+     * Read a copy, unless it is missing or its content has changed.
+     */
+    private static byte[] read(File data, Properties properties) {
+        if (!data.isFile()) {
+            return null;
+        }
+        byte[] content;
+        try {
+            content = IOUtils.readFully(new FileInputStream(data));
+        } catch (IOException e) {
+            return null;
+        }
+        if (!hash(content).equals(properties.getProperty(CONTENT_HASH))) {
+            return null;
+        }
+        return content;
+    }
+
+    /**
+     * Write a file through a temporary file, so that no one reads it
+     * half written.
+     */
+    private void write(File file, byte[] content) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs() &&
+                !directory.isDirectory()) {
+            throw new IOException(Messages.getMessage("wsdlCacheDir00",
+                                                      directory.getPath()));
+        }
+        File temp = File.createTempFile("wsdl", ".tmp", directory);
+        try {
+            OutputStream out = new FileOutputStream(temp);
+            try {
+                out.write(content);
+            } finally {
+                out.close();
+            }
+            if (!temp.renameTo(file)) {
+                file.delete();
+                if (!temp.renameTo(file)) {
+                    throw new IOException(Messages.getMessage(
+                            "wsdlCacheRename00", temp.getPath(), file.getPath()));
+                }
+            }
+        } finally {
+            temp.delete();
+        }
+    }
+
+    private static long getLong(Properties properties, String name) {
+        try {
+            return Long.parseLong(properties.getProperty(name, "0"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String hash(byte[] bytes) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM has SHA-1
+            throw new IllegalStateException(e.toString());
+        }
+        byte[] hash = digest.digest(bytes);
+        StringBuffer buf = new StringBuffer(hash.length * 2);
+        for (int i = 0; i < hash.length; i++) {
+            buf.append(Character.forDigit((hash[i] >> 4) & 0xf, 16));
+            buf.append(Character.forDigit(hash[i] & 0xf, 16));
+        }
+        return buf.toString();
+    }
+}
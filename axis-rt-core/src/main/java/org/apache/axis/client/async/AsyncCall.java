@@ -22,6 +22,12 @@ import javax.xml.namespace.QName;
 
 /**
  * Support for Asynchronous call
+ * <p>
+ * Each invocation runs on the {@link AsyncExecutor}, the shared default
+ * one unless another is set, and may be given a timeout after which it is
+ * aborted.  The Call isn't thread safe, so an AsyncCall must not be
+ * invoked again before its previous result is done; use one Call per
+ * concurrent invocation.
  * 
  * @author Davanum Srinivas (dims@yahoo.com)
  */
@@ -37,6 +43,16 @@ public class AsyncCall {
      */
     private IAsyncCallback callback = null;
 
+    /**
+     * Field executor
+     */
+    private AsyncExecutor executor = null;
+
+    /**
+     * Milliseconds after which an invocation is aborted; 0 for no limit
+     */
+    private long timeout = 0;
+
     /**
      * Constructor AsyncCall
      * 
@@ -96,6 +112,40 @@ public class AsyncCall {
         return new AsyncResult(this, qName, inputParams);
     }
 
+    /**
+     * Returns the executor running the invocations.
+     */
+    public AsyncExecutor getExecutor() {
+        if (executor == null) {
+            return AsyncExecutor.getDefault();
+        }
+        return executor;
+    }
+
+    /**
+     * Sets the executor running the invocations; null selects the default
+     * executor.
+     */
+    public void setExecutor(AsyncExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the milliseconds after which an invocation is aborted.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets the milliseconds after which an invocation is aborted and fails
+     * with an AxisFault; 0 for no limit.  Unlike the timeout of the Call,
+     * it limits the whole invocation, not each read from the connection.
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
     /**
      * Method getCall
      * 
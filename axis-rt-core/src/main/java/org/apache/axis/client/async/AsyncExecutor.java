@@ -0,0 +1,202 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.client.async;
+
+import org.apache.axis.AxisProperties;
+import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.utils.Messages;
+import org.apache.commons.logging.Log;
+
+import java.util.LinkedList;
+
+/**
+ * A bounded pool of daemon threads running asynchronous calls.  At most
+ * <code>maxThreads</code> calls run at the same time and at most
+ * <code>maxQueued</code> further calls wait for a thread; beyond that,
+ * {@link #execute} refuses the task.  Threads idle for longer than the
+ * keep-alive time end.
+ * <p>
+ * The default executor is configured with the Axis properties
+ * {@link #PROP_MAX_THREADS}, {@link #PROP_MAX_QUEUED} and
+ * {@link #PROP_KEEP_ALIVE}.
+ *
+ * @see AsyncCall#setExecutor(AsyncExecutor)
+ */
+public class AsyncExecutor {
+
+    protected static Log log =
+        LogFactory.getLog(AsyncExecutor.class.getName());
+
+    /** Maximum number of threads of the default executor */
+    public static final String PROP_MAX_THREADS = "axis.async.maxThreads";
+    /** Maximum number of waiting calls of the default executor */
+    public static final String PROP_MAX_QUEUED = "axis.async.maxQueued";
+    /** Milliseconds an idle thread of the default executor is kept */
+    public static final String PROP_KEEP_ALIVE = "axis.async.keepAlive";
+
+    public static final int DEFAULT_MAX_THREADS = 20;
+    public static final int DEFAULT_MAX_QUEUED = 1000;
+    public static final long DEFAULT_KEEP_ALIVE = 60000;
+
+    private static AsyncExecutor defaultExecutor = null;
+    private static int threadCount = 0;
+
+    private final int maxThreads;
+    private final int maxQueued;
+    private final long keepAlive;
+
+    private final LinkedList queue = new LinkedList();
+    private int threads = 0;
+    private int idle = 0;
+    private boolean shutdown = false;
+
+    /**
+     * Returns the executor shared by all asynchronous calls which don't
+     * have their own.
+     */
+    public static synchronized AsyncExecutor getDefault() {
+        if (defaultExecutor == null) {
+            defaultExecutor = new AsyncExecutor(
+                    getIntProperty(PROP_MAX_THREADS, DEFAULT_MAX_THREADS),
+                    getIntProperty(PROP_MAX_QUEUED, DEFAULT_MAX_QUEUED),
+                    getIntProperty(PROP_KEEP_ALIVE, (int) DEFAULT_KEEP_ALIVE));
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * @param maxThreads maximum number of threads; at least 1
+     * @param maxQueued maximum number of tasks waiting for a thread
+     * @param keepAlive milliseconds an idle thread is kept
+     */
+    public AsyncExecutor(int maxThreads, int maxQueued, long keepAlive) {
+        this.maxThreads = Math.max(1, maxThreads);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.keepAlive = Math.max(1, keepAlive);
+    }
+
+    /**
+     * Runs a task on a pool thread.
+     *
+     * @return false if the task was refused because the queue is full or
+     *         the executor has been shut down
+     */
+    public synchronized boolean execute(Runnable task) {
+        if (shutdown) {
+            return false;
+        }
+        if (idle > queue.size()) {
+            queue.addLast(task);
+            notify();
+        } else if (threads < maxThreads) {
+            startThread(task);
+        } else if (queue.size() < maxQueued) {
+            queue.addLast(task);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Lets the threads end once the queued tasks have run, and refuses
+     * new tasks.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        notifyAll();
+    }
+
+    /**
+     * Returns the number of pool threads.
+     */
+    public synchronized int getPoolSize() {
+        return threads;
+    }
+
+    /**
+     * Returns the number of tasks waiting for a thread.
+     */
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    private void startThread(final Runnable firstTask) {
+        threads++;
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                Runnable task = firstTask;
+                while (task != null) {
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        log.error(Messages.getMessage("exception00"), t);
+                    }
+                    // Don't let a cancelled call leave the thread interrupted
+                    Thread.interrupted();
+                    task = take();
+                }
+            }
+        }, "Axis async-" + nextThreadNumber());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Waits for the next task.
+     *
+     * @return null if the thread should end
+     */
+    private synchronized Runnable take() {
+        long deadline = System.currentTimeMillis() + keepAlive;
+        while (queue.isEmpty() && !shutdown) {
+            long wait = deadline - System.currentTimeMillis();
+            if (wait <= 0) {
+                break;
+            }
+            idle++;
+            try {
+                wait(wait);
+            } catch (InterruptedException e) {
+                // keep waiting for work
+            } finally {
+                idle--;
+            }
+        }
+        if (queue.isEmpty()) {
+            threads--;
+            return null;
+        }
+        return (Runnable) queue.removeFirst();
+    }
+
+    private static synchronized int nextThreadNumber() {
+        return ++threadCount;
+    }
+
+    private static int getIntProperty(String name, int dephault) {
+        String value = AxisProperties.getProperty(name);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn(Messages.getMessage("badIntProperty00", name, value));
+            }
+        }
+        return dephault;
+    }
+}
@@ -1,12 +1,12 @@
 /*
  * Copyright 2001-2004 The Apache Software Foundation.
- * 
+ *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
- * 
+ *
  *      http://www.apache.org/licenses/LICENSE-2.0
- * 
+ *
  * Unless required by applicable law or agreed to in writing, software
  * distributed under the License is distributed on an "AS IS" BASIS,
  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
@@ -16,19 +16,39 @@
 
 package org.apache.axis.client.async;
 
+import org.apache.axis.AxisFault;
+import org.apache.axis.MessageContext;
+import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.transport.http.HTTPConstants;
+import org.apache.axis.transport.http.SocketHolder;
+import org.apache.axis.utils.Messages;
+import org.apache.commons.logging.Log;
+
 import javax.xml.namespace.QName;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Timer;
+import java.util.TimerTask;
 
 /**
  * Access the results of the Async call
- * 
+ * <p>
+ * The call runs on the {@link AsyncExecutor} of its {@link AsyncCall}.
+ * Besides polling, the result can be waited for with {@link #get()}, and
+ * any number of callbacks can be added, which run once the call has
+ * completed, failed, timed out or been cancelled.  Cancelling a call that
+ * is in progress closes its HTTP connection, so that the waiting thread
+ * is released at once.
+ *
  * @author Davanum Srinivas (dims@yahoo.com)
  */
 public class AsyncResult implements IAsyncResult, Runnable {
 
-    /**
-     * Field thread
-     */
-    private Thread thread = null;
+    protected static Log log =
+        LogFactory.getLog(AsyncResult.class.getName());
+
+    /** Timer enforcing the timeouts of all asynchronous calls */
+    private static Timer timer = null;
 
     /**
      * Field response
@@ -60,12 +80,23 @@ public class AsyncResult implements IAsyncResult, Runnable {
      */
     private Status status = Status.NONE;
 
+    /** Set once the call has completed, failed or been cancelled */
+    private boolean done = false;
+
+    /** The thread running the call, while it runs */
+    private Thread runner = null;
+
+    /** Callbacks added through addCallback, until they have been run */
+    private ArrayList callbacks = null;
+
+    private TimerTask timeoutTask = null;
+
     /**
      * Constructor AsyncResult
-     * 
-     * @param ac     
-     * @param opName 
-     * @param params 
+     *
+     * @param ac
+     * @param opName
+     * @param params
      */
     public AsyncResult(AsyncCall ac, QName opName, Object[] params) {
         this.ac = ac;
@@ -76,53 +107,164 @@ public class AsyncResult implements IAsyncResult, Runnable {
             this.opName = ac.getCall().getOperationName();
         }
 
-        thread = new Thread(this);
-        thread.setDaemon(true);
-        thread.start();
+        long timeout = ac.getTimeout();
+        if (timeout > 0) {
+            final long millis = timeout;
+            timeoutTask = new TimerTask() {
+                public void run() {
+                    timeOut(millis);
+                }
+            };
+            getTimer().schedule(timeoutTask, timeout);
+        }
+
+        if (!ac.getExecutor().execute(this)) {
+            finish(Status.EXCEPTION, null,
+                   new AxisFault(Messages.getMessage("asyncRejected00")));
+        }
     }
 
     /**
      * Method abort
      */
     public void abort() {
-        thread.interrupt();
-        status = Status.INTERRUPTED;
+        cancel();
+    }
+
+    /**
+     * Cancels the call.  A call that is in progress is interrupted and its
+     * connection closed; the status becomes {@link Status#INTERRUPTED}.
+     *
+     * @return false if the call had already finished
+     */
+    public boolean cancel() {
+        return finish(Status.INTERRUPTED, null,
+                      new AxisFault(Messages.getMessage("asyncCancelled00")));
     }
 
     /**
      * Method getStatus
-     * 
-     * @return 
+     *
+     * @return
      */
-    public Status getStatus() {
+    public synchronized Status getStatus() {
         return status;
     }
 
+    /**
+     * Returns true once the call has completed, failed, timed out or been
+     * cancelled.
+     */
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Returns true if the call was cancelled.
+     */
+    public synchronized boolean isCancelled() {
+        return status == Status.INTERRUPTED;
+    }
+
     /**
      * Method waitFor
-     * 
-     * @param timeout 
-     * @throws InterruptedException 
+     *
+     * @param timeout milliseconds to wait at most; 0 waits until done
+     * @throws InterruptedException
      */
-    public void waitFor(long timeout) throws InterruptedException {
-        thread.wait(timeout);
+    public synchronized void waitFor(long timeout) throws InterruptedException {
+        if (timeout <= 0) {
+            while (!done) {
+                wait();
+            }
+            return;
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        while (!done) {
+            long wait = deadline - System.currentTimeMillis();
+            if (wait <= 0) {
+                return;
+            }
+            wait(wait);
+        }
+    }
+
+    /**
+     * Waits for the call to finish and returns its result.
+     *
+     * @return the response of the call
+     * @throws RemoteException the fault of the call, or an AxisFault if
+     *         it was cancelled or timed out
+     */
+    public Object get() throws InterruptedException, RemoteException {
+        waitFor(0);
+        return getResult();
+    }
+
+    /**
+     * Waits at most the given time for the call to finish and returns its
+     * result.  The call itself goes on if the time runs out.
+     *
+     * @param timeout milliseconds to wait at most
+     * @return the response of the call
+     * @throws RemoteException the fault of the call, or an AxisFault if
+     *         it was cancelled or didn't finish in time
+     */
+    public Object get(long timeout)
+            throws InterruptedException, RemoteException {
+        waitFor(timeout);
+        synchronized (this) {
+            if (!done) {
+                throw new AxisFault(Messages.getMessage(
+                        "asyncTimeout00", Long.toString(timeout)));
+            }
+        }
+        return getResult();
+    }
+
+    private synchronized Object getResult() throws RemoteException {
+        if (exception == null) {
+            return response;
+        }
+        if (exception instanceof RemoteException) {
+            throw (RemoteException) exception;
+        }
+        throw AxisFault.makeFault(exception instanceof Exception ?
+                (Exception) exception : new Exception(exception.toString()));
+    }
+
+    /**
+     * Adds a callback to run once the call has finished.  If it has
+     * already finished, the callback runs right away on the calling thread.
+     */
+    public void addCallback(IAsyncCallback callback) {
+        synchronized (this) {
+            if (!done) {
+                if (callbacks == null) {
+                    callbacks = new ArrayList();
+                }
+                callbacks.add(callback);
+                return;
+            }
+        }
+        callback.onCompletion(this);
     }
 
     /**
      * Method getResponse
-     * 
-     * @return 
+     *
+     * @return
      */
-    public Object getResponse() {
+    public synchronized Object getResponse() {
         return response;
     }
 
     /**
      * Method getException
-     * 
-     * @return 
+     *
+     * @return
      */
-    public Throwable getException() {
+    public synchronized Throwable getException() {
         return exception;
     }
 
@@ -130,17 +272,137 @@ public class AsyncResult implements IAsyncResult, Runnable {
      * Method run
      */
     public void run() {
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            runner = Thread.currentThread();
+        }
+        Object result = null;
+        Throwable fault = null;
         try {
-            response = ac.getCall().invoke(opName, params);
-            status = Status.COMPLETED;
+            result = ac.getCall().invoke(opName, params);
         } catch (Throwable e) {
-            exception = e;
-            status = Status.EXCEPTION;
+            fault = e;
         } finally {
-            IAsyncCallback callback = ac.getCallback();
-            if (callback != null) {
-                callback.onCompletion(this);
+            synchronized (this) {
+                runner = null;
+            }
+            // Clear an interrupt from a concurrent cancel
+            Thread.interrupted();
+        }
+        if (fault == null) {
+            finish(Status.COMPLETED, result, null);
+        } else {
+            finish(Status.EXCEPTION, null, fault);
+        }
+    }
+
+    /**
+     * Fails the call when its time is up.  The callbacks are handed to the
+     * executor, so that they don't hold up the timer shared by all calls;
+     * they run on the timer thread only if the executor rejects them.
+     */
+    private void timeOut(long timeout) {
+        final ArrayList toRun = complete(Status.EXCEPTION, null,
+                new AxisFault(Messages.getMessage(
+                        "asyncTimeout00", Long.toString(timeout))));
+        if (toRun == null || toRun.isEmpty()) {
+            return;
+        }
+        Runnable callbacks = new Runnable() {
+            public void run() {
+                runCallbacks(toRun);
+            }
+        };
+        if (!ac.getExecutor().execute(callbacks)) {
+            runCallbacks(toRun);
+        }
+    }
+
+    /**
+     * Records the outcome of the call, unless it has already finished,
+     * and runs the callbacks.  If the call is still running, it is
+     * aborted.
+     *
+     * @return false if the call had already finished
+     */
+    private boolean finish(Status status, Object response, Throwable exception) {
+        ArrayList toRun = complete(status, response, exception);
+        if (toRun == null) {
+            return false;
+        }
+        runCallbacks(toRun);
+        return true;
+    }
+
+    /**
+     * Records the outcome of the call, unless it has already finished.
+     * If the call is still running, it is aborted.
+     *
+     * @return the callbacks to run, or null if the call had already
+     *         finished
+     */
+    private ArrayList complete(Status status, Object response,
+                               Throwable exception) {
+        ArrayList toRun = new ArrayList();
+        IAsyncCallback callback = ac.getCallback();
+        if (callback != null) {
+            toRun.add(callback);
+        }
+        synchronized (this) {
+            if (done) {
+                return null;
+            }
+            this.status = status;
+            this.response = response;
+            this.exception = exception;
+            done = true;
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
+                timeoutTask = null;
             }
+            if (runner != null) {
+                runner.interrupt();
+                abortTransport();
+            }
+            if (callbacks != null) {
+                toRun.addAll(callbacks);
+            }
+            callbacks = null;
+            notifyAll();
+        }
+        return toRun;
+    }
+
+    private void runCallbacks(ArrayList toRun) {
+        for (int i = 0; i < toRun.size(); i++) {
+            try {
+                ((IAsyncCallback) toRun.get(i)).onCompletion(this);
+            } catch (RuntimeException e) {
+                log.error(Messages.getMessage("exception00"), e);
+            }
+        }
+    }
+
+    /**
+     * Closes the connection the call is waiting on, if any.
+     */
+    private void abortTransport() {
+        MessageContext msgContext = ac.getCall().getMessageContext();
+        if (msgContext == null) {
+            return;
+        }
+        Object holder = msgContext.getProperty(HTTPConstants.MC_SOCKET_HOLDER);
+        if (holder instanceof SocketHolder) {
+            ((SocketHolder) holder).abort();
+        }
+    }
+
+    private static synchronized Timer getTimer() {
+        if (timer == null) {
+            timer = new Timer(true);
         }
+        return timer;
     }
 }
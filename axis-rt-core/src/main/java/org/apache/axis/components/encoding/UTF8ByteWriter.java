@@ -0,0 +1,451 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.components.encoding;
+
+import org.apache.axis.i18n.Messages;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.util.HashMap;
+
+/**
+ * A Writer that encodes characters as UTF-8 straight into a byte buffer
+ * and writes the buffer to an output stream.  It replaces the
+ * <code>OutputStreamWriter</code> and <code>BufferedWriter</code> pair when
+ * a message is serialized to a stream, so that characters are transcoded
+ * once, without an intermediate char buffer.  Runs of ASCII characters are
+ * copied without going through the encoder.
+ * <p>
+ * Besides the Writer methods, it offers XML escaping with the semantics of
+ * the UTF-8 {@link XMLEncoder}, and caches the encoded bytes of element
+ * tags and namespace declarations, which are written over and over again
+ * in a typical message.
+ * <p>
+ * Like an <code>OutputStreamWriter</code>, unpaired surrogates are written
+ * as '?'.  The writer is not thread safe, but may be {@link #reset} to
+ * write the next message of the same thread.
+ *
+ * @see org.apache.axis.encoding.SerializationContext
+ */
+public class UTF8ByteWriter extends Writer {
+
+    /** Default size of the byte buffer */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /** Maximum number of cached fragments of each kind */
+    private static final int MAX_FRAGMENTS = 256;
+
+    private static final byte[] HEX_DIGITS = {
+        '0', '1', '2', '3', '4', '5', '6', '7',
+        '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+    };
+
+    private static final byte[] AMP = {'&', 'a', 'm', 'p', ';'};
+    private static final byte[] QUOTE = {'&', 'q', 'u', 'o', 't', ';'};
+    private static final byte[] LESS = {'&', 'l', 't', ';'};
+    private static final byte[] GREATER = {'&', 'g', 't', ';'};
+
+    private OutputStream out;
+    private final byte[] buf;
+    private int count = 0;
+
+    /** A high surrogate waiting for its low surrogate, or 0 */
+    private char highSurrogate = 0;
+
+    private HashMap startTags;
+    private HashMap endTags;
+    /** namespace URI -> {qname, encoded declaration} */
+    private HashMap nsDecls;
+
+    public UTF8ByteWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param out the stream to write to
+     * @param size the size of the byte buffer; at least 16
+     */
+    public UTF8ByteWriter(OutputStream out, int size) {
+        if (size < 16) {
+            throw new IllegalArgumentException();
+        }
+        this.out = out;
+        this.buf = new byte[size];
+    }
+
+    /**
+     * Starts writing to another stream, keeping the cached fragments, so
+     * that the writer can be reused for the next message.  Bytes not yet
+     * flushed are dropped.
+     *
+     * @param out the stream to write to, or null to let go of the last one
+     */
+    public void reset(OutputStream out) {
+        this.out = out;
+        count = 0;
+        highSurrogate = 0;
+    }
+
+    public void write(int c) throws IOException {
+        if (c < 0x80 && highSurrogate == 0) {
+            if (count == buf.length) {
+                flushBuffer();
+            }
+            buf[count++] = (byte) c;
+        } else {
+            writeChar((char) c);
+        }
+    }
+
+    public void write(String str) throws IOException {
+        write(str, 0, str.length());
+    }
+
+    public void write(String str, int off, int len) throws IOException {
+        int end = off + len;
+        while (off < end) {
+            if (highSurrogate != 0) {
+                writeChar(str.charAt(off++));
+                continue;
+            }
+            // Copy the ASCII run that fits into the buffer
+            int c = count;
+            int limit = Math.min(end, off + buf.length - c);
+            while (off < limit) {
+                char ch = str.charAt(off);
+                if (ch >= 0x80) {
+                    break;
+                }
+                buf[c++] = (byte) ch;
+                off++;
+            }
+            count = c;
+            if (off == end) {
+                return;
+            }
+            if (off == limit) {
+                flushBuffer();
+            } else {
+                writeChar(str.charAt(off++));
+            }
+        }
+    }
+
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int end = off + len;
+        while (off < end) {
+            if (highSurrogate != 0) {
+                writeChar(cbuf[off++]);
+                continue;
+            }
+            int c = count;
+            int limit = Math.min(end, off + buf.length - c);
+            while (off < limit) {
+                char ch = cbuf[off];
+                if (ch >= 0x80) {
+                    break;
+                }
+                buf[c++] = (byte) ch;
+                off++;
+            }
+            count = c;
+            if (off == end) {
+                return;
+            }
+            if (off == limit) {
+                flushBuffer();
+            } else {
+                writeChar(cbuf[off++]);
+            }
+        }
+    }
+
+    /**
+     * Writes a string escaped for use in XML content or a double quoted
+     * attribute value.  The output is the same as that of the UTF-8
+     * {@link XMLEncoder}: markup characters are written as entities and
+     * characters beyond ASCII as character references.
+     *
+     * @param xmlString the string to escape; nothing is written if null
+     * @throws IllegalArgumentException if the string contains a character
+     *         that is not allowed in XML
+     */
+    public void writeEncoded(String xmlString) throws IOException {
+        if (xmlString == null) {
+            return;
+        }
+        flushSurrogate();
+        int length = xmlString.length();
+        int i = 0;
+        while (i < length) {
+            // Copy the run that needs no escaping
+            int c = count;
+            int limit = Math.min(length, i + buf.length - c);
+            while (i < limit) {
+                char ch = xmlString.charAt(i);
+                if (!isSafe(ch)) {
+                    break;
+                }
+                buf[c++] = (byte) ch;
+                i++;
+            }
+            count = c;
+            if (i == length) {
+                return;
+            }
+            if (i == limit) {
+                flushBuffer();
+                continue;
+            }
+
+            char character = xmlString.charAt(i);
+            switch (character) {
+                case '&':
+                    writeBytes(AMP);
+                    break;
+                case '"':
+                    writeBytes(QUOTE);
+                    break;
+                case '<':
+                    writeBytes(LESS);
+                    break;
+                case '>':
+                    writeBytes(GREATER);
+                    break;
+                case '\n':
+                case '\r':
+                case '\t':
+                    write(character);
+                    break;
+                default:
+                    if (character < 0x20) {
+                        throw new IllegalArgumentException(Messages.getMessage(
+                                "invalidXmlCharacter00",
+                                Integer.toHexString(character),
+                                xmlString.substring(0, i)));
+                    }
+                    writeCharRef(character);
+                    break;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Writes the start of a start tag, i.e. '&lt;' and the element name.
+     */
+    public void writeStartTag(String qname) throws IOException {
+        if (startTags == null) {
+            startTags = new HashMap();
+        }
+        byte[] fragment = (byte[]) startTags.get(qname);
+        if (fragment == null) {
+            fragment = encode("<" + qname);
+            cache(startTags, qname, fragment);
+        }
+        writeBytes(fragment);
+    }
+
+    /**
+     * Writes an end tag.
+     */
+    public void writeEndTag(String qname) throws IOException {
+        if (endTags == null) {
+            endTags = new HashMap();
+        }
+        byte[] fragment = (byte[]) endTags.get(qname);
+        if (fragment == null) {
+            fragment = encode("</" + qname + ">");
+            cache(endTags, qname, fragment);
+        }
+        writeBytes(fragment);
+    }
+
+    /**
+     * Writes a namespace declaration, preceded by a space.
+     *
+     * @param qname the attribute name, e.g. "xmlns:ns1"
+     * @param uri the namespace URI, escaped as by {@link #writeEncoded}
+     */
+    public void writeNamespaceDeclaration(String qname, String uri)
+            throws IOException {
+        if (nsDecls == null) {
+            nsDecls = new HashMap();
+        }
+        Object[] decl = (Object[]) nsDecls.get(uri);
+        if (decl == null || !qname.equals(decl[0])) {
+            if (!isSafe(uri)) {
+                write(' ');
+                write(qname);
+                write("=\"");
+                writeEncoded(uri);
+                write('"');
+                return;
+            }
+            decl = new Object[] {qname,
+                                 encode(" " + qname + "=\"" + uri + "\"")};
+            cache(nsDecls, uri, decl);
+        }
+        writeBytes((byte[]) decl[1]);
+    }
+
+    /**
+     * Writes the buffered bytes to the stream and flushes it.  A pending
+     * high surrogate is kept, since its low surrogate may follow.
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    public void close() throws IOException {
+        if (out == null) {
+            return;
+        }
+        flushSurrogate();
+        flush();
+        out.close();
+        out = null;
+    }
+
+    /**
+     * Returns the number of bytes buffered but not yet written.
+     */
+    public int getBufferedCount() {
+        return count;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (out == null) {
+            throw new IOException(Messages.getMessage("streamClosed"));
+        }
+        if (count > 0) {
+            out.write(buf, 0, count);
+            count = 0;
+        }
+    }
+
+    private void ensure(int n) throws IOException {
+        if (count + n > buf.length) {
+            flushBuffer();
+        }
+    }
+
+    private void writeBytes(byte[] b) throws IOException {
+        flushSurrogate();
+        if (b.length > buf.length - count) {
+            flushBuffer();
+            if (b.length > buf.length) {
+                out.write(b);
+                return;
+            }
+        }
+        System.arraycopy(b, 0, buf, count, b.length);
+        count += b.length;
+    }
+
+    private void flushSurrogate() throws IOException {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            ensure(1);
+            buf[count++] = '?';
+        }
+    }
+
+    private void writeChar(char ch) throws IOException {
+        ensure(4);
+        if (highSurrogate != 0) {
+            if (ch >= 0xDC00 && ch <= 0xDFFF) {
+                int cp = ((highSurrogate - 0xD800) << 10) + (ch - 0xDC00)
+                        + 0x10000;
+                highSurrogate = 0;
+                buf[count++] = (byte) (0xF0 | (cp >> 18));
+                buf[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (cp & 0x3F));
+                return;
+            }
+            highSurrogate = 0;
+            buf[count++] = '?';
+        }
+        if (ch < 0x80) {
+            buf[count++] = (byte) ch;
+        } else if (ch < 0x800) {
+            buf[count++] = (byte) (0xC0 | (ch >> 6));
+            buf[count++] = (byte) (0x80 | (ch & 0x3F));
+        } else if (ch >= 0xD800 && ch <= 0xDBFF) {
+            highSurrogate = ch;
+        } else if (ch >= 0xDC00 && ch <= 0xDFFF) {
+            buf[count++] = '?';
+        } else {
+            buf[count++] = (byte) (0xE0 | (ch >> 12));
+            buf[count++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+            buf[count++] = (byte) (0x80 | (ch & 0x3F));
+        }
+    }
+
+    /**
+     * Writes "&amp;#x" followed by the upper case hex digits of the
+     * character, without leading zeros, and ';'.
+     */
+    private void writeCharRef(char ch) throws IOException {
+        ensure(8);
+        buf[count++] = '&';
+        buf[count++] = '#';
+        buf[count++] = 'x';
+        int shift = 12;
+        while (shift > 0 && ((ch >> shift) & 0xF) == 0) {
+            shift -= 4;
+        }
+        for (; shift >= 0; shift -= 4) {
+            buf[count++] = HEX_DIGITS[(ch >> shift) & 0xF];
+        }
+        buf[count++] = ';';
+    }
+
+    private static boolean isSafe(char ch) {
+        return ch >= 0x20 && ch <= 0x7F
+                && ch != '&' && ch != '"' && ch != '<' && ch != '>';
+    }
+
+    private static boolean isSafe(String str) {
+        for (int i = 0; i < str.length(); i++) {
+            if (!isSafe(str.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void cache(HashMap map, String key, Object value) {
+        if (map.size() >= MAX_FRAGMENTS) {
+            map.clear();
+        }
+        map.put(key, value);
+    }
+
+    private static byte[] encode(String str) {
+        try {
+            return str.getBytes(XMLEncoderFactory.ENCODING_UTF_8);
+        } catch (UnsupportedEncodingException e) {
+            // Every JVM supports UTF-8
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+}
@@ -48,6 +48,10 @@ class UTF8Encoder extends AbstractXMLEncoder {
         if (xmlString == null) {
             return;
         }
+        if (writer instanceof UTF8ByteWriter) {
+            ((UTF8ByteWriter) writer).writeEncoded(xmlString);
+            return;
+        }
         int length = xmlString.length();
         char character;
         for (int i = 0; i < length; i++) {
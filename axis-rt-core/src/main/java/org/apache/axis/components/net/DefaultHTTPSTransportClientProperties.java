@@ -78,4 +78,56 @@ public class DefaultHTTPSTransportClientProperties
         }
         return proxyPassword;
     }
+
+    /**
+     * @see org.apache.axis.components.net.TransportClientProperties#isKeepAlive()
+     */
+    public boolean isKeepAlive() {
+        if (keepAlive == null) {
+            keepAlive = AxisProperties.getProperty("https.keepAlive");
+        }
+        return super.isKeepAlive();
+    }
+
+    /**
+     * @see org.apache.axis.components.net.TransportClientProperties#getMaxConnectionsPerHost()
+     */
+    public int getMaxConnectionsPerHost() {
+        if (maxConnections == null) {
+            maxConnections = AxisProperties.getProperty("https.maxConnections");
+        }
+        return super.getMaxConnectionsPerHost();
+    }
+
+    /**
+     * @see org.apache.axis.components.net.TransportClientProperties#getMaxTotalConnections()
+     */
+    public int getMaxTotalConnections() {
+        if (maxTotalConnections == null) {
+            maxTotalConnections =
+                    AxisProperties.getProperty("https.maxTotalConnections");
+        }
+        return super.getMaxTotalConnections();
+    }
+
+    /**
+     * @see org.apache.axis.components.net.TransportClientProperties#getKeepAliveTimeout()
+     */
+    public long getKeepAliveTimeout() {
+        if (keepAliveTimeout == null) {
+            keepAliveTimeout =
+                    AxisProperties.getProperty("https.keepAliveTimeout");
+        }
+        return super.getKeepAliveTimeout();
+    }
+
+    /**
+     * @see org.apache.axis.components.net.TransportClientProperties#isStaleCheckingEnabled()
+     */
+    public boolean isStaleCheckingEnabled() {
+        if (staleCheck == null) {
+            staleCheck = AxisProperties.getProperty("https.staleCheck");
+        }
+        return super.isStaleCheckingEnabled();
+    }
 }
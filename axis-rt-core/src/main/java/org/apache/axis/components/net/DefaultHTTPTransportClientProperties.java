@@ -31,6 +31,20 @@ public class DefaultHTTPTransportClientProperties
     protected String proxyPort = null;
     protected String proxyUser = null;
     protected String proxyPassword = null;
+    protected String keepAlive = null;
+    protected String maxConnections = null;
+    protected String maxTotalConnections = null;
+    protected String keepAliveTimeout = null;
+    protected String staleCheck = null;
+
+    /** Default number of idle connections kept per route */
+    public static final int DEFAULT_MAX_CONNECTIONS = 5;
+
+    /** Default number of idle connections kept across all routes */
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 20;
+
+    /** Default idle time, in milliseconds, before a connection is evicted */
+    public static final long DEFAULT_KEEP_ALIVE_TIMEOUT = 15000;
 
 
     /**
@@ -92,4 +106,78 @@ public class DefaultHTTPTransportClientProperties
         }
         return proxyPassword;
     }
+
+    /**
+     * @see org.apache.axis.components.net.TransportClientProperties#isKeepAlive()
+     */
+    public boolean isKeepAlive() {
+        if (keepAlive == null) {
+            keepAlive = AxisProperties.getProperty("http.keepAlive");
+            if (keepAlive == null)
+                keepAlive = "true";
+        }
+        return !keepAlive.trim().equalsIgnoreCase("false");
+    }
+
+    /**
+     * @see org.apache.axis.components.net.TransportClientProperties#getMaxConnectionsPerHost()
+     */
+    public int getMaxConnectionsPerHost() {
+        if (maxConnections == null) {
+            maxConnections = AxisProperties.getProperty("http.maxConnections");
+            if (maxConnections == null)
+                maxConnections = emptyString;
+        }
+        return (int) parseLong(maxConnections, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * @see org.apache.axis.components.net.TransportClientProperties#getMaxTotalConnections()
+     */
+    public int getMaxTotalConnections() {
+        if (maxTotalConnections == null) {
+            maxTotalConnections =
+                    AxisProperties.getProperty("http.maxTotalConnections");
+            if (maxTotalConnections == null)
+                maxTotalConnections = emptyString;
+        }
+        return (int) parseLong(maxTotalConnections,
+                               DEFAULT_MAX_TOTAL_CONNECTIONS);
+    }
+
+    /**
+     * @see org.apache.axis.components.net.TransportClientProperties#getKeepAliveTimeout()
+     */
+    public long getKeepAliveTimeout() {
+        if (keepAliveTimeout == null) {
+            keepAliveTimeout =
+                    AxisProperties.getProperty("http.keepAliveTimeout");
+            if (keepAliveTimeout == null)
+                keepAliveTimeout = emptyString;
+        }
+        return parseLong(keepAliveTimeout, DEFAULT_KEEP_ALIVE_TIMEOUT);
+    }
+
+    /**
+     * @see org.apache.axis.components.net.TransportClientProperties#isStaleCheckingEnabled()
+     */
+    public boolean isStaleCheckingEnabled() {
+        if (staleCheck == null) {
+            staleCheck = AxisProperties.getProperty("http.staleCheck");
+            if (staleCheck == null)
+                staleCheck = "true";
+        }
+        return !staleCheck.trim().equalsIgnoreCase("false");
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value.length() == 0) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
 }
@@ -44,4 +44,34 @@ public interface TransportClientProperties {
      * Returns a valid String, may be empty ("").
      */
     public String getProxyPassword();
+
+    /**
+     * Returns true if persistent (HTTP/1.1 keep-alive) connections
+     * may be pooled and reused across requests.
+     */
+    public boolean isKeepAlive();
+
+    /**
+     * Returns the maximum number of idle persistent connections
+     * kept per route (protocol, host and port).
+     */
+    public int getMaxConnectionsPerHost();
+
+    /**
+     * Returns the maximum number of idle persistent connections
+     * kept across all routes.
+     */
+    public int getMaxTotalConnections();
+
+    /**
+     * Returns the number of milliseconds an idle persistent connection
+     * is kept before it is evicted from the pool.
+     */
+    public long getKeepAliveTimeout();
+
+    /**
+     * Returns true if pooled connections are checked for having been
+     * closed by the server before they are reused.
+     */
+    public boolean isStaleCheckingEnabled();
 }
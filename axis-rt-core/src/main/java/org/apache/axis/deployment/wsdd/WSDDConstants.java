@@ -167,5 +167,6 @@ public class WSDDConstants
     public static final String ATTR_MEP = "mep";
     public static final String ATTR_INNER_TYPE = "innerType";
     public static final String ATTR_INNER_NAME = "innerName";
+    public static final String ATTR_LIGHTWEIGHT = "lightweight";
 
 }
@@ -27,11 +27,13 @@ import org.apache.axis.encoding.TypeMappingRegistry;
 import org.apache.axis.encoding.TypeMappingRegistryImpl;
 import org.apache.axis.handlers.soap.SOAPService;
 import org.apache.axis.utils.Messages;
+import org.apache.axis.utils.cache.GeneratedWSDLCache;
 import org.apache.commons.logging.Log;
 import org.w3c.dom.Element;
 
 import javax.xml.namespace.QName;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Hashtable;
@@ -62,8 +64,15 @@ public class WSDDDeployment
             private HashMap namespaceToServices = new HashMap();
     private AxisEngine engine;
 
+    /**
+     * Generated WSDL of the services in this deployment
+     */
+    private transient GeneratedWSDLCache wsdlCache = new GeneratedWSDLCache();
+
     protected void addHandler(WSDDHandler handler) {
         handlers.put(handler.getQName(), handler);
+        // A handler may take part in the WSDL generation of any service
+        wsdlCache.clear();
     }
 
     protected void addService(WSDDService service) {
@@ -72,6 +81,7 @@ public class WSDDDeployment
             oldService.removeNamespaceMappings(this);
         }
         services.put(service.getQName(), service);
+        wsdlCache.invalidate(service.getQName().getLocalPart());
     }
 
     protected void addTransport(WSDDTransport transport) {
@@ -115,6 +125,7 @@ public class WSDDDeployment
      */
     public void undeployHandler(QName qname) {
         handlers.remove(qname);
+        wsdlCache.clear();
     }
 
     /**
@@ -128,6 +139,7 @@ public class WSDDDeployment
             service.removeNamespaceMappings(this);
             services.remove(qname);
         }
+        wsdlCache.invalidate(qname.getLocalPart());
     }
 
     /**
@@ -148,6 +160,7 @@ public class WSDDDeployment
         typeMappings.put(qname + encoding, typeMapping);
         if (tmrDeployed)
             deployMapping(typeMapping);
+        wsdlCache.clear();
     }
 
     /**
@@ -308,6 +321,24 @@ public class WSDDDeployment
 
     public void setGlobalConfiguration(WSDDGlobalConfiguration globalConfig) {
         this.globalConfig = globalConfig;
+        wsdlCache.clear();
+    }
+
+    /**
+     * Get the cache of generated WSDL for the services of this deployment.
+     * It is invalidated whenever something is (re)deployed that may change
+     * the WSDL of a service.
+     *
+     * @return the WSDL cache
+     */
+    public GeneratedWSDLCache getGeneratedWSDLCache() {
+        return wsdlCache;
+    }
+
+    private void readObject(ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        wsdlCache = new GeneratedWSDLCache();
     }
 
     /**
@@ -414,6 +445,7 @@ public class WSDDDeployment
                 WSDDTypeMapping mapping = (WSDDTypeMapping) i.next();
                 deployMapping(mapping);
             }
+            ((TypeMappingRegistryImpl) tmr).seal();
             tmrDeployed = true;
         }
         return tmr;
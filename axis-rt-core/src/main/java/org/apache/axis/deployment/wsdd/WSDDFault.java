@@ -21,6 +21,7 @@ package org.apache.axis.deployment.wsdd;
 
 import org.apache.axis.description.FaultDesc;
 import org.apache.axis.encoding.SerializationContext;
+import org.apache.axis.utils.JavaUtils;
 import org.apache.axis.utils.XMLUtils;
 import org.w3c.dom.Element;
 import org.xml.sax.helpers.AttributesImpl;
@@ -60,6 +61,10 @@ public class WSDDFault extends WSDDElement {
         String xmlTypeStr = e.getAttribute(ATTR_TYPE);
         if (xmlTypeStr != null && !xmlTypeStr.equals(""))
             desc.setXmlType(XMLUtils.getQNameFromString(xmlTypeStr, e));
+
+        String lightweightStr = e.getAttribute(ATTR_LIGHTWEIGHT);
+        if (lightweightStr != null)
+            desc.setLightweight(JavaUtils.isTrueExplicitly(lightweightStr));
     }
 
     /**
@@ -87,6 +92,11 @@ public class WSDDFault extends WSDDElement {
                            "CDATA",
                            context.qName2String(desc.getXmlType()));
 
+        if (desc.isLightweight()) {
+            attrs.addAttribute("", ATTR_LIGHTWEIGHT, ATTR_LIGHTWEIGHT,
+                               "CDATA", "true");
+        }
+
         context.startElement(getElementName(), attrs);
         context.endElement();
     }
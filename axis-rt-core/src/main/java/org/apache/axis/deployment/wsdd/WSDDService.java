@@ -492,11 +492,18 @@ public class WSDDService
         }
 
         try {
-            service.getInitializedServiceDesc(MessageContext.getCurrentContext());
+            ServiceDesc serviceDesc = service.getInitializedServiceDesc(
+                    MessageContext.getCurrentContext());
+            if (serviceDesc instanceof JavaServiceDesc) {
+                ((JavaServiceDesc) serviceDesc).buildDispatchTable();
+            }
         } catch (AxisFault axisFault) {
             throw new ConfigurationException(axisFault);
         }
 
+        // The type mappings are deployed, so let them keep their lookups
+        ((TypeMappingRegistryImpl) tmr).seal();
+
         cachedService = service;
         return service;
     }
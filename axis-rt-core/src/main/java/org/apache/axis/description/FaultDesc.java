@@ -33,6 +33,7 @@ public class FaultDesc implements Serializable {
     private String className;
     private QName xmlType;
     private boolean complex;
+    private boolean lightweight;
 
     /**
      * Default constructor
@@ -93,6 +94,20 @@ public class FaultDesc implements Serializable {
         this.complex = complex;
     }
 
+    /**
+     * Tells whether the fault is an expected one, for which no stack
+     * trace is captured or sent.
+     *
+     * @see org.apache.axis.AxisFault#makeLightweightFault
+     */
+    public boolean isLightweight() {
+        return lightweight;
+    }
+
+    public void setLightweight(boolean lightweight) {
+        this.lightweight = lightweight;
+    }
+
     public QName getXmlType() {
         return xmlType;
     }
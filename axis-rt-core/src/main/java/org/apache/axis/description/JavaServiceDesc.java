@@ -47,6 +47,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 
@@ -148,6 +149,86 @@ public class JavaServiceDesc implements ServiceDesc {
     private boolean haveAllSkeletonMethods = false;
     private boolean introspectionComplete = false;
 
+    /**
+     * Immutable index of the operations, built once introspection is
+     * complete; null until then, or after the operations changed.
+     */
+    private transient volatile DispatchTable dispatchTable = null;
+
+    /**
+     * Orders overloads by their number of arguments - prevents us calling
+     * methods with more parameters than supplied in the request (with
+     * missing parameters defaulted to null) when a perfectly good method
+     * exists with exactly the supplied parameters.
+     */
+    private static final Comparator PARAM_COUNT_ORDER = new Comparator() {
+        public int compare(Object o1, Object o2)
+        {
+            Method meth1 = ((OperationDesc)o1).getMethod();
+            Method meth2 = ((OperationDesc)o2).getMethod();
+            return (meth1.getParameterTypes().length -
+                                 meth2.getParameterTypes().length);
+        }
+    };
+
+    /**
+     * The operations of a fully introspected service, indexed by element
+     * QName, and overloads further by SOAPAction.  Instances never change
+     * once built, so they can be read without locking.
+     */
+    private static final class DispatchTable {
+        /** QName -> OperationDesc[] sorted by PARAM_COUNT_ORDER */
+        final HashMap byQName = new HashMap();
+        /**
+         * QName -> (SOAPAction -> OperationDesc[1]) for overloaded QNames,
+         * holding the SOAPActions declared by exactly one of the overloads
+         */
+        final HashMap bySOAPAction = new HashMap();
+
+        DispatchTable(List operations) {
+            HashMap lists = new HashMap();
+            for (Iterator i = operations.iterator(); i.hasNext();) {
+                OperationDesc operation = (OperationDesc) i.next();
+                QName qname = operation.getElementQName();
+                ArrayList list = (ArrayList) lists.get(qname);
+                if (list == null) {
+                    list = new ArrayList();
+                    lists.put(qname, list);
+                }
+                list.add(operation);
+            }
+            for (Iterator i = lists.entrySet().iterator(); i.hasNext();) {
+                Map.Entry entry = (Map.Entry) i.next();
+                ArrayList list = (ArrayList) entry.getValue();
+                OperationDesc[] array = (OperationDesc[]) list.toArray(
+                        new OperationDesc[list.size()]);
+                Arrays.sort(array, PARAM_COUNT_ORDER);
+                byQName.put(entry.getKey(), array);
+                if (array.length > 1) {
+                    bySOAPAction.put(entry.getKey(), indexBySOAPAction(array));
+                }
+            }
+        }
+
+        private static HashMap indexBySOAPAction(OperationDesc[] overloads) {
+            HashMap index = new HashMap();
+            HashMap ambiguous = new HashMap();
+            for (int i = 0; i < overloads.length; i++) {
+                String soapAction = overloads[i].getSoapAction();
+                if (soapAction == null || soapAction.length() == 0 ||
+                        ambiguous.containsKey(soapAction)) {
+                    continue;
+                }
+                if (index.remove(soapAction) != null) {
+                    ambiguous.put(soapAction, soapAction);
+                } else {
+                    index.put(soapAction, new OperationDesc[] {overloads[i]});
+                }
+            }
+            return index;
+        }
+    }
+
     /**
      * Default constructor
      */
@@ -350,6 +431,7 @@ public class JavaServiceDesc implements ServiceDesc {
     public void removeOperationDesc(OperationDesc operation) {
         operations.remove(operation);
         operation.setParent(null);
+        dispatchTable = null;
 
         if (name2OperationsMap != null) {
             String name = operation.getName();
@@ -382,6 +464,7 @@ public class JavaServiceDesc implements ServiceDesc {
     {
         operations.add(operation);
         operation.setParent(this);
+        dispatchTable = null;
         if (name2OperationsMap == null) {
             name2OperationsMap = new HashMap();
         }
@@ -479,6 +562,16 @@ public class JavaServiceDesc implements ServiceDesc {
      */
     public OperationDesc [] getOperationsByQName(QName qname)
     {
+        // Once the service is fully introspected, exact matches come
+        // straight out of the dispatch table.
+        DispatchTable table = getDispatchTable();
+        if (table != null) {
+            OperationDesc[] array = (OperationDesc[]) table.byQName.get(qname);
+            if (array != null) {
+                return (OperationDesc[]) array.clone();
+            }
+        }
+
         // Look in our mapping of QNames -> operations.
 
         // But first, let's make sure we've initialized said mapping....
@@ -525,24 +618,73 @@ public class JavaServiceDesc implements ServiceDesc {
         OperationDesc[] array = (OperationDesc[])overloads.toArray(
                 new OperationDesc[overloads.size()]);
 
-        // Sort the overloads by number of arguments - prevents us calling methods
-        // with more parameters than supplied in the request (with missing parameters
-        // defaulted to null) when a perfectly good method exists with exactly the
-        // supplied parameters.
-        Arrays.sort(array,
-            new Comparator() {
-                public int compare(Object o1, Object o2)
-                {
-                    Method meth1 = ((OperationDesc)o1).getMethod();
-                    Method meth2 = ((OperationDesc)o2).getMethod();
-                    return (meth1.getParameterTypes().length -
-                                         meth2.getParameterTypes().length);
-                }
-            });
+        // Sort the overloads by number of arguments
+        Arrays.sort(array, PARAM_COUNT_ORDER);
 
         return array;
     }
 
+    /**
+     * Return the operations which match this QName, narrowed down to the
+     * one overload declaring the given SOAPAction if exactly one does.
+     * @return null for no match
+     */
+    public OperationDesc [] getOperationsByQName(QName qname, String soapAction)
+    {
+        if (soapAction == null || soapAction.length() == 0) {
+            return getOperationsByQName(qname);
+        }
+        DispatchTable table = getDispatchTable();
+        if (table != null) {
+            HashMap index = (HashMap) table.bySOAPAction.get(qname);
+            if (index != null) {
+                OperationDesc[] match = (OperationDesc[]) index.get(soapAction);
+                if (match != null) {
+                    return (OperationDesc[]) match.clone();
+                }
+            }
+        }
+
+        OperationDesc[] overloads = getOperationsByQName(qname);
+        if (table != null || overloads == null || overloads.length < 2) {
+            return overloads;
+        }
+        OperationDesc match = null;
+        for (int i = 0; i < overloads.length; i++) {
+            if (soapAction.equals(overloads[i].getSoapAction())) {
+                if (match != null) {
+                    return overloads;
+                }
+                match = overloads[i];
+            }
+        }
+        return match == null ? overloads : new OperationDesc[] { match };
+    }
+
+    /**
+     * Builds the dispatch table, which answers operation lookups without
+     * locking or sorting overloads.  Does nothing until the service has
+     * been fully introspected; the table is also built on the first lookup
+     * after that.  Adding or removing operations discards the table.
+     */
+    public void buildDispatchTable() {
+        getDispatchTable();
+    }
+
+    private DispatchTable getDispatchTable() {
+        DispatchTable table = dispatchTable;
+        if (table == null && introspectionComplete) {
+            synchronized (this) {
+                table = dispatchTable;
+                if (table == null) {
+                    table = new DispatchTable(operations);
+                    dispatchTable = table;
+                }
+            }
+        }
+        return table;
+    }
+
     private synchronized void initQNameMap() {
         if (qname2OperationsMap == null) {
             loadServiceDescByIntrospection();
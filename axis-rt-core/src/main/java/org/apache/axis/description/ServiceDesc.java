@@ -126,6 +126,13 @@ public interface ServiceDesc extends Serializable {
      */
     OperationDesc [] getOperationsByQName(QName qname);
 
+    /**
+     * Return the operations which match this QName, narrowed down to the
+     * one overload declaring the given SOAPAction if exactly one does.
+     * @return null for no match
+     */
+    OperationDesc [] getOperationsByQName(QName qname, String soapAction);
+
     void setNamespaceMappings(List namespaces);
 
     String getDefaultNamespace();
@@ -44,7 +44,16 @@ public class Base64 {
             S_DECODETABLE[S_BASE64CHAR[i]] = (byte)i;
     }
 
-    private static int decode0(char[] ibuf, byte[] obuf, int wp) {
+    /**
+     * Returns true if the character is part of the base64 text; decoding
+     * skips all other characters.
+     */
+    static boolean isBase64Char(char ch) {
+        return ch == S_BASE64PAD
+            || ch < S_DECODETABLE.length && S_DECODETABLE[ch] != Byte.MAX_VALUE;
+    }
+
+    static int decode0(char[] ibuf, byte[] obuf, int wp) {
         int outlen = 3;
         if (ibuf[3] == S_BASE64PAD)  outlen = 2;
         if (ibuf[2] == S_BASE64PAD)  outlen = 1;
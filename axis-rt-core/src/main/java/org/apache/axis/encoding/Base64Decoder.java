@@ -0,0 +1,125 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.encoding;
+
+import org.apache.axis.utils.Messages;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * A Writer that decodes the base64 text written to it and writes the
+ * bytes to an output stream.  The text may be written in pieces of any
+ * size, e.g. as it is passed to <code>characters()</code> by the parser,
+ * so that it never has to be held as a whole.  The result is the same as
+ * that of {@link Base64#decode(String)}: characters that are not part of
+ * the base64 alphabet are skipped, and an incomplete last quantum is
+ * dropped.
+ *
+ * @see org.apache.axis.encoding.ser.Base64Deserializer
+ */
+public class Base64Decoder extends Writer {
+
+    /** Bytes decoded before they are written to the stream */
+    private static final int BUFFER_SIZE = 3 * 1024;
+
+    private OutputStream out;
+
+    /** The characters of the current quantum */
+    private final char[] quantum = new char[4];
+    private int quantumCount = 0;
+
+    private final byte[] buf = new byte[BUFFER_SIZE];
+    private int count = 0;
+
+    /** Number of bytes written to the stream */
+    private long size = 0;
+
+    /**
+     * @param out the stream the decoded bytes are written to
+     */
+    public Base64Decoder(OutputStream out) {
+        this.out = out;
+    }
+
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (out == null) {
+            throw new IOException(Messages.getMessage("streamClosed"));
+        }
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            char ch = cbuf[i];
+            if (Base64.isBase64Char(ch)) {
+                quantum[quantumCount++] = ch;
+                if (quantumCount == 4) {
+                    quantumCount = 0;
+                    if (count > buf.length - 3) {
+                        flushBuffer();
+                    }
+                    count += Base64.decode0(quantum, buf, count);
+                }
+            }
+        }
+    }
+
+    public void write(int c) throws IOException {
+        write(new char[] {(char) c}, 0, 1);
+    }
+
+    public void write(String str, int off, int len) throws IOException {
+        write(str.toCharArray(), off, len);
+    }
+
+    /**
+     * Writes the bytes decoded so far to the stream and flushes it.
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Writes the remaining bytes and closes the stream.
+     */
+    public void close() throws IOException {
+        if (out == null) {
+            return;
+        }
+        flushBuffer();
+        out.close();
+        out = null;
+    }
+
+    /**
+     * Returns the number of bytes decoded so far.
+     */
+    public long getSize() {
+        return size + count;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (out == null) {
+            throw new IOException(Messages.getMessage("streamClosed"));
+        }
+        if (count > 0) {
+            out.write(buf, 0, count);
+            size += count;
+            count = 0;
+        }
+    }
+}
@@ -82,7 +82,7 @@ public class DeserializationContext implements ContentHandler, DTDHandler,
         SchemaVersion.SCHEMA_2001,
     };
 
-    private NSStack namespaces = new NSStack();
+    private NSStack namespaces;
 
     // Class used for deserialization using class metadata from
     // downstream deserializers
@@ -95,6 +95,10 @@ public class DeserializationContext implements ContentHandler, DTDHandler,
 
     //private SAX2EventRecorder recorder = new SAX2EventRecorder();
     private SAX2EventRecorder recorder = null;
+    private SAX2EventRecorder suspendedRecorder = null;
+    /** Depth of the element being parsed within the unrecorded one */
+    private int suspendedDepth = 0;
+    private boolean partiallyRecorded = false;
     private SOAPEnvelope envelope;
 
     /* A map of IDs -> IDResolvers */
@@ -136,10 +140,11 @@ public class DeserializationContext implements ContentHandler, DTDHandler,
                                   SOAPHandler initialHandler)
     {
         msgContext = ctx;
+        namespaces = newNamespaces(ctx);
 
         // If high fidelity is required, record the whole damn thing.
         if (ctx == null || ctx.isHighFidelity())
-            recorder = new SAX2EventRecorder();
+            recorder = SAX2EventRecorder.newInstance(ctx);
 
         if (initialHandler instanceof EnvelopeBuilder) {
             envelope = ((EnvelopeBuilder)initialHandler).getEnvelope();
@@ -160,10 +165,11 @@ public class DeserializationContext implements ContentHandler, DTDHandler,
                                   String messageType)
     {
         msgContext = ctx;
+        namespaces = newNamespaces(ctx);
         EnvelopeBuilder builder = new EnvelopeBuilder(messageType, ctx != null ? ctx.getSOAPConstants() : null);
         // If high fidelity is required, record the whole damn thing.
         if (ctx == null || ctx.isHighFidelity())
-            recorder = new SAX2EventRecorder();
+            recorder = SAX2EventRecorder.newInstance(ctx);
 
         envelope = builder.getEnvelope();
         envelope.setRecorder(recorder);
@@ -173,6 +179,15 @@ public class DeserializationContext implements ContentHandler, DTDHandler,
         inputSource = is;
     }
 
+    /**
+     * The namespace stack to use: the one kept by a recycled message
+     * context, or a new one.
+     */
+    private static NSStack newNamespaces(MessageContext ctx) {
+        NSStack namespaces = ctx != null ? ctx.getRecycledNamespaces() : null;
+        return namespaces != null ? namespaces : new NSStack();
+    }
+
     private SOAPConstants soapConstants = null;
 
     /**
@@ -204,10 +219,11 @@ public class DeserializationContext implements ContentHandler, DTDHandler,
         EnvelopeBuilder builder = new EnvelopeBuilder(env, messageType);
 
         msgContext = ctx;
+        namespaces = newNamespaces(ctx);
 
         // If high fidelity is required, record the whole damn thing.
         if (ctx == null || ctx.isHighFidelity())
-            recorder = new SAX2EventRecorder();
+            recorder = SAX2EventRecorder.newInstance(ctx);
 
         envelope = builder.getEnvelope();
         envelope.setRecorder(recorder);
@@ -322,6 +338,32 @@ public class DeserializationContext implements ContentHandler, DTDHandler,
         this.recorder = recorder;
     }
 
+    /**
+     * Don't record the element being started, e.g. because it is
+     * deserialized straight from the parser.  Neither its start tag, its
+     * content nor its end tag are recorded; it is serialized from its
+     * object model instead.  Recording resumes after its end tag.
+     * Called from {@link SOAPHandler#onStartChild}.
+     */
+    public void suspendRecording()
+    {
+        if (suspendedRecorder == null) {
+            suspendedRecorder = recorder;
+            suspendedDepth = 0;
+        }
+        recorder = null;
+        partiallyRecorded = true;
+    }
+
+    /**
+     * Returns true if recording was suspended during parsing, so that the
+     * recording can no longer reproduce the whole envelope.
+     */
+    public boolean isPartiallyRecorded()
+    {
+        return partiallyRecorded;
+    }
+
     /**
      * Get the Namespace Mappings.  Returns null if none are present.
      **/
@@ -1072,6 +1114,9 @@ public class DeserializationContext implements ContentHandler, DTDHandler,
                 curElement.setContentsIndex(recorder.getLength());
             }
         }
+        if (suspendedRecorder != null) {
+            suspendedDepth++;
+        }
 
         if (startOfMappingsPos != -1) {
             startOfMappingsPos = -1;
@@ -1098,6 +1143,10 @@ public class DeserializationContext implements ContentHandler, DTDHandler,
         if (!doneParsing && (recorder != null)) {
             recorder.endElement(namespace, localName, qName);
         }
+        if (suspendedRecorder != null && --suspendedDepth == 0) {
+            recorder = suspendedRecorder;
+            suspendedRecorder = null;
+        }
 
         try {
             SOAPHandler handler = popElementHandler();
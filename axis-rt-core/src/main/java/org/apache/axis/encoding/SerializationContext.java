@@ -39,6 +39,7 @@ import org.apache.axis.Message;
 import org.apache.axis.MessageContext;
 import org.apache.axis.attachments.Attachments;
 import org.apache.axis.client.Call;
+import org.apache.axis.components.encoding.UTF8ByteWriter;
 import org.apache.axis.components.encoding.XMLEncoder;
 import org.apache.axis.components.encoding.XMLEncoderFactory;
 import org.apache.axis.components.logger.LogFactory;
@@ -97,6 +98,9 @@ public class SerializationContext implements javax.xml.rpc.encoding.Serializatio
     private int indent=0;
     private Stack elementStack = new Stack();
     private Writer writer;
+
+    /** The writer, if it encodes straight to bytes; otherwise null */
+    private UTF8ByteWriter byteWriter;
     private int lastPrefixIndex = 1;
     private MessageContext msgContext;
     private QName currentXMLType;
@@ -219,6 +223,9 @@ public class SerializationContext implements javax.xml.rpc.encoding.Serializatio
     public SerializationContext(Writer writer)
     {
         this.writer = writer;
+        if (writer instanceof UTF8ByteWriter) {
+            byteWriter = (UTF8ByteWriter) writer;
+        }
         initialize();
     }
 
@@ -247,6 +254,9 @@ public class SerializationContext implements javax.xml.rpc.encoding.Serializatio
     public SerializationContext(Writer writer, MessageContext msgContext)
     {
         this.writer = writer;
+        if (writer instanceof UTF8ByteWriter) {
+            byteWriter = (UTF8ByteWriter) writer;
+        }
         this.msgContext = msgContext;
 
         if ( msgContext != null ) {
@@ -1116,9 +1126,12 @@ public class SerializationContext implements javax.xml.rpc.encoding.Serializatio
 
         if (pretty) for (int i=0; i<indent; i++) writer.write(' ');
         String elementQName = qName2String(qName, true);
-        writer.write('<');
-
-        writer.write(elementQName);
+        if (byteWriter != null) {
+            byteWriter.writeStartTag(elementQName);
+        } else {
+            writer.write('<');
+            writer.write(elementQName);
+        }
         
         if (writeXMLType != null) {
             attributes = setTypeAttribute(attributes, writeXMLType);
@@ -1183,11 +1196,16 @@ public class SerializationContext implements javax.xml.rpc.encoding.Serializatio
                     }
                     String qname = sb.toString();
                     if ((vecQNames==null) || (vecQNames.indexOf(qname)==-1)) {
-                        writer.write(' ');
-                        writer.write(qname);
-                        writer.write("=\"");
-                        getEncoder().writeEncoded(writer, map.getNamespaceURI());
-                        writer.write('"');
+                        if (byteWriter != null) {
+                            byteWriter.writeNamespaceDeclaration(
+                                    qname, map.getNamespaceURI());
+                        } else {
+                            writer.write(' ');
+                            writer.write(qname);
+                            writer.write("=\"");
+                            getEncoder().writeEncoded(writer, map.getNamespaceURI());
+                            writer.write('"');
+                        }
                     }
                 }
             }
@@ -1227,9 +1245,13 @@ public class SerializationContext implements javax.xml.rpc.encoding.Serializatio
             indent--;
             if (pretty) for (int i=0; i<indent; i++) writer.write(' ');
         }
-        writer.write("</");
-        writer.write(elementQName);
-        writer.write('>');
+        if (byteWriter != null) {
+            byteWriter.writeEndTag(elementQName);
+        } else {
+            writer.write("</");
+            writer.write(elementQName);
+            writer.write('>');
+        }
         if (pretty) if (indent>0) writer.write('\n');
         onlyXML=true;
     }
@@ -1550,23 +1572,29 @@ public class SerializationContext implements javax.xml.rpc.encoding.Serializatio
         return cls;
     }
 
-    private Serializer getSerializerFromClass(Class javaType, QName qname) {
-        
+    /**
+     * Returns the static getSerializer() method of a class, if any.
+     */
+    private static Method getSerializerMethod(Class javaType) {
+        try {
+            return MethodCache.getInstance().getMethod(javaType,
+                                                       SERIALIZER_METHOD,
+                                                       SERIALIZER_CLASSES);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private Serializer invokeSerializerMethod(Method method, Class javaType,
+                                              QName qname) {
         Serializer serializer = null;
         try {
-            Method method = 
-                MethodCache.getInstance().getMethod(javaType,
-                                                    SERIALIZER_METHOD,
-                                                    SERIALIZER_CLASSES);
-            if (method != null) {
-                serializer = (Serializer) method.invoke(null,
-                    new Object[] {getEncodingStyle(), javaType, qname});
-            }
-       } catch (NoSuchMethodException e) {
-       } catch (IllegalAccessException e) {
-       } catch (InvocationTargetException e) {
-       }
-       return serializer;
+            serializer = (Serializer) method.invoke(null,
+                new Object[] {getEncodingStyle(), javaType, qname});
+        } catch (IllegalAccessException e) {
+        } catch (InvocationTargetException e) {
+        }
+        return serializer;
     }
 
     /**
@@ -1624,6 +1652,29 @@ public class SerializationContext implements javax.xml.rpc.encoding.Serializatio
             actualXMLType.value = null;
         }
 
+        // Use the resolved lookups of a sealed type mapping
+        TypeMappingSnapshot snapshot = null;
+        if (actualXMLType != null && tm instanceof TypeMappingDelegate) {
+            snapshot = ((TypeMappingDelegate) tm).getSnapshot();
+        }
+        Class requestedType = javaType;
+        boolean encoded = isEncoded();
+        boolean dotNetSoapEncFix = false;
+        int generation = 0;
+        if (snapshot != null) {
+            // Without an xmlType, the result depends on the .NET
+            // compensation mode of the service
+            if (xmlType == null) {
+                dotNetSoapEncFix = TypeMappingImpl.isDotNetSoapEncFixNeeded();
+            }
+            TypeMappingSnapshot.Entry entry =
+                snapshot.get(javaType, xmlType, encoded, dotNetSoapEncFix);
+            if (entry != null) {
+                return getSerializer(entry, xmlType, actualXMLType);
+            }
+            generation = TypeMappingSnapshot.getGeneration();
+        }
+
         while (javaType != null) {
             // check type mapping
             serFactory = (SerializerFactory) tm.getSerializer(javaType, xmlType);
@@ -1632,7 +1683,9 @@ public class SerializationContext implements javax.xml.rpc.encoding.Serializatio
             }
 
             // check the class for serializer
-            Serializer serializer = getSerializerFromClass(javaType, xmlType);
+            Method serializerMethod = getSerializerMethod(javaType);
+            Serializer serializer = (serializerMethod == null) ? null :
+                invokeSerializerMethod(serializerMethod, javaType, xmlType);
             if (serializer != null) {
                 if (actualXMLType != null) {
                     TypeDesc typedesc = TypeDesc.getTypeDescForClass(javaType);
@@ -1640,6 +1693,11 @@ public class SerializationContext implements javax.xml.rpc.encoding.Serializatio
                         actualXMLType.value = typedesc.getXmlType();
                     }
                 }
+                if (snapshot != null) {
+                    snapshot.put(generation, requestedType, xmlType, encoded,
+                                 dotNetSoapEncFix, null, serializerMethod,
+                                 javaType, actualXMLType.value);
+                }
                 return serializer;
             }
 
@@ -1666,7 +1724,6 @@ public class SerializationContext implements javax.xml.rpc.encoding.Serializatio
                     actualXMLType.value =
                         ((BaseSerializerFactory) serFactory).getXMLType();
                 }
-                boolean encoded = isEncoded();
                 if (actualXMLType.value == null ||
                         (!encoded &&
                         (actualXMLType.value.equals(Constants.SOAP_ARRAY) ||
@@ -1678,6 +1735,12 @@ public class SerializationContext implements javax.xml.rpc.encoding.Serializatio
             }
         }
 
+        if (snapshot != null) {
+            snapshot.put(generation, requestedType, xmlType, encoded,
+                         dotNetSoapEncFix, serFactory, null, javaType,
+                         actualXMLType.value);
+        }
+
         if (log.isDebugEnabled()) {
             log.debug("Serializer is " + ser);
             if (actualXMLType != null) {
@@ -1688,6 +1751,25 @@ public class SerializationContext implements javax.xml.rpc.encoding.Serializatio
         return ser;
     }
 
+    /**
+     * Creates a serializer from a lookup resolved earlier.
+     */
+    private Serializer getSerializer(TypeMappingSnapshot.Entry entry,
+                                     QName xmlType,
+                                     QNameHolder actualXMLType) {
+        Serializer ser = null;
+        if (entry.factory != null) {
+            ser = (Serializer) entry.factory.getSerializerAs(Constants.AXIS_SAX);
+        } else if (entry.serializerMethod != null) {
+            ser = invokeSerializerMethod(entry.serializerMethod,
+                                         entry.javaType, xmlType);
+        }
+        if (ser != null) {
+            actualXMLType.value = entry.actualXMLType;
+        }
+        return ser;
+    }
+
     public String getValueAsString(Object value, QName xmlType, Class javaClass) throws IOException {
         Class cls = value.getClass();
         cls = getActualJavaClass(xmlType, javaClass, value);
@@ -33,6 +33,10 @@ public class TypeMappingDelegate implements TypeMapping {
     TypeMappingImpl delegate;
     TypeMappingDelegate next;
 
+    /** Set when the owning registry is sealed; enables the snapshot */
+    private boolean sealed = false;
+    private volatile TypeMappingSnapshot snapshot = null;
+
     /**
      * Construct TypeMapping
      */
@@ -190,6 +194,7 @@ public class TypeMappingDelegate implements TypeMapping {
             return; // Refuse to set up tight loops (throw exception?)
         }
         this.next = next;
+        TypeMappingSnapshot.invalidate();
     }
 
     /**
@@ -235,4 +240,36 @@ public class TypeMappingDelegate implements TypeMapping {
     public void setDoAutoTypes(boolean doAutoTypes) {
         delegate.setDoAutoTypes(doAutoTypes);
     }
+
+    /**
+     * Lets this delegate keep a snapshot of resolved serializer lookups.
+     */
+    void seal() {
+        sealed = true;
+    }
+
+    /**
+     * Query if this delegate belongs to a sealed registry
+     */
+    boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * Returns the snapshot of resolved serializer lookups through this
+     * delegate, replacing it if it became stale.
+     *
+     * @return the snapshot, or null if this delegate isn't sealed
+     */
+    TypeMappingSnapshot getSnapshot() {
+        if (!sealed) {
+            return null;
+        }
+        TypeMappingSnapshot current = snapshot;
+        if (current == null || !current.isCurrent()) {
+            current = new TypeMappingSnapshot();
+            snapshot = current;
+        }
+        return current;
+    }
 }
@@ -276,6 +276,8 @@ public class TypeMappingImpl implements Serializable
             pair2SF.put(pair, sf);
         if (dsf != null)
             pair2DF.put(pair, dsf);
+
+        TypeMappingSnapshot.invalidate();
     }
 
     /**
@@ -526,6 +528,7 @@ public class TypeMappingImpl implements Serializable
 
         Pair pair = new Pair(javaType, xmlType);
         pair2SF.remove(pair);
+        TypeMappingSnapshot.invalidate();
     }
 
     /**
@@ -547,6 +550,7 @@ public class TypeMappingImpl implements Serializable
         }
         Pair pair = new Pair(javaType, xmlType);
         pair2DF.remove(pair);
+        TypeMappingSnapshot.invalidate();
     }
 
 
@@ -636,7 +640,7 @@ public class TypeMappingImpl implements Serializable
      * check the service specific flag before using the global flag
      * @return
      */
-    private boolean isDotNetSoapEncFixNeeded() {
+    static boolean isDotNetSoapEncFixNeeded() {
         MessageContext msgContext = MessageContext.getCurrentContext();
         if (msgContext != null) {
             SOAPService service = msgContext.getService();
@@ -765,6 +769,7 @@ public class TypeMappingImpl implements Serializable
 
     public void setDoAutoTypes(boolean doAutoTypes) {
         this.doAutoTypes = doAutoTypes ? Boolean.TRUE : Boolean.FALSE;
+        TypeMappingSnapshot.invalidate();
     }
     
     public boolean shouldDoAutoTypes() {
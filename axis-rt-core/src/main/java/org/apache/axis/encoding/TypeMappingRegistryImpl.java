@@ -124,6 +124,7 @@ public class TypeMappingRegistryImpl implements TypeMappingRegistry {
     private HashMap mapTM;          // Type Mappings keyed with Namespace URI
     private TypeMappingDelegate defaultDelTM;  // Delegate to default Type Mapping
     private boolean isDelegated = false;
+    private boolean sealed = false;
 
     /**
      * Construct TypeMappingRegistry
@@ -209,6 +210,7 @@ public class TypeMappingRegistryImpl implements TypeMappingRegistry {
             defaultDelTM.setNext(otherDefault);
         } else {
             defaultDelTM.delegate = otherDefault.delegate;
+            TypeMappingSnapshot.invalidate();
         }
         
     }            
@@ -249,6 +251,7 @@ public class TypeMappingRegistryImpl implements TypeMappingRegistry {
             del.setNext(old);
         }
         mapTM.put(namespaceURI, del);
+        sealDelegates();
         return old; // Needs works
     }
     
@@ -278,6 +281,7 @@ public class TypeMappingRegistryImpl implements TypeMappingRegistry {
         }
 
         defaultDelTM = (TypeMappingDelegate)mapping;
+        sealDelegates();
     }
 
     /**
@@ -289,9 +293,11 @@ public class TypeMappingRegistryImpl implements TypeMappingRegistry {
     public void doRegisterFromVersion(String version) {
         if (version == null || version.equals("1.0") || version.equals("1.2")) {
             TypeMappingImpl.dotnet_soapenc_bugfix = false;
+            TypeMappingSnapshot.invalidate();
             // Do nothing, just register SOAPENC mapping
         } else if (version.equals("1.1")) {
             TypeMappingImpl.dotnet_soapenc_bugfix = true;
+            TypeMappingSnapshot.invalidate();
             // Do nothing, no SOAPENC mapping
             return;
         } else if (version.equals("1.3")) {
@@ -349,6 +355,7 @@ public class TypeMappingRegistryImpl implements TypeMappingRegistry {
         // This is important if the default is switched to
         // the JAX_RPC 1.1 default type mapping!
         mapping.setNext(defaultDelTM);
+        sealDelegates();
     }
 
     /**
@@ -451,6 +458,38 @@ public class TypeMappingRegistryImpl implements TypeMappingRegistry {
     } 
 
 
+    /**
+     * Seals this registry once its type mappings have been deployed.  The
+     * TypeMappings of a sealed registry keep a snapshot of the serializer
+     * lookups made through them, so that serializing an instance of a
+     * class doesn't walk its superclasses and interfaces again.
+     * <p>
+     * Type mappings may still be changed after sealing, at the cost of
+     * discarding the snapshots.
+     */
+    public void seal() {
+        sealed = true;
+        sealDelegates();
+    }
+
+    /**
+     * Query if this registry is sealed
+     * @return true if sealed
+     */
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    private void sealDelegates() {
+        if (sealed) {
+            java.util.Iterator it = mapTM.values().iterator();
+            while (it.hasNext()) {
+                ((TypeMappingDelegate) it.next()).seal();
+            }
+            defaultDelTM.seal();
+        }
+    }
+
     /**
      * Removes all TypeMappings and namespaceURIs from this TypeMappingRegistry.
      */
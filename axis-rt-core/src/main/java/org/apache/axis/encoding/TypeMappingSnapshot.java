@@ -0,0 +1,166 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.encoding;
+
+import javax.xml.namespace.QName;
+import java.lang.reflect.Method;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A frozen table of serializer lookups resolved through a TypeMapping
+ * chain.  For a Java class and a preferred XML type it records which
+ * serializer factory was found, or which class provided a static
+ * getSerializer() method, after walking the superclasses and interfaces,
+ * together with the actual XML type to write.  Failed lookups are recorded
+ * as well.
+ * <p>
+ * Readers never lock: the table is an identity map that is replaced, never
+ * modified, when an entry is added.  Any change to any type mapping (a
+ * registration, a removal or a relinked delegate chain) makes all existing
+ * snapshots stale, since the TypeMappingImpls are shared between
+ * registries; a stale snapshot is simply replaced by an empty one.
+ * <p>
+ * Snapshots are only kept by the TypeMappingDelegates of a sealed
+ * TypeMappingRegistryImpl.
+ *
+ * @see TypeMappingRegistryImpl#seal()
+ * @see SerializationContext
+ */
+final class TypeMappingSnapshot {
+
+    /** Incremented on every change to any type mapping */
+    private static volatile int generation = 0;
+
+    /**
+     * Marks all snapshots stale.
+     */
+    static void invalidate() {
+        synchronized (TypeMappingSnapshot.class) {
+            generation++;
+        }
+    }
+
+    /**
+     * Returns the current generation, to be passed to
+     * {@link #put} once a lookup has been resolved.
+     */
+    static int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * A resolved lookup.  Entries for the same class are chained.
+     */
+    static final class Entry {
+        final QName xmlType;
+        final boolean encoded;
+        final boolean dotNetSoapEncFix;
+
+        /** The factory found, or null */
+        final SerializerFactory factory;
+        /** The static getSerializer() method found, or null */
+        final Method serializerMethod;
+        /** The class the factory or method was found for */
+        final Class javaType;
+        /** The XML type the value is written as */
+        final QName actualXMLType;
+
+        final Entry next;
+
+        Entry(QName xmlType, boolean encoded, boolean dotNetSoapEncFix,
+              SerializerFactory factory, Method serializerMethod,
+              Class javaType, QName actualXMLType, Entry next) {
+            this.xmlType = xmlType;
+            this.encoded = encoded;
+            this.dotNetSoapEncFix = dotNetSoapEncFix;
+            this.factory = factory;
+            this.serializerMethod = serializerMethod;
+            this.javaType = javaType;
+            this.actualXMLType = actualXMLType;
+            this.next = next;
+        }
+    }
+
+    private final int snapshotGeneration = generation;
+
+    /** Class to Entry; never modified once published */
+    private volatile Map entries = new IdentityHashMap();
+
+    /**
+     * Returns true unless a type mapping changed since this snapshot
+     * was created.
+     */
+    boolean isCurrent() {
+        return snapshotGeneration == generation;
+    }
+
+    /**
+     * Looks up a resolved serializer.
+     *
+     * @param javaType the class of the value
+     * @param xmlType the preferred XML type, or null
+     * @param encoded true for SOAP encoding
+     * @param dotNetSoapEncFix true when SOAP encoded types are skipped
+     *                         to compensate for .NET
+     * @return the entry, or null if the lookup wasn't resolved yet
+     */
+    Entry get(Class javaType, QName xmlType, boolean encoded,
+              boolean dotNetSoapEncFix) {
+        for (Entry e = (Entry) entries.get(javaType); e != null; e = e.next) {
+            if (e.encoded == encoded &&
+                    e.dotNetSoapEncFix == dotNetSoapEncFix &&
+                    (e.xmlType == null ? xmlType == null :
+                                         e.xmlType.equals(xmlType))) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records a resolved lookup.  Nothing is recorded if a type mapping
+     * changed since the lookup started, since the result may then be
+     * outdated or may have been the cause of the change (auto-typing).
+     *
+     * @param generation the generation when the lookup started
+     */
+    synchronized void put(int generation,
+                          Class requestedType, QName xmlType, boolean encoded,
+                          boolean dotNetSoapEncFix,
+                          SerializerFactory factory, Method serializerMethod,
+                          Class javaType, QName actualXMLType) {
+        if (generation != snapshotGeneration || !isCurrent() ||
+                get(requestedType, xmlType, encoded,
+                    dotNetSoapEncFix) != null) {
+            return;
+        }
+        Map copy = new IdentityHashMap(entries);
+        copy.put(requestedType,
+                 new Entry(xmlType, encoded, dotNetSoapEncFix, factory,
+                           serializerMethod, javaType, actualXMLType,
+                           (Entry) copy.get(requestedType)));
+        entries = copy;
+    }
+
+    /**
+     * Returns the number of classes with resolved lookups.
+     */
+    int size() {
+        return entries.size();
+    }
+}
@@ -16,12 +16,25 @@
 
 package org.apache.axis.encoding.ser;
 
+import org.apache.axis.attachments.ManagedMemoryDataSource;
 import org.apache.axis.encoding.Base64;
+import org.apache.axis.encoding.Base64Decoder;
+import org.apache.axis.utils.ByteArrayOutputStream;
+import org.xml.sax.SAXException;
 
+import javax.activation.DataHandler;
 import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Deserializer for Base64
+ * <p>
+ * The text is decoded as it arrives rather than accumulated, so that a
+ * large value takes about its decoded size in memory.  A
+ * <code>javax.activation.DataHandler</code> target gets the bytes in a
+ * {@link ManagedMemoryDataSource}, which caches large values to disk.
+ * Subclasses get the accumulated text in makeValue(String), as before.
  *
  * @author Sam Ruby (rubys@us.ibm.com)
  * Modified by @author Rich scheuerle (scheu@us.ibm.com)
@@ -29,8 +42,70 @@ import javax.xml.namespace.QName;
  */
 public class Base64Deserializer extends SimpleDeserializer  {
 
+    /** True if the text is decoded as it arrives */
+    private final boolean streaming;
+
+    private Base64Decoder decoder = null;
+    private ByteArrayOutputStream bytes = null;
+    private Spool spool = null;
+
     public Base64Deserializer(Class javaType, QName xmlType) {
         super(javaType, xmlType);
+        streaming = getClass().equals(Base64Deserializer.class);
+    }
+
+    public void reset() {
+        super.reset();
+        decoder = null;
+        bytes = null;
+        spool = null;
+    }
+
+    /**
+     * Decode the characters received.
+     */
+    public void characters(char [] chars, int start, int end)
+            throws SAXException
+    {
+        if (!streaming) {
+            super.characters(chars, start, end);
+            return;
+        }
+        try {
+            if (decoder == null) {
+                OutputStream out;
+                if (javaType.getName().equals("javax.activation.DataHandler")) {
+                    spool = new Spool();
+                    out = spool.getOutputStream();
+                } else {
+                    bytes = new ByteArrayOutputStream();
+                    out = bytes;
+                }
+                decoder = new Base64Decoder(out);
+            }
+            decoder.write(chars, start, end);
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    protected Object makeValue() throws Exception {
+        if (!streaming) {
+            return super.makeValue();
+        }
+        if (decoder == null) {
+            if (javaType.getName().equals("javax.activation.DataHandler")) {
+                spool = new Spool();
+                spool.getOutputStream().close();
+                return spool.getDataHandler();
+            }
+            return makeValue(new byte[0]);
+        }
+        decoder.close();
+        if (spool != null) {
+            return spool.getDataHandler();
+        }
+        return makeValue(bytes.toByteArray());
     }
 
     /**
@@ -41,8 +116,10 @@ public class Base64Deserializer extends SimpleDeserializer  {
      * @throws Exception any exception thrown by this method will be wrapped
      */
     public Object makeValue(String source) throws Exception {
-        byte [] value = Base64.decode(source);
-        
+        return makeValue(Base64.decode(source));
+    }
+
+    private Object makeValue(byte[] value) {
         if (value == null) {
             if (javaType == Byte[].class) {
                 return new Byte[0];
@@ -61,4 +138,32 @@ public class Base64Deserializer extends SimpleDeserializer  {
         }
         return value;
     }
+
+    /**
+     * The data source of a DataHandler value.  Kept in a class of its own,
+     * so that the activation classes are only loaded for such values.
+     * <p>
+     * No attachment part owns the data, so nothing deletes the file a large
+     * value is cached in when the message is disposed of.  The file is
+     * deleted once the value can no longer be read, i.e. when the data
+     * source and every stream reading it are garbage.
+     */
+    private static class Spool extends ManagedMemoryDataSource {
+        Spool() {
+            super(ManagedMemoryDataSource.MAX_MEMORY_DISK_CACHED,
+                  "application/octet-stream");
+        }
+
+        Object getDataHandler() {
+            return new DataHandler(this);
+        }
+
+        protected void finalize() throws Throwable {
+            try {
+                delete();
+            } finally {
+                super.finalize();
+            }
+        }
+    }
 }
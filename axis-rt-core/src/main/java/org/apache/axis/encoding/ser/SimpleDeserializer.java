@@ -169,7 +169,7 @@ public class SimpleDeserializer extends DeserializerImpl {
             return;
         }
         try {
-            value = makeValue(val.toString());
+            value = makeValue();
         } catch (InvocationTargetException ite) {
             Throwable realException = ite.getTargetException();
             if (realException instanceof Exception)
@@ -184,6 +184,17 @@ public class SimpleDeserializer extends DeserializerImpl {
         setSimpleTypeAttributes();
     }
     
+    /**
+     * Convert the characters received into an Object.  By default, they are
+     * accumulated and passed to makeValue(String); subclasses which
+     * process them as they arrive override this along with characters().
+     * @throws Exception any exception thrown by this method will be wrapped
+     */
+    protected Object makeValue() throws Exception
+    {
+        return makeValue(val.toString());
+    }
+
     /**
      * Convert the string that has been accumulated into an Object.  Subclasses
      * may override this.  Note that if the javaType is a primitive, the returned
@@ -25,18 +25,12 @@ import org.apache.axis.components.logger.LogFactory;
 import org.apache.axis.message.SOAPEnvelope;
 import org.apache.axis.message.SOAPHeaderElement;
 import org.apache.axis.session.SimpleSession;
+import org.apache.axis.session.SimpleSessionStore;
 import org.apache.axis.utils.Messages;
 import org.apache.axis.utils.SessionUtils;
 import org.apache.commons.logging.Log;
 
 import javax.xml.namespace.QName;
-import javax.xml.rpc.server.ServiceLifecycle;
-import java.util.Enumeration;
-import java.util.HashSet;
-import java.util.Hashtable;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
 
 /** This handler uses SOAP headers to do simple session management.
  *
@@ -66,12 +60,12 @@ import java.util.Set;
  *     insert a session ID header with the appropriate ID.
  * </ul>
  *
- * <p>SimpleSessions are "reaped" periodically via a very simplistic
- * mechanism.  Each time the handler is invoke()d we check to see if more
- * than <b>reapPeriodicity</b> milliseconds have elapsed since the last
- * reap.  If so, we walk the collection of active Sessions, and for each
- * one, if it hasn't been "touched" (i.e. had a getProperty() or setProperty()
- * performed) in longer than its timeout, we remove it from the collection.</p>
+ * <p>SimpleSessions which haven't been "touched" (i.e. had a getProperty()
+ * or setProperty() performed) in longer than their timeout are removed
+ * in the background by the {@link SimpleSessionStore}, within a fraction
+ * of a second.  The number of sessions may be limited with the
+ * <b>maxSessions</b> option; when there are more, the least recently used
+ * sessions are evicted.</p>
  *
  * @author Glen Daniels (gdaniels@apache.org)
  */
@@ -86,12 +80,10 @@ public class SimpleSessionHandler extends BasicHandler
     public static final QName sessionHeaderName = new QName(SESSION_NS,
                                                             SESSION_LOCALPART);
 
-    private Hashtable activeSessions = new Hashtable();
+    /** The option giving the most sessions to keep */
+    public static final String OPTION_MAX_SESSIONS = "maxSessions";
 
-    // Reap timed-out sessions on the first request after this many
-    // seconds.
-    private long reapPeriodicity = 30;
-    private long lastReapTime = 0;
+    private final SimpleSessionStore activeSessions = new SimpleSessionStore();
 
     // By default, sessions time out after 1 minute of inactivity (60 sec)
     private int defaultSessionTimeout = 60;
@@ -101,58 +93,6 @@ public class SimpleSessionHandler extends BasicHandler
      */
     public void invoke(MessageContext context) throws AxisFault
     {
-        // Should we reap timed out sessions?
-        long curTime = System.currentTimeMillis();
-        boolean reap = false;
-        
-        // Minimize synchronicity, just check in here, do reap later.
-        synchronized (this) {
-            if (curTime > lastReapTime + (reapPeriodicity * 1000)) {
-                reap = true;
-                lastReapTime = curTime;
-            }
-        }
-        
-        if (reap) {
-            Set entries = activeSessions.entrySet();
-            Set victims = new HashSet();
-            Object key;
-            Iterator i;
-            for (i = entries.iterator(); i.hasNext();) {
-                Map.Entry entry = (Map.Entry) i.next();
-                key = entry.getKey();
-                SimpleSession session = (SimpleSession) entry.getValue();
-                if ((curTime - session.getLastAccessTime()) >
-                     (session.getTimeout() * 1000)) {
-                    log.debug(Messages.getMessage("timeout00",
-                                                        key.toString()));
-
-                    // Don't modify the hashtable while we're iterating.
-                    victims.add(key);
-                }
-            }
-
-            // Now go remove all the victims we found during the iteration.
-            for (i = victims.iterator(); i.hasNext();) {
-                key = i.next();
-                SimpleSession session = (SimpleSession)activeSessions.get(key);
-                activeSessions.remove(key);
-
-                // For each victim, swing through the data looking for
-                // ServiceLifecycle objects, and calling destroy() on them.
-                // FIXME : This cleanup should probably happen on another
-                //         thread, as it might take a little while.
-                Enumeration keys = session.getKeys();
-                while (keys != null && keys.hasMoreElements()) {
-                    String keystr = (String)keys.nextElement();
-                    Object obj = session.get(keystr);
-                    if (obj != null && obj instanceof ServiceLifecycle) {
-                        ((ServiceLifecycle)obj).destroy();
-                    }
-                }
-            }
-        }
-        
         if (context.isClient()) {
             doClient(context);
         } else {
@@ -236,7 +176,8 @@ public class SimpleSessionHandler extends BasicHandler
             SOAPEnvelope env = msg.getSOAPEnvelope();
             SOAPHeaderElement header = env.getHeaderByName(SESSION_NS,
                                                            SESSION_LOCALPART);
-            Long id;
+            Long id = null;
+            SimpleSession session = null;
             
             if (header != null) {
                 // Got one!
@@ -246,19 +187,16 @@ public class SimpleSessionHandler extends BasicHandler
                 } catch (Exception e) {
                     throw AxisFault.makeFault(e);
                 }
-            } else {
-                id = getNewSession();
+                session = activeSessions.get(id);
             }
             
-            SimpleSession session = (SimpleSession)activeSessions.get(id);
             if (session == null) {
-                // Must have timed out, get a new one.
-                id = getNewSession();
-                session = (SimpleSession)activeSessions.get(id);
+                // None, or it must have timed out, get a new one.
+                session = new SimpleSession();
+                session.setTimeout(defaultSessionTimeout);
+                id = SessionUtils.generateSession();
+                activeSessions.put(id, session);
             }
-
-            // This session is still active...
-            session.touch();
             
             // Store it away in the MessageContext.
             context.setSession(session);
@@ -267,30 +205,56 @@ public class SimpleSessionHandler extends BasicHandler
     }
     
     /**
-     * Generate a new session, register it, and return its ID.
-     *
-     * @return the new session's ID for later lookup.
+     * Apply the {@link #OPTION_MAX_SESSIONS} option.
      */
-    private synchronized Long getNewSession()
+    public void init()
     {
-        Long id = SessionUtils.generateSession();
-        SimpleSession session = new SimpleSession();
-        session.setTimeout(defaultSessionTimeout);
-        activeSessions.put(id, session);
-        return id;
+        super.init();
+        Object max = getOption(OPTION_MAX_SESSIONS);
+        if (max != null) {
+            try {
+                setMaxSessions(Integer.parseInt(max.toString().trim()));
+            } catch (NumberFormatException e) {
+                log.warn(Messages.getMessage("badIntProperty00",
+                                             OPTION_MAX_SESSIONS,
+                                             max.toString()));
+            }
+        }
+    }
+
+    /**
+     * Stop timing out sessions in the background.
+     */
+    public void cleanup()
+    {
+        super.cleanup();
+        activeSessions.stop();
+    }
+
+    /**
+     * Get the store of the active sessions, e.g. to look at its counts.
+     */
+    public SimpleSessionStore getSessionStore()
+    {
+        return activeSessions;
     }
 
     /**
      * Set the reaper periodicity in SECONDS
      *
-     * Convenience method for testing.
-     *
-     * !!! TODO: Should be able to set this via options on the Handler
-     * or perhaps the engine.
+     * @deprecated timed out sessions are now removed in the background
+     * within a fraction of a second, so this is ignored.
      */
     public void setReapPeriodicity(long reapTime)
     {
-        reapPeriodicity = reapTime;
+    }
+
+    /**
+     * Set the most sessions to keep; 0 means no limit.
+     */
+    public void setMaxSessions(int maxSessions)
+    {
+        activeSessions.setMaxSessions(maxSessions);
     }
 
     /**
@@ -21,15 +21,18 @@ package org.apache.axis.message;
  * @author Glen Daniels (gdaniels@allaire.com)
  */
 
+import org.apache.axis.AxisEngine;
 import org.apache.axis.AxisFault;
 import org.apache.axis.Constants;
 import org.apache.axis.MessageContext;
 import org.apache.axis.Message;
 import org.apache.axis.components.logger.LogFactory;
 import org.apache.axis.description.OperationDesc;
+import org.apache.axis.description.ServiceDesc;
 import org.apache.axis.encoding.DeserializationContext;
 import org.apache.axis.constants.Style;
 import org.apache.axis.soap.SOAPConstants;
+import org.apache.axis.utils.JavaUtils;
 import org.apache.axis.utils.Messages;
 import org.apache.commons.logging.Log;
 import org.xml.sax.Attributes;
@@ -126,12 +129,27 @@ public class BodyBuilder extends SOAPHandler
         if ((root != null) && root.equals("0")) isRoot = false;
 
         MessageContext msgContext = context.getMessageContext();
+        boolean streamingEnabled = isStreamingEnabled(msgContext);
         OperationDesc [] operations = null;
         try {
             if(msgContext != null) {
                  operations = msgContext.getPossibleOperationsByQName(qname);
             }
 
+            // When streaming, try to resolve overloads up front so that the
+            // element doesn't have to be recorded and replayed
+            if (streamingEnabled && operations != null &&
+                    operations.length > 1) {
+                ServiceDesc desc = operations[0].getParent();
+                if (desc != null && desc.getStyle() != Style.DOCUMENT) {
+                    OperationDesc [] match = desc.getOperationsByQName(
+                            qname, msgContext.getSOAPActionURI());
+                    if (match != null) {
+                        operations = match;
+                    }
+                }
+            }
+
             // If there's only one match, set it in the MC now
             if ((operations != null) && (operations.length == 1))
                 msgContext.setOperation(operations[0]);
@@ -178,8 +196,10 @@ public class BodyBuilder extends SOAPHandler
                 // Only deserialize this way if there is a unique operation
                 // for this QName.  If there are overloads,
                 // we'll need to start recording.  If we're making a high-
-                // fidelity recording anyway, don't bother (for now).
-                if (msgContext != null && !msgContext.isHighFidelity() &&
+                // fidelity recording anyway, don't bother unless streaming
+                // deserialization has been asked for.
+                if (msgContext != null &&
+                        (!msgContext.isHighFidelity() || streamingEnabled) &&
                         (operations == null || operations.length == 1)) {
                     ((RPCElement)element).setNeedDeser(false);
                     boolean isResponse = false;
@@ -192,6 +212,15 @@ public class BodyBuilder extends SOAPHandler
                         ((RPCHandler)handler).setOperation(operations[0]);
                         msgContext.setOperation(operations[0]);
                     }
+
+                    // The parameters are deserialized as they are parsed,
+                    // so there is no need to record them as well; the
+                    // element is serialized from its parameters if anyone
+                    // asks for it later.
+                    if (streamingEnabled && context.getRecorder() != null) {
+                        element.setRecorder(null);
+                        context.suspendRecording();
+                    }
                 }
             }
         }
@@ -224,8 +253,21 @@ public class BodyBuilder extends SOAPHandler
         return handler;
     }
 
-    public void onEndChild(String namespace, String localName,
-                           DeserializationContext context)
-    {
+    /**
+     * Streaming deserialization is enabled by the
+     * {@link AxisEngine#PROP_STREAMING_DESERIALIZATION} option, on the
+     * service or on the engine.
+     */
+    private static boolean isStreamingEnabled(MessageContext msgContext) {
+        if (msgContext == null) {
+            return false;
+        }
+        Object streaming = msgContext.getProperty(
+                AxisEngine.PROP_STREAMING_DESERIALIZATION);
+        if (streaming == null && msgContext.getAxisEngine() != null) {
+            return msgContext.getAxisEngine().getOptionsSnapshot()
+                    .isStreamingDeserialization();
+        }
+        return JavaUtils.isTrueExplicitly(streaming);
     }
 }
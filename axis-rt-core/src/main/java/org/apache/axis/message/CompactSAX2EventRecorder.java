@@ -0,0 +1,503 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.message;
+
+import org.apache.axis.encoding.DeserializationContext;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+
+import java.util.Arrays;
+
+/**
+ * A {@link SAX2EventRecorder} that keeps its events in primitive arrays.
+ * <p>
+ * Each event is a fixed-size record of ints: an opcode followed by up to
+ * three operands.  Character data of all events is appended to one shared
+ * char buffer, strings are interned into a name table, and element names
+ * (namespace, local name and qualified name) are interned as a whole, so
+ * that a start or end tag costs a handful of ints instead of an
+ * <code>Object[]</code> row with boxed state codes and copied arrays.
+ * Only attributes and {@link MessageElement}s are kept as object references.
+ * <p>
+ * Replay delivers exactly the same events as the default recorder; the
+ * characters passed to a handler are a window on the shared buffer rather
+ * than a private copy, which SAX handlers must not retain anyway.
+ *
+ * @see org.apache.axis.AxisEngine#PROP_COMPACT_EVENT_RECORDER
+ */
+public class CompactSAX2EventRecorder extends SAX2EventRecorder {
+
+    private static final int START_DOCUMENT = 1;
+    private static final int END_DOCUMENT = 2;
+    private static final int START_PREFIX_MAPPING = 3;
+    private static final int END_PREFIX_MAPPING = 4;
+    private static final int START_ELEMENT = 5;
+    private static final int END_ELEMENT = 6;
+    private static final int CHARACTERS = 7;
+    private static final int IGNORABLE_WHITESPACE = 8;
+    private static final int PROCESSING_INSTRUCTION = 9;
+    private static final int SKIPPED_ENTITY = 10;
+    private static final int NEWELEMENT = 11;
+    private static final int START_DTD = 12;
+    private static final int END_DTD = 13;
+    private static final int START_ENTITY = 14;
+    private static final int END_ENTITY = 15;
+    private static final int START_CDATA = 16;
+    private static final int END_CDATA = 17;
+    private static final int COMMENT = 18;
+
+    /** ints per event: opcode and three operands */
+    private static final int RECORD_SIZE = 4;
+
+    /** operand standing for a null string */
+    private static final int NULL = -1;
+
+    private int[] ops = new int[64 * RECORD_SIZE];
+    private int opsSize = 0;
+
+    private char[] chars = new char[1024];
+    private int charsSize = 0;
+
+    private Object[] objects = new Object[16];
+    private int objectsSize = 0;
+
+    /** interned strings, by id */
+    private String[] names = new String[32];
+    private int namesSize = 0;
+    /** open addressing table of name ids, keyed by string hash */
+    private int[] nameSlots = newSlots(64);
+
+    /** interned element names, three name ids per entry */
+    private int[] qnames = new int[32 * 3];
+    private int qnamesSize = 0;
+    /** open addressing table of element name ids */
+    private int[] qnameSlots = newSlots(64);
+
+    /**
+     * Direct mapped cache of recently seen element names, keyed by the
+     * local name's hash.  Parsers hand out the same String instances for
+     * repeated names, so most tags are resolved here by identity without
+     * probing the hash tables.
+     */
+    private static final int NAME_CACHE_SIZE = 64;
+    private final String[] cachedNames = new String[NAME_CACHE_SIZE * 3];
+    private final int[] cachedQNames = new int[NAME_CACHE_SIZE];
+
+    /**
+     * Sizes beyond which {@link #clear} gives up the arrays instead of
+     * keeping them, so that a recorder recycled after a large message does
+     * not hold on to them for the small ones that usually follow.
+     */
+    private static final int MAX_KEPT_EVENTS = 8192;
+    private static final int MAX_KEPT_CHARS = 64 * 1024;
+    private static final int MAX_KEPT_OBJECTS = 4096;
+    private static final int MAX_KEPT_NAMES = 4096;
+
+    public CompactSAX2EventRecorder() {
+        super(false);
+    }
+
+    public void clear() {
+        if (ops.length > MAX_KEPT_EVENTS * RECORD_SIZE
+                || chars.length > MAX_KEPT_CHARS
+                || objects.length > MAX_KEPT_OBJECTS
+                || namesSize > MAX_KEPT_NAMES
+                || qnamesSize > MAX_KEPT_NAMES * 3) {
+            ops = new int[64 * RECORD_SIZE];
+            chars = new char[1024];
+            objects = new Object[16];
+            names = new String[32];
+            namesSize = 0;
+            nameSlots = newSlots(64);
+            qnames = new int[32 * 3];
+            qnamesSize = 0;
+            qnameSlots = newSlots(64);
+            // the cached ids are gone with the tables
+            Arrays.fill(cachedNames, null);
+            opsSize = 0;
+            charsSize = 0;
+            objectsSize = 0;
+            return;
+        }
+        // Keep the arrays, but drop references to the recorded objects
+        for (int i = 0; i < objectsSize; i++) {
+            objects[i] = null;
+        }
+        opsSize = 0;
+        charsSize = 0;
+        objectsSize = 0;
+    }
+
+    public int getLength() {
+        return opsSize / RECORD_SIZE;
+    }
+
+    public int startDocument() {
+        return add(START_DOCUMENT, 0, 0, 0);
+    }
+
+    public int endDocument() {
+        return add(END_DOCUMENT, 0, 0, 0);
+    }
+
+    public int startPrefixMapping(String p1, String p2) {
+        return add(START_PREFIX_MAPPING, name(p1), name(p2), 0);
+    }
+
+    public int endPrefixMapping(String p1) {
+        return add(END_PREFIX_MAPPING, name(p1), 0, 0);
+    }
+
+    public int startElement(String p1, String p2, String p3, Attributes p4) {
+        return add(START_ELEMENT, qname(p1, p2, p3), object(p4), 0);
+    }
+
+    public int endElement(String p1, String p2, String p3) {
+        return add(END_ELEMENT, qname(p1, p2, p3), 0, 0);
+    }
+
+    public int characters(char[] p1, int p2, int p3) {
+        return add(CHARACTERS, chars(p1, p2, p3), p3, 0);
+    }
+
+    public int ignorableWhitespace(char[] p1, int p2, int p3) {
+        return add(IGNORABLE_WHITESPACE, chars(p1, p2, p3), p3, 0);
+    }
+
+    public int processingInstruction(String p1, String p2) {
+        return add(PROCESSING_INSTRUCTION, name(p1), name(p2), 0);
+    }
+
+    public int skippedEntity(String p1) {
+        return add(SKIPPED_ENTITY, name(p1), 0, 0);
+    }
+
+    public void startDTD(String name, String publicId, String systemId) {
+        add(START_DTD, name(name), name(publicId), name(systemId));
+    }
+
+    public void endDTD() {
+        add(END_DTD, 0, 0, 0);
+    }
+
+    public void startEntity(String name) {
+        add(START_ENTITY, name(name), 0, 0);
+    }
+
+    public void endEntity(String name) {
+        add(END_ENTITY, name(name), 0, 0);
+    }
+
+    public void startCDATA() {
+        add(START_CDATA, 0, 0, 0);
+    }
+
+    public void endCDATA() {
+        add(END_CDATA, 0, 0, 0);
+    }
+
+    public void comment(char[] ch, int start, int length) {
+        add(COMMENT, chars(ch, start, length), length, 0);
+    }
+
+    public int newElement(MessageElement elem) {
+        return add(NEWELEMENT, object(elem), 0, 0);
+    }
+
+    public void replay(ContentHandler handler) throws SAXException {
+        if (getLength() > 0) {
+            replay(0, getLength() - 1, handler);
+        }
+    }
+
+    public void replay(int start, int stop, ContentHandler handler)
+            throws SAXException {
+        // Special case : play the whole thing for [0, -1]
+        if ((start == 0) && (stop == -1)) {
+            replay(handler);
+            return;
+        }
+
+        if (stop + 1 > getLength() || stop < start) {
+            return; // should throw an error here
+        }
+
+        LexicalHandler lexicalHandler = null;
+        if (handler instanceof LexicalHandler) {
+            lexicalHandler = (LexicalHandler) handler;
+        }
+
+        int[] ops = this.ops;
+        for (int pos = start * RECORD_SIZE, end = stop * RECORD_SIZE;
+             pos <= end; pos += RECORD_SIZE) {
+            int a = ops[pos + 1];
+            int b = ops[pos + 2];
+            int c = ops[pos + 3];
+            switch (ops[pos]) {
+            case START_ELEMENT:
+                handler.startElement(string(qnames[a]),
+                                     string(qnames[a + 1]),
+                                     string(qnames[a + 2]),
+                                     (Attributes) objects[b]);
+                break;
+            case END_ELEMENT:
+                handler.endElement(string(qnames[a]),
+                                   string(qnames[a + 1]),
+                                   string(qnames[a + 2]));
+                break;
+            case CHARACTERS:
+                handler.characters(chars, a, b);
+                break;
+            case IGNORABLE_WHITESPACE:
+                handler.ignorableWhitespace(chars, a, b);
+                break;
+            case PROCESSING_INSTRUCTION:
+                handler.processingInstruction(string(a), string(b));
+                break;
+            case SKIPPED_ENTITY:
+                handler.skippedEntity(string(a));
+                break;
+            case START_DOCUMENT:
+                handler.startDocument();
+                break;
+            case END_DOCUMENT:
+                handler.endDocument();
+                break;
+            case START_PREFIX_MAPPING:
+                handler.startPrefixMapping(string(a), string(b));
+                break;
+            case END_PREFIX_MAPPING:
+                handler.endPrefixMapping(string(a));
+                break;
+            case START_DTD:
+                if (lexicalHandler != null) {
+                    lexicalHandler.startDTD(string(a), string(b), string(c));
+                }
+                break;
+            case END_DTD:
+                if (lexicalHandler != null) {
+                    lexicalHandler.endDTD();
+                }
+                break;
+            case START_ENTITY:
+                if (lexicalHandler != null) {
+                    lexicalHandler.startEntity(string(a));
+                }
+                break;
+            case END_ENTITY:
+                if (lexicalHandler != null) {
+                    lexicalHandler.endEntity(string(a));
+                }
+                break;
+            case START_CDATA:
+                if (lexicalHandler != null) {
+                    lexicalHandler.startCDATA();
+                }
+                break;
+            case END_CDATA:
+                if (lexicalHandler != null) {
+                    lexicalHandler.endCDATA();
+                }
+                break;
+            case COMMENT:
+                if (lexicalHandler != null) {
+                    lexicalHandler.comment(chars, a, b);
+                }
+                break;
+            case NEWELEMENT:
+                if (handler instanceof DeserializationContext) {
+                    ((DeserializationContext) handler).setCurElement(
+                            (MessageElement) objects[a]);
+                }
+                break;
+            }
+        }
+    }
+
+    private int add(int op, int a, int b, int c) {
+        if (opsSize == ops.length) {
+            int[] newOps = new int[opsSize * 2];
+            System.arraycopy(ops, 0, newOps, 0, opsSize);
+            ops = newOps;
+        }
+        int pos = opsSize / RECORD_SIZE;
+        ops[opsSize++] = op;
+        ops[opsSize++] = a;
+        ops[opsSize++] = b;
+        ops[opsSize++] = c;
+        return pos;
+    }
+
+    /**
+     * Appends character data to the shared buffer.
+     *
+     * @return the offset of the data in the buffer
+     */
+    private int chars(char[] ch, int start, int length) {
+        if (charsSize + length > chars.length) {
+            char[] newChars =
+                new char[Math.max(chars.length * 2, charsSize + length)];
+            System.arraycopy(chars, 0, newChars, 0, charsSize);
+            chars = newChars;
+        }
+        System.arraycopy(ch, start, chars, charsSize, length);
+        int offset = charsSize;
+        charsSize += length;
+        return offset;
+    }
+
+    private int object(Object o) {
+        if (objectsSize == objects.length) {
+            Object[] newObjects = new Object[objectsSize * 2];
+            System.arraycopy(objects, 0, newObjects, 0, objectsSize);
+            objects = newObjects;
+        }
+        objects[objectsSize] = o;
+        return objectsSize++;
+    }
+
+    private String string(int id) {
+        return id == NULL ? null : names[id];
+    }
+
+    private static int[] newSlots(int size) {
+        int[] slots = new int[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = NULL;
+        }
+        return slots;
+    }
+
+    private static int mix(int h) {
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        return h ^ (h >>> 13);
+    }
+
+    /**
+     * Interns a string into the name table.
+     *
+     * @return the id of the string, or NULL for null
+     */
+    private int name(String s) {
+        if (s == null) {
+            return NULL;
+        }
+        int mask = nameSlots.length - 1;
+        int i = mix(s.hashCode()) & mask;
+        while (true) {
+            int id = nameSlots[i];
+            if (id == NULL) {
+                break;
+            }
+            String n = names[id];
+            if (n == s || n.equals(s)) {
+                return id;
+            }
+            i = (i + 1) & mask;
+        }
+        if (namesSize == names.length) {
+            String[] newNames = new String[namesSize * 2];
+            System.arraycopy(names, 0, newNames, 0, namesSize);
+            names = newNames;
+        }
+        int id = namesSize++;
+        names[id] = s;
+        nameSlots[i] = id;
+        if (namesSize * 2 > nameSlots.length) {
+            int[] slots = newSlots(nameSlots.length * 2);
+            mask = slots.length - 1;
+            for (int n = 0; n < namesSize; n++) {
+                int j = mix(names[n].hashCode()) & mask;
+                while (slots[j] != NULL) {
+                    j = (j + 1) & mask;
+                }
+                slots[j] = n;
+            }
+            nameSlots = slots;
+        }
+        return id;
+    }
+
+    /**
+     * Interns an element name into the element name table.  Any of the
+     * three names may be null.
+     *
+     * @return the offset of the entry in the element name table
+     */
+    private int qname(String namespace, String localName, String qName) {
+        int slot = localName == null
+            ? 0 : localName.hashCode() & (NAME_CACHE_SIZE - 1);
+        int c = slot * 3;
+        if (cachedNames[c + 1] == localName && localName != null
+                && cachedNames[c] == namespace
+                && cachedNames[c + 2] == qName) {
+            return cachedQNames[slot];
+        }
+        int off = internQName(namespace, localName, qName);
+        cachedNames[c] = namespace;
+        cachedNames[c + 1] = localName;
+        cachedNames[c + 2] = qName;
+        cachedQNames[slot] = off;
+        return off;
+    }
+
+    private int internQName(String namespace, String localName,
+                            String qName) {
+        int ns = name(namespace);
+        int local = name(localName);
+        int q = name(qName);
+        int mask = qnameSlots.length - 1;
+        int i = mix((ns * 31 + local) * 31 + q) & mask;
+        while (true) {
+            int off = qnameSlots[i];
+            if (off == NULL) {
+                break;
+            }
+            if (qnames[off] == ns && qnames[off + 1] == local
+                    && qnames[off + 2] == q) {
+                return off;
+            }
+            i = (i + 1) & mask;
+        }
+        if (qnamesSize == qnames.length) {
+            int[] newQNames = new int[qnamesSize * 2];
+            System.arraycopy(qnames, 0, newQNames, 0, qnamesSize);
+            qnames = newQNames;
+        }
+        int off = qnamesSize;
+        qnames[qnamesSize++] = ns;
+        qnames[qnamesSize++] = local;
+        qnames[qnamesSize++] = q;
+        qnameSlots[i] = off;
+        if (qnamesSize / 3 * 2 > qnameSlots.length) {
+            int[] slots = newSlots(qnameSlots.length * 2);
+            mask = slots.length - 1;
+            for (int n = 0; n < qnamesSize; n += 3) {
+                int j = mix((qnames[n] * 31 + qnames[n + 1]) * 31
+                            + qnames[n + 2]) & mask;
+                while (slots[j] != NULL) {
+                    j = (j + 1) & mask;
+                }
+                slots[j] = n;
+            }
+            qnameSlots = slots;
+        }
+        return off;
+    }
+}
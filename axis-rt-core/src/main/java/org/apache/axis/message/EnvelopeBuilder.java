@@ -25,6 +25,7 @@ import org.apache.axis.AxisFault;
 import org.apache.axis.MessageContext;
 
 import javax.xml.namespace.QName;
+import javax.xml.soap.SOAPException;
 
 /**
  * The EnvelopeBuilder is responsible for parsing the top-level
@@ -202,5 +203,21 @@ public class EnvelopeBuilder extends SOAPHandler
         envelope.setDirty(false);
         envelope.setRecorded(true);
         envelope.reset();
+
+        // An element of the body was not recorded, so the envelope and the
+        // body are serialized from their elements rather than replayed.
+        // The headers and the other body elements still replay their own
+        // recordings, and the envelope doesn't count as modified.
+        if (context.isPartiallyRecorded()) {
+            envelope.setRecorder(null);
+            try {
+                MessageElement body = (MessageElement) envelope.getBody();
+                if (body != null) {
+                    body.setRecorder(null);
+                }
+            } catch (SOAPException e) {
+                throw new SAXException(e);
+            }
+        }
     }
 }
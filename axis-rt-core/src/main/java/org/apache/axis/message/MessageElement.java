@@ -271,7 +271,8 @@ public class MessageElement extends NodeImpl implements SOAPElement,
             if (id != null) {
                 context.registerElementByID(id, this);
                 if (recorder == null) {
-                    recorder = new SAX2EventRecorder();
+                    recorder = SAX2EventRecorder.newInstance(
+                            context.getMessageContext());
                     context.setRecorder(recorder);
                 }
             }
@@ -15,7 +15,10 @@
  */
 package org.apache.axis.message;
 
+import org.apache.axis.AxisEngine;
+import org.apache.axis.MessageContext;
 import org.apache.axis.encoding.DeserializationContext;
+import org.apache.axis.utils.JavaUtils;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.ext.LexicalHandler;
@@ -52,11 +55,58 @@ public class SAX2EventRecorder {
     private static final Integer STATE_END_CDATA = new Integer(17);
     private static final Integer STATE_COMMENT = new Integer(18);
     
-    objArrayVector events = new objArrayVector();
-    
-    public void clear() {
+    objArrayVector events;
+
+    public SAX2EventRecorder() {
         events = new objArrayVector();
     }
+
+    /**
+     * For subclasses that keep their events in a store of their own.
+     *
+     * @param allocate whether to allocate the default event store
+     */
+    protected SAX2EventRecorder(boolean allocate) {
+        if (allocate) {
+            events = new objArrayVector();
+        }
+    }
+
+    /**
+     * Create the recorder configured for a message context: a
+     * {@link CompactSAX2EventRecorder} if the
+     * {@link org.apache.axis.AxisEngine#PROP_COMPACT_EVENT_RECORDER}
+     * option is set on the service or the engine, the default recorder
+     * otherwise.  A recycled context hands out the recorder it keeps.
+     *
+     * @param msgContext the context, may be null
+     */
+    public static SAX2EventRecorder newInstance(MessageContext msgContext) {
+        if (msgContext != null) {
+            Object option = msgContext.getProperty(
+                    AxisEngine.PROP_COMPACT_EVENT_RECORDER);
+            boolean compact;
+            if (option == null && msgContext.getAxisEngine() != null) {
+                compact = msgContext.getAxisEngine().getOptionsSnapshot()
+                        .isCompactEventRecorder();
+            } else {
+                compact = JavaUtils.isTrueExplicitly(option);
+            }
+            SAX2EventRecorder recorder =
+                    msgContext.getRecycledRecorder(compact);
+            if (recorder != null) {
+                return recorder;
+            }
+            if (compact) {
+                return new CompactSAX2EventRecorder();
+            }
+        }
+        return new SAX2EventRecorder();
+    }
+
+    public void clear() {
+        events.clear();
+    }
     public int getLength()
     {
         return events.getLength();
@@ -236,6 +286,8 @@ public class SAX2EventRecorder {
 /////////////////////////////////////////////
     class objArrayVector {
         private int RECORD_SIZE = 5;
+        // records kept by clear(), beyond which the array is given up
+        private static final int MAX_KEPT_RECORDS = 8192;
         private int currentSize = 0;
         private Object[] objarray = new Object[50 * RECORD_SIZE];  // default to 50 5 field records
         
@@ -261,6 +313,21 @@ public class SAX2EventRecorder {
         public int getLength() {
             return (currentSize / RECORD_SIZE);
         }
+
+        public void clear() {
+            // keep the array, unless a large message made it grow so much
+            // that a recycled recorder would hold on to it for nothing
+            if (objarray.length > MAX_KEPT_RECORDS * RECORD_SIZE) {
+                objarray = new Object[50 * RECORD_SIZE];
+                currentSize = 0;
+                return;
+            }
+            // drop the references to the events
+            for (int i = 0; i < currentSize; i++) {
+                objarray[i] = null;
+            }
+            currentSize = 0;
+        }
     }
 /////////////////////////////////////////////
             
@@ -23,6 +23,7 @@ import org.apache.axis.Handler;
 import org.apache.axis.Message;
 import org.apache.axis.MessageContext;
 import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.description.FaultDesc;
 import org.apache.axis.description.JavaServiceDesc;
 import org.apache.axis.description.OperationDesc;
 import org.apache.axis.constants.Scope;
@@ -30,6 +31,7 @@ import org.apache.axis.handlers.soap.SOAPService;
 import org.apache.axis.message.SOAPEnvelope;
 import org.apache.axis.providers.BasicProvider;
 import org.apache.axis.session.Session;
+import org.apache.axis.statistics.RequestTimer;
 import org.apache.axis.utils.ClassUtils;
 import org.apache.axis.utils.Messages;
 import org.apache.axis.utils.XMLUtils;
@@ -43,6 +45,7 @@ import javax.xml.rpc.server.ServiceLifecycle;
 import javax.xml.soap.SOAPMessage;
 import javax.wsdl.OperationType;
 import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.StringTokenizer;
 
@@ -318,7 +321,12 @@ public abstract class JavaProvider extends BasicProvider
             Message        reqMsg  = msgContext.getRequestMessage();
             SOAPEnvelope   reqEnv  = reqMsg.getSOAPEnvelope();
 
-            processMessage(msgContext, reqEnv, resEnv, serviceObject);
+            RequestTimer.enter(msgContext, RequestTimer.PROVIDER);
+            try {
+                processMessage(msgContext, reqEnv, resEnv, serviceObject);
+            } finally {
+                RequestTimer.exit(msgContext);
+            }
         } catch( SAXException exp ) {
             entLog.debug( Messages.getMessage("toAxisFault00"), exp);
             Exception real = exp.getException();
@@ -328,7 +336,9 @@ public abstract class JavaProvider extends BasicProvider
             throw AxisFault.makeFault(real);
         } catch( Exception exp ) {
             entLog.debug( Messages.getMessage("toAxisFault00"), exp);
-            AxisFault fault = AxisFault.makeFault(exp);
+            AxisFault fault = isLightweightFault(msgContext, exp) ?
+                    AxisFault.makeLightweightFault(exp) :
+                    AxisFault.makeFault(exp);
             //make a note if this was a runtime fault, for better logging
             if (exp instanceof RuntimeException) {
                 fault.addFaultDetail(Constants.QNAME_FAULTDETAIL_RUNTIMEEXCEPTION,
@@ -350,6 +360,24 @@ public abstract class JavaProvider extends BasicProvider
             log.debug("Exit: JavaProvider::invoke (" + this + ")");
     }
 
+    /**
+     * Tell whether an exception thrown by the service is a fault of the
+     * operation which is declared to be lightweight.
+     */
+    private static boolean isLightweightFault(MessageContext msgContext,
+                                              Exception exp) {
+        OperationDesc operation = msgContext.getOperation();
+        if (operation == null) {
+            return false;
+        }
+        Throwable t = exp;
+        if (t instanceof InvocationTargetException) {
+            t = ((InvocationTargetException)t).getTargetException();
+        }
+        FaultDesc fault = operation.getFaultByClass(t.getClass());
+        return fault != null && fault.isLightweight();
+    }
+
     private String getAllowedMethods(Handler service)
     {
         String val = (String)service.getOption(OPTION_ALLOWEDMETHODS);
@@ -31,6 +31,7 @@ import org.apache.axis.message.RPCParam;
 import org.apache.axis.message.SOAPBodyElement;
 import org.apache.axis.message.SOAPEnvelope;
 import org.apache.axis.soap.SOAPConstants;
+import org.apache.axis.statistics.RequestTimer;
 import org.apache.axis.utils.JavaUtils;
 import org.apache.axis.utils.Messages;
 import org.apache.commons.logging.Log;
@@ -77,12 +78,16 @@ public class RPCProvider extends JavaProvider {
         RPCElement body = getBody(reqEnv, msgContext);
 
         Vector args = null;
+        // the arguments are deserialized here
+        RequestTimer.enter(msgContext, RequestTimer.PARSE);
         try {
             args = body.getParams();
         } catch (SAXException e) {
             if(e.getException() != null)
                 throw e.getException();
             throw e;
+        } finally {
+            RequestTimer.exit(msgContext);
         }
         int numArgs = args.size();
         OperationDesc operation = getOperationDesc(msgContext, body);
@@ -27,6 +27,8 @@ import org.apache.axis.MessageContext;
 import org.apache.axis.SimpleTargetedChain;
 import org.apache.axis.message.SOAPEnvelope;
 import org.apache.axis.soap.SOAPConstants;
+import org.apache.axis.statistics.RequestTimer;
+import org.apache.axis.statistics.StatisticsCollector;
 import org.apache.axis.client.AxisClient;
 import org.apache.axis.components.logger.LogFactory;
 import org.apache.axis.configuration.EngineConfigurationFactoryFinder;
@@ -97,6 +99,28 @@ public class AxisServer extends AxisEngine
 
     public boolean isRunning() { return running; }
 
+    /** Receives the timing of each request, if set */
+    private volatile StatisticsCollector statisticsCollector = null;
+
+    /**
+     * Get the collector of request statistics.
+     *
+     * @return the collector, or null if no statistics are collected
+     */
+    public StatisticsCollector getStatisticsCollector() {
+        return statisticsCollector;
+    }
+
+    /**
+     * Collect the timing of each request processed by this server.
+     *
+     * @param collector the collector, or null to stop collecting
+     * @see RequestTimer
+     */
+    public void setStatisticsCollector(StatisticsCollector collector) {
+        this.statisticsCollector = collector;
+    }
+
     /** Start the server.
      */
     public void start()
@@ -150,6 +174,11 @@ public class AxisServer extends AxisEngine
         // save previous context
         MessageContext previousContext = getCurrentMessageContext();
 
+        // time the request here unless the transport does
+        RequestTimer timer = RequestTimer.start(msgContext);
+        boolean fault = true;
+        RequestTimer.enter(msgContext, RequestTimer.HANDLERS);
+
         try {
             // set active context
             setCurrentMessageContext(msgContext);
@@ -317,6 +346,7 @@ public class AxisServer extends AxisEngine
                 }
 
             }
+            fault = false;
         } catch (AxisFault e) {
             throw e;
         } catch (Exception e) {
@@ -326,6 +356,11 @@ public class AxisServer extends AxisEngine
         } finally {
             // restore previous state
             setCurrentMessageContext(previousContext);
+
+            RequestTimer.exit(msgContext);
+            if (timer != null) {
+                timer.finish(msgContext, fault);
+            }
         }
         
         if (log.isDebugEnabled()) {
@@ -26,13 +26,14 @@ import java.util.Hashtable;
  */
 public class SimpleSession implements Session
 {
-    private Hashtable rep = null;
+    private volatile Hashtable rep = null;
     
     /** Inactivity timeout (in seconds).
-     * Not used yet.
      */
-    private int timeout = -1;
-    private long lastTouched;
+    private volatile int timeout = -1;
+
+    /** Read by the thread that times out sessions, without a lock */
+    private volatile long lastTouched;
     
     /**
      * Default constructor - set lastTouched to now
@@ -48,6 +49,7 @@ public class SimpleSession implements Session
      */
     public Object get(String key)
     {
+        Hashtable rep = this.rep;
         if (rep == null)
             return null;
         lastTouched = System.currentTimeMillis();
@@ -61,9 +63,9 @@ public class SimpleSession implements Session
      */
     public void set(String key, Object value)
     {
-        synchronized (this) {
-            if (rep == null)
-                rep = new Hashtable();
+        Hashtable rep = this.rep;
+        if (rep == null) {
+            rep = (Hashtable) getLockObject();
         }
         lastTouched = System.currentTimeMillis();
         rep.put(key, value);
@@ -75,6 +77,7 @@ public class SimpleSession implements Session
      */
     public void remove(String key)
     {
+        Hashtable rep = this.rep;
         if (rep != null)
             rep.remove(key);
         lastTouched = System.currentTimeMillis();
@@ -84,6 +87,7 @@ public class SimpleSession implements Session
      * Get an enumeration of the keys in this session
      */
     public Enumeration getKeys() {
+        Hashtable rep = this.rep;
         if (rep != null)
             return rep.keys();
         return null;
@@ -0,0 +1,433 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.session;
+
+import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.utils.Messages;
+import org.apache.commons.logging.Log;
+
+import javax.xml.rpc.server.ServiceLifecycle;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * The active {@link SimpleSession}s of a
+ * {@link org.apache.axis.handlers.SimpleSessionHandler}, by ID.
+ * <p>
+ * The sessions are kept in a number of segments, each with its own lock,
+ * so that requests in different sessions seldom wait for each other.
+ * Each segment keeps its sessions in order of use; if a maximum number
+ * of sessions is set and a segment gets more than its share, its least
+ * recently used session is evicted.
+ * <p>
+ * Timed out sessions are removed by a background thread, which is shared
+ * by all stores.  Every session is put on a timing wheel, in the slot of
+ * the tick at which it would time out if it were not used again.  Using
+ * a session only sets its access time; when the slot of a session comes
+ * round and the session has been used since, it is moved to a later
+ * slot.  So each tick only looks at the sessions that may have timed
+ * out, and looking a session up costs no more than a hash lookup.  A
+ * session that is looked up after timing out, but before the reaper got
+ * to it, is removed at once.
+ * <p>
+ * When a session is removed, the {@link ServiceLifecycle} objects in it
+ * are destroyed.
+ */
+public class SimpleSessionStore {
+    protected static Log log =
+        LogFactory.getLog(SimpleSessionStore.class.getName());
+
+    /** The time between ticks of the timing wheel, in milliseconds */
+    public static final long TICK = 250;
+
+    /** The number of slots of the timing wheel: a little over 2 minutes */
+    private static final int WHEEL_SIZE = 512;
+
+    private static final int SEGMENTS = 16;
+
+    /** Runs the reapers of all stores */
+    private static Timer timer = null;
+
+    private static synchronized Timer getTimer() {
+        if (timer == null) {
+            timer = new Timer(true);
+        }
+        return timer;
+    }
+
+    /**
+     * A session, and its place on the timing wheel.
+     */
+    private static final class Entry {
+        final Long id;
+        final SimpleSession session;
+
+        /** The tick of the slot this entry is in, or -1 if in none */
+        long tick = -1;
+        Entry previous;
+        Entry next;
+
+        Entry(Long id, SimpleSession session) {
+            this.id = id;
+            this.session = session;
+        }
+
+        boolean isExpired(long now) {
+            return (now - session.getLastAccessTime()) >
+                    (session.getTimeout() * 1000L);
+        }
+    }
+
+    private final Map[] segments = new Map[SEGMENTS];
+
+    /** The most sessions each segment may hold, or 0 for no limit */
+    private volatile int segmentLimit = 0;
+
+    /** The slots of the timing wheel, each a list of entries */
+    private final Entry[] wheel = new Entry[WHEEL_SIZE];
+
+    /** The next tick to process; guarded by the wheel */
+    private long currentTick;
+
+    private final Object statsLock = new Object();
+    private long created = 0;
+    private long expired = 0;
+    private long evicted = 0;
+
+    private TimerTask reaper = null;
+
+    public SimpleSessionStore() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            // ordered by access, least recently used first
+            segments[i] = new LinkedHashMap(16, 0.75f, true);
+        }
+        currentTick = System.currentTimeMillis() / TICK;
+    }
+
+    /**
+     * Limit the number of sessions.  When there are too many sessions, the
+     * least recently used ones are evicted, about as if they had timed
+     * out.  The limit is kept per segment, so the sessions which are
+     * evicted are nearly, but not exactly, the least recently used ones.
+     *
+     * @param maxSessions the most sessions to keep, or 0 for no limit
+     */
+    public void setMaxSessions(int maxSessions) {
+        segmentLimit = maxSessions <= 0 ?
+                0 : Math.max(1, (maxSessions + SEGMENTS - 1) / SEGMENTS);
+    }
+
+    private Map segmentFor(Long id) {
+        int hash = id.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Get an active session, and touch it.
+     *
+     * @return the session, or null if there is none or it has timed out
+     */
+    public SimpleSession get(Long id) {
+        Map segment = segmentFor(id);
+        Entry entry;
+        synchronized (segment) {
+            entry = (Entry) segment.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(System.currentTimeMillis())) {
+                segment.remove(id);
+            } else {
+                entry.session.touch();
+                return entry.session;
+            }
+        }
+        unschedule(entry);
+        ended(entry, true);
+        return null;
+    }
+
+    /**
+     * Add a session.
+     */
+    public void put(Long id, SimpleSession session) {
+        Entry entry = new Entry(id, session);
+        Map segment = segmentFor(id);
+        Entry old;
+        Entry eldest = null;
+        synchronized (segment) {
+            old = (Entry) segment.put(id, entry);
+            int limit = segmentLimit;
+            if (limit > 0 && segment.size() > limit) {
+                Iterator i = segment.values().iterator();
+                eldest = (Entry) i.next();
+                i.remove();
+            }
+        }
+        synchronized (statsLock) {
+            created++;
+        }
+        if (old != null) {
+            unschedule(old);
+        }
+        schedule(entry);
+        if (eldest != null) {
+            unschedule(eldest);
+            if (log.isDebugEnabled()) {
+                log.debug(Messages.getMessage("sessionEvicted00",
+                                              eldest.id.toString()));
+            }
+            ended(eldest, false);
+        }
+        startReaper();
+    }
+
+    /**
+     * Remove a session without destroying it.
+     *
+     * @return the session, or null if there was none
+     */
+    public SimpleSession remove(Long id) {
+        Map segment = segmentFor(id);
+        Entry entry;
+        synchronized (segment) {
+            entry = (Entry) segment.remove(id);
+        }
+        if (entry == null) {
+            return null;
+        }
+        unschedule(entry);
+        return entry.session;
+    }
+
+    /**
+     * Returns the number of active sessions.
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < SEGMENTS; i++) {
+            synchronized (segments[i]) {
+                size += segments[i].size();
+            }
+        }
+        return size;
+    }
+
+    /** Returns the number of sessions added so far. */
+    public long getCreatedCount() {
+        synchronized (statsLock) {
+            return created;
+        }
+    }
+
+    /** Returns the number of sessions that timed out so far. */
+    public long getExpiredCount() {
+        synchronized (statsLock) {
+            return expired;
+        }
+    }
+
+    /** Returns the number of sessions evicted so far. */
+    public long getEvictedCount() {
+        synchronized (statsLock) {
+            return evicted;
+        }
+    }
+
+    /**
+     * Stop the background reaper.  Sessions which time out afterwards are
+     * still removed when they are looked up.
+     */
+    public synchronized void stop() {
+        if (reaper != null) {
+            reaper.cancel();
+            reaper = null;
+        }
+    }
+
+    private synchronized void startReaper() {
+        if (reaper == null) {
+            reaper = new Reaper(this);
+            getTimer().schedule(reaper, TICK, TICK);
+        }
+    }
+
+    /**
+     * Put an entry in the slot of the tick at which it will have timed
+     * out, unless it is used before.
+     */
+    private void schedule(Entry entry) {
+        long deadline = entry.session.getLastAccessTime() +
+                entry.session.getTimeout() * 1000L;
+        synchronized (wheel) {
+            long tick = Math.max((deadline + TICK - 1) / TICK, currentTick);
+            link(entry, tick);
+        }
+    }
+
+    private void link(Entry entry, long tick) {
+        int slot = (int) (tick % WHEEL_SIZE);
+        entry.tick = tick;
+        entry.previous = null;
+        entry.next = wheel[slot];
+        if (wheel[slot] != null) {
+            wheel[slot].previous = entry;
+        }
+        wheel[slot] = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.previous != null) {
+            entry.previous.next = entry.next;
+        } else {
+            wheel[(int) (entry.tick % WHEEL_SIZE)] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.previous = entry.previous;
+        }
+        entry.tick = -1;
+        entry.previous = null;
+        entry.next = null;
+    }
+
+    private void unschedule(Entry entry) {
+        synchronized (wheel) {
+            if (entry.tick != -1) {
+                unlink(entry);
+            }
+        }
+    }
+
+    /**
+     * Process the ticks of the wheel up to now, and remove the sessions
+     * which timed out.
+     */
+    void reap() {
+        long now = System.currentTimeMillis();
+        long nowTick = now / TICK;
+        List victims = new ArrayList();
+        synchronized (wheel) {
+            long ticks = nowTick - currentTick + 1;
+            if (ticks <= 0) {
+                return;
+            }
+            long first = ticks >= WHEEL_SIZE ? nowTick - WHEEL_SIZE + 1
+                                             : currentTick;
+            for (long tick = first; tick <= nowTick; tick++) {
+                Entry entry = wheel[(int) (tick % WHEEL_SIZE)];
+                while (entry != null) {
+                    Entry next = entry.next;
+                    if (entry.tick <= nowTick) {
+                        unlink(entry);
+                        if (entry.isExpired(now)) {
+                            victims.add(entry);
+                        } else {
+                            long deadline =
+                                entry.session.getLastAccessTime() +
+                                entry.session.getTimeout() * 1000L;
+                            link(entry, Math.max((deadline + TICK - 1) / TICK,
+                                                 nowTick + 1));
+                        }
+                    }
+                    entry = next;
+                }
+            }
+            currentTick = nowTick + 1;
+        }
+
+        for (int i = 0; i < victims.size(); i++) {
+            Entry entry = (Entry) victims.get(i);
+            Map segment = segmentFor(entry.id);
+            synchronized (segment) {
+                if (segment.get(entry.id) != entry) {
+                    // removed or replaced meanwhile
+                    continue;
+                }
+                if (!entry.isExpired(System.currentTimeMillis())) {
+                    // used meanwhile
+                    schedule(entry);
+                    continue;
+                }
+                segment.remove(entry.id);
+            }
+            ended(entry, true);
+        }
+    }
+
+    /**
+     * Count a session that timed out or was evicted, and destroy the
+     * service objects in it.
+     */
+    private void ended(Entry entry, boolean timedOut) {
+        synchronized (statsLock) {
+            if (timedOut) {
+                expired++;
+            } else {
+                evicted++;
+            }
+        }
+        if (timedOut && log.isDebugEnabled()) {
+            log.debug(Messages.getMessage("timeout00", entry.id.toString()));
+        }
+
+        Enumeration keys = entry.session.getKeys();
+        while (keys != null && keys.hasMoreElements()) {
+            String keystr = (String) keys.nextElement();
+            Object obj = entry.session.get(keystr);
+            if (obj != null && obj instanceof ServiceLifecycle) {
+                try {
+                    ((ServiceLifecycle) obj).destroy();
+                } catch (RuntimeException e) {
+                    log.error(Messages.getMessage("exception00"), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reaps a store until the store is no longer used.
+     */
+    private static class Reaper extends TimerTask {
+        private final WeakReference store;
+
+        Reaper(SimpleSessionStore store) {
+            this.store = new WeakReference(store);
+        }
+
+        public void run() {
+            SimpleSessionStore s = (SimpleSessionStore) store.get();
+            if (s == null) {
+                cancel();
+                return;
+            }
+            try {
+                s.reap();
+            } catch (RuntimeException e) {
+                // keep the shared timer thread alive
+                log.error(Messages.getMessage("exception00"), e);
+            }
+        }
+    }
+}
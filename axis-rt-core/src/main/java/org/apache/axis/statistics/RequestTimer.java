@@ -0,0 +1,228 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.statistics;
+
+import org.apache.axis.AxisEngine;
+import org.apache.axis.MessageContext;
+import org.apache.axis.server.AxisServer;
+
+/**
+ * Measures where the time of one request goes.  The time is split into
+ * phases; phases may be nested, and the time is always given to the
+ * innermost phase, so that the phase times never overlap.  For instance
+ * the time spent serializing a response while it is written to the
+ * client counts as {@link #SERIALIZATION}, and not as
+ * {@link #TRANSPORT_WRITE}.  The request body is read as it is parsed, so
+ * waiting for a slow client counts as {@link #PARSE}.
+ * <p>
+ * A timer is only made if a {@link StatisticsCollector} is installed on
+ * the {@link AxisServer}; otherwise every call in this class comes down
+ * to a null check on the {@link MessageContext}.  The timer of a request
+ * is owned by whoever {@link #start started} it, normally the transport,
+ * and is given to the collector when the owner
+ * {@link #finish finishes} it.
+ * <p>
+ * A timer is used by the thread processing the request, and is not
+ * thread safe.
+ */
+public final class RequestTimer {
+
+    /** Reading the request, before it is parsed */
+    public static final int TRANSPORT_READ  = 0;
+    /** Parsing the request and deserializing the arguments */
+    public static final int PARSE           = 1;
+    /** The handler chains */
+    public static final int HANDLERS        = 2;
+    /** The provider, including the service method */
+    public static final int PROVIDER        = 3;
+    /** Serializing the response */
+    public static final int SERIALIZATION   = 4;
+    /** Writing the response */
+    public static final int TRANSPORT_WRITE = 5;
+
+    /** The number of phases */
+    public static final int PHASES = 6;
+
+    public static final String[] PHASE_NAMES = {
+        "transportRead", "parse", "handlers", "provider",
+        "serialization", "transportWrite"
+    };
+
+    /**
+     * A clock giving the time in nanoseconds, from the milliseconds.
+     */
+    static class Clock {
+        long now() {
+            return System.currentTimeMillis() * 1000000L;
+        }
+    }
+
+    /**
+     * A clock using System.nanoTime, which only loads on a 1.5 or later VM.
+     */
+    static class NanoClock extends Clock {
+        long now() {
+            return System.nanoTime();
+        }
+    }
+
+    /** The clock of all the timers, loaded once */
+    private static final Clock clock;
+
+    static {
+        Clock nanoClock;
+        try {
+            nanoClock = (Clock) Class.forName(
+                    RequestTimer.class.getName() + "$NanoClock").newInstance();
+            nanoClock.now();
+        } catch (Throwable t) {
+            // Use the milliseconds
+            nanoClock = new Clock();
+        }
+        clock = nanoClock;
+    }
+
+    private final long start;
+    private long stop = -1;
+
+    /** The time of the last phase change */
+    private long mark;
+
+    private final long[] phaseTimes = new long[PHASES];
+
+    /** The phases entered and not yet exited, the innermost last */
+    private int[] stack = new int[8];
+    private int depth = 0;
+
+    private RequestTimer() {
+        start = now();
+        mark = start;
+    }
+
+    /**
+     * Returns a time in nanoseconds, which is only good for measuring
+     * intervals.
+     */
+    public static long now() {
+        return clock.now();
+    }
+
+    /**
+     * Start timing a request, if statistics are collected for its
+     * engine and no one else has started timing it yet.
+     *
+     * @return the new timer, which the caller has to
+     *         {@link #finish finish}; or null
+     */
+    public static RequestTimer start(MessageContext msgContext) {
+        if (msgContext == null || msgContext.getRequestTimer() != null) {
+            return null;
+        }
+        AxisEngine engine = msgContext.getAxisEngine();
+        if (!(engine instanceof AxisServer)
+                || ((AxisServer) engine).getStatisticsCollector() == null) {
+            return null;
+        }
+        RequestTimer timer = new RequestTimer();
+        msgContext.setRequestTimer(timer);
+        return timer;
+    }
+
+    /**
+     * Enter a phase of the request, if it is being timed.  Every call
+     * must be matched by a call to {@link #exit(MessageContext)}.
+     */
+    public static void enter(MessageContext msgContext, int phase) {
+        RequestTimer timer;
+        if (msgContext != null
+                && (timer = msgContext.getRequestTimer()) != null) {
+            timer.enter(phase);
+        }
+    }
+
+    /**
+     * Leave the phase entered last.
+     */
+    public static void exit(MessageContext msgContext) {
+        RequestTimer timer;
+        if (msgContext != null
+                && (timer = msgContext.getRequestTimer()) != null) {
+            timer.exit();
+        }
+    }
+
+    public void enter(int phase) {
+        long now = now();
+        if (depth > 0) {
+            phaseTimes[stack[depth - 1]] += now - mark;
+        }
+        if (depth == stack.length) {
+            int[] newStack = new int[depth * 2];
+            System.arraycopy(stack, 0, newStack, 0, depth);
+            stack = newStack;
+        }
+        stack[depth++] = phase;
+        mark = now;
+    }
+
+    public void exit() {
+        if (depth == 0) {
+            return;
+        }
+        long now = now();
+        phaseTimes[stack[--depth]] += now - mark;
+        mark = now;
+    }
+
+    /**
+     * Stop the timer and give it to the collector of the engine.  Phases
+     * which were not exited, e.g. because of an exception, end here.
+     *
+     * @param fault true if the request failed
+     */
+    public void finish(MessageContext msgContext, boolean fault) {
+        while (depth > 0) {
+            exit();
+        }
+        stop = now();
+        msgContext.setRequestTimer(null);
+
+        AxisEngine engine = msgContext.getAxisEngine();
+        if (engine instanceof AxisServer) {
+            StatisticsCollector collector =
+                    ((AxisServer) engine).getStatisticsCollector();
+            if (collector != null) {
+                collector.requestCompleted(msgContext, this, fault);
+            }
+        }
+    }
+
+    /**
+     * Returns the time from the start of the request to the time it was
+     * finished, or to now if it is still running, in nanoseconds.
+     */
+    public long getElapsedTime() {
+        return (stop == -1 ? now() : stop) - start;
+    }
+
+    /**
+     * Returns the time spent in a phase so far, in nanoseconds.
+     */
+    public long getPhaseTime(int phase) {
+        return phaseTimes[phase];
+    }
+}
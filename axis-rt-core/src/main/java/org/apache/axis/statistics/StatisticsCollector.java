@@ -0,0 +1,42 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.statistics;
+
+import org.apache.axis.MessageContext;
+
+/**
+ * Receives the timing of each request processed by an
+ * {@link org.apache.axis.server.AxisServer}.  A collector is installed
+ * with <code>AxisServer.setStatisticsCollector</code>.
+ * <p>
+ * The collector is called by the thread that processed the request, on
+ * every request, so it has to be thread safe and quick.
+ */
+public interface StatisticsCollector {
+
+    /**
+     * Record a request.  The service and the operation of the request can
+     * be found in the message context, if they were found at all.
+     *
+     * @param msgContext the message context of the request
+     * @param timer the finished timer of the request
+     * @param fault true if the request failed
+     */
+    public void requestCompleted(MessageContext msgContext,
+                                 RequestTimer timer,
+                                 boolean fault);
+}
@@ -18,6 +18,7 @@ package org.apache.axis.transport.http;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.lang.reflect.Method;
 import java.lang.reflect.InvocationTargetException;
@@ -49,6 +50,7 @@ import org.apache.axis.description.OperationDesc;
 import org.apache.axis.description.ServiceDesc;
 import org.apache.axis.handlers.soap.SOAPService;
 import org.apache.axis.security.servlet.ServletSecurityProvider;
+import org.apache.axis.statistics.RequestTimer;
 import org.apache.axis.utils.JavaUtils;
 import org.apache.axis.utils.Messages;
 import org.apache.axis.utils.XMLUtils;
@@ -100,6 +102,37 @@ public class AxisServlet extends AxisServletBase {
     public static final String INIT_PROPERTY_SERVICES_PATH =
             "axis.servicesPath";
 
+    /**
+     * Service option (or global configuration parameter) which, if true,
+     * has responses gzipped for clients which accept it.
+     */
+    public static final String OPTION_GZIP_RESPONSE = "gzipResponse";
+
+    /**
+     * Service option (or global configuration parameter) giving the size
+     * in bytes above which responses are gzipped.
+     */
+    public static final String OPTION_GZIP_THRESHOLD = "gzipThreshold";
+
+    public static final int DEFAULT_GZIP_THRESHOLD = 8 * 1024;
+
+    /**
+     * Service option (or global configuration parameter) which, if true,
+     * has requests sent with the gzip or deflate Content-Encoding inflated;
+     * they are rejected otherwise.  Only the service named by the request
+     * path is looked at, the others being found once the request is read.
+     */
+    public static final String OPTION_INFLATE_REQUEST = "inflateRequest";
+
+    /**
+     * Service option (or global configuration parameter) giving the most
+     * bytes a compressed request may inflate to.
+     */
+    public static final String OPTION_MAX_INFLATED_LENGTH =
+            "maxInflatedLength";
+
+    public static final long DEFAULT_MAX_INFLATED_LENGTH = 10 * 1024 * 1024;
+
     // These have default values.
     private String transportName;
 
@@ -571,6 +604,9 @@ public class AxisServlet extends AxisServletBase {
         long t0 = 0, t1 = 0, t2 = 0, t3 = 0, t4 = 0;
         String soapAction = null;
         MessageContext msgContext = null;
+        RequestTimer timer = null;
+        boolean failed = false;
+        boolean done = false;
         if (isDebug) {
             log.debug("Enter: doPost()");
         }
@@ -582,121 +618,177 @@ public class AxisServlet extends AxisServletBase {
         String contentType = null;
 
         try {
-            AxisEngine engine = getEngine();
-
-            if (engine == null) {
-                // !!! should return a SOAP fault...
-                ServletException se =
-                        new ServletException(Messages.getMessage("noEngine00"));
-                log.debug("No Engine!", se);
-                throw se;
-            }
-
-            res.setBufferSize(1024 * 8); // provide performance boost.
-
-            /** get message context w/ various properties set
-             */
-            msgContext = createMessageContext(engine, req, res);
-
-            // ? OK to move this to 'getMessageContext',
-            // ? where it would also be picked up for 'doGet()' ?
-            if (securityProvider != null) {
-                if (isDebug) {
-                    log.debug("securityProvider:" + securityProvider);
-                }
-                msgContext.setProperty(MessageContext.SECURITY_PROVIDER,
-                                       securityProvider);
-            }
-
-            /* Get request message
-             */
-            Message requestMsg =
-                    new Message(req.getInputStream(),
-                                false,
-                                req.getHeader(HTTPConstants.HEADER_CONTENT_TYPE),
-                                req.getHeader(HTTPConstants.
-                                              HEADER_CONTENT_LOCATION));
-            // Transfer HTTP headers to MIME headers for request message.
-            MimeHeaders requestMimeHeaders = requestMsg.getMimeHeaders();
-            for (Enumeration e = req.getHeaderNames(); e.hasMoreElements(); ) {
-                String headerName = (String) e.nextElement();
-                for (Enumeration f = req.getHeaders(headerName);
-                                     f.hasMoreElements(); ) {
-                    String headerValue = (String) f.nextElement();
-                    requestMimeHeaders.addHeader(headerName, headerValue);
+            try {
+                AxisEngine engine = getEngine();
+
+                if (engine == null) {
+                    // !!! should return a SOAP fault...
+                    ServletException se =
+                            new ServletException(Messages.getMessage("noEngine00"));
+                    log.debug("No Engine!", se);
+                    throw se;
                 }
-            }
-
-            if (isDebug) {
-                log.debug("Request Message:" + requestMsg);
 
-                /* Set the request(incoming) message field in the context */
-                /**********************************************************/
-            }
-            msgContext.setRequestMessage(requestMsg);
-            String url = HttpUtils.getRequestURL(req).toString();
-            msgContext.setProperty(MessageContext.TRANS_URL, url);
-            // put character encoding of request to message context
-            // in order to reuse it during the whole process.
-            String requestEncoding;
-            try {
-                requestEncoding = (String) requestMsg.getProperty(SOAPMessage.
-                        CHARACTER_SET_ENCODING);
-                if (requestEncoding != null) {
-                    msgContext.setProperty(SOAPMessage.CHARACTER_SET_ENCODING,
-                                           requestEncoding);
+                res.setBufferSize(1024 * 8); // provide performance boost.
+
+                String contentEncoding =
+                        req.getHeader(HTTPConstants.HEADER_CONTENT_ENCODING);
+                long maxInflatedLength = -1;
+                if (HTTPCompression.isCompressed(contentEncoding)) {
+                    maxInflatedLength = getMaxInflatedLength(engine, req);
+                    if (maxInflatedLength < 0 ||
+                            !HTTPCompression.isSupported(contentEncoding)) {
+                        String message = Messages.getMessage(
+                                "unsupportedContentEncoding00", contentEncoding);
+                        log.info(message);
+                        res.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+                                      message);
+                        return;
+                    }
                 }
-            } catch (SOAPException e1) {
-            }
 
-            try {
-                /**
-                 * Save the SOAPAction header in the MessageContext bag.
-                 * This will be used to tell the Axis Engine which service
-                 * is being invoked.  This will save us the trouble of
-                 * having to parse the Request message - although we will
-                 * need to double-check later on that the SOAPAction header
-                 * does in fact match the URI in the body.
+                /** get message context w/ various properties set
                  */
-                // (is this last stmt true??? (I don't think so - Glen))
-                /********************************************************/
-                soapAction = getSoapAction(req);
-
-                if (soapAction != null) {
-                    msgContext.setUseSOAPAction(true);
-                    msgContext.setSOAPActionURI(soapAction);
+                msgContext = createMessageContext(engine, req, res);
+                timer = RequestTimer.start(msgContext);
+                RequestTimer.enter(msgContext, RequestTimer.TRANSPORT_READ);
+
+                // ? OK to move this to 'getMessageContext',
+                // ? where it would also be picked up for 'doGet()' ?
+                if (securityProvider != null) {
+                    if (isDebug) {
+                        log.debug("securityProvider:" + securityProvider);
+                    }
+                    msgContext.setProperty(MessageContext.SECURITY_PROVIDER,
+                                           securityProvider);
                 }
 
-                // Create a Session wrapper for the HTTP session.
-                // These can/should be pooled at some point.
-                // (Sam is Watching! :-)
-                msgContext.setSession(new AxisHttpSession(req));
-
-                if (tlog.isDebugEnabled()) {
-                    t1 = System.currentTimeMillis();
+                /* Get request message, inflating it if it was compressed
+                 */
+                InputStream requestBody;
+                try {
+                    requestBody = HTTPCompression.decode(req.getInputStream(),
+                            contentEncoding, maxInflatedLength);
+                } catch (IOException e) {
+                    throw AxisFault.makeFault(e);
                 }
-                /* Invoke the Axis engine... */
-                /*****************************/
-                if (isDebug) {
-                    log.debug("Invoking Axis Engine.");
-                    //here we run the message by the engine
+                Message requestMsg =
+                        new Message(requestBody,
+                                    false,
+                                    req.getHeader(HTTPConstants.HEADER_CONTENT_TYPE),
+                                    req.getHeader(HTTPConstants.
+                                                  HEADER_CONTENT_LOCATION));
+                // Transfer HTTP headers to MIME headers for request message.
+                MimeHeaders requestMimeHeaders = requestMsg.getMimeHeaders();
+                for (Enumeration e = req.getHeaderNames(); e.hasMoreElements(); ) {
+                    String headerName = (String) e.nextElement();
+                    for (Enumeration f = req.getHeaders(headerName);
+                                         f.hasMoreElements(); ) {
+                        String headerValue = (String) f.nextElement();
+                        requestMimeHeaders.addHeader(headerName, headerValue);
+                    }
                 }
-                engine.invoke(msgContext);
+
                 if (isDebug) {
-                    log.debug("Return from Axis Engine.");
+                    log.debug("Request Message:" + requestMsg);
+
+                    /* Set the request(incoming) message field in the context */
+                    /**********************************************************/
                 }
-                if (tlog.isDebugEnabled()) {
-                    t2 = System.currentTimeMillis();
+                msgContext.setRequestMessage(requestMsg);
+                String url = HttpUtils.getRequestURL(req).toString();
+                msgContext.setProperty(MessageContext.TRANS_URL, url);
+                // put character encoding of request to message context
+                // in order to reuse it during the whole process.
+                String requestEncoding;
+                try {
+                    requestEncoding = (String) requestMsg.getProperty(SOAPMessage.
+                            CHARACTER_SET_ENCODING);
+                    if (requestEncoding != null) {
+                        msgContext.setProperty(SOAPMessage.CHARACTER_SET_ENCODING,
+                                               requestEncoding);
+                    }
+                } catch (SOAPException e1) {
                 }
-                responseMsg = msgContext.getResponseMessage();
+                RequestTimer.exit(msgContext);
+
+                try {
+                    /**
+                     * Save the SOAPAction header in the MessageContext bag.
+                     * This will be used to tell the Axis Engine which service
+                     * is being invoked.  This will save us the trouble of
+                     * having to parse the Request message - although we will
+                     * need to double-check later on that the SOAPAction header
+                     * does in fact match the URI in the body.
+                     */
+                    // (is this last stmt true??? (I don't think so - Glen))
+                    /********************************************************/
+                    soapAction = getSoapAction(req);
+
+                    if (soapAction != null) {
+                        msgContext.setUseSOAPAction(true);
+                        msgContext.setSOAPActionURI(soapAction);
+                    }
+
+                    // Create a Session wrapper for the HTTP session.
+                    // These can/should be pooled at some point.
+                    // (Sam is Watching! :-)
+                    msgContext.setSession(new AxisHttpSession(req));
 
-                // We used to throw exceptions on null response messages.
-                // They are actually OK in certain situations (asynchronous
-                // services), so fall through here and return an ACCEPTED
-                // status code below.  Might want to install a configurable
-                // error check for this later.
+                    if (tlog.isDebugEnabled()) {
+                        t1 = System.currentTimeMillis();
+                    }
+                    /* Invoke the Axis engine... */
+                    /*****************************/
+                    if (isDebug) {
+                        log.debug("Invoking Axis Engine.");
+                        //here we run the message by the engine
+                    }
+                    engine.invoke(msgContext);
+                    if (isDebug) {
+                        log.debug("Return from Axis Engine.");
+                    }
+                    if (tlog.isDebugEnabled()) {
+                        t2 = System.currentTimeMillis();
+                    }
+                    responseMsg = msgContext.getResponseMessage();
+
+                    // We used to throw exceptions on null response messages.
+                    // They are actually OK in certain situations (asynchronous
+                    // services), so fall through here and return an ACCEPTED
+                    // status code below.  Might want to install a configurable
+                    // error check for this later.
+                } catch (AxisFault fault) {
+                    failed = true;
+                    //log and sanitize
+                    processAxisFault(fault);
+                    configureResponseFromAxisFault(res, fault);
+                    responseMsg = msgContext.getResponseMessage();
+                    if (responseMsg == null) {
+                        responseMsg = new Message(fault);
+                        ((org.apache.axis.SOAPPart) responseMsg.getSOAPPart()).
+                                getMessage().setMessageContext(msgContext);
+                    }
+                } catch (Exception e) {
+                    failed = true;
+                    //other exceptions are internal trouble
+                    responseMsg = msgContext.getResponseMessage();
+                    res.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    responseMsg = convertExceptionToAxisFault(e, responseMsg);
+                    ((org.apache.axis.SOAPPart) responseMsg.getSOAPPart()).
+                            getMessage().setMessageContext(msgContext);
+                } catch (Throwable t) {
+                    failed = true;
+                    logException(t);
+                    //other exceptions are internal trouble
+                    responseMsg = msgContext.getResponseMessage();
+                    res.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    responseMsg = new Message(new AxisFault(t.toString(),t));
+                    ((org.apache.axis.SOAPPart) responseMsg.getSOAPPart()).
+                            getMessage().setMessageContext(msgContext);
+                }
             } catch (AxisFault fault) {
-                //log and sanitize
+                failed = true;
                 processAxisFault(fault);
                 configureResponseFromAxisFault(res, fault);
                 responseMsg = msgContext.getResponseMessage();
@@ -705,64 +797,48 @@ public class AxisServlet extends AxisServletBase {
                     ((org.apache.axis.SOAPPart) responseMsg.getSOAPPart()).
                             getMessage().setMessageContext(msgContext);
                 }
-            } catch (Exception e) {
-                //other exceptions are internal trouble
-                responseMsg = msgContext.getResponseMessage();
-                res.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-                responseMsg = convertExceptionToAxisFault(e, responseMsg);
-                ((org.apache.axis.SOAPPart) responseMsg.getSOAPPart()).
-                        getMessage().setMessageContext(msgContext);
-            } catch (Throwable t) {
-                logException(t);
-                //other exceptions are internal trouble
-                responseMsg = msgContext.getResponseMessage();
-                res.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-                responseMsg = new Message(new AxisFault(t.toString(),t));
-                ((org.apache.axis.SOAPPart) responseMsg.getSOAPPart()).
-                        getMessage().setMessageContext(msgContext);
-            }
-        } catch (AxisFault fault) {
-            processAxisFault(fault);
-            configureResponseFromAxisFault(res, fault);
-            responseMsg = msgContext.getResponseMessage();
-            if (responseMsg == null) {
-                responseMsg = new Message(fault);
-                ((org.apache.axis.SOAPPart) responseMsg.getSOAPPart()).
-                        getMessage().setMessageContext(msgContext);
             }
-        }
 
-        if (tlog.isDebugEnabled()) {
-            t3 = System.currentTimeMillis();
-        }
-
-        /* Send response back along the wire...  */
-        /***********************************/
-        if (responseMsg != null) {
-            // Transfer MIME headers to HTTP headers for response message.
-            MimeHeaders responseMimeHeaders = responseMsg.getMimeHeaders();
-            for (Iterator i = responseMimeHeaders.getAllHeaders(); i.hasNext(); ) {
-                MimeHeader responseMimeHeader = (MimeHeader) i.next();
-                res.addHeader(responseMimeHeader.getName(),
-                              responseMimeHeader.getValue());
+            if (tlog.isDebugEnabled()) {
+                t3 = System.currentTimeMillis();
             }
-            // synchronize the character encoding of request and response
-            String responseEncoding = (String) msgContext.getProperty(
-                    SOAPMessage.CHARACTER_SET_ENCODING);
-            if (responseEncoding != null) {
-                try {
-                    responseMsg.setProperty(SOAPMessage.CHARACTER_SET_ENCODING,
-                                            responseEncoding);
-                } catch (SOAPException e) {
+
+            /* Send response back along the wire...  */
+            /***********************************/
+            if (responseMsg != null) {
+                // Transfer MIME headers to HTTP headers for response message.
+                MimeHeaders responseMimeHeaders = responseMsg.getMimeHeaders();
+                for (Iterator i = responseMimeHeaders.getAllHeaders(); i.hasNext(); ) {
+                    MimeHeader responseMimeHeader = (MimeHeader) i.next();
+                    res.addHeader(responseMimeHeader.getName(),
+                                  responseMimeHeader.getValue());
+                }
+                // synchronize the character encoding of request and response
+                String responseEncoding = (String) msgContext.getProperty(
+                        SOAPMessage.CHARACTER_SET_ENCODING);
+                if (responseEncoding != null) {
+                    try {
+                        responseMsg.setProperty(SOAPMessage.CHARACTER_SET_ENCODING,
+                                                responseEncoding);
+                    } catch (SOAPException e) {
+                    }
                 }
+                //determine content type from message response
+                contentType = responseMsg.getContentType(msgContext.
+                        getSOAPConstants());
+                int gzipThreshold = getGzipThreshold(req, res, msgContext);
+                RequestTimer.enter(msgContext, RequestTimer.TRANSPORT_WRITE);
+                sendResponse(contentType, res, responseMsg, gzipThreshold);
+            } else {
+                // No content, so just indicate accepted
+                res.setStatus(HttpServletResponse.SC_ACCEPTED);
+            }
+            done = true;
+        } finally {
+            // a request which didn't make it to the end failed
+            if (timer != null) {
+                timer.finish(msgContext, failed || !done);
             }
-            //determine content type from message response
-            contentType = responseMsg.getContentType(msgContext.
-                    getSOAPConstants());
-            sendResponse(contentType, res, responseMsg);
-        } else {
-            // No content, so just indicate accepted
-            res.setStatus(HttpServletResponse.SC_ACCEPTED);
         }
         
         if (isDebug) {
@@ -781,6 +857,10 @@ public class AxisServlet extends AxisServletBase {
                         "" : msgContext.getOperation().getName()));
         }
 
+        // nothing of the request is used after this point
+        if (msgContext != null) {
+            msgContext.release();
+        }
     }
 
     /**
@@ -840,17 +920,129 @@ public class AxisServlet extends AxisServletBase {
         // "Unauthenticated" & "Unauthorized"...
     }
 
+    /**
+     * Decide whether to gzip the response, if the service asks for it and
+     * the client accepts it.  Services which ask for it also tell clients
+     * whether they accept compressed requests.
+     *
+     * @return the size above which to gzip the response, or -1 not to
+     */
+    private int getGzipThreshold(HttpServletRequest req,
+                                 HttpServletResponse res,
+                                 MessageContext msgContext) {
+        if (!JavaUtils.isTrue(getServiceOption(msgContext,
+                                               OPTION_GZIP_RESPONSE))) {
+            return -1;
+        }
+        res.addHeader(HTTPConstants.HEADER_VARY,
+                      HTTPConstants.HEADER_ACCEPT_ENCODING);
+        if (JavaUtils.isTrue(getServiceOption(msgContext,
+                                              OPTION_INFLATE_REQUEST))) {
+            res.addHeader(HTTPConstants.HEADER_ACCEPT_ENCODING,
+                          HTTPCompression.ACCEPTED_ENCODINGS);
+        }
+
+        boolean accepted = false;
+        for (Enumeration e = req.getHeaders(HTTPConstants.HEADER_ACCEPT_ENCODING);
+             e != null && e.hasMoreElements() && !accepted; ) {
+            accepted = HTTPCompression.acceptsGzip((String) e.nextElement());
+        }
+        if (!accepted) {
+            return -1;
+        }
+
+        Object threshold = getServiceOption(msgContext, OPTION_GZIP_THRESHOLD);
+        if (threshold != null) {
+            try {
+                return Integer.parseInt(threshold.toString().trim());
+            } catch (NumberFormatException e) {
+                log.warn(Messages.getMessage("badIntProperty00",
+                                             OPTION_GZIP_THRESHOLD,
+                                             threshold.toString()));
+            }
+        }
+        return DEFAULT_GZIP_THRESHOLD;
+    }
+
+    /**
+     * Decide whether to inflate a compressed request, if the service named
+     * by its path, or failing that the engine, asks for it.
+     *
+     * @return the most bytes the request may inflate to, or -1 not to
+     *         inflate it
+     */
+    private long getMaxInflatedLength(AxisEngine engine,
+                                      HttpServletRequest req) {
+        SOAPService service = null;
+        String path = req.getPathInfo();
+        if (path != null && path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        if (path != null && path.length() > 0) {
+            try {
+                service = engine.getService(path);
+            } catch (AxisFault e) {
+                // Not a service name; only the engine decides then
+            }
+        }
+        if (!JavaUtils.isTrue(getServiceOption(engine, service,
+                                               OPTION_INFLATE_REQUEST))) {
+            return -1;
+        }
+
+        Object maxLength = getServiceOption(engine, service,
+                                            OPTION_MAX_INFLATED_LENGTH);
+        if (maxLength != null) {
+            try {
+                return Long.parseLong(maxLength.toString().trim());
+            } catch (NumberFormatException e) {
+                log.warn(Messages.getMessage("badIntProperty00",
+                                             OPTION_MAX_INFLATED_LENGTH,
+                                             maxLength.toString()));
+            }
+        }
+        return DEFAULT_MAX_INFLATED_LENGTH;
+    }
+
+    /**
+     * Get an option of the target service, or failing that, of the engine.
+     */
+    private static Object getServiceOption(MessageContext msgContext,
+                                           String name) {
+        return getServiceOption(msgContext.getAxisEngine(),
+                                msgContext.getService(), name);
+    }
+
+    /**
+     * Get an option of a service, or failing that, of the engine.
+     */
+    private static Object getServiceOption(AxisEngine engine,
+                                           SOAPService service,
+                                           String name) {
+        Object value = null;
+        if (service != null) {
+            value = service.getOption(name);
+        }
+        if (value == null && engine != null) {
+            value = engine.getOption(name);
+        }
+        return value;
+    }
+
     /**
      * write a message to the response, set appropriate headers for content
      * type..etc.
      * @param res   response
      * @param responseMsg message to write
+     * @param gzipThreshold the size above which to gzip the message, or -1
+     *        to send it as it is
      * @throws AxisFault
      * @throws IOException if the response stream can not be written to
      */
     private void sendResponse(String contentType,
                               HttpServletResponse res,
-                              Message responseMsg) throws AxisFault,
+                              Message responseMsg,
+                              int gzipThreshold) throws AxisFault,
             IOException {
         if (responseMsg == null) {
             res.setStatus(HttpServletResponse.SC_NO_CONTENT);
@@ -884,7 +1076,14 @@ public class AxisServlet extends AxisServletBase {
                 //if(clientVersion == HTTPConstants.HEADER_PROTOCOL_V10) //do chunking if necessary.
                 //     res.setContentLength(responseMsg.getContentLength());
 
-                responseMsg.writeTo(res.getOutputStream());
+                if (gzipThreshold >= 0) {
+                    GzipThresholdOutputStream out =
+                            new GzipThresholdOutputStream(res, gzipThreshold);
+                    responseMsg.writeTo(out);
+                    out.finish();
+                } else {
+                    responseMsg.writeTo(res.getOutputStream());
+                }
             } catch (SOAPException e) {
                 logException(e);
             }
@@ -906,7 +1105,7 @@ public class AxisServlet extends AxisServletBase {
     private MessageContext createMessageContext(AxisEngine engine,
                                                 HttpServletRequest req,
                                                 HttpServletResponse res) {
-        MessageContext msgContext = new MessageContext(engine);
+        MessageContext msgContext = MessageContext.obtain(engine);
 
         String requestPath = getRequestPath(req);
 
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.transport.http;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * Limits reading to the Content-Length of an HTTP entity, so that the
+ * end of the body can be detected on a persistent connection.  Closing
+ * the stream does not close the underlying connection.
+ */
+public class ContentLengthInputStream extends java.io.FilterInputStream {
+
+    protected long remaining;
+
+    public ContentLengthInputStream(InputStream is, long contentLength) {
+        super(is);
+        this.remaining = contentLength;
+    }
+
+    public int read() throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int rc = in.read();
+        if (rc == -1) {
+            throw new IOException("HTTP stream closed before Content-Length was reached.");
+        }
+        remaining--;
+        return rc;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int rc = in.read(b, off, (int) Math.min(len, remaining));
+        if (rc == -1) {
+            throw new IOException("HTTP stream closed before Content-Length was reached.");
+        }
+        remaining -= rc;
+        return rc;
+    }
+
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(Math.min(n, remaining));
+        remaining -= skipped;
+        return skipped;
+    }
+
+    public int available() throws IOException {
+        return (int) Math.min(in.available(), remaining);
+    }
+
+    public boolean markSupported() {
+        return false;
+    }
+
+    public void close() throws IOException {
+        // the connection belongs to the caller
+    }
+}
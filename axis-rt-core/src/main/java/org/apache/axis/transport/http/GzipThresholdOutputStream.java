@@ -0,0 +1,130 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.transport.http;
+
+import org.apache.axis.utils.Messages;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Writes the body of a servlet response gzip compressed, if it turns out
+ * to be large enough to be worth it.
+ * <p>
+ * The first <code>threshold</code> bytes are held back.  If the body ends
+ * before there are more, it is sent as it is, with a Content-Length.
+ * Otherwise the Content-Encoding header is set, and the body is compressed
+ * as it is written, so that only a small part of it is ever in memory.
+ * {@link #finish} must be called when the whole body has been written.
+ */
+public class GzipThresholdOutputStream extends OutputStream {
+
+    private static final int GZIP_BUFFER_SIZE = 8 * 1024;
+
+    private final HttpServletResponse response;
+
+    /** The bytes held back; null once compression has started */
+    private byte[] buffer;
+    private int count = 0;
+
+    /** The compressing stream, once compression has started */
+    private GZIPOutputStream out = null;
+
+    private boolean finished = false;
+
+    /**
+     * @param response the response to write the body of
+     * @param threshold the size above which the body is compressed
+     */
+    public GzipThresholdOutputStream(HttpServletResponse response,
+                                     int threshold) {
+        this.response = response;
+        this.buffer = new byte[Math.max(threshold, 0)];
+    }
+
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            throw new IOException(Messages.getMessage("gzipFinished00"));
+        }
+        if (out == null) {
+            if (count + len <= buffer.length) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+                return;
+            }
+            startCompressing();
+        }
+        out.write(b, off, len);
+    }
+
+    /**
+     * Flushes the compressed data written so far.  Until the threshold has
+     * been passed, nothing is sent.
+     */
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Tells whether the body is being compressed.
+     */
+    public boolean isCompressing() {
+        return out != null;
+    }
+
+    /**
+     * Send whatever is held back, and finish the compressed data if the
+     * body is being compressed.  The response stream is left open.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (out != null) {
+            out.finish();
+            out.flush();
+        } else {
+            response.setContentLength(count);
+            OutputStream raw = response.getOutputStream();
+            raw.write(buffer, 0, count);
+            raw.flush();
+        }
+        buffer = null;
+    }
+
+    public void close() throws IOException {
+        finish();
+    }
+
+    private void startCompressing() throws IOException {
+        response.setHeader(HTTPConstants.HEADER_CONTENT_ENCODING,
+                           HTTPConstants.COMPRESSION_GZIP);
+        out = new GZIPOutputStream(response.getOutputStream(),
+                                   GZIP_BUFFER_SIZE);
+        out.write(buffer, 0, count);
+        buffer = null;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.transport.http;
+
+import org.apache.axis.utils.Messages;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.StringTokenizer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Helpers for the gzip and deflate content codings of HTTP message bodies.
+ */
+public final class HTTPCompression {
+
+    /** The codings we can decode, as sent in an Accept-Encoding header */
+    public static final String ACCEPTED_ENCODINGS =
+            HTTPConstants.COMPRESSION_GZIP + ", " +
+            HTTPConstants.COMPRESSION_DEFLATE;
+
+    private HTTPCompression() {
+    }
+
+    /**
+     * Tells whether a content coding is one we can decode, or no coding
+     * at all.
+     *
+     * @param contentEncoding the value of a Content-Encoding header, or null
+     */
+    public static boolean isSupported(String contentEncoding) {
+        return contentEncoding == null
+                || isIdentity(contentEncoding)
+                || isGzip(contentEncoding)
+                || isDeflate(contentEncoding);
+    }
+
+    /**
+     * Tells whether a content coding is an actual compression.
+     *
+     * @param contentEncoding the value of a Content-Encoding header, or null
+     */
+    public static boolean isCompressed(String contentEncoding) {
+        return contentEncoding != null && !isIdentity(contentEncoding);
+    }
+
+    /**
+     * Decode a message body as it is read.
+     *
+     * @param in the body, as sent
+     * @param contentEncoding the value of its Content-Encoding header, or
+     *        null
+     * @return the decoded body; <code>in</code> itself if it is not encoded
+     * @throws IOException if the coding is not one we know, or the gzip
+     *         header of the body cannot be read
+     */
+    public static InputStream decode(InputStream in, String contentEncoding)
+            throws IOException {
+        return decode(in, contentEncoding, -1);
+    }
+
+    /**
+     * Decode a message body as it is read, failing once more than a given
+     * number of bytes have been decoded, so that a small body cannot
+     * inflate into one too large to handle.
+     *
+     * @param in the body, as sent
+     * @param contentEncoding the value of its Content-Encoding header, or
+     *        null
+     * @param maxLength the most bytes to decode, or -1 for no limit
+     * @return the decoded body; <code>in</code> itself if it is not encoded
+     * @throws IOException if the coding is not one we know, or the gzip
+     *         header of the body cannot be read
+     */
+    public static InputStream decode(InputStream in, String contentEncoding,
+                                     long maxLength) throws IOException {
+        InputStream decoded;
+        if (!isCompressed(contentEncoding)) {
+            return in;
+        } else if (isGzip(contentEncoding)) {
+            decoded = new GZIPInputStream(in);
+        } else if (isDeflate(contentEncoding)) {
+            decoded = new InflaterInputStream(in);
+        } else {
+            throw new IOException(Messages.getMessage(
+                    "unsupportedContentEncoding00", contentEncoding));
+        }
+        return maxLength < 0 ? decoded
+                : new LimitedInputStream(decoded, maxLength);
+    }
+
+    /**
+     * Tells whether an Accept-Encoding header admits gzip, either by name
+     * or through "*", with a non-zero quality.
+     *
+     * @param acceptEncoding the value of the header, or null
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcard = false;
+        StringTokenizer codings = new StringTokenizer(acceptEncoding, ",");
+        while (codings.hasMoreTokens()) {
+            String coding = codings.nextToken().trim();
+            boolean accepted = true;
+            int semicolon = coding.indexOf(';');
+            if (semicolon != -1) {
+                accepted = !isZeroQuality(coding.substring(semicolon + 1));
+                coding = coding.substring(0, semicolon).trim();
+            }
+            if (isGzip(coding)) {
+                // an explicit entry overrides the wildcard
+                return accepted;
+            }
+            if ("*".equals(coding)) {
+                wildcard = accepted;
+            }
+        }
+        return wildcard;
+    }
+
+    private static boolean isZeroQuality(String parameters) {
+        StringTokenizer tokens = new StringTokenizer(parameters, ";");
+        while (tokens.hasMoreTokens()) {
+            String parameter = tokens.nextToken().trim();
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                try {
+                    return Float.parseFloat(parameter.substring(2).trim()) <= 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isIdentity(String coding) {
+        return coding.trim().equalsIgnoreCase("identity");
+    }
+
+    private static boolean isGzip(String coding) {
+        coding = coding.trim();
+        return coding.equalsIgnoreCase(HTTPConstants.COMPRESSION_GZIP)
+                || coding.equalsIgnoreCase("x-gzip");
+    }
+
+    private static boolean isDeflate(String coding) {
+        return coding.trim().equalsIgnoreCase(HTTPConstants.COMPRESSION_DEFLATE);
+    }
+
+    /**
+     * Fails reads past a given number of bytes.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long maxLength;
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long maxLength) {
+            super(in);
+            this.maxLength = maxLength;
+            this.remaining = maxLength;
+        }
+
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            // read one byte more than allowed, to tell a body of exactly
+            // the maximum length from a longer one
+            int n = in.read(b, off, (int) Math.min(len, remaining + 1));
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining + 1));
+            count(skipped);
+            return skipped;
+        }
+
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void count(long n) throws IOException {
+            remaining -= n;
+            if (remaining < 0) {
+                throw new IOException(Messages.getMessage(
+                        "inflatedTooLong00", String.valueOf(maxLength)));
+            }
+        }
+    }
+}
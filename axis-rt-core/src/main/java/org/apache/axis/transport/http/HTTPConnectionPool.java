@@ -0,0 +1,336 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.transport.http;
+
+import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.components.net.TransportClientProperties;
+import org.apache.axis.components.net.TransportClientPropertiesFactory;
+import org.apache.axis.utils.Messages;
+import org.apache.commons.logging.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A bounded pool of persistent (HTTP/1.1 keep-alive) client connections
+ * used by the {@link HTTPSender}.  Idle connections are kept per route
+ * (protocol, host and port); a route never keeps more than
+ * <code>maxPerRoute</code> idle connections and the pool never keeps more
+ * than <code>maxTotal</code>.  Connections idle for longer than the
+ * keep-alive timeout are evicted, and connections the server has closed
+ * are detected before reuse when stale checking is enabled.
+ * <p>
+ * One pool exists per protocol and is configured from the
+ * {@link TransportClientProperties} of that protocol.
+ *
+ * @see SocketHolder
+ */
+public class HTTPConnectionPool {
+
+    protected static Log log =
+        LogFactory.getLog(HTTPConnectionPool.class.getName());
+
+    private static HashMap pools = new HashMap();
+
+    private final int maxPerRoute;
+    private final int maxTotal;
+    private final long keepAliveTimeout;
+    private final boolean staleCheck;
+
+    /** route -> LinkedList of idle Connections, most recently used first */
+    private final HashMap idle = new HashMap();
+    private int totalIdle = 0;
+    private long nextEviction = Long.MAX_VALUE;
+    private boolean shutdown = false;
+
+    /**
+     * A connection owned by the pool, together with the request state
+     * the socket factory produced when it was opened (proxy headers and
+     * whether the full URL must be sent), which is replayed on reuse.
+     */
+    public static class Connection {
+        private final String route;
+        private final Socket socket;
+        private final boolean useFullURL;
+        private final String otherHeaders;
+        private long idleSince;
+        private boolean reused = false;
+
+        public Connection(String route, Socket socket, boolean useFullURL,
+                          String otherHeaders) {
+            this.route = route;
+            this.socket = socket;
+            this.useFullURL = useFullURL;
+            this.otherHeaders = otherHeaders;
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        public Socket getSocket() {
+            return socket;
+        }
+
+        public boolean isUseFullURL() {
+            return useFullURL;
+        }
+
+        public String getOtherHeaders() {
+            return otherHeaders;
+        }
+
+        /**
+         * Returns true if this connection has already carried a request.
+         */
+        public boolean isReused() {
+            return reused;
+        }
+    }
+
+    /**
+     * Returns the pool for the given protocol, or null if persistent
+     * connections are disabled for it.
+     */
+    public static synchronized HTTPConnectionPool getPool(String protocol) {
+        HTTPConnectionPool pool = (HTTPConnectionPool) pools.get(protocol);
+        if (pool == null) {
+            TransportClientProperties tcp =
+                TransportClientPropertiesFactory.create(protocol);
+            if (tcp == null || !tcp.isKeepAlive()) {
+                return null;
+            }
+            pool = new HTTPConnectionPool(tcp.getMaxConnectionsPerHost(),
+                                          tcp.getMaxTotalConnections(),
+                                          tcp.getKeepAliveTimeout(),
+                                          tcp.isStaleCheckingEnabled());
+            pools.put(protocol, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Closes every idle connection of every pool and discards the pools,
+     * so that they are re-created from the current properties.
+     */
+    public static synchronized void shutdownAll() {
+        for (Iterator i = pools.values().iterator(); i.hasNext();) {
+            ((HTTPConnectionPool) i.next()).shutdown();
+        }
+        pools.clear();
+    }
+
+    public HTTPConnectionPool(int maxPerRoute, int maxTotal,
+                              long keepAliveTimeout, boolean staleCheck) {
+        this.maxPerRoute = maxPerRoute;
+        this.maxTotal = maxTotal;
+        this.keepAliveTimeout = keepAliveTimeout;
+        this.staleCheck = staleCheck;
+    }
+
+    /**
+     * Builds the route key for a target.
+     */
+    public static String getRoute(String protocol, String host, int port) {
+        return protocol + "://" + host + ":" + port;
+    }
+
+    /**
+     * Takes an idle connection for the route out of the pool.
+     *
+     * @return a live connection, or null if none is available
+     */
+    public Connection lease(String route) {
+        while (true) {
+            Connection conn;
+            List expired;
+            synchronized (this) {
+                expired = evictExpired(System.currentTimeMillis());
+                LinkedList list = (LinkedList) idle.get(route);
+                if (list == null || list.isEmpty()) {
+                    conn = null;
+                } else {
+                    conn = (Connection) list.removeFirst();
+                    totalIdle--;
+                }
+            }
+            closeAll(expired);
+            if (conn == null) {
+                return null;
+            }
+            if (staleCheck && isStale(conn.socket)) {
+                if (log.isDebugEnabled()) {
+                    log.debug(Messages.getMessage("staleConnection00", route));
+                }
+                close(conn.socket);
+                continue;
+            }
+            conn.reused = true;
+            return conn;
+        }
+    }
+
+    /**
+     * Returns a connection whose response has been fully consumed.  It is
+     * kept for reuse unless the pool is full, in which case it is closed.
+     */
+    public void release(Connection conn) {
+        boolean keep = false;
+        List expired;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            expired = evictExpired(now);
+            if (!shutdown && maxPerRoute > 0 && totalIdle < maxTotal
+                    && !conn.socket.isClosed()) {
+                LinkedList list = (LinkedList) idle.get(conn.route);
+                if (list == null) {
+                    list = new LinkedList();
+                    idle.put(conn.route, list);
+                }
+                if (list.size() < maxPerRoute) {
+                    conn.idleSince = now;
+                    list.addFirst(conn);
+                    totalIdle++;
+                    if (nextEviction == Long.MAX_VALUE) {
+                        nextEviction = now + keepAliveTimeout;
+                    }
+                    keep = true;
+                }
+            }
+        }
+        closeAll(expired);
+        if (!keep) {
+            close(conn.socket);
+        }
+    }
+
+    /**
+     * Closes all idle connections that have exceeded the keep-alive timeout.
+     */
+    public void closeExpiredConnections() {
+        List expired;
+        synchronized (this) {
+            nextEviction = 0;
+            expired = evictExpired(System.currentTimeMillis());
+        }
+        closeAll(expired);
+    }
+
+    /**
+     * Closes all idle connections; connections currently in use are
+     * closed when they are released.
+     */
+    public void shutdown() {
+        List all = new ArrayList();
+        synchronized (this) {
+            shutdown = true;
+            for (Iterator i = idle.values().iterator(); i.hasNext();) {
+                all.addAll((LinkedList) i.next());
+            }
+            idle.clear();
+            totalIdle = 0;
+        }
+        closeAll(all);
+    }
+
+    /**
+     * Returns the number of idle connections currently held.
+     */
+    public synchronized int getIdleCount() {
+        return totalIdle;
+    }
+
+    /**
+     * Removes expired connections from the idle lists.  Must be called
+     * with the pool locked; the returned connections must be closed
+     * once the lock has been released.
+     */
+    private List evictExpired(long now) {
+        if (now < nextEviction) {
+            return null;
+        }
+        List expired = new ArrayList();
+        long oldest = Long.MAX_VALUE;
+        for (Iterator i = idle.values().iterator(); i.hasNext();) {
+            LinkedList list = (LinkedList) i.next();
+            for (Iterator j = list.iterator(); j.hasNext();) {
+                Connection conn = (Connection) j.next();
+                if (now - conn.idleSince >= keepAliveTimeout) {
+                    j.remove();
+                    totalIdle--;
+                    expired.add(conn);
+                } else if (conn.idleSince < oldest) {
+                    oldest = conn.idleSince;
+                }
+            }
+            if (list.isEmpty()) {
+                i.remove();
+            }
+        }
+        nextEviction = (oldest == Long.MAX_VALUE)
+                ? Long.MAX_VALUE : oldest + keepAliveTimeout;
+        return expired;
+    }
+
+    private static void closeAll(List conns) {
+        if (conns == null) {
+            return;
+        }
+        for (Iterator i = conns.iterator(); i.hasNext();) {
+            close(((Connection) i.next()).socket);
+        }
+    }
+
+    private static void close(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // ignore, the connection is being discarded anyway
+        }
+    }
+
+    /**
+     * Checks whether the server has closed an idle connection.  An idle
+     * persistent connection has nothing to read: end of stream means the
+     * server closed it, and unexpected data means it is out of sync.
+     */
+    protected boolean isStale(Socket socket) {
+        if (socket.isClosed() || socket.isInputShutdown()
+                || socket.isOutputShutdown()) {
+            return true;
+        }
+        try {
+            int timeout = socket.getSoTimeout();
+            socket.setSoTimeout(1);
+            try {
+                socket.getInputStream().read();
+                return true;
+            } catch (InterruptedIOException e) {
+                return false;
+            } finally {
+                socket.setSoTimeout(timeout);
+            }
+        } catch (IOException e) {
+            return true;
+        }
+    }
+}
@@ -52,6 +52,8 @@ public class HTTPConstants {
     public static final String HEADER_CACHE_CONTROL_NOCACHE = "no-cache";
     public static final String HEADER_PRAGMA = "Pragma";
     public static final String HEADER_LOCATION = "Location";
+    public static final String HEADER_ETAG = "ETag";
+    public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
 
 
 
@@ -75,6 +77,8 @@ public class HTTPConstants {
     public static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
     public static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
     public static final String COMPRESSION_GZIP = "gzip";
+    public static final String COMPRESSION_DEFLATE = "deflate";
+    public static final String HEADER_VARY = "Vary";
 
     /**
      * Cookie headers
@@ -118,6 +122,21 @@ public class HTTPConstants {
      * context property to true to have the request body gzip compressed.
      */
     public static final String MC_GZIP_REQUEST = "transport.http.gzipRequest";
+
+    /**
+     * Set this message context property to true to have the HTTP sender
+     * accept gzipped responses, and gzip the request body once the server
+     * has said, in the Accept-Encoding header of an earlier response, that
+     * it accepts gzipped requests.
+     */
+    public static final String MC_NEGOTIATE_GZIP = "transport.http.negotiateGzip";
+
+    /**
+     * The {@link SocketHolder} of the last request sent by the HTTP sender;
+     * aborting it closes the connection while the response is still being
+     * read, e.g. to cancel an asynchronous call.
+     */
+    public static final String MC_SOCKET_HOLDER = "transport.http.socketHolder";
  
     /**
      * @deprecated Should use javax.xml.rpc.Call.SOAPACTION_URI_PROPERTY instead.
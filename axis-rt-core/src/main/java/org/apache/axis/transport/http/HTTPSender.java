@@ -38,15 +38,21 @@ import javax.xml.soap.SOAPException;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.net.SocketException;
 import java.net.URL;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * This is meant to be used on a SOAP Client to call a SOAP server.
@@ -105,6 +111,39 @@ public class HTTPSender extends BasicHandler {
     private static final String HEADER_TRANSFER_ENCODING_LC = 
         HTTPConstants.HEADER_TRANSFER_ENCODING.toLowerCase();
 
+    private static final String HEADER_CONNECTION_LC =
+        HTTPConstants.HEADER_CONNECTION.toLowerCase();
+
+    private static final String HEADER_CONTENT_ENCODING_LC =
+        HTTPConstants.HEADER_CONTENT_ENCODING.toLowerCase();
+
+    private static final String HEADER_ACCEPT_ENCODING_LC =
+        HTTPConstants.HEADER_ACCEPT_ENCODING.toLowerCase();
+
+    /** The most endpoints to remember as accepting gzipped requests */
+    private static final int MAX_GZIP_ENDPOINTS = 256;
+
+    /**
+     * The endpoints ("protocol://host:port") which have said that they
+     * accept gzipped requests, least recently used first.
+     */
+    private static final Map gzipEndpoints = new GzipEndpoints();
+
+    /**
+     * Drops the least recently used endpoint beyond MAX_GZIP_ENDPOINTS.
+     */
+    private static class GzipEndpoints extends LinkedHashMap {
+        private static final long serialVersionUID = 1L;
+
+        GzipEndpoints() {
+            super(16, 0.75f, true);
+        }
+
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+            return size() > MAX_GZIP_ENDPOINTS;
+        }
+    }
+
     /**
      * the url; used for error reporting
      */
@@ -125,28 +164,65 @@ public class HTTPSender extends BasicHandler {
         }
 
         SocketHolder socketHolder = new SocketHolder(null);
+        msgContext.setProperty(HTTPConstants.MC_SOCKET_HOLDER, socketHolder);
 
         try {
-            BooleanHolder useFullURL = new BooleanHolder(false);
-            StringBuffer otherHeaders = new StringBuffer();
             targetURL = new URL(msgContext.getStrProp(MessageContext.TRANS_URL));
             String host = targetURL.getHost();
             int port = targetURL.getPort();
-            
-            // Send the SOAP request to the server
-            InputStream inp = writeToSocket(socketHolder, msgContext, targetURL,
-                        otherHeaders, host, port, msgContext.getTimeout(), useFullURL);
-
-            // Read the response back from the server
-            Hashtable headers = new Hashtable();
-            inp = readHeadersFromSocket(socketHolder, msgContext, inp, headers);
+            InputStream inp;
+            Hashtable headers;
+
+            while (true) {
+                BooleanHolder useFullURL = new BooleanHolder(false);
+                StringBuffer otherHeaders = new StringBuffer();
+                headers = new Hashtable();
+                IOException dropped = null;
+                try {
+                    // Send the SOAP request to the server
+                    inp = writeToSocket(socketHolder, msgContext, targetURL,
+                                otherHeaders, host, port, msgContext.getTimeout(), useFullURL);
+                } catch (IOException e) {
+                    if (!isDropped(socketHolder, e)) {
+                        throw e;
+                    }
+                    dropped = e;
+                    inp = null;
+                }
+                if (dropped == null) {
+                    try {
+                        // Read the response back from the server
+                        inp = readHeadersFromSocket(socketHolder, msgContext, inp, headers);
+                        if (msgContext.getProperty(
+                                HTTPConstants.MC_HTTP_STATUS_CODE) != null
+                                || !socketHolder.isReused()) {
+                            break;
+                        }
+                        dropped = new IOException(Messages.getMessage(
+                                "staleConnection00", targetURL.toString()));
+                    } catch (IOException e) {
+                        // Once the server has started to answer, or may be
+                        // slow to, the request is not sent again
+                        if (msgContext.getProperty(
+                                HTTPConstants.MC_HTTP_STATUS_CODE) != null
+                                || !isDropped(socketHolder, e)) {
+                            throw e;
+                        }
+                        dropped = e;
+                    }
+                }
+                // The server dropped the persistent connection before
+                // answering; try again, ending up on a fresh connection.
+                log.debug(dropped);
+                socketHolder.close();
+                msgContext.removeProperty(HTTPConstants.MC_HTTP_STATUS_CODE);
+                msgContext.removeProperty(HTTPConstants.MC_HTTP_STATUS_MESSAGE);
+            }
             readFromSocket(socketHolder, msgContext, inp, headers);
         } catch (Exception e) {
             log.debug(e);
             try {
-	            if (socketHolder.getSocket() != null ) {
-	            	socketHolder.getSocket().close();
-	            }
+	            socketHolder.close();
             } catch (IOException ie) {
             	// we shouldn't get here.
             }
@@ -158,6 +234,21 @@ public class HTTPSender extends BasicHandler {
         }
     }
 
+    /**
+     * Tells whether a request failed because the server had closed the
+     * persistent connection it was sent on, so that it can be sent again
+     * on a fresh one.  A timeout is not such a failure: the server may
+     * still be working on the request.
+     *
+     * @param sockHolder the connection the request was sent on
+     * @param e the failure writing the request or reading the status line
+     */
+    private static boolean isDropped(SocketHolder sockHolder, IOException e) {
+        return sockHolder.isReused()
+                && !(e instanceof InterruptedIOException)
+                && (e instanceof SocketException || e instanceof EOFException);
+    }
+
     /**
      * Creates a socket connection to the SOAP server
      *
@@ -194,6 +285,38 @@ public class HTTPSender extends BasicHandler {
         sockHolder.setSocket(sock);
     }
 
+    /**
+     * Takes a persistent connection to the SOAP server from the pool, or
+     * creates one through {@link #getSocket} if none is idle.
+     *
+     * @param pool the connection pool for the protocol
+     */
+    protected void getPooledSocket(HTTPConnectionPool pool,
+                                   SocketHolder sockHolder,
+                                   MessageContext msgContext,
+                                   String protocol,
+                                   String host, int port, int timeout,
+                                   StringBuffer otherHeaders,
+                                   BooleanHolder useFullURL)
+        throws Exception {
+        String route = HTTPConnectionPool.getRoute(protocol, host, port);
+        HTTPConnectionPool.Connection conn = pool.lease(route);
+        if (conn != null) {
+            conn.getSocket().setSoTimeout(timeout > 0 ? timeout : 0);
+            otherHeaders.append(conn.getOtherHeaders());
+            useFullURL.value = conn.isUseFullURL();
+        } else {
+            // remember what the socket factory adds, to replay it on reuse
+            int mark = otherHeaders.length();
+            getSocket(sockHolder, msgContext, protocol, host, port, timeout,
+                      otherHeaders, useFullURL);
+            conn = new HTTPConnectionPool.Connection(route,
+                    sockHolder.getSocket(), useFullURL.value,
+                    otherHeaders.substring(mark));
+        }
+        sockHolder.setConnection(pool, conn);
+    }
+
     /**
      * Send the soap request message to the server
      *
@@ -321,10 +444,25 @@ public class HTTPSender extends BasicHandler {
             }
         }
 
-        if (!http10) {
-            //Force close for now.
-            //TODO HTTP/1.1
-            httpConnection = HTTPConstants.HEADER_CONNECTION_CLOSE;
+        boolean negotiateGzip =
+                msgContext.isPropertyTrue(HTTPConstants.MC_NEGOTIATE_GZIP);
+        boolean acceptGzip = negotiateGzip ||
+                msgContext.isPropertyTrue(HTTPConstants.MC_ACCEPT_GZIP);
+        boolean gzipRequest =
+                msgContext.isPropertyTrue(HTTPConstants.MC_GZIP_REQUEST) ||
+                (negotiateGzip && acceptsGzipRequests(targetURL));
+        if (gzipRequest && !http10) {
+            // compress as we go, rather than ahead for the Content-Length
+            httpChunkStream = true;
+        }
+
+        HTTPConnectionPool pool = null;
+        if (!http10 && httpConnection == null) {
+            // HTTP/1.1 connections are persistent unless pooling is off.
+            pool = HTTPConnectionPool.getPool(targetURL.getProtocol());
+            if (pool == null) {
+                httpConnection = HTTPConstants.HEADER_CONNECTION_CLOSE;
+            }
         }
 
         header2.append(" ");
@@ -364,12 +502,44 @@ public class HTTPSender extends BasicHandler {
                 .append(action)
                 .append("\"\r\n");
 
+        if (acceptGzip) {
+            header2.append(HTTPConstants.HEADER_ACCEPT_ENCODING)
+                    .append(": ")
+                    .append(HTTPCompression.ACCEPTED_ENCODINGS)
+                    .append("\r\n");
+        }
+
+        ByteArrayOutputStream baos = null;
+        if (log.isDebugEnabled()) {
+            baos = new ByteArrayOutputStream();
+        }
+
+        ByteArrayOutputStream gzippedBody = null;
         if (posting) {
+            if (gzipRequest) {
+                header2.append(HTTPConstants.HEADER_CONTENT_ENCODING)
+                        .append(": ")
+                        .append(HTTPConstants.COMPRESSION_GZIP)
+                        .append("\r\n");
+            }
             if (!httpChunkStream) {
+                long contentLength;
+                if (gzipRequest) {
+                    // HTTP 1.0: only the compressed body has to be held
+                    gzippedBody = new ByteArrayOutputStream();
+                    GZIPOutputStream gzip = new GZIPOutputStream(gzippedBody);
+                    reqMessage.writeTo(baos != null
+                            ? (OutputStream) new TeeOutputStream(gzip, baos)
+                            : gzip);
+                    gzip.finish();
+                    contentLength = gzippedBody.size();
+                } else {
+                    contentLength = reqMessage.getContentLength();
+                }
                 //Content length MUST be sent on HTTP 1.0 requests.
                 header2.append(HTTPConstants.HEADER_CONTENT_LENGTH)
                         .append(": ")
-                        .append(reqMessage.getContentLength())
+                        .append(contentLength)
                         .append("\r\n");
             } else {
                 //Do http chunking.
@@ -400,8 +570,14 @@ public class HTTPSender extends BasicHandler {
             header2.append("\r\n");
         }
 
-        getSocket(sockHolder, msgContext, targetURL.getProtocol(),
-                  host, port, timeout, otherHeaders, useFullURL);
+        if (pool != null) {
+            getPooledSocket(pool, sockHolder, msgContext,
+                            targetURL.getProtocol(), host, port, timeout,
+                            otherHeaders, useFullURL);
+        } else {
+            getSocket(sockHolder, msgContext, targetURL.getProtocol(),
+                      host, port, timeout, otherHeaders, useFullURL);
+        }
         
         if (null != otherHeaders) {
             //Add other headers to the end.
@@ -478,25 +654,40 @@ public class HTTPSender extends BasicHandler {
                 throw fault;
             }
         }
-        ByteArrayOutputStream baos = null;
         if (log.isDebugEnabled()) {
             log.debug(Messages.getMessage("xmlSent00"));
             log.debug("---------------------------------------------------");
-            baos = new ByteArrayOutputStream();
         }
         if (httpChunkStream) {
             ChunkedOutputStream chunkedOutputStream = new ChunkedOutputStream(out);
             out = new BufferedOutputStream(chunkedOutputStream, Constants.HTTP_TXR_BUFFER_SIZE);
+            GZIPOutputStream gzip = null;
             try {
+                OutputStream body = out;
+                if (gzipRequest) {
+                    gzip = new GZIPOutputStream(out, Constants.HTTP_TXR_BUFFER_SIZE);
+                    body = gzip;
+                }
                 if(baos != null) {
-                    out = new TeeOutputStream(out, baos);
+                    body = new TeeOutputStream(body, baos);
                 }
-                reqMessage.writeTo(out);
+                reqMessage.writeTo(body);
             } catch (SOAPException e) {
                 log.error(Messages.getMessage("exception00"), e);
             }
+            if (gzip != null) {
+                gzip.finish();
+            }
             out.flush();
             chunkedOutputStream.eos();
+        } else if (gzippedBody != null) {
+            out = new BufferedOutputStream(out, Constants.HTTP_TXR_BUFFER_SIZE);
+            if (!httpContinueExpected) {
+                out.write(header.toString()
+                        .getBytes(HTTPConstants.HEADER_DEFAULT_CHAR_ENCODING));
+            }
+            gzippedBody.writeTo(out);
+            out.flush();
         } else {
             out = new BufferedOutputStream(out, Constants.HTTP_TXR_BUFFER_SIZE);
             try {
@@ -637,6 +828,10 @@ public class HTTPSender extends BasicHandler {
                         tmp = tmp.substring(0, end);
                     }
                     returnCode = Integer.parseInt(tmp);
+                    if (!name.startsWith(HTTPConstants.HEADER_PROTOCOL_11)) {
+                        // HTTP/1.0 servers close the connection
+                        sockHolder.detach();
+                    }
                     msgContext.setProperty(HTTPConstants.MC_HTTP_STATUS_CODE,
                             new Integer(returnCode));
                     msgContext.setProperty(HTTPConstants.MC_HTTP_STATUS_MESSAGE,
@@ -700,9 +895,25 @@ public class HTTPSender extends BasicHandler {
         location = (null == location)
                 ? null
                 : location.trim();
-                
+
+        if (msgContext.isPropertyTrue(HTTPConstants.MC_NEGOTIATE_GZIP) &&
+                HTTPCompression.acceptsGzip(
+                    (String) headers.get(HEADER_ACCEPT_ENCODING_LC))) {
+            rememberGzipEndpoint(targetURL);
+        }
+
+        boolean delimited = false;
+        if (returnCode != 100 && socketHolder.isPooled()) {
+            inp = delimitPersistentBody(socketHolder, inp, headers);
+            delimited = socketHolder.isPooled();
+        }
+
         if ((returnCode > 199) && (returnCode < 300)) {
             if (returnCode == 202) {
+                if (delimited) {
+                    // one-way response: skip any body and reuse the connection
+                    new SocketInputStream(inp, socketHolder).close();
+                }
                 return inp;
             }
             // SOAP return is OK - so fall through
@@ -718,7 +929,7 @@ public class HTTPSender extends BasicHandler {
             // Temporary Redirect (HTTP: 302/307)            
             // close old connection
                 inp.close();
-                socketHolder.getSocket().close();    
+                socketHolder.close();
             // remove former result and set new target url
                 msgContext.removeProperty(HTTPConstants.MC_HTTP_STATUS_CODE);
                 msgContext.setProperty(MessageContext.TRANS_URL, location);
@@ -767,7 +978,7 @@ public class HTTPSender extends BasicHandler {
         String transferEncoding =
             (String) headers.get(HEADER_TRANSFER_ENCODING_LC);
 
-        if (null != transferEncoding) {
+        if (null != transferEncoding && !delimited) {
             transferEncoding = transferEncoding.trim().toLowerCase();
             if (transferEncoding.equals(
                    HTTPConstants.HEADER_TRANSFER_ENCODING_CHUNKED)) {
@@ -775,12 +986,28 @@ public class HTTPSender extends BasicHandler {
             }
         }
 
-        outMsg = new Message( new SocketInputStream(inp, socketHolder.getSocket()), false,
+        SocketInputStream sis = delimited
+                ? new SocketInputStream(inp, socketHolder)
+                : new SocketInputStream(inp, socketHolder.getSocket());
+
+        String contentEncoding = (String) headers.get(HEADER_CONTENT_ENCODING_LC);
+        if (!HTTPCompression.isSupported(contentEncoding)) {
+            sis.close();
+            throw new AxisFault("HTTP", "unsupported content-encoding of '"
+                                + contentEncoding + "' found", null, null);
+        }
+        InputStream body = HTTPCompression.decode(sis, contentEncoding);
+        outMsg = new Message( body, false,
                               contentType, contentLocation);
         // Transfer HTTP headers of HTTP message to MIME headers of SOAP message
         MimeHeaders mimeHeaders = outMsg.getMimeHeaders();
         for (Enumeration e = headers.keys(); e.hasMoreElements(); ) {
             String key = (String) e.nextElement();
+            if (body != sis && (key.equals(HEADER_CONTENT_ENCODING_LC)
+                                || key.equals(HEADER_CONTENT_LENGTH_LC))) {
+                // they describe the body as sent, not as decoded
+                continue;
+            }
             mimeHeaders.addHeader(key, ((String) headers.get(key)).trim());
         }        
         outMsg.setMessageType(Message.RESPONSE);
@@ -798,6 +1025,60 @@ public class HTTPSender extends BasicHandler {
         return inp;
     }
 
+    /**
+     * Bounds the response body of a persistent connection by its chunked
+     * encoding or Content-Length, so that the connection can be reused once
+     * the body has been read.  If the server asked to close the connection,
+     * or the body is only delimited by the end of the stream, the
+     * connection is detached from its pool and closed after use.
+     */
+    private InputStream delimitPersistentBody(SocketHolder socketHolder,
+                                              InputStream inp,
+                                              Hashtable headers) {
+        String connection = (String) headers.get(HEADER_CONNECTION_LC);
+        if (connection != null && connection.trim()
+                .equalsIgnoreCase(HTTPConstants.HEADER_CONNECTION_CLOSE)) {
+            socketHolder.detach();
+            return inp;
+        }
+        String transferEncoding =
+            (String) headers.get(HEADER_TRANSFER_ENCODING_LC);
+        if (transferEncoding != null && transferEncoding.trim()
+                .equalsIgnoreCase(HTTPConstants.HEADER_TRANSFER_ENCODING_CHUNKED)) {
+            return new ChunkedInputStream(inp);
+        }
+        String contentLength = (String) headers.get(HEADER_CONTENT_LENGTH_LC);
+        if (contentLength != null) {
+            try {
+                return new ContentLengthInputStream(inp,
+                        Long.parseLong(contentLength.trim()));
+            } catch (NumberFormatException e) {
+                // not delimited after all
+            }
+        }
+        socketHolder.detach();
+        return inp;
+    }
+
+    private static String endpointKey(URL url) {
+        return url.getProtocol() + "://" + url.getHost() + ":" + url.getPort();
+    }
+
+    /**
+     * Tells whether an endpoint has said that it accepts gzipped requests.
+     */
+    private static boolean acceptsGzipRequests(URL url) {
+        synchronized (gzipEndpoints) {
+            return gzipEndpoints.get(endpointKey(url)) != null;
+        }
+    }
+
+    private static void rememberGzipEndpoint(URL url) {
+        synchronized (gzipEndpoints) {
+            gzipEndpoints.put(endpointKey(url), Boolean.TRUE);
+        }
+    }
+
     /**
      * little helper function for cookies. fills up the message context with
      * a string or an array of strings (if there are more than one Set-Cookie)
@@ -16,37 +16,64 @@
 
 package org.apache.axis.transport.http;
 
+import org.apache.axis.AxisEngine;
 import org.apache.axis.AxisFault;
 import org.apache.axis.Constants;
+import org.apache.axis.EngineConfiguration;
 import org.apache.axis.MessageContext;
 import org.apache.axis.ConfigurationException;
+import org.apache.axis.WSDDEngineConfiguration;
+import org.apache.axis.deployment.wsdd.WSDDDeployment;
+import org.apache.axis.deployment.wsdd.WSDDService;
 import org.apache.axis.description.ServiceDesc;
+import org.apache.axis.handlers.soap.SOAPService;
 import org.apache.axis.server.AxisServer;
+import org.apache.axis.utils.JavaUtils;
 import org.apache.axis.utils.Messages;
 import org.apache.axis.utils.XMLUtils;
+import org.apache.axis.utils.cache.GeneratedWSDLCache;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.w3c.dom.Element;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.xml.namespace.QName;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.net.HttpURLConnection;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.StringTokenizer;
 
 /**
  * The QSWSDLHandler class is a handler which provides an AXIS service's WSDL
  * document when the query string "wsdl" (ignoring case) is encountered in an
  * AXIS servlet invocation.
+ * <p>
+ * The WSDL of a service deployed through WSDD with the parameter
+ * {@link #OPTION_CACHE_WSDL} set to true is cached per request base URL
+ * until the service is redeployed, and served with an ETag so that clients
+ * polling it can revalidate with If-None-Match.  The handlers taking part
+ * in the WSDL generation of such a service then only run when the WSDL is
+ * generated, so they must not decide per request whether, or how, it is
+ * served.
  *
+ * @see AxisEngine#PROP_DISABLE_WSDL_CACHE
  * @author Curtiss Howard (code mostly from AxisServlet class)
  * @author Doug Davis (dug@us.ibm.com)
  * @author Steve Loughran
  * @author Ian P. Springer, Sal Campana
  */
 public class QSWSDLHandler extends AbstractQueryStringHandler {
+    /**
+     * The service parameter which, set to true, caches the WSDL of the
+     * service.
+     */
+    public static final String OPTION_CACHE_WSDL = "cacheWSDL";
+
     /**
      * Performs the action associated with this particular query string handler.
      *
@@ -64,6 +91,26 @@ public class QSWSDLHandler extends AbstractQueryStringHandler {
                 (HTTPConstants.PLUGIN_WRITER);
         HttpServletResponse response = (HttpServletResponse)
                 msgContext.getProperty(HTTPConstants.MC_HTTP_SERVLETRESPONSE);
+        HttpServletRequest request = (HttpServletRequest)
+                msgContext.getProperty(HTTPConstants.MC_HTTP_SERVLETREQUEST);
+        String serviceName = (String) msgContext.getProperty
+                (HTTPConstants.PLUGIN_SERVICE_NAME);
+        WSDDDeployment deployment = getDeployment(engine, serviceName);
+        GeneratedWSDLCache cache = deployment == null ?
+                null : deployment.getGeneratedWSDLCache();
+        String baseURL = getBaseURL(msgContext.getStrProp
+                (MessageContext.TRANS_URL));
+        long generation = 0;
+        if (cache != null) {
+            GeneratedWSDLCache.Entry entry = cache.get(serviceName, baseURL);
+            if (entry != null) {
+                reportCachedWSDL(entry, request, response, writer);
+                return;
+            }
+            // taken before generating, so that a WSDL generated while the
+            // service is redeployed is not kept
+            generation = cache.getGeneration();
+        }
         try {
             engine.generateWSDL(msgContext);
             Document wsdlDoc = (Document) msgContext.getProperty("WSDL");
@@ -75,10 +122,18 @@ public class QSWSDLHandler extends AbstractQueryStringHandler {
                             "Failed to update soap:address location URL(s) in WSDL.",
                             re);
                 }
-                response.setContentType(
-                        "text/xml; charset=" +
-                        XMLUtils.getEncoding().toLowerCase());
-                reportWSDL(wsdlDoc, writer);
+                if (cache != null && isGenerated(msgContext, serviceName)) {
+                    StringWriter wsdl = new StringWriter();
+                    reportWSDL(wsdlDoc, new PrintWriter(wsdl));
+                    reportCachedWSDL(cache.put(serviceName, baseURL,
+                                               wsdl.toString(), generation),
+                                     request, response, writer);
+                } else {
+                    response.setContentType(
+                            "text/xml; charset=" +
+                            XMLUtils.getEncoding().toLowerCase());
+                    reportWSDL(wsdlDoc, writer);
+                }
             } else {
                 if (log.isDebugEnabled()) {
                     log.debug("processWsdlRequest: failed to create WSDL");
@@ -112,6 +167,98 @@ public class QSWSDLHandler extends AbstractQueryStringHandler {
         XMLUtils.PrettyDocumentToWriter(doc, writer);
     }
 
+    /**
+     * Report WSDL from the cache, or tell the client that its copy is still
+     * current if it sent a matching If-None-Match header.
+     *
+     * @param entry    the cached WSDL
+     * @param request  the servlet request, may be null
+     * @param response the servlet response
+     * @param writer   the writer for the response
+     */
+    protected void reportCachedWSDL(GeneratedWSDLCache.Entry entry,
+                                    HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    PrintWriter writer) {
+        response.setHeader(HTTPConstants.HEADER_ETAG, entry.getETag());
+        if (request != null && matchesETag(request.getHeader
+                (HTTPConstants.HEADER_IF_NONE_MATCH), entry.getETag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType("text/xml; charset=" +
+                                XMLUtils.getEncoding().toLowerCase());
+        writer.write(entry.getWSDL());
+    }
+
+    /**
+     * Checks an If-None-Match header against an entity tag.
+     */
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        StringTokenizer st = new StringTokenizer(ifNoneMatch, ",");
+        while (st.hasMoreTokens()) {
+            String tag = st.nextToken().trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the deployment whose WSDL cache is used for a service, or
+     * null if its WSDL is not to be cached: caching is disabled, the
+     * engine isn't configured through WSDD, or the service, deployed
+     * through WSDD, doesn't ask for it.  Other services, such as JWS ones,
+     * may change without being redeployed.
+     */
+    private static WSDDDeployment getDeployment(AxisEngine engine,
+                                                String serviceName) {
+        if (engine == null || serviceName == null || JavaUtils.isTrueExplicitly
+                (engine.getOption(AxisEngine.PROP_DISABLE_WSDL_CACHE))) {
+            return null;
+        }
+        EngineConfiguration config = engine.getConfig();
+        if (!(config instanceof WSDDEngineConfiguration)) {
+            return null;
+        }
+        WSDDDeployment deployment =
+                ((WSDDEngineConfiguration) config).getDeployment();
+        WSDDService service =
+                deployment.getWSDDService(new QName(serviceName));
+        if (service == null || !JavaUtils.isTrueExplicitly
+                (service.getParameter(OPTION_CACHE_WSDL))) {
+            return null;
+        }
+        return deployment;
+    }
+
+    /**
+     * Tells whether the WSDL generated is that of the service asked for.
+     */
+    private static boolean isGenerated(MessageContext msgContext,
+                                       String serviceName) {
+        SOAPService service = msgContext.getService();
+        return service != null && serviceName.equals(service.getName());
+    }
+
+    /**
+     * Returns the part of a request URL that the soap:address locations
+     * are based on.
+     */
+    private static String getBaseURL(String url) {
+        if (url == null) {
+            return "";
+        }
+        return url.substring(0, url.lastIndexOf('/') + 1);
+    }
+
     /**
      * Report that we have no WSDL.
      *
@@ -15,25 +15,134 @@
  */
 package org.apache.axis.transport.http;
 
+import java.io.IOException;
 import java.net.Socket;
 
 /**
  * hold a Socket.
+ * <p>
+ * When the socket is a persistent connection, the holder also remembers
+ * the {@link HTTPConnectionPool} it came from, so that it can be handed
+ * back once the response has been read.
+ *
  * @author Davanum Srinivas (dims@yahoo.com)
  */
 public class SocketHolder {
     /** Field value           */
     private Socket value = null;
 
+    /** The pool the connection is returned to, if any */
+    private HTTPConnectionPool pool = null;
+
+    /** The pooled connection wrapping the socket, if any */
+    private HTTPConnectionPool.Connection connection = null;
+
+    /** Set by abort(); sockets held afterwards are closed at once */
+    private boolean aborted = false;
+
     public SocketHolder(Socket value) {
         this.value = value;
     }
 
-    public Socket getSocket() {
+    public synchronized Socket getSocket() {
         return value;
     }
 
-    public void setSocket(Socket value) {
+    public synchronized void setSocket(Socket value) {
         this.value = value;
+        if (aborted) {
+            closeSocket();
+        }
+    }
+
+    /**
+     * Holds a pooled connection; {@link #release()} returns it to the pool.
+     */
+    public synchronized void setConnection(HTTPConnectionPool pool,
+                              HTTPConnectionPool.Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+        this.value = connection.getSocket();
+        if (aborted) {
+            closeSocket();
+        }
+    }
+
+    public synchronized HTTPConnectionPool.Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Returns true if the held socket is a pooled connection that has
+     * already carried a previous request.
+     */
+    public synchronized boolean isReused() {
+        return connection != null && connection.isReused();
+    }
+
+    /**
+     * Returns true if the held socket may be returned to a pool.
+     */
+    public synchronized boolean isPooled() {
+        return pool != null && connection != null;
+    }
+
+    /**
+     * Forgets the pool, so that the socket is closed rather than reused.
+     */
+    public synchronized void detach() {
+        pool = null;
+    }
+
+    /**
+     * Hands the socket back to its pool, or closes it if it is not pooled.
+     */
+    public synchronized void release() throws IOException {
+        if (isPooled()) {
+            pool.release(connection);
+            pool = null;
+            connection = null;
+            value = null;
+        } else {
+            close();
+        }
+    }
+
+    /**
+     * Closes the socket; a pooled connection is discarded.
+     */
+    public synchronized void close() throws IOException {
+        Socket socket = value;
+        pool = null;
+        connection = null;
+        value = null;
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    /**
+     * Closes the socket from another thread, e.g. to cancel the request
+     * using it; a socket held later on is closed as well.  The thread
+     * blocked on the socket then fails with an IOException.
+     */
+    public synchronized void abort() {
+        aborted = true;
+        closeSocket();
+    }
+
+    /**
+     * Closes the socket, but keeps holding it so that further use fails
+     * with an IOException.
+     */
+    private void closeSocket() {
+        pool = null;
+        if (value != null) {
+            try {
+                value.close();
+            } catch (IOException e) {
+                // the request fails anyway
+            }
+        }
     }
 }
@@ -27,12 +27,20 @@ import java.io.InputStream;
 
  /**
   * The ONLY reason for this is so we can clean up sockets quicker/cleaner.
+  * <p>
+  * When constructed with a pooled {@link SocketHolder}, the wrapped stream
+  * must be delimited (chunked or Content-Length); once it has been read to
+  * its end the connection is handed back to the pool instead of closed.
   */
 
 
 public class SocketInputStream extends java.io.FilterInputStream {
     protected volatile boolean closed = false;
     java.net.Socket socket= null;
+    SocketHolder holder= null;
+
+    /** Unread bytes we are willing to skip to keep a connection alive */
+    private static final int MAX_DRAIN = 8192;
 
     private SocketInputStream() {
         super(null);
@@ -44,11 +52,71 @@ public class SocketInputStream extends java.io.FilterInputStream {
         this.socket= socket;
     }
 
+    public SocketInputStream(InputStream is, SocketHolder holder) {
+        super(is);
+        this.socket= holder.getSocket();
+        this.holder= holder;
+    }
+
+    public int read() throws IOException {
+        if (closed) return -1;
+        int rc = super.read();
+        if (rc == -1) {
+            releaseConnection();
+        }
+        return rc;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) return -1;
+        int rc = super.read(b, off, len);
+        if (rc == -1) {
+            releaseConnection();
+        }
+        return rc;
+    }
+
+    /**
+     * The delimited body has been read to its end; return the
+     * connection to its pool.
+     */
+    private void releaseConnection() throws IOException {
+        synchronized(this){
+        if(closed || holder == null) return;
+        closed= true;
+        }
+        in= null;
+        socket= null;
+        holder.release();
+        holder= null;
+    }
+
     public void close() throws IOException {
+       if (holder != null) {
+           // Try to reach the end of the body so the connection can be reused
+           byte[] buf = new byte[512];
+           int drained = 0;
+           try {
+               while (!closed && drained <= MAX_DRAIN) {
+                   int rc = read(buf, 0, buf.length);
+                   if (rc == -1) break;
+                   drained += rc;
+               }
+           } catch (IOException e) {
+               // fall through and discard the connection
+           }
+       }
        synchronized(this){
        if(closed) return;
        closed= true;
        }
+       if (holder != null) {
+           in= null;
+           socket= null;
+           holder.close();
+           holder= null;
+           return;
+       }
        in.close();
        in= null;
        socket.close();
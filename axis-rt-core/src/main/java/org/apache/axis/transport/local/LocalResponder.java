@@ -38,11 +38,19 @@ public class LocalResponder extends BasicHandler {
             log.debug("Enter: LocalResponder::invoke");
         }
 
-        String msgStr = msgContext.getResponseMessage().getSOAPPartAsString();
+        // The "bytes" and "shared" isolation levels of the LocalSender
+        // don't go through a String, so don't make one for them.
+        String isolation = msgContext.getStrProp(LocalTransport.ISOLATION);
+        if (isolation == null ||
+                LocalTransport.ISOLATION_SERIALIZE.equals(isolation)) {
+            String msgStr =
+                    msgContext.getResponseMessage().getSOAPPartAsString();
+            if (log.isDebugEnabled()) {
+                log.debug(msgStr);
+            }
+        }
 
         if (log.isDebugEnabled()) {
-            log.debug(msgStr);
-
             log.debug("Exit: LocalResponder::invoke");
         }
     }
@@ -29,6 +29,8 @@ import org.apache.axis.server.AxisServer;
 import org.apache.axis.utils.Messages;
 import org.apache.commons.logging.Log;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.net.URL;
 
 /**
@@ -72,34 +74,13 @@ public class LocalSender extends BasicHandler {
         // Define a new messageContext per request
         MessageContext serverContext = new MessageContext(targetServer);
 
-        // copy the request, and force its format to String in order to
-        // exercise the serializers.
-
-// START FIX: http://nagoya.apache.org/bugzilla/show_bug.cgi?id=17161
-
+        String isolation = getIsolation(clientContext);
         Message clientRequest = clientContext.getRequestMessage();
-        
-        String msgStr = clientRequest.getSOAPPartAsString();
-
-        if (log.isDebugEnabled()) {
-            log.debug(Messages.getMessage("sendingXML00", "LocalSender"));
-            log.debug(msgStr);
-        }
-        
-        Message serverRequest = new Message(msgStr);
-
-        Attachments serverAttachments = serverRequest.getAttachmentsImpl();
-        Attachments clientAttachments = clientRequest.getAttachmentsImpl();
-
-        if (null != clientAttachments && null != serverAttachments) {
-            serverAttachments.setAttachmentParts(clientAttachments.getAttachments());
-        }
-
-        serverContext.setRequestMessage(serverRequest);
-
-// END FIX: http://nagoya.apache.org/bugzilla/show_bug.cgi?id=17161
+        serverContext.setRequestMessage(
+                copy(clientRequest, clientContext, isolation));
 
         serverContext.setTransportName("local");
+        serverContext.setProperty(LocalTransport.ISOLATION, isolation);
 
         // Also copy authentication info if present
         String user = clientContext.getUsername();
@@ -152,13 +133,89 @@ public class LocalSender extends BasicHandler {
             }
         }
 
-        // copy back the response, and force its format to String in order to
-        // exercise the deserializers.
-        clientContext.setResponseMessage(serverContext.getResponseMessage());
-        clientContext.getResponseMessage().getSOAPPartAsString();
+        Message serverResponse = serverContext.getResponseMessage();
+        if (LocalTransport.ISOLATION_SERIALIZE.equals(isolation)) {
+            // copy back the response, and force its format to String in
+            // order to exercise the deserializers.
+            clientContext.setResponseMessage(serverResponse);
+            clientContext.getResponseMessage().getSOAPPartAsString();
+        } else {
+            Message clientResponse = null;
+            if (serverResponse != null) {
+                clientResponse = copy(serverResponse, serverContext, isolation);
+                clientResponse.setMessageType(Message.RESPONSE);
+            }
+            clientContext.setResponseMessage(clientResponse);
+        }
 
         if (log.isDebugEnabled()) {
             log.debug("Exit: LocalSender::invoke");
         }
     }
+
+    /**
+     * The isolation level of a call; see {@link LocalTransport}.
+     */
+    private static String getIsolation(MessageContext clientContext)
+            throws AxisFault {
+        String isolation = clientContext.getStrProp(LocalTransport.ISOLATION);
+        if (isolation == null) {
+            return LocalTransport.ISOLATION_SERIALIZE;
+        }
+        if (!LocalTransport.isIsolation(isolation)) {
+            throw new AxisFault(Messages.getMessage("badIsolation00",
+                                                    isolation));
+        }
+        return isolation;
+    }
+
+    /**
+     * Pass a message from one side to the other.
+     *
+     * @param message the request or response to pass on
+     * @param context the context of the side it comes from
+     * @param isolation how much the other side is to be isolated
+     * @return the message the other side gets
+     */
+    private static Message copy(Message message, MessageContext context,
+                                String isolation) throws AxisFault {
+        Message copy;
+        if (LocalTransport.ISOLATION_SHARED.equals(isolation)) {
+            copy = new Message(message.getSOAPEnvelope());
+        } else if (LocalTransport.ISOLATION_BYTES.equals(isolation)) {
+            // attachments included
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                message.writeTo(out);
+            } catch (Exception e) {
+                throw AxisFault.makeFault(e);
+            }
+            return new Message(new ByteArrayInputStream(out.toByteArray()),
+                               false,
+                               message.getContentType(
+                                       context.getSOAPConstants()),
+                               null);
+        } else {
+            // force the format to String in order to exercise the
+            // serializers and deserializers.
+// START FIX: http://nagoya.apache.org/bugzilla/show_bug.cgi?id=17161
+            String msgStr = message.getSOAPPartAsString();
+
+            if (log.isDebugEnabled()) {
+                log.debug(Messages.getMessage("sendingXML00", "LocalSender"));
+                log.debug(msgStr);
+            }
+
+            copy = new Message(msgStr);
+// END FIX: http://nagoya.apache.org/bugzilla/show_bug.cgi?id=17161
+        }
+
+        Attachments copyAttachments = copy.getAttachmentsImpl();
+        Attachments attachments = message.getAttachmentsImpl();
+
+        if (null != attachments && null != copyAttachments) {
+            copyAttachments.setAttachmentParts(attachments.getAttachments());
+        }
+        return copy;
+    }
 }
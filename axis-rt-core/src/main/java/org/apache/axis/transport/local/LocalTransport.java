@@ -21,13 +21,27 @@ import org.apache.axis.MessageContext;
 import org.apache.axis.client.Call;
 import org.apache.axis.client.Transport;
 import org.apache.axis.server.AxisServer;
+import org.apache.axis.utils.Messages;
 
 /**
  * A Transport which will cause an invocation via a "local" AxisServer.
  * 
- * Serialization will still be tested, as the requests and responses
- * pass through a String conversion (see LocalSender.java) - this is
- * primarily for testing and debugging.
+ * By default serialization will still be tested, as the requests and
+ * responses pass through a String conversion (see LocalSender.java) -
+ * this is primarily for testing and debugging.  For calls between
+ * services in the same JVM, a lower isolation level may be set, with
+ * {@link #setIsolation} or the {@link #ISOLATION} property of the Call:
+ * <ul>
+ * <li>{@link #ISOLATION_SERIALIZE}: through a String, as described above.
+ * <li>{@link #ISOLATION_BYTES}: the messages are written to a byte buffer,
+ *     attachments included, which the other side reads.  The two sides
+ *     share no objects, but no characters are converted twice.
+ * <li>{@link #ISOLATION_SHARED}: the envelopes are handed over as they
+ *     are, so nothing is serialized or parsed.  Parameters and return
+ *     values are passed by reference, and the server sees the objects
+ *     the client passed; don't use it unless both sides can cope with
+ *     that.
+ * </ul>
  * 
  * This transport will either allow the LocalSender to create its own
  * AxisServer, or if you have one you've configured and wish to use,
@@ -41,12 +55,20 @@ public class LocalTransport extends Transport
 {
     public static final String LOCAL_SERVER = "LocalTransport.AxisServer";
     public static final String REMOTE_SERVICE = "LocalTransport.RemoteService";
+    public static final String ISOLATION = "LocalTransport.Isolation";
+
+    public static final String ISOLATION_SERIALIZE = "serialize";
+    public static final String ISOLATION_BYTES = "bytes";
+    public static final String ISOLATION_SHARED = "shared";
 
     private AxisServer server;
 
     /** The name of a particular remote service to invoke.  */
     private String remoteServiceName;
 
+    /** How the messages are passed, or null for the default. */
+    private String isolation;
+
     /** No-arg constructor, which will use an AxisServer constructed
      * by the LocalSender (see LocalSender.java).
      * 
@@ -79,6 +101,29 @@ public class LocalTransport extends Transport
         this.remoteServiceName = remoteServiceName;
     }
 
+    /**
+     * Set how the messages are passed between the client and the server.
+     *
+     * @param isolation one of the <code>ISOLATION_</code> constants
+     * @throws IllegalArgumentException if it is not
+     */
+    public void setIsolation(String isolation) {
+        if (!isIsolation(isolation)) {
+            throw new IllegalArgumentException(
+                    Messages.getMessage("badIsolation00", isolation));
+        }
+        this.isolation = isolation;
+    }
+
+    /**
+     * Tell whether a value is one of the isolation levels.
+     */
+    static boolean isIsolation(String isolation) {
+        return ISOLATION_SERIALIZE.equals(isolation) ||
+               ISOLATION_BYTES.equals(isolation) ||
+               ISOLATION_SHARED.equals(isolation);
+    }
+
     /**
      * Set up any transport-specific derived properties in the message context.
      * @param mc the context to set up
@@ -93,6 +138,8 @@ public class LocalTransport extends Transport
             mc.setProperty(LOCAL_SERVER, server);
         if (remoteServiceName != null)
             mc.setProperty(REMOTE_SERVICE, remoteServiceName);
+        if (isolation != null)
+            mc.setProperty(ISOLATION, isolation);
     }
 }
 
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.utils;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * A BeanPropertyDescriptor which reads and writes the property through a
+ * {@link BeanAccessor} rather than through reflection.  Indexed getters and
+ * setters are still invoked reflectively.
+ *
+ * @see BeanUtils#processPropertyDescriptors
+ */
+public class AccessorPropertyDescriptor extends BeanPropertyDescriptor {
+    private BeanAccessor accessor;
+    private int index;
+
+    /**
+     * @param pd the descriptor of the property
+     * @param accessor the accessor of the declaring class
+     * @param index the index of the property in the accessor
+     */
+    public AccessorPropertyDescriptor(BeanPropertyDescriptor pd,
+                                      BeanAccessor accessor,
+                                      int index) {
+        super(pd.myPD);
+        this.accessor = accessor;
+        this.index = index;
+    }
+
+    /**
+     * Get the property value
+     * @param obj is the object
+     * @return the entire propery value
+     */
+    public Object get(Object obj)
+        throws InvocationTargetException, IllegalAccessException {
+        if (!isReadable()) {
+            return super.get(obj);
+        }
+        return accessor.get(obj, index);
+    }
+
+    /**
+     * Set the property value
+     * @param obj is the object
+     * @param newValue is the new value
+     */
+    public void set(Object obj, Object newValue)
+        throws InvocationTargetException, IllegalAccessException {
+        if (!isWriteable()) {
+            super.set(obj, newValue);
+            return;
+        }
+        accessor.set(obj, index, newValue);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.utils;
+
+/**
+ * Direct access to the properties of a bean class, used instead of
+ * reflective calls to the getters and setters.
+ * <p>
+ * A bean class offers an accessor through a public static
+ * <code>getBeanAccessor()</code> method, declared on the class itself or on
+ * its <code>_Helper</code> class, the same way it offers its
+ * <code>getTypeDesc()</code> metadata.  WSDL2Java generates this method for
+ * the beans it writes.  An accessor only needs to cover the properties
+ * declared by its own class; the properties of a superclass are handled by
+ * the superclass accessor, if any, or by reflection.
+ * <p>
+ * Primitive property values are passed as their wrapper objects.
+ *
+ * @see BeanUtils#getBeanAccessor(Class)
+ */
+public interface BeanAccessor {
+
+    /**
+     * Returns the index used to access a property.
+     *
+     * @param name the name of the bean property
+     * @return the index, or -1 if this accessor doesn't handle the property
+     */
+    int getPropertyIndex(String name);
+
+    /**
+     * Gets the value of a property.
+     *
+     * @param bean the bean
+     * @param property the index of the property
+     * @return the property value
+     */
+    Object get(Object bean, int property);
+
+    /**
+     * Sets the value of a property.
+     *
+     * @param bean the bean
+     * @param property the index of the property
+     * @param value the new value
+     */
+    void set(Object bean, int property, Object value);
+}
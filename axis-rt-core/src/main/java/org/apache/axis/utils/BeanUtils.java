@@ -21,17 +21,22 @@ import org.apache.axis.InternalException;
 import org.apache.axis.components.logger.LogFactory;
 import org.apache.axis.description.FieldDesc;
 import org.apache.axis.description.TypeDesc;
+import org.apache.axis.utils.cache.MethodCache;
 import org.apache.commons.logging.Log;
 
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Vector;
+import java.util.WeakHashMap;
 
 public class BeanUtils {
 
@@ -39,6 +44,17 @@ public class BeanUtils {
     protected static Log log =
         LogFactory.getLog(BeanUtils.class.getName());
 
+    private static final Class[] noClasses = new Class[] {};
+
+    /**
+     * BeanAccessors by class.  The accessors are weakly referenced so that
+     * they don't keep their class loader alive; NO_ACCESSOR marks classes
+     * that have none.
+     */
+    private static Map accessorMap =
+        Collections.synchronizedMap(new WeakHashMap());
+    private static final Object NO_ACCESSOR = new Object();
+
     /**
      * Create a BeanPropertyDescriptor array for the indicated class.
      * @param javaType
@@ -212,6 +228,9 @@ public class BeanUtils {
                 }
             }
 
+            // Bypass reflection for the properties a BeanAccessor covers
+            useBeanAccessors(pd, cls);
+
             // If typeDesc meta data exists, re-order according to the fields
             if (typeDesc != null &&
                     typeDesc.getFields(true) != null) {
@@ -254,6 +273,90 @@ public class BeanUtils {
         return myPd;
     }
 
+    /**
+     * Replaces the getter/setter based descriptors with ones using the
+     * BeanAccessors of the class and its superclasses.
+     */
+    private static void useBeanAccessors(ArrayList pd, Class cls) {
+        ArrayList accessors = null;
+        for (Class c = cls; c != null && c != Object.class;
+             c = c.getSuperclass()) {
+            BeanAccessor accessor = getBeanAccessor(c);
+            if (accessor != null) {
+                if (accessors == null) {
+                    accessors = new ArrayList();
+                }
+                accessors.add(accessor);
+            }
+        }
+        if (accessors == null) {
+            return;
+        }
+
+        for (int i = 0; i < pd.size(); i++) {
+            BeanPropertyDescriptor bpd = (BeanPropertyDescriptor) pd.get(i);
+            // Leave public fields alone
+            if (bpd.getClass() != BeanPropertyDescriptor.class) {
+                continue;
+            }
+            for (int j = 0; j < accessors.size(); j++) {
+                BeanAccessor accessor = (BeanAccessor) accessors.get(j);
+                int index = accessor.getPropertyIndex(bpd.getName());
+                if (index >= 0) {
+                    pd.set(i, new AccessorPropertyDescriptor(bpd, accessor,
+                                                             index));
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the BeanAccessor for the properties declared by a class.
+     *
+     * This checks for a static getBeanAccessor() method declared on the
+     * class or its _Helper class.  A method inherited from a superclass is
+     * ignored, since that accessor only knows the superclass properties.
+     *
+     * @param cls the bean class
+     * @return the accessor, or null if the class has none
+     */
+    public static BeanAccessor getBeanAccessor(Class cls) {
+        Object result = accessorMap.get(cls);
+        if (result instanceof WeakReference) {
+            result = ((WeakReference) result).get();
+        }
+
+        if (result == null) {
+            BeanAccessor accessor = null;
+            try {
+                Method getBeanAccessor =
+                    MethodCache.getInstance().getMethod(cls,
+                                                        "getBeanAccessor",
+                                                        noClasses);
+                if (getBeanAccessor != null &&
+                        Modifier.isStatic(getBeanAccessor.getModifiers())) {
+                    String declaringClass =
+                        getBeanAccessor.getDeclaringClass().getName();
+                    if (declaringClass.equals(cls.getName()) ||
+                            declaringClass.equals(cls.getName() + "_Helper")) {
+                        accessor = (BeanAccessor)
+                            getBeanAccessor.invoke(null, noArgs);
+                    }
+                }
+            } catch (Exception e) {
+            }
+            if (accessor != null) {
+                accessorMap.put(cls, new WeakReference(accessor));
+            } else {
+                accessorMap.put(cls, NO_ACCESSOR);
+            }
+            return accessor;
+        }
+
+        return (result == NO_ACCESSOR) ? null : (BeanAccessor) result;
+    }
+
     public static BeanPropertyDescriptor getAnyContentPD(Class javaType) {
         PropertyDescriptor [] pds = getPropertyDescriptors(javaType);
         return getSpecificPD(pds, Constants.ANYCONTENT);
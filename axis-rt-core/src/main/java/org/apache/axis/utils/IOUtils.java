@@ -16,8 +16,11 @@
 
 package org.apache.axis.utils;
 
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 
 /**
  * Utility class containing IO helper methods
@@ -62,4 +65,44 @@ public class IOUtils
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Read a stream to its end, and close it.
+     *
+     * @return all the bytes of the stream
+     */
+    public static byte[] readFully(InputStream in)
+    throws IOException
+    {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            for (int n; (n = in.read(buf)) != -1; ) {
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Read a reader to its end, and close it.
+     *
+     * @return all the characters of the reader
+     */
+    public static String readFully(Reader in)
+    throws IOException
+    {
+        try {
+            CharArrayWriter out = new CharArrayWriter();
+            char[] buf = new char[4096];
+            for (int n; (n = in.read(buf)) != -1; ) {
+                out.write(buf, 0, n);
+            }
+            return out.toString();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -132,6 +132,14 @@ public class LockableHashtable extends Hashtable {
         return put(p1, p2, false);
     }
 
+    /**
+     * Removes all entries, locked or not, and their locks.
+     */
+    public synchronized void clear() {
+        super.clear();
+        lockedEntries = null;
+    }
+
     /**
      * Checks to see if an item is locked before it is removed.
      */
@@ -85,6 +85,18 @@ public class NSStack {
         stack[top] = null;
     }
     
+    /**
+     * Empty the stack, so that it can be used again as if it were new.
+     */
+    public void reset() {
+        for (int i = 0; i < stack.length; i++) {
+            stack[i] = null;
+        }
+        top = 0;
+        iterator = 0;
+        currentDefaultNS = -1;
+    }
+
     /**
      * Remove the top frame from the stack.
      */
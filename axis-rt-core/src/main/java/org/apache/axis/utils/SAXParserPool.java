@@ -0,0 +1,185 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.utils;
+
+import javax.xml.parsers.SAXParser;
+
+/**
+ * A bounded pool of idle SAX parsers, split into stripes so that threads
+ * parsing concurrently rarely contend for the same lock.  A thread always
+ * uses the stripe selected by its identity hash, so a parser released by a
+ * thread is normally handed back to that same thread.
+ * <p>
+ * The pool only stores parsers; creating and resetting them is left to
+ * {@link XMLUtils}.
+ *
+ * @see XMLUtils#getSAXParser()
+ * @see XMLUtils#releaseSAXParser(SAXParser)
+ */
+public class SAXParserPool {
+
+    private static class Stripe {
+        final SAXParser[] parsers;
+        int size = 0;
+        long hits = 0;
+        long misses = 0;
+        long discards = 0;
+
+        Stripe(int capacity) {
+            parsers = new SAXParser[capacity];
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes number of stripes; rounded up to a power of two
+     * @param maxSize maximum number of idle parsers kept in the pool
+     */
+    public SAXParserPool(int stripes, int maxSize) {
+        int n = 1;
+        while (n < stripes) {
+            n <<= 1;
+        }
+        int perStripe = Math.max(1, (maxSize + n - 1) / n);
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            this.stripes[i] = new Stripe(perStripe);
+        }
+        this.mask = n - 1;
+    }
+
+    private Stripe stripe() {
+        int h = System.identityHashCode(Thread.currentThread());
+        h ^= (h >>> 16);
+        return stripes[h & mask];
+    }
+
+    /**
+     * Takes an idle parser out of the pool.
+     *
+     * @return a parser, or null if the current stripe is empty
+     */
+    public SAXParser get() {
+        Stripe s = stripe();
+        synchronized (s) {
+            if (s.size == 0) {
+                s.misses++;
+                return null;
+            }
+            s.hits++;
+            SAXParser parser = s.parsers[--s.size];
+            s.parsers[s.size] = null;
+            return parser;
+        }
+    }
+
+    /**
+     * Puts a parser that has already been reset back into the pool.
+     *
+     * @return false if the pool was full and the parser was dropped
+     */
+    public boolean put(SAXParser parser) {
+        Stripe s = stripe();
+        synchronized (s) {
+            if (s.size == s.parsers.length) {
+                s.discards++;
+                return false;
+            }
+            s.parsers[s.size++] = parser;
+            return true;
+        }
+    }
+
+    /**
+     * Counts a parser that was not returned because it failed to reset.
+     */
+    public void discard() {
+        Stripe s = stripe();
+        synchronized (s) {
+            s.discards++;
+        }
+    }
+
+    /**
+     * Drops all idle parsers, e.g. after the parser factory changed.
+     */
+    public void clear() {
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe s = stripes[i];
+            synchronized (s) {
+                for (int j = 0; j < s.size; j++) {
+                    s.parsers[j] = null;
+                }
+                s.size = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of requests served from the pool.
+     */
+    public long getHits() {
+        long total = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (stripes[i]) {
+                total += stripes[i].hits;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of requests that found no idle parser.
+     */
+    public long getMisses() {
+        long total = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (stripes[i]) {
+                total += stripes[i].misses;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of released parsers that were not kept, either
+     * because the pool was full or because they could not be reset.
+     */
+    public long getDiscards() {
+        long total = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (stripes[i]) {
+                total += stripes[i].discards;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of idle parsers currently pooled.
+     */
+    public int getSize() {
+        int total = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (stripes[i]) {
+                total += stripes[i].size;
+            }
+        }
+        return total;
+    }
+}
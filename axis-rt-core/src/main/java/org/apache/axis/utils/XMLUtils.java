@@ -69,7 +69,7 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Stack;
+import java.lang.reflect.Method;
 
 
 public class XMLUtils {
@@ -82,15 +82,16 @@ public class XMLUtils {
 
     private static DocumentBuilderFactory dbf = getDOMFactory();
     private static SAXParserFactory       saxFactory;
-    private static Stack                  saxParsers = new Stack();
+    private static SAXParserPool          saxParsers;
     private static DefaultHandler doNothingContentHandler = new DefaultHandler();
 
     private static String EMPTY = "";
     private static ByteArrayInputStream bais = new ByteArrayInputStream(EMPTY.getBytes());
 
-    private static boolean tryReset= true;
+    /** SAXParser.reset(), if the JAXP implementation has it */
+    private static Method saxParserReset;
 
-    protected static boolean enableParserReuse = false;
+    protected static boolean enableParserReuse = true;
 
     private static class ThreadLocalDocumentBuilder extends ThreadLocal {
         protected Object initialValue() {
@@ -106,6 +107,22 @@ public class XMLUtils {
     private static ThreadLocalDocumentBuilder documentBuilder = new ThreadLocalDocumentBuilder(); 
     
     static {
+        int stripes = 2 * Runtime.getRuntime().availableProcessors();
+        int poolSize = 4 * stripes;
+        try {
+            poolSize = Integer.parseInt(AxisProperties.getProperty(
+                    AxisEngine.PROP_XML_SAX_PARSER_POOL_SIZE, "" + poolSize));
+        } catch (NumberFormatException e) {
+            // keep the default
+        }
+        saxParsers = new SAXParserPool(stripes, poolSize);
+
+        try {
+            saxParserReset = SAXParser.class.getMethod("reset", null);
+        } catch (NoSuchMethodException e) {
+            // JAXP 1.2; handlers are still reset individually
+        }
+
         // Initialize SAX Parser factory defaults
         initSAXFactory(null, true, false);
 
@@ -260,25 +277,21 @@ public class XMLUtils {
      *
      * @return a SAXParser instance.
      */
-    public static synchronized SAXParser getSAXParser() {
-        if(enableParserReuse && !saxParsers.empty()) {
-            return (SAXParser )saxParsers.pop();
+    public static SAXParser getSAXParser() {
+        if (enableParserReuse) {
+            SAXParser parser = saxParsers.get();
+            if (parser != null) {
+                return parser;
+            }
         }
 
         try {
-            SAXParser parser = saxFactory.newSAXParser();
-            XMLReader reader = parser.getXMLReader();
-            // parser.getParser().setEntityResolver(new DefaultEntityResolver());
-            // The above commented line and the following line are added
-            // for preventing XXE (bug #14105).
-            // We may need to uncomment the deprecated setting
-            // in case that it is considered necessary.
-            try {
-                reader.setEntityResolver(DefaultEntityResolver.INSTANCE);
-            } catch (Throwable t) {
-                log.debug("Failed to set EntityResolver on DocumentBuilder", t);
+            SAXParser parser;
+            // factories are not guaranteed to be thread safe
+            synchronized (saxFactory) {
+                parser = saxFactory.newSAXParser();
             }
-            reader.setFeature("http://xml.org/sax/features/namespace-prefixes", false);
+            configureSAXParser(parser.getXMLReader());
             return parser;
         } catch (ParserConfigurationException e) {
             log.error(Messages.getMessage("parserConfigurationException00"), e);
@@ -289,41 +302,69 @@ public class XMLUtils {
         }
     }
 
+    /**
+     * Apply the settings every parser handed out must have.
+     */
+    private static void configureSAXParser(XMLReader reader)
+            throws SAXException {
+        // parser.getParser().setEntityResolver(new DefaultEntityResolver());
+        // The above commented line and the following line are added
+        // for preventing XXE (bug #14105).
+        // We may need to uncomment the deprecated setting
+        // in case that it is considered necessary.
+        try {
+            reader.setEntityResolver(DefaultEntityResolver.INSTANCE);
+        } catch (Throwable t) {
+            log.debug("Failed to set EntityResolver on DocumentBuilder", t);
+        }
+        reader.setFeature("http://xml.org/sax/features/namespace-prefixes", false);
+    }
 
     /** Return a SAX parser for reuse.
      * @param parser A SAX parser that is available for reuse
      */
     public static void releaseSAXParser(SAXParser parser) {
-        if(!tryReset || !enableParserReuse) return;
+        if(!enableParserReuse) return;
 
         //Free up possible ref. held by past contenthandler.
         try{
+            if (saxParserReset != null) {
+                try {
+                    saxParserReset.invoke(parser, null);
+                } catch (Exception e) {
+                    // UnsupportedOperationException from the implementation;
+                    // fall back to resetting the handlers below
+                }
+            }
             XMLReader xmlReader= parser.getXMLReader();
             if(null != xmlReader){
                 xmlReader.setContentHandler(doNothingContentHandler);
                 xmlReader.setDTDHandler(doNothingContentHandler);
-                try {
-                    xmlReader.setEntityResolver(doNothingContentHandler);
-                } catch (Throwable t) {
-                    log.debug("Failed to set EntityResolver on DocumentBuilder", t);
-                }
                 try {
                     xmlReader.setErrorHandler(doNothingContentHandler);
                 } catch (Throwable t) {
                     log.debug("Failed to set ErrorHandler on DocumentBuilder", t);
                 }
+                // restores the XXE protection a reset may have dropped
+                configureSAXParser(xmlReader);
 
-                synchronized (XMLUtils.class ) {
-                    saxParsers.push(parser);
-                }
+                saxParsers.put(parser);
             }
             else {
-                tryReset= false;
+                saxParsers.discard();
             }
         } catch (org.xml.sax.SAXException e) {
-            tryReset= false;
+            saxParsers.discard();
         }
     }
+
+    /**
+     * Returns the pool of idle SAX parsers, e.g. to inspect its counters.
+     */
+    public static SAXParserPool getSAXParserPool() {
+        return saxParsers;
+    }
+
     /**
      * Get an empty new Document
      *
@@ -958,7 +999,7 @@ public class XMLUtils {
             encoding = (String) msgContext.getProperty(SOAPMessage.CHARACTER_SET_ENCODING);
         }
         if (msgContext != null && encoding == null && msgContext.getAxisEngine() != null) {
-            encoding = (String) msgContext.getAxisEngine().getOption(AxisEngine.PROP_XML_ENCODING);
+            encoding = msgContext.getAxisEngine().getOptionsSnapshot().getXMLEncoding();
         }
         if (encoding == null && defaultEncoder != null) {
             encoding = defaultEncoder.getEncoding();
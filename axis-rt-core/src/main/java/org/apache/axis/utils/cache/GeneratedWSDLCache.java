@@ -0,0 +1,199 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.utils.cache;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of serialized WSDL documents.  Entries are keyed by service name
+ * and by the base URL the WSDL was requested through, since the
+ * soap:address locations are rewritten for every request URL.  Each entry
+ * carries an entity tag derived from its content.
+ * <p>
+ * The number of entries is bounded, the least recently used entry being
+ * dropped first, so that requests through many host names can't grow the
+ * cache without limit.
+ *
+ * @see org.apache.axis.transport.http.QSWSDLHandler
+ */
+public class GeneratedWSDLCache {
+
+    /** Default maximum number of cached documents */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    /**
+     * A cached WSDL document.
+     */
+    public static class Entry {
+        private final String serviceName;
+        private final String wsdl;
+        private final String eTag;
+
+        Entry(String serviceName, String wsdl, String eTag) {
+            this.serviceName = serviceName;
+            this.wsdl = wsdl;
+            this.eTag = eTag;
+        }
+
+        /**
+         * Returns the serialized WSDL.
+         */
+        public String getWSDL() {
+            return wsdl;
+        }
+
+        /**
+         * Returns the quoted entity tag of the document.
+         */
+        public String getETag() {
+            return eTag;
+        }
+    }
+
+    private final Map entries;
+
+    /** Changed whenever documents are dropped */
+    private long generation = 0;
+
+    public GeneratedWSDLCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries maximum number of documents kept
+     */
+    public GeneratedWSDLCache(int maxEntries) {
+        entries = new Entries(maxEntries);
+    }
+
+    /**
+     * Drops the least recently used entry beyond the maximum.
+     */
+    private static class Entries extends LinkedHashMap {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        Entries(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    /**
+     * Looks up the WSDL of a service.
+     *
+     * @param serviceName the name of the service
+     * @param baseURL the base URL of the request
+     * @return the cached document, or null
+     */
+    public synchronized Entry get(String serviceName, String baseURL) {
+        return (Entry) entries.get(key(serviceName, baseURL));
+    }
+
+    /**
+     * Returns the generation of the cache, which changes whenever
+     * documents are dropped.  It is to be taken before generating a
+     * document to {@link #put}.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Caches the WSDL of a service, unless documents have been dropped
+     * since it was generated, as it may then be out of date.
+     *
+     * @param serviceName the name of the service
+     * @param baseURL the base URL of the request
+     * @param wsdl the serialized document
+     * @param generation the generation of the cache before the document
+     *        was generated
+     * @return the new entry, cached or not
+     */
+    public Entry put(String serviceName, String baseURL, String wsdl,
+                     long generation) {
+        Entry entry = new Entry(serviceName, wsdl, makeETag(wsdl));
+        synchronized (this) {
+            if (generation == this.generation) {
+                entries.put(key(serviceName, baseURL), entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Drops all documents of a service.
+     */
+    public synchronized void invalidate(String serviceName) {
+        generation++;
+        for (Iterator i = entries.values().iterator(); i.hasNext();) {
+            if (((Entry) i.next()).serviceName.equals(serviceName)) {
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops all documents.
+     */
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of cached documents.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static String key(String serviceName, String baseURL) {
+        return serviceName + ' ' + baseURL;
+    }
+
+    private static String makeETag(String wsdl) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("MD5").digest(
+                    wsdl.getBytes("UTF-8"));
+        } catch (NoSuchAlgorithmException e) {
+            // Fall back to the string hash; still changes with the content
+            return "\"" + Integer.toHexString(wsdl.hashCode()) + "\"";
+        } catch (UnsupportedEncodingException e) {
+            return "\"" + Integer.toHexString(wsdl.hashCode()) + "\"";
+        }
+        StringBuffer sb = new StringBuffer(digest.length * 2 + 2);
+        sb.append('"');
+        for (int i = 0; i < digest.length; i++) {
+            sb.append(Character.forDigit((digest[i] >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(digest[i] & 0xf, 16));
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+}
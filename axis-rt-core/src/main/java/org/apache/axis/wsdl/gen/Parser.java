@@ -38,7 +38,9 @@ import javax.wsdl.WSDLException;
 import javax.xml.parsers.ParserConfigurationException;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Vector;
@@ -82,6 +84,12 @@ public class Parser {
     /** Field timeoutms */
     private long timeoutms = 45000;    // 45 sec default
 
+    /** Field threads */
+    private int threads = 1;
+
+    /** Field importThreads */
+    private int importThreads = 0;
+
     /** Field genFactory */
     private GeneratorFactory genFactory = null;
 
@@ -216,6 +224,49 @@ public class Parser {
         this.timeoutms = timeout;
     }
 
+    /**
+     * Return the number of threads generating code
+     *
+     * @return
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set the number of threads generating code.  With more than one, the
+     * generators of the types, and then those of the other entries, run at
+     * the same time, so they must not share state.  If the factory returns
+     * the same generator for two entries, they are generated one after the
+     * other anyway.  The default is 1.
+     *
+     * @param threads
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Return the number of threads reading the imported documents, or 0
+     * if the symbol table is left to tell.
+     *
+     * @return
+     */
+    public int getImportThreads() {
+        return importThreads;
+    }
+
+    /**
+     * Set the number of threads reading the imported documents.
+     *
+     * @param importThreads the number of threads, or 0 to use the Axis
+     *                      property the symbol table reads it from
+     * @see SymbolTable#setImportThreads(int)
+     */
+    public void setImportThreads(int importThreads) {
+        this.importThreads = Math.max(0, importThreads);
+    }
+
     /**
      * Method getUsername
      *
@@ -326,6 +377,7 @@ public class Parser {
         symbolTable.setQuiet(quiet);
         symbolTable.setWrapArrays(wrapArrays);
         symbolTable.setEntityResolver(entityResolver);
+        symbolTable.setImportThreads(importThreads);
 
         // We run the actual Emitter in a thread that we can kill
         WSDLRunnable runnable = new WSDLRunnable(symbolTable, wsdlURI);
@@ -431,6 +483,7 @@ public class Parser {
         symbolTable = new SymbolTable(genFactory.getBaseTypeMapping(), imports,
                 verbose, nowrap);
         symbolTable.setEntityResolver(entityResolver);
+        symbolTable.setImportThreads(importThreads);
 
         symbolTable.populate(context, doc);
         generate(symbolTable);
@@ -474,6 +527,7 @@ public class Parser {
         // Generate bindings for types
         generateTypes(symbolTable);
 
+        Vector entries = new Vector();
         Iterator it = symbolTable.getHashMap().values().iterator();
 
         while (it.hasNext()) {
@@ -481,11 +535,9 @@ public class Parser {
 
             for (int i = 0; i < v.size(); ++i) {
                 SymTabEntry entry = (SymTabEntry) v.elementAt(i);
-                Generator gen = null;
 
                 if (entry instanceof MessageEntry) {
-                    gen = genFactory.getGenerator(
-                            ((MessageEntry) entry).getMessage(), symbolTable);
+                    entries.add(entry);
                 } else if (entry instanceof PortTypeEntry) {
                     PortTypeEntry pEntry = (PortTypeEntry) entry;
 
@@ -496,8 +548,7 @@ public class Parser {
                         continue;
                     }
 
-                    gen = genFactory.getGenerator(pEntry.getPortType(),
-                            symbolTable);
+                    entries.add(entry);
                 } else if (entry instanceof BindingEntry) {
                     BindingEntry bEntry = (BindingEntry) entry;
                     Binding binding = bEntry.getBinding();
@@ -509,18 +560,15 @@ public class Parser {
                         continue;
                     }
 
-                    gen = genFactory.getGenerator(binding, symbolTable);
+                    entries.add(entry);
                 } else if (entry instanceof ServiceEntry) {
-                    gen = genFactory.getGenerator(
-                            ((ServiceEntry) entry).getService(), symbolTable);
-                }
-
-                if (gen != null) {
-                    generate(gen);
+                    entries.add(entry);
                 }
             }
         }
 
+        generate(entries, symbolTable);
+
         // Output extra stuff (deployment files and faults)
         // outside of the recursive emit method.
         Generator gen = genFactory.getGenerator(def, symbolTable);
@@ -537,6 +585,7 @@ public class Parser {
      */
     private void generateTypes(SymbolTable symbolTable) throws IOException {
 
+        Vector entries = new Vector();
         Map elements = symbolTable.getElementIndex();
         Collection elementCollection = elements.values();
         for (Iterator i = elementCollection.iterator(); i.hasNext(); ) {
@@ -558,9 +607,7 @@ public class Parser {
                     && !Utils.isXsNode(type.getNode(), "group")
                     && type.isReferenced() && isType
                     && (type.getBaseType() == null)) {
-                Generator gen = genFactory.getGenerator(type, symbolTable);
-
-                generate(gen);
+                entries.add(type);
             }
         }
 
@@ -585,10 +632,183 @@ public class Parser {
                     && !Utils.isXsNode(type.getNode(), "group")
                     && type.isReferenced() && isType
                     && (type.getBaseType() == null)) {
-                Generator gen = genFactory.getGenerator(type, symbolTable);
+                entries.add(type);
+            }
+        }
+
+        generate(entries, symbolTable);
+    }    // generateTypes
+
+    /**
+     * Get the generator of an entry from the factory.
+     *
+     * @param entry
+     * @param symbolTable
+     * @return
+     */
+    private Generator getGenerator(SymTabEntry entry, SymbolTable symbolTable) {
+        if (entry instanceof TypeEntry) {
+            return genFactory.getGenerator((TypeEntry) entry, symbolTable);
+        } else if (entry instanceof MessageEntry) {
+            return genFactory.getGenerator(
+                    ((MessageEntry) entry).getMessage(), symbolTable);
+        } else if (entry instanceof PortTypeEntry) {
+            return genFactory.getGenerator(
+                    ((PortTypeEntry) entry).getPortType(), symbolTable);
+        } else if (entry instanceof BindingEntry) {
+            return genFactory.getGenerator(
+                    ((BindingEntry) entry).getBinding(), symbolTable);
+        } else {
+            return genFactory.getGenerator(
+                    ((ServiceEntry) entry).getService(), symbolTable);
+        }
+    }    // getGenerator
 
+    /**
+     * Generate the given entries, with as many threads as we are told to.
+     *
+     * @param entries
+     * @param symbolTable
+     * @throws IOException
+     */
+    private void generate(Vector entries, SymbolTable symbolTable)
+            throws IOException {
+
+        if (threads > 1 && entries.size() > 1) {
+
+            // The generators are all got before any is run, which only
+            // works if the factory makes a new one for each entry.
+            Generator[] gens = new Generator[entries.size()];
+            Map seen = new IdentityHashMap();
+            boolean distinct = true;
+
+            for (int i = 0; i < gens.length && distinct; ++i) {
+                gens[i] = getGenerator((SymTabEntry) entries.elementAt(i),
+                        symbolTable);
+                distinct = gens[i] == null || seen.put(gens[i], gens[i]) == null;
+            }
+
+            if (distinct) {
+                new Generation(gens).run(threads);
+                return;
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Generators are shared, generating with one thread");
+            }
+        }
+
+        for (int i = 0; i < entries.size(); ++i) {
+            Generator gen = getGenerator((SymTabEntry) entries.elementAt(i),
+                    symbolTable);
+
+            if (gen != null) {
                 generate(gen);
             }
         }
-    }    // generateTypes
+    }    // generate
+
+    /**
+     * Runs generators on several threads, each taking the next generator
+     * until there are none left or one of them has failed.
+     */
+    private static class Generation implements Runnable {
+
+        /** Field gens */
+        private final Generator[] gens;
+
+        /** Field next */
+        private int next = 0;
+
+        /** Field failure */
+        private Throwable failure = null;
+
+        /**
+         * Constructor Generation
+         *
+         * @param gens
+         */
+        Generation(Generator[] gens) {
+            this.gens = gens;
+        }    // ctor
+
+        /**
+         * Run the generators with the calling thread and threads - 1 more,
+         * and throw what the first one to fail threw.
+         *
+         * @param threads
+         * @throws IOException
+         */
+        void run(int threads) throws IOException {
+            Thread[] workers =
+                    new Thread[Math.min(threads, gens.length) - 1];
+
+            for (int i = 0; i < workers.length; ++i) {
+                workers[i] = new Thread(this);
+                workers[i].setDaemon(true);
+                workers[i].start();
+            }
+
+            run();
+
+            try {
+                for (int i = 0; i < workers.length; ++i) {
+                    workers[i].join();
+                }
+            } catch (InterruptedException e) {
+
+                // We have timed out; stop the workers after their current
+                // generators.
+                fail(e);
+                throw new InterruptedIOException(
+                        Messages.getMessage("timedOut"));
+            }
+
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+        }    // run
+
+        /**
+         * Method run
+         */
+        public void run() {
+            while (true) {
+                Generator gen;
+
+                synchronized (this) {
+                    if (failure != null || next == gens.length) {
+                        return;
+                    }
+                    gen = gens[next++];
+                }
+
+                if (gen == null) {
+                    continue;
+                }
+
+                try {
+                    generate(gen);
+                } catch (Throwable e) {
+                    fail(e);
+                    return;
+                }
+            }
+        }    // run
+
+        /**
+         * Method fail
+         *
+         * @param e
+         */
+        private synchronized void fail(Throwable e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }    // fail
+    }    // Generation
 }    // class Parser
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.wsdl.symbolTable;
+
+import org.apache.axis.AxisProperties;
+import org.apache.axis.utils.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The content of the WSDL and schema documents read by symbol tables,
+ * shared by all the symbol tables of a JVM, so that documents imported
+ * by several WSDL documents, or parsed again, are read only once.
+ * <p>
+ * The content of a <code>file:</code> URL is kept as long as the file is
+ * not modified.  The content of any other URL is only kept if the cache
+ * has a time to live, and for that long.  The least recently used content
+ * is dropped when there are too many documents.
+ * <p>
+ * Only the documents a symbol table reads itself are cached; those given
+ * by an entity resolver are not.  The default cache is configured with the
+ * Axis properties {@link #PROP_MAX_ENTRIES} and {@link #PROP_TIME_TO_LIVE}.
+ */
+public class DocumentCache {
+
+    /** Maximum number of documents kept, or 0 not to keep any */
+    public static final String PROP_MAX_ENTRIES =
+        "axis.wsdl.documentCache.maxEntries";
+    /** Milliseconds the content of a URL other than a file is kept */
+    public static final String PROP_TIME_TO_LIVE =
+        "axis.wsdl.documentCache.ttl";
+
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+    public static final long DEFAULT_TIME_TO_LIVE = 0;
+
+    private static DocumentCache defaultCache;
+
+    /**
+     * The content of a document, and how to tell whether it is still
+     * current: the time the file was modified and its length, or when the
+     * content expires.
+     */
+    private static final class Entry {
+        final byte[] content;
+        final long lastModified;
+        final long length;
+        final long expires;
+
+        Entry(byte[] content, long lastModified, long length, long expires) {
+            this.content = content;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.expires = expires;
+        }
+    }
+
+    private final int maxEntries;
+    private final long timeToLive;
+
+    /** Entries by URL, least recently used first */
+    private final Map entries = new LinkedHashMap(16, 0.75f, true);
+
+    /**
+     * Returns the cache the symbol tables use unless given another one,
+     * configured with the Axis properties when first asked for.
+     */
+    public static synchronized DocumentCache getDefault() {
+        if (defaultCache == null) {
+            defaultCache = new DocumentCache(
+                    (int) AxisProperties.getLongProperty(PROP_MAX_ENTRIES,
+                                                         DEFAULT_MAX_ENTRIES),
+                    AxisProperties.getLongProperty(PROP_TIME_TO_LIVE,
+                                                   DEFAULT_TIME_TO_LIVE));
+        }
+        return defaultCache;
+    }
+
+    /**
+     * Sets the cache the symbol tables use unless given another one.
+     *
+     * @param cache the cache, or null to configure a new one with the
+     *        Axis properties when next asked for
+     */
+    public static synchronized void setDefault(DocumentCache cache) {
+        defaultCache = cache;
+    }
+
+    /**
+     * @param maxEntries the most documents to keep, or 0 to keep none
+     * @param timeToLive milliseconds the content of a URL other than a
+     *        file is kept, or 0 not to keep it at all
+     */
+    public DocumentCache(int maxEntries, long timeToLive) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.timeToLive = Math.max(0, timeToLive);
+    }
+
+    /**
+     * Returns the content of a URL, if it is kept and still current.
+     *
+     * @return the content, or null if it is to be read
+     */
+    public byte[] get(URL url) {
+        String key = url.toString();
+        File file = getFile(url);
+        synchronized (entries) {
+            Entry entry = (Entry) entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (file != null
+                    ? file.lastModified() == entry.lastModified
+                            && file.length() == entry.length
+                    : entry.expires > System.currentTimeMillis()) {
+                return entry.content;
+            }
+            entries.remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the content of a URL, and keeps it if it may be kept.
+     *
+     * @return the content
+     * @throws IOException if the URL cannot be read
+     */
+    public byte[] read(URL url) throws IOException {
+        File file = getFile(url);
+        if (maxEntries == 0 || (file == null && timeToLive == 0)) {
+            return IOUtils.readFully(url.openStream());
+        }
+
+        // The file is looked at before it is read, so that if it is
+        // modified meanwhile, the content kept is not current.
+        long lastModified = file == null ? 0 : file.lastModified();
+        long length = file == null ? 0 : file.length();
+        byte[] content = IOUtils.readFully(url.openStream());
+        long expires = file == null ?
+                System.currentTimeMillis() + timeToLive : 0;
+        synchronized (entries) {
+            entries.put(url.toString(),
+                    new Entry(content, lastModified, length, expires));
+            Iterator i = entries.keySet().iterator();
+            while (entries.size() > maxEntries) {
+                i.next();
+                i.remove();
+            }
+        }
+        return content;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of documents kept.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the file a <code>file:</code> URL names, or null if it is
+     * not one or the file cannot be told, in which case the URL is cached
+     * like any other.
+     */
+    private static File getFile(URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(new URI(url.toString()));
+        } catch (Exception e) {
+            // Such as a URL with spaces in it, which is no URI
+            return null;
+        }
+    }
+}
@@ -0,0 +1,664 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.wsdl.symbolTable;
+
+import org.apache.axis.Constants;
+import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.utils.IOUtils;
+import org.apache.axis.utils.Messages;
+import org.apache.axis.utils.XMLUtils;
+import org.apache.commons.logging.Log;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the WSDL and schema documents a symbol table is populated from.
+ * <p>
+ * Each document is read once, through the entity resolver if there is
+ * one, and through the {@link DocumentCache} otherwise; WSDL4J and the
+ * symbol table are both given the same content.  With more than one
+ * thread, the documents a document imports or includes are read and
+ * parsed by other threads as soon as it has been parsed, while the
+ * symbol table goes on populating itself in the same order as ever, and
+ * only waits for the documents it gets to before they are ready.
+ * <p>
+ * The entity resolver is never called by two threads at once.
+ */
+class DocumentLoader implements EntityResolver {
+
+    /** Field log */
+    private static final Log log =
+            LogFactory.getLog(DocumentLoader.class.getName());
+
+    /**
+     * The content of a document, as the entity resolver gave it or as it
+     * was read.  When it has neither bytes nor characters, the parser
+     * reads it from its system id.
+     */
+    private static final class Content {
+
+        /** Field systemId */
+        String systemId;
+
+        /** Field publicId */
+        String publicId;
+
+        /** Field encoding */
+        String encoding;
+
+        /** Field bytes */
+        byte[] bytes;
+
+        /** Field chars */
+        String chars;
+
+        /** Field cached */
+        boolean cached;
+
+        /**
+         * Return a new input source for the content.
+         *
+         * @return
+         */
+        InputSource getInputSource() {
+            InputSource is;
+
+            if (bytes != null) {
+                is = new InputSource(new ByteArrayInputStream(bytes));
+            } else if (chars != null) {
+                is = new InputSource(new StringReader(chars));
+            } else {
+                is = new InputSource();
+            }
+
+            is.setSystemId(systemId);
+            is.setPublicId(publicId);
+            is.setEncoding(encoding);
+
+            return is;
+        }
+    }    // class Content
+
+    /**
+     * A document being read, or read.  The document parsed is given to
+     * the symbol table once; it may change it, so it is given a new one,
+     * parsed from the same content, if it asks again.
+     */
+    private static final class Load {
+
+        /** Field systemId */
+        final String systemId;
+
+        /** Field key */
+        final String key;
+
+        /** Field content */
+        Content content;
+
+        /** Field document */
+        Document document;
+
+        /** Field failure */
+        Throwable failure;
+
+        /** Whether the entity resolver, if any, was asked without failing */
+        boolean resolved;
+
+        /** Field readTime */
+        long readTime = -1;
+
+        /** Field parseTime */
+        long parseTime;
+
+        /** Field done */
+        boolean done;
+
+        /** Field taken */
+        boolean taken;
+
+        /** Field timed */
+        boolean timed;
+
+        /**
+         * Constructor Load
+         *
+         * @param systemId
+         * @param key
+         */
+        Load(String systemId, String key) {
+            this.systemId = systemId;
+            this.key = key;
+        }
+    }    // class Load
+
+    /**
+     * Reads the documents queued, until the loader is closed.
+     */
+    private class Worker implements Runnable {
+
+        /**
+         * Method run
+         */
+        public void run() {
+            while (true) {
+                Load load;
+
+                synchronized (DocumentLoader.this) {
+                    while (!closed && queue.isEmpty()) {
+                        try {
+                            DocumentLoader.this.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+
+                    if (closed) {
+                        return;
+                    }
+
+                    load = (Load) queue.removeFirst();
+                }
+
+                DocumentLoader.this.run(load, true);
+            }
+        }    // run
+    }    // class Worker
+
+    /** Field symbolTable */
+    private final SymbolTable symbolTable;
+
+    /** Field entityResolver */
+    private final EntityResolver entityResolver;
+
+    /** Serializes the calls to an entity resolver not known to be thread safe */
+    private final Object resolverLock = new Object();
+
+    /** Field cache */
+    private final DocumentCache cache;
+
+    /** Field threads */
+    private final int threads;
+
+    /** Field timings */
+    private final List timings;
+
+    /** Loads by the URL of the document */
+    private final Map loads = new HashMap();
+
+    /** Loads not started yet, in the order they were found */
+    private final LinkedList queue = new LinkedList();
+
+    /** Field workers */
+    private int workers = 0;
+
+    /** Field closed */
+    private boolean closed = false;
+
+    /**
+     * Constructor DocumentLoader
+     *
+     * @param symbolTable    the symbol table populated
+     * @param entityResolver the entity resolver, or null
+     * @param cache          the cache, or null to read every document
+     * @param threads        the most threads reading documents, including
+     *                       the one populating the symbol table
+     * @param timings        the list to add the {@link DocumentTiming}s to
+     */
+    DocumentLoader(SymbolTable symbolTable, EntityResolver entityResolver,
+                   DocumentCache cache, int threads, List timings) {
+        this.symbolTable = symbolTable;
+        this.entityResolver = entityResolver;
+        this.cache = cache;
+        this.threads = threads;
+        this.timings = timings;
+    }
+
+    /**
+     * Start reading the documents the given node imports or includes,
+     * and those they import and include in turn, unless there is just
+     * one thread.
+     *
+     * @param context the URL of the document
+     * @param node
+     */
+    void prefetch(URL context, Node node) {
+
+        if (threads <= 1) {
+            return;
+        }
+
+        NodeList children = node.getChildNodes();
+
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+
+            if (child.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+
+            String namespace = child.getNamespaceURI();
+            String localName = child.getLocalName();
+            String location = null;
+
+            if (Constants.isSchemaXSD(namespace)) {
+                if ("import".equals(localName)) {
+                    String imported = Utils.getAttribute(child, "namespace");
+
+                    // The symbol table doesn't read the known ones
+                    if ((imported == null)
+                            || !symbolTable.isKnownNamespace(imported)) {
+                        location = Utils.getAttribute(child, "schemaLocation");
+                    }
+                } else if ("include".equals(localName)) {
+                    location = Utils.getAttribute(child, "schemaLocation");
+                }
+            } else if (Constants.isWSDL(namespace)
+                    && "import".equals(localName)) {
+                location = Utils.getAttribute(child, "location");
+            }
+
+            if (location != null) {
+                try {
+                    submit(SymbolTable.getURL(context, location).toString());
+                } catch (IOException e) {
+
+                    // The symbol table will report it, if it gets to it
+                }
+            }
+
+            prefetch(context, child);
+        }
+    }    // prefetch
+
+    /**
+     * Start reading the documents the given document imports or includes.
+     *
+     * @param systemId the system id it was read from
+     * @param doc
+     */
+    private void prefetch(String systemId, Document doc) {
+
+        URL context;
+
+        try {
+            context = new URL(systemId);
+        } catch (MalformedURLException e) {
+            return;
+        }
+
+        prefetch(context, doc);
+    }    // prefetch
+
+    /**
+     * Return the document with the given system id, parsed.
+     *
+     * @param systemId
+     * @return
+     * @throws IOException
+     * @throws SAXException
+     * @throws ParserConfigurationException
+     */
+    Document getDocument(String systemId)
+            throws IOException, SAXException, ParserConfigurationException {
+
+        long start = System.currentTimeMillis();
+        Load load = load(systemId, true);
+        Document doc = null;
+
+        synchronized (this) {
+            if (!load.taken && (load.document != null)) {
+                load.taken = true;
+                doc = load.document;
+                load.document = null;
+            }
+        }
+
+        if (doc == null) {
+            if (load.failure != null) {
+                rethrow(load.failure);
+            }
+
+            // Read for WSDL4J only, or asked for again
+            long parsed = System.currentTimeMillis();
+
+            doc = XMLUtils.newDocument(load.content.getInputSource());
+
+            if (!load.timed) {
+                load.parseTime = System.currentTimeMillis() - parsed;
+                prefetch(load.systemId, doc);
+            }
+        }
+
+        if (!load.timed) {
+            load.timed = true;
+            addTiming(load, System.currentTimeMillis() - start);
+        }
+
+        return doc;
+    }    // getDocument
+
+    /**
+     * Return the content of the document with the given system id, for
+     * WSDL4J to parse.
+     *
+     * @param publicId
+     * @param systemId
+     * @return
+     * @throws SAXException
+     * @throws IOException
+     */
+    public InputSource resolveEntity(String publicId, String systemId)
+            throws SAXException, IOException {
+
+        Load load = load(systemId, false);
+
+        if (load.failure != null) {
+
+            // Unless the entity resolver failed, WSDL4J reads it, and
+            // reports it failing, as it would without the loader
+            if (load.resolved) {
+                return new InputSource(systemId);
+            }
+
+            rethrow(load.failure);
+        }
+
+        return load.content.getInputSource();
+    }    // resolveEntity
+
+    /**
+     * Stop the threads reading documents.  The documents not being read
+     * yet are not read.
+     */
+    synchronized void close() {
+        closed = true;
+
+        for (Iterator i = queue.iterator(); i.hasNext();) {
+            loads.remove(((Load) i.next()).key);
+        }
+
+        queue.clear();
+        notifyAll();
+    }    // close
+
+    /**
+     * Queue the document with the given system id to be read, unless it
+     * is already.
+     *
+     * @param systemId
+     */
+    private synchronized void submit(String systemId) {
+
+        String key = getKey(systemId);
+
+        if (closed || loads.containsKey(key)) {
+            return;
+        }
+
+        Load load = new Load(systemId, key);
+
+        loads.put(key, load);
+        queue.addLast(load);
+
+        if (workers < threads - 1) {
+            Thread worker = new Thread(new Worker());
+
+            worker.setDaemon(true);
+            worker.start();
+
+            ++workers;
+        } else {
+            notify();
+        }
+    }    // submit
+
+    /**
+     * Return the load of the document with the given system id once it is
+     * done, reading it on this thread if no other thread has started to.
+     *
+     * @param systemId
+     * @param parse    whether to parse it if it is read on this thread
+     * @return
+     * @throws InterruptedIOException
+     */
+    private Load load(String systemId, boolean parse)
+            throws InterruptedIOException {
+
+        String key = getKey(systemId);
+        Load load;
+        boolean mine = false;
+
+        synchronized (this) {
+            load = (Load) loads.get(key);
+
+            if (load == null) {
+                load = new Load(systemId, key);
+                loads.put(key, load);
+                mine = true;
+            } else if (queue.remove(load)) {
+                mine = true;
+            }
+        }
+
+        if (mine) {
+            run(load, parse);
+        } else {
+            synchronized (this) {
+                while (!load.done) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException(
+                                Messages.getMessage("timedOut"));
+                    }
+                }
+            }
+        }
+
+        return load;
+    }    // load
+
+    /**
+     * Read a document, and parse it.  The documents it imports are queued
+     * before it is handed out, as the symbol table may change it.
+     *
+     * @param load
+     * @param parse
+     */
+    private void run(Load load, boolean parse) {
+
+        Content content = null;
+        Document document = null;
+        Throwable failure = null;
+        long readTime = -1;
+        long parseTime = 0;
+
+        try {
+            long start = System.currentTimeMillis();
+
+            content = read(load);
+            readTime = System.currentTimeMillis() - start;
+
+            if (parse) {
+                start = System.currentTimeMillis();
+                document = XMLUtils.newDocument(content.getInputSource());
+                parseTime = System.currentTimeMillis() - start;
+
+                prefetch(load.systemId, document);
+            }
+        } catch (Throwable t) {
+            failure = t;
+        }
+
+        synchronized (this) {
+            load.content = content;
+            load.document = document;
+            load.failure = failure;
+            load.readTime = readTime;
+            load.parseTime = parseTime;
+            load.done = true;
+
+            notifyAll();
+        }
+    }    // run
+
+    /**
+     * Read the content of a document, through the entity resolver if it
+     * gives it, and through the cache otherwise.
+     *
+     * @param load
+     * @return
+     * @throws IOException
+     * @throws SAXException
+     */
+    private Content read(Load load) throws IOException, SAXException {
+
+        String systemId = load.systemId;
+        InputSource is = null;
+
+        if (entityResolver instanceof ThreadSafeEntityResolver) {
+            is = entityResolver.resolveEntity(null, systemId);
+        } else if (entityResolver != null) {
+            synchronized (resolverLock) {
+                is = entityResolver.resolveEntity(null, systemId);
+            }
+        }
+
+        load.resolved = true;
+
+        Content content = new Content();
+
+        content.systemId = systemId;
+
+        if (is != null) {
+            if (is.getSystemId() != null) {
+                content.systemId = is.getSystemId();
+            }
+
+            content.publicId = is.getPublicId();
+            content.encoding = is.getEncoding();
+
+            if (is.getByteStream() != null) {
+                content.bytes = IOUtils.readFully(is.getByteStream());
+
+                return content;
+            }
+
+            if (is.getCharacterStream() != null) {
+                content.chars = IOUtils.readFully(is.getCharacterStream());
+
+                return content;
+            }
+        }
+
+        URL url;
+
+        try {
+            url = new URL(content.systemId);
+        } catch (MalformedURLException e) {
+
+            // Left to the parser to make sense of
+            return content;
+        }
+
+        if (cache != null) {
+            content.bytes = cache.get(url);
+            content.cached = content.bytes != null;
+
+            if (!content.cached) {
+                content.bytes = cache.read(url);
+            }
+        } else {
+            content.bytes = IOUtils.readFully(url.openStream());
+        }
+
+        return content;
+    }    // read
+
+    /**
+     * Method addTiming
+     *
+     * @param load
+     * @param waitTime
+     */
+    private void addTiming(Load load, long waitTime) {
+
+        DocumentTiming timing = new DocumentTiming(load.systemId,
+                load.readTime, load.parseTime, waitTime,
+                load.content.cached);
+
+        if (log.isDebugEnabled()) {
+            log.debug(timing.toString());
+        }
+
+        timings.add(timing);
+    }    // addTiming
+
+    /**
+     * Return the key of a document: its URL, written the same way however
+     * it was given.
+     *
+     * @param systemId
+     * @return
+     */
+    private static String getKey(String systemId) {
+        try {
+            return new URL(systemId).toString();
+        } catch (MalformedURLException e) {
+            return systemId;
+        }
+    }    // getKey
+
+    /**
+     * Rethrow the failure to read a document on the thread asking for it.
+     *
+     * @param failure
+     * @throws IOException
+     * @throws SAXException
+     */
+    private static void rethrow(Throwable failure)
+            throws IOException, SAXException {
+
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof SAXException) {
+            throw (SAXException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else {
+            throw new SAXException((Exception) failure);
+        }
+    }    // rethrow
+}    // class DocumentLoader
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.wsdl.symbolTable;
+
+/**
+ * How long a symbol table took to read and parse one of the WSDL and
+ * schema documents it was populated from, in milliseconds.  Documents
+ * read ahead by other threads are read and parsed while the symbol table
+ * is busy with other documents, so the time it waited for them is less
+ * than the time it took to read and parse them.
+ *
+ * @see SymbolTable#getDocumentTimings()
+ */
+public class DocumentTiming {
+
+    /** Field systemId */
+    private final String systemId;
+
+    /** Field readTime */
+    private final long readTime;
+
+    /** Field parseTime */
+    private final long parseTime;
+
+    /** Field waitTime */
+    private final long waitTime;
+
+    /** Field cached */
+    private final boolean cached;
+
+    /**
+     * Constructor DocumentTiming
+     *
+     * @param systemId
+     * @param readTime
+     * @param parseTime
+     * @param waitTime
+     * @param cached
+     */
+    DocumentTiming(String systemId, long readTime, long parseTime,
+                   long waitTime, boolean cached) {
+        this.systemId = systemId;
+        this.readTime = readTime;
+        this.parseTime = parseTime;
+        this.waitTime = waitTime;
+        this.cached = cached;
+    }
+
+    /**
+     * Return the system id of the document.
+     *
+     * @return
+     */
+    public String getSystemId() {
+        return systemId;
+    }
+
+    /**
+     * Return the time spent reading the document, or -1 if it was read
+     * while it was parsed, and the parse time includes it.
+     *
+     * @return
+     */
+    public long getReadTime() {
+        return readTime;
+    }
+
+    /**
+     * Return the time spent parsing the document.
+     *
+     * @return
+     */
+    public long getParseTime() {
+        return parseTime;
+    }
+
+    /**
+     * Return the time the symbol table waited for the document.
+     *
+     * @return
+     */
+    public long getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * Tell whether the content of the document came from the
+     * {@link DocumentCache}.
+     *
+     * @return
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Method toString
+     *
+     * @return
+     */
+    public String toString() {
+        return systemId + ": read " + readTime + " ms, parsed "
+                + parseTime + " ms, waited " + waitTime + " ms"
+                + (cached ? " (cached)" : "");
+    }
+}
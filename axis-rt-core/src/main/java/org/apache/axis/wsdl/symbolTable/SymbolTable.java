@@ -15,10 +15,12 @@
  */
 package org.apache.axis.wsdl.symbolTable;
 
+import org.apache.axis.AxisProperties;
 import org.apache.axis.Constants;
 import org.apache.axis.components.logger.LogFactory;
 import org.apache.axis.constants.Style;
 import org.apache.axis.constants.Use;
+import org.apache.axis.utils.IOUtils;
 import org.apache.axis.utils.Messages;
 import org.apache.axis.utils.URLHashSet;
 import org.apache.axis.utils.XMLUtils;
@@ -71,6 +73,7 @@ import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.rpc.holders.BooleanHolder;
 import javax.xml.rpc.holders.IntHolder;
 import javax.xml.rpc.holders.QNameHolder;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
@@ -100,6 +103,12 @@ import java.util.Vector;
 public class SymbolTable {
     private static final Log log = LogFactory.getLog(SymbolTable.class.getName());
 
+    /** Axis property giving the number of threads reading imported documents */
+    public static final String PROP_IMPORT_THREADS = "axis.wsdl.importThreads";
+
+    /** Number of threads reading imported documents unless configured */
+    public static final int DEFAULT_IMPORT_THREADS = 4;
+
     // used to cache dervied types
     protected HashMap derivedTypes = new HashMap();
 
@@ -178,7 +187,20 @@ public class SymbolTable {
     private String wsdlURI = null;
 
     private EntityResolver entityResolver;
-    
+
+    /** Field importThreads */
+    private int importThreads = 0;
+
+    /** Field documentCache */
+    private DocumentCache documentCache = DocumentCache.getDefault();
+
+    /** Field documentTimings */
+    private final List documentTimings =
+            Collections.synchronizedList(new ArrayList());
+
+    /** The loader of the documents, while the symbol table is populated */
+    private DocumentLoader loader;
+
     /** If this is false, we will "unwrap" literal arrays, generating a plan "String[]" instead
      * of "ArrayOfString" when encountering an element containing a single maxOccurs="unbounded"
      * inner element.
@@ -452,6 +474,80 @@ public class SymbolTable {
         this.entityResolver = entityResolver;
     }
 
+    /**
+     * Return the number of threads reading the imported WSDL and schema
+     * documents.  Unless set, it is given by the Axis property
+     * {@link #PROP_IMPORT_THREADS}.
+     * 
+     * @return 
+     */
+    public int getImportThreads() {
+
+        if (importThreads > 0) {
+            return importThreads;
+        }
+
+        String value = AxisProperties.getProperty(PROP_IMPORT_THREADS);
+
+        if (value != null) {
+            try {
+                return Math.max(1, Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                log.warn(Messages.getMessage("badIntProperty00",
+                        PROP_IMPORT_THREADS, value));
+            }
+        }
+
+        return DEFAULT_IMPORT_THREADS;
+    }
+
+    /**
+     * Set the number of threads reading the imported WSDL and schema
+     * documents, including the one populating the symbol table.  With more
+     * than one, the documents a document imports are read and parsed ahead,
+     * while the symbol table is populated from the documents read before,
+     * in the same order as with one.  The entity resolver is still called
+     * by one thread at a time.
+     * 
+     * @param importThreads the number of threads, or 0 to use the Axis
+     *                      property {@link #PROP_IMPORT_THREADS}
+     */
+    public void setImportThreads(int importThreads) {
+        this.importThreads = Math.max(0, importThreads);
+    }
+
+    /**
+     * Get the cache of the documents read.
+     * 
+     * @return the cache, or <code>null</code> if the documents are not cached
+     */
+    public DocumentCache getDocumentCache() {
+        return documentCache;
+    }
+
+    /**
+     * Set the cache of the documents read.  It is {@link DocumentCache#getDefault()}
+     * unless set.
+     * 
+     * @param documentCache
+     *            the cache, or <code>null</code> to read every document
+     */
+    public void setDocumentCache(DocumentCache documentCache) {
+        this.documentCache = documentCache;
+    }
+
+    /**
+     * Return how long each WSDL and schema document took to read and parse,
+     * in the order they were needed.
+     * 
+     * @return a List of {@link DocumentTiming}s
+     */
+    public List getDocumentTimings() {
+        synchronized (documentTimings) {
+            return new ArrayList(documentTimings);
+        }
+    }
+
     /**
      * Dump the contents of the symbol table.  For debugging purposes only.
      * 
@@ -511,7 +607,7 @@ public class SymbolTable {
             System.out.println(Messages.getMessage("parsing00", uri));
         }
 
-        Document doc = XMLUtils.newDocument(uri, username, password);
+        Document doc = readDocument(uri, username, password);
 
         this.wsdlURI = uri;
 
@@ -527,6 +623,57 @@ public class SymbolTable {
         populate(uri, doc);
     }    // populate
 
+    /**
+     * Read and parse the WSDL document, timing both separately, unless it
+     * is read with authentication, which XMLUtils does while parsing.
+     *
+     * @param uri
+     * @param username
+     * @param password
+     * @return
+     * @throws IOException
+     * @throws SAXException
+     * @throws ParserConfigurationException
+     */
+    private Document readDocument(String uri, String username, String password)
+            throws IOException, SAXException, ParserConfigurationException {
+
+        long start = System.currentTimeMillis();
+        URL url = null;
+
+        if (username == null) {
+            try {
+                url = getURL(null, uri);
+            } catch (IOException e) {
+                // Left to XMLUtils to make sense of
+            }
+        }
+
+        if ((url == null) || (url.getUserInfo() != null)) {
+            Document doc = XMLUtils.newDocument(uri, username, password);
+            long time = System.currentTimeMillis() - start;
+
+            documentTimings.add(new DocumentTiming(uri, -1, time, time,
+                    false));
+
+            return doc;
+        }
+
+        byte[] content = IOUtils.readFully(url.openStream());
+        long readTime = System.currentTimeMillis() - start;
+        InputSource is = new InputSource(new ByteArrayInputStream(content));
+
+        is.setSystemId(url.toString());
+
+        Document doc = XMLUtils.newDocument(is);
+        long time = System.currentTimeMillis() - start;
+
+        documentTimings.add(new DocumentTiming(uri, readTime,
+                time - readTime, time, false));
+
+        return doc;
+    }    // readDocument
+
     /**
      * Call this method if your WSDL document has already been parsed as an XML DOM document.
      * 
@@ -545,11 +692,22 @@ public class SymbolTable {
 
         reader.setFeature("javax.wsdl.verbose", verbose);
 
-        this.def = reader.readWSDL(new WSDLLocatorAdapter(context,
-                entityResolver != null ? entityResolver : NullEntityResolver.INSTANCE),
-                doc.getDocumentElement());
+        loader = new DocumentLoader(this, entityResolver, documentCache,
+                addImports ? getImportThreads() : 1, documentTimings);
+
+        try {
+            loader.prefetch((context == null)
+                    ? null
+                    : getURL(null, context), doc);
+
+            this.def = reader.readWSDL(new WSDLLocatorAdapter(context, loader),
+                    doc.getDocumentElement());
 
-        add(context, def, doc);
+            add(context, def, doc);
+        } finally {
+            loader.close();
+            loader = null;
+        }
     }    // populate
 
     /**
@@ -710,14 +868,11 @@ public class SymbolTable {
     }                // checkForUndefined
 
     private Document newDocument(String systemId) throws SAXException, IOException, ParserConfigurationException {
-        InputSource is = null;
-        if (entityResolver != null) {
-            is = entityResolver.resolveEntity(null, systemId);
-        }
-        if (is == null) {
-            is = new InputSource(systemId);
+        if (loader == null) {
+            loader = new DocumentLoader(this, entityResolver, documentCache,
+                    1, documentTimings);
         }
-        return XMLUtils.newDocument(is);
+        return loader.getDocument(systemId);
     }
     
     /**
@@ -800,7 +955,7 @@ public class SymbolTable {
      * @return 
      * @throws IOException 
      */
-    private static URL getURL(URL contextURL, String spec) throws IOException {
+    static URL getURL(URL contextURL, String spec) throws IOException {
 
         // First, fix the slashes as windows filenames may have backslashes
         // in them, but the URL class wont do the right thing when we later
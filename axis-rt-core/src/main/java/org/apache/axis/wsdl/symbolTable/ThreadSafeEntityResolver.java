@@ -0,0 +1,29 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.wsdl.symbolTable;
+
+import org.xml.sax.EntityResolver;
+
+/**
+ * An entity resolver which may be called by several threads at once.
+ * A symbol table reads the documents imported by a WSDL document with
+ * several threads, and calls an entity resolver which is not one of these
+ * from one thread at a time.
+ *
+ * @see SymbolTable#setImportThreads(int)
+ */
+public interface ThreadSafeEntityResolver extends EntityResolver {
+}
@@ -53,6 +53,8 @@ public class TestSerializedRPC extends XMLTestCase {
 
     private String SOAPAction = "urn:reverse";
 
+    private MessageContext lastContext = null;
+
     public TestSerializedRPC(String name) throws Exception {
         super(name);
         engine.init();
@@ -103,6 +105,7 @@ public class TestSerializedRPC extends XMLTestCase {
 
         // Create the message context
         MessageContext msgContext = new MessageContext(engine);
+        lastContext = msgContext;
 
         // Set the dispatch either by SOAPAction or methodNS
         String methodNS = "urn:dont.match.me";
@@ -309,6 +312,57 @@ public class TestSerializedRPC extends XMLTestCase {
                      rpc("overloaded", arg, true));
     }
     
+    /**
+     * Test deserializing parameters straight from the parser
+     */
+    public void testStreamingReverseData() throws Exception {
+        engine.setOption(AxisEngine.PROP_STREAMING_DESERIALIZATION, "true");
+        String arg = "<arg0 xmlns:foo=\"urn:foo\" xsi:type=\"foo:Data\">";
+        arg += "<field1>5</field1><field2>abc</field2><field3>3</field3>";
+        arg += "</arg0>";
+        Data expected = new Data(3, "cba", 5);
+        assertEquals("Did not reverse data as expected", expected, rpc("reverseData", arg, true));
+
+        // The request wasn't recorded, but can still be serialized
+        Message request = lastContext.getRequestMessage();
+        RPCElement body = (RPCElement)request.getSOAPEnvelope().getFirstBody();
+        assertNull("Streamed element was recorded", body.getRecorder());
+        assertFalse("Envelope marked modified",
+                    request.getSOAPEnvelope().isDirty());
+        String xml = request.getSOAPPartAsString();
+        assertTrue(xml, xml.indexOf("reverseData") != -1);
+        assertTrue(xml, xml.indexOf(">abc<") != -1);
+    }
+
+    /**
+     * Test a forward reference from a streamed element to a multiref
+     */
+    public void testStreamingMultiRef() throws Exception {
+        engine.setOption(AxisEngine.PROP_STREAMING_DESERIALIZATION, "true");
+        MessageContext msgContext = new MessageContext(engine);
+        msgContext.setTargetService(SOAPAction);
+        String msgStr = header +
+            "<m:reverseString xmlns:m=\"" + SOAPAction + "\">" +
+            "<arg0 href=\"#id0\"/>" +
+            "</m:reverseString>" +
+            "<multiRef id=\"id0\" soapenc:root=\"0\" xsi:type=\"xsd:string\">abc</multiRef>" +
+            footer;
+        msgContext.setRequestMessage(new Message(msgStr));
+        engine.invoke(msgContext);
+
+        RPCElement body = (RPCElement)msgContext.getResponseMessage().getSOAPEnvelope().getFirstBody();
+        RPCParam param = (RPCParam) body.getParams().get(0);
+        assertEquals("Did not reverse the string as expected", "cba", param.getObjectValue());
+    }
+
+    /**
+     * Overloads can't be streamed, make sure they still dispatch
+     */
+    public void testStreamingOverloadedMethodDispatch() throws Exception {
+        engine.setOption(AxisEngine.PROP_STREAMING_DESERIALIZATION, "true");
+        testOverloadedMethodDispatch();
+    }
+
 //    public void testEncodedArrayConversion() throws Exception {
 //        String arg = "<arg0>a simple string</arg0>";
 //        AxisFault fault = (AxisFault)rpc("arrayMethod", arg, true);
@@ -0,0 +1,202 @@
+package test.attachments;
+
+import junit.framework.TestCase;
+import org.apache.axis.attachments.ManagedMemoryDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+
+/**
+ * Test reading ManagedMemoryDataSources held in memory and cached to disk.
+ */
+public class TestManagedMemoryDataSource extends TestCase {
+
+    public TestManagedMemoryDataSource(String name) {
+        super(name);
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + i / 251);
+        }
+        return data;
+    }
+
+    /** A stream returning at most 1000 bytes per read */
+    private static InputStream trickle(byte[] data) {
+        return new FilterInputStream(new ByteArrayInputStream(data)) {
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1000));
+            }
+        };
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[777];
+        int read;
+        while ((read = in.read(buf)) != -1) {
+            out.write(buf, 0, read);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    private static void assertBytes(byte[] expected, byte[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] != actual[i]) {
+                fail("bytes differ at " + i);
+            }
+        }
+    }
+
+    public void testInMemory() throws Exception {
+        byte[] data = data(10000);
+        ManagedMemoryDataSource ds = new ManagedMemoryDataSource(
+                trickle(data), 16 * 1024, "application/octet-stream", true);
+        assertEquals(data.length, ds.getLength());
+        assertBytes(data, readAll(ds.getInputStream()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ds.writeTo(out);
+        assertBytes(data, out.toByteArray());
+        ds.delete();
+    }
+
+    public void testCachedToDisk() throws Exception {
+        // Written in small pieces, so the disk cache starts with a
+        // partly filled memory buffer
+        byte[] data = data(100000);
+        ManagedMemoryDataSource ds = new ManagedMemoryDataSource(
+                trickle(data), 16 * 1024, "application/octet-stream", true);
+        assertEquals(data.length, ds.getLength());
+        File file = new File(ds.getName());
+        assertTrue(file.exists());
+        assertEquals(data.length, file.length());
+
+        assertBytes(data, readAll(ds.getInputStream()));
+
+        InputStream in = ds.getInputStream();
+        assertEquals(1000, in.skip(1000));
+        assertEquals(data[1000] & 0xFF, in.read());
+        assertEquals(data.length - 1001, in.skip(data.length));
+        assertEquals(-1, in.read());
+        in.close();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ds.writeTo(out);
+        assertBytes(data, out.toByteArray());
+
+        File copy = File.createTempFile("Axis", ".test");
+        try {
+            FileOutputStream fos = new FileOutputStream(copy);
+            ds.writeTo(fos);
+            fos.close();
+            assertBytes(data, readAll(new FileInputStream(copy)));
+        } finally {
+            copy.delete();
+        }
+
+        InputStream open = ds.getInputStream();
+        assertTrue(ds.delete());
+        assertFalse(file.exists());
+        try {
+            open.read();
+            fail("Read from a deleted data source");
+        } catch (IOException e) {
+        }
+    }
+
+    public void testConcurrentReaders() throws Exception {
+        final byte[] data = data(200000);
+        final ManagedMemoryDataSource ds = new ManagedMemoryDataSource(
+                new ByteArrayInputStream(data), 16 * 1024,
+                "application/octet-stream", true);
+        final Throwable[] failure = new Throwable[1];
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < 5; j++) {
+                            assertBytes(data, readAll(ds.getInputStream()));
+                        }
+                    } catch (Throwable t) {
+                        failure[0] = t;
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+        if (failure[0] != null) {
+            fail(failure[0].toString());
+        }
+        ds.delete();
+    }
+
+    public void testMemoryAccounting() throws Exception {
+        long before = ManagedMemoryDataSource.getMemoryInUse();
+        ManagedMemoryDataSource ds = new ManagedMemoryDataSource(
+                16 * 1024, "application/octet-stream");
+        OutputStream out = ds.getOutputStream();
+        out.write(data(5000));
+        assertEquals(before + 5000, ManagedMemoryDataSource.getMemoryInUse());
+
+        // Complete, so it gives its share back
+        out.close();
+        assertEquals(before, ManagedMemoryDataSource.getMemoryInUse());
+        assertBytes(data(5000), readAll(ds.getInputStream()));
+        ds.delete();
+        assertEquals(before, ManagedMemoryDataSource.getMemoryInUse());
+
+        // Cached to disk, so it holds no memory
+        ds = new ManagedMemoryDataSource(
+                trickle(data(50000)), 16 * 1024,
+                "application/octet-stream", true);
+        assertEquals(before, ManagedMemoryDataSource.getMemoryInUse());
+        ds.delete();
+    }
+
+    public void testDiskCacheClosedAfterReading() throws Exception {
+        byte[] data = data(50000);
+        ManagedMemoryDataSource ds = new ManagedMemoryDataSource(
+                new ByteArrayInputStream(data), 16 * 1024,
+                "application/octet-stream", true);
+        Field spoolChannel =
+                ManagedMemoryDataSource.class.getDeclaredField("spoolChannel");
+        spoolChannel.setAccessible(true);
+        assertNull(spoolChannel.get(ds));
+
+        InputStream first = ds.getInputStream();
+        InputStream second = ds.getInputStream();
+        assertEquals(data[0] & 0xFF, first.read());
+        assertEquals(data[0] & 0xFF, second.read());
+        assertNotNull(spoolChannel.get(ds));
+
+        // Read to the end, but not closed
+        assertEquals(data.length - 1, first.skip(data.length));
+        assertEquals(-1, first.read());
+        assertNotNull(spoolChannel.get(ds));
+        second.close();
+        assertNull(spoolChannel.get(ds));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ds.writeTo(out);
+        assertBytes(data, out.toByteArray());
+        assertNull(spoolChannel.get(ds));
+        ds.delete();
+    }
+}
@@ -0,0 +1,155 @@
+package test.attachments;
+
+import junit.framework.TestCase;
+import org.apache.axis.Message;
+import org.apache.axis.SOAPPart;
+import org.apache.axis.attachments.AttachmentPart;
+import org.apache.axis.attachments.Attachments;
+import org.apache.axis.attachments.ManagedMemoryDataSource;
+import org.apache.axis.message.SOAPBodyElement;
+import org.apache.axis.message.SOAPEnvelope;
+
+import javax.activation.DataHandler;
+import javax.activation.FileDataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Test that messages with attachments written by the MimeMultipartWriter
+ * have the announced length and can be read back.
+ */
+public class TestMimeMultipartWriter extends TestCase {
+
+    private static final String ENVELOPE =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+        "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+        "<soapenv:Body><echo xmlns=\"urn:test\">caf\u00e9</echo></soapenv:Body>" +
+        "</soapenv:Envelope>";
+
+    private File file;
+
+    public TestMimeMultipartWriter(String name) {
+        super(name);
+    }
+
+    protected void setUp() throws Exception {
+        file = File.createTempFile("Axis", ".test");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(data(70000));
+        out.close();
+    }
+
+    protected void tearDown() throws Exception {
+        file.delete();
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 13 + i / 7);
+        }
+        return data;
+    }
+
+    private static byte[] read(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int read;
+        while ((read = in.read(buf)) != -1) {
+            out.write(buf, 0, read);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    private static void assertBytes(byte[] expected, byte[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("byte " + i, expected[i], actual[i]);
+        }
+    }
+
+    private void roundTrip(int sendType) throws Exception {
+        Message message = new Message(ENVELOPE);
+        Attachments attachments = message.getAttachmentsImpl();
+        attachments.setSendType(sendType);
+
+        AttachmentPart text = new AttachmentPart(
+                new DataHandler("some attachment text", "text/plain"));
+        text.addMimeHeader("X-Test", "yes");
+        message.addAttachmentPart(text);
+        AttachmentPart fromFile = new AttachmentPart(
+                new DataHandler(new FileDataSource(file)));
+        message.addAttachmentPart(fromFile);
+        AttachmentPart fromMemory = new AttachmentPart(new DataHandler(
+                new ManagedMemoryDataSource(new ByteArrayInputStream(data(5000)),
+                        16 * 1024, "application/octet-stream", true)));
+        message.addAttachmentPart(fromMemory);
+
+        String contentType = attachments.getContentType();
+        long length = message.getContentLength();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        assertEquals(length, out.size());
+        assertEquals(contentType, attachments.getContentType());
+
+        Message read = new Message(new ByteArrayInputStream(out.toByteArray()),
+                                   false, contentType, null);
+        assertEquals(ENVELOPE, read.getSOAPPartAsString());
+        assertEquals(3, read.countAttachments());
+
+        Iterator parts = read.getAttachments();
+        AttachmentPart part = (AttachmentPart) parts.next();
+        assertEquals(text.getContentId(), part.getContentId());
+        assertEquals("yes", part.getMimeHeader("X-Test")[0]);
+        assertEquals("some attachment text",
+                     new String(read(part.getDataHandler().getInputStream())));
+        part = (AttachmentPart) parts.next();
+        assertEquals(fromFile.getContentId(), part.getContentId());
+        assertBytes(data(70000), read(part.getDataHandler().getInputStream()));
+        part = (AttachmentPart) parts.next();
+        assertEquals(fromMemory.getContentId(), part.getContentId());
+        assertBytes(data(5000), read(part.getDataHandler().getInputStream()));
+    }
+
+    public void testMIME() throws Exception {
+        roundTrip(Attachments.SEND_TYPE_MIME);
+    }
+
+    public void testMTOM() throws Exception {
+        roundTrip(Attachments.SEND_TYPE_MTOM);
+    }
+
+    private static String written(Message message) throws Exception {
+        long length = message.getContentLength();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        assertEquals(length, out.size());
+        Message read = new Message(new ByteArrayInputStream(out.toByteArray()),
+                false, message.getAttachmentsImpl().getContentType(), null);
+        return read.getSOAPPartAsString();
+    }
+
+    /**
+     * The root part is made again when the SOAP part changes.
+     */
+    public void testRootChanged() throws Exception {
+        Message message = new Message(ENVELOPE);
+        message.addAttachmentPart(new AttachmentPart(
+                new DataHandler("some attachment text", "text/plain")));
+        assertEquals(ENVELOPE, written(message));
+
+        String other = ENVELOPE.replaceAll("caf\u00e9", "other content");
+        ((SOAPPart) message.getSOAPPart()).setCurrentMessage(other,
+                SOAPPart.FORM_STRING);
+        assertEquals(other, written(message));
+
+        SOAPEnvelope envelope = message.getSOAPEnvelope();
+        envelope.addBodyElement(new SOAPBodyElement("urn:test", "added"));
+        assertTrue(written(message).indexOf("added") != -1);
+    }
+}
@@ -0,0 +1,250 @@
+package test.client;
+
+import org.apache.axis.AxisFault;
+import org.apache.axis.client.Call;
+import org.apache.axis.client.async.AsyncCall;
+import org.apache.axis.client.async.AsyncExecutor;
+import org.apache.axis.client.async.AsyncResult;
+import org.apache.axis.client.async.IAsyncCallback;
+import org.apache.axis.client.async.IAsyncResult;
+import org.apache.axis.client.async.Status;
+import test.GenericLocalTest;
+
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.util.ArrayList;
+
+/**
+ * Test asynchronous invocations through Call.invokeAsync and AsyncCall.
+ */
+public class TestAsyncResult extends GenericLocalTest {
+
+    public TestAsyncResult() {
+    }
+
+    public TestAsyncResult(String name) {
+        super(name);
+    }
+
+    public String echo(String s) {
+        return s;
+    }
+
+    public void testInvokeAsync() throws Exception {
+        AsyncResult[] results = new AsyncResult[10];
+        for (int i = 0; i < results.length; i++) {
+            Call call = getCall();
+            call.setOperationName("echo");
+            results[i] = call.invokeAsync(new Object[] {"hello " + i});
+        }
+        for (int i = 0; i < results.length; i++) {
+            assertEquals("hello " + i, results[i].get());
+            assertEquals(Status.COMPLETED, results[i].getStatus());
+            assertTrue(results[i].isDone());
+        }
+    }
+
+    public void testCallbacks() throws Exception {
+        final ArrayList completed = new ArrayList();
+        IAsyncCallback callback = new IAsyncCallback() {
+            public void onCompletion(IAsyncResult result) {
+                synchronized (completed) {
+                    completed.add(result.getResponse());
+                }
+            }
+        };
+        Call call = getCall();
+        call.setOperationName("echo");
+        AsyncCall ac = new AsyncCall(call, callback);
+        AsyncResult result = (AsyncResult) ac.invoke(new Object[] {"a"});
+        result.addCallback(callback);
+        result.waitFor(0);
+        // Waiters are released before the callbacks run
+        synchronized (completed) {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (completed.size() < 2
+                    && System.currentTimeMillis() < deadline) {
+                completed.wait(10);
+            }
+        }
+        // Added after completion: runs right away
+        result.addCallback(callback);
+
+        synchronized (completed) {
+            assertEquals(3, completed.size());
+            assertEquals("a", completed.get(2));
+        }
+        assertFalse(result.cancel());
+    }
+
+    public void testFault() throws Exception {
+        Call call = getCall();
+        call.setOperationName("noSuchMethod");
+        AsyncResult result = call.invokeAsync(new Object[] {});
+        try {
+            result.get();
+            fail("No fault");
+        } catch (AxisFault e) {
+        }
+        assertEquals(Status.EXCEPTION, result.getStatus());
+    }
+
+    /**
+     * Opens a server socket that accepts connections but never answers.
+     */
+    private ServerSocket silentServer(final ArrayList accepted)
+            throws Exception {
+        final ServerSocket server = new ServerSocket(0);
+        Thread acceptor = new Thread() {
+            public void run() {
+                try {
+                    while (true) {
+                        Socket s = server.accept();
+                        synchronized (accepted) {
+                            accepted.add(s);
+                            accepted.notifyAll();
+                        }
+                    }
+                } catch (Exception e) {
+                    // server closed
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server;
+    }
+
+    /**
+     * Waits until another thread adds to a list, or fails after a while.
+     */
+    private static void waitFor(ArrayList list, String what)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        synchronized (list) {
+            while (list.isEmpty()) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    fail("Timed out waiting for " + what);
+                }
+                list.wait(wait);
+            }
+        }
+    }
+
+    private Call silentCall(ServerSocket server) throws Exception {
+        Call call = new Call(new URL("http://localhost:" +
+                server.getLocalPort() + "/axis/services/echo"));
+        call.setOperationName("echo");
+        return call;
+    }
+
+    public void testCancel() throws Exception {
+        ArrayList accepted = new ArrayList();
+        ServerSocket server = silentServer(accepted);
+        try {
+            AsyncResult result =
+                    silentCall(server).invokeAsync(new Object[] {"x"});
+            waitFor(accepted, "the connection");
+            assertFalse(result.isDone());
+            assertTrue(result.cancel());
+            assertTrue(result.isCancelled());
+            assertEquals(Status.INTERRUPTED, result.getStatus());
+            try {
+                result.get();
+                fail("No fault");
+            } catch (AxisFault e) {
+            }
+
+            // The connection is closed on the client side
+            Socket s = (Socket) accepted.get(0);
+            s.setSoTimeout(5000);
+            int b;
+            do {
+                b = s.getInputStream().read();
+            } while (b != -1);
+        } finally {
+            server.close();
+        }
+    }
+
+    public void testTimeout() throws Exception {
+        ArrayList accepted = new ArrayList();
+        ServerSocket server = silentServer(accepted);
+        try {
+            final ArrayList threads = new ArrayList();
+            AsyncCall ac = new AsyncCall(silentCall(server),
+                    new IAsyncCallback() {
+                        public void onCompletion(IAsyncResult result) {
+                            synchronized (threads) {
+                                threads.add(Thread.currentThread().getName());
+                                threads.notifyAll();
+                            }
+                        }
+                    });
+            ac.setTimeout(200);
+            AsyncResult result = (AsyncResult) ac.invoke(new Object[] {"x"});
+            long start = System.currentTimeMillis();
+            try {
+                result.get();
+                fail("No fault");
+            } catch (AxisFault e) {
+            }
+            assertTrue(System.currentTimeMillis() - start < 5000);
+            assertEquals(Status.EXCEPTION, result.getStatus());
+
+            // The call timed out waiting for the answer, not for the server
+            waitFor(accepted, "the connection");
+
+            // The callback runs on the executor, not on the timer thread
+            waitFor(threads, "the callback");
+            synchronized (threads) {
+                assertTrue(threads.get(0).toString(),
+                           threads.get(0).toString().startsWith("Axis async-"));
+            }
+        } finally {
+            server.close();
+        }
+    }
+
+    public void testBoundedExecutor() throws Exception {
+        final Object lock = new Object();
+        final boolean[] release = new boolean[1];
+        Runnable blocker = new Runnable() {
+            public void run() {
+                synchronized (lock) {
+                    while (!release[0]) {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            }
+        };
+        AsyncExecutor executor = new AsyncExecutor(2, 1, 1000);
+        assertTrue(executor.execute(blocker));
+        assertTrue(executor.execute(blocker));
+        assertTrue(executor.execute(blocker));
+        assertFalse("Task accepted beyond the bounds",
+                    executor.execute(blocker));
+        assertEquals(2, executor.getPoolSize());
+        assertEquals(1, executor.getQueueSize());
+
+        // A call refused by the executor fails right away
+        Call call = getCall();
+        call.setOperationName("echo");
+        AsyncCall ac = new AsyncCall(call);
+        ac.setExecutor(executor);
+        IAsyncResult result = ac.invoke(new Object[] {"x"});
+        assertEquals(Status.EXCEPTION, result.getStatus());
+
+        synchronized (lock) {
+            release[0] = true;
+            lock.notifyAll();
+        }
+        executor.shutdown();
+    }
+}
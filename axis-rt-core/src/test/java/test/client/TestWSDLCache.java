@@ -0,0 +1,273 @@
+package test.client;
+
+import junit.framework.TestCase;
+import org.apache.axis.client.DefaultWSDLCache;
+import org.apache.axis.client.WSDLDocumentStore;
+import org.apache.axis.wsdl.gen.Parser;
+
+import javax.xml.namespace.QName;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Test the caching of parsed WSDL documents in memory and on disk.
+ */
+public class TestWSDLCache extends TestCase {
+
+    private static final String NS = "urn:cache";
+
+    private static final String MAIN =
+        "<definitions xmlns='http://schemas.xmlsoap.org/wsdl/'" +
+        " xmlns:soap='http://schemas.xmlsoap.org/wsdl/soap/'" +
+        " xmlns:tns='" + NS + "' targetNamespace='" + NS + "'>" +
+        "<import namespace='" + NS + "' location='part.wsdl'/>" +
+        "<service name='CacheService'>" +
+        "<port name='CachePort' binding='tns:CacheBinding'>" +
+        "<soap:address location='http://localhost/cache'/>" +
+        "</port></service></definitions>";
+
+    private static final String PART =
+        "<definitions xmlns='http://schemas.xmlsoap.org/wsdl/'" +
+        " xmlns:soap='http://schemas.xmlsoap.org/wsdl/soap/'" +
+        " xmlns:xsd='http://www.w3.org/2001/XMLSchema'" +
+        " xmlns:tns='" + NS + "' targetNamespace='" + NS + "'>" +
+        "<message name='echoRequest'><part name='in' type='xsd:string'/></message>" +
+        "<message name='echoResponse'><part name='out' type='xsd:string'/></message>" +
+        "<portType name='Cache'><operation name='echo'>" +
+        "<input message='tns:echoRequest'/><output message='tns:echoResponse'/>" +
+        "</operation></portType>" +
+        "<binding name='CacheBinding' type='tns:Cache'>" +
+        "<soap:binding style='rpc' transport='http://schemas.xmlsoap.org/soap/http'/>" +
+        "<operation name='echo'><soap:operation soapAction=''/>" +
+        "<input><soap:body use='literal' namespace='" + NS + "'/></input>" +
+        "<output><soap:body use='literal' namespace='" + NS + "'/></output>" +
+        "</operation></binding></definitions>";
+
+    private File directory;
+    private Server server;
+
+    public TestWSDLCache(String name) {
+        super(name);
+    }
+
+    protected void setUp() throws Exception {
+        directory = File.createTempFile("wsdlcache", "");
+        directory.delete();
+        server = new Server();
+        server.start();
+    }
+
+    protected void tearDown() throws Exception {
+        server.close();
+        File[] files = directory.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            files[i].delete();
+        }
+        directory.delete();
+    }
+
+    private static void assertParsed(Parser parser) {
+        assertNotNull(parser.getSymbolTable().getServiceEntry(
+                new QName(NS, "CacheService")));
+        assertNotNull(parser.getSymbolTable().getBindingEntry(
+                new QName(NS, "CacheBinding")));
+    }
+
+    public void testDocumentStore() throws Exception {
+        String url = server.getURL("main.wsdl");
+
+        DefaultWSDLCache cache = new DefaultWSDLCache(
+                10, 0, new WSDLDocumentStore(directory, 0));
+        Parser parser = cache.getParser(url);
+        assertParsed(parser);
+        assertEquals(1, server.getCount("main.wsdl"));
+        int parts = server.getCount("part.wsdl");
+        assertTrue(parts > 0);
+
+        // parsed once
+        assertSame(parser, cache.getParser(url));
+        assertEquals(1, server.getCount("main.wsdl"));
+
+        // as if in another JVM; the copies on disk are fresh
+        cache = new DefaultWSDLCache(
+                10, 0, new WSDLDocumentStore(directory, 3600000));
+        assertParsed(cache.getParser(url));
+        assertEquals(1, server.getCount("main.wsdl"));
+        assertEquals(parts, server.getCount("part.wsdl"));
+
+        // the copies are revalidated, and have not been modified
+        cache = new DefaultWSDLCache(
+                10, 0, new WSDLDocumentStore(directory, 0));
+        assertParsed(cache.getParser(url));
+        assertEquals(2, server.getCount("main.wsdl"));
+        assertEquals(1, server.getNotModifiedCount("main.wsdl"));
+
+        // the server is gone, so the copies are used anyway
+        server.close();
+        cache = new DefaultWSDLCache(
+                10, 0, new WSDLDocumentStore(directory, 0));
+        assertParsed(cache.getParser(url));
+    }
+
+    public void testUnwritableDirectory() throws Exception {
+        // no directory can be made inside a file
+        File file = File.createTempFile("wsdlcache", "");
+        try {
+            String url = server.getURL("main.wsdl");
+            DefaultWSDLCache cache = new DefaultWSDLCache(
+                    10, 0, new WSDLDocumentStore(new File(file, "cache"), 0));
+            assertParsed(cache.getParser(url));
+            assertEquals(1, server.getCount("main.wsdl"));
+            assertFalse(new File(file, "cache").exists());
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testMemory() throws Exception {
+        File main = new File(directory, "main.wsdl");
+        File part = new File(directory, "part.wsdl");
+        File other = new File(directory, "other.wsdl");
+        directory.mkdirs();
+        write(main, MAIN);
+        write(other, MAIN);
+        write(part, PART);
+
+        CountingCache cache = new CountingCache(1, 0);
+        Parser parser = cache.getParser(main.getPath());
+        assertParsed(parser);
+        assertSame(parser, cache.getParser(main.getPath()));
+        assertEquals(1, cache.parses);
+
+        // only one is kept
+        cache.getParser(other.getPath());
+        assertEquals(1, cache.size());
+        assertNotSame(parser, cache.getParser(main.getPath()));
+        assertEquals(3, cache.parses);
+
+        cache = new CountingCache(10, 1);
+        parser = cache.getParser(main.getPath());
+        Thread.sleep(20);
+        assertNotSame(parser, cache.getParser(main.getPath()));
+        assertEquals(2, cache.parses);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        out.write(content.getBytes("UTF-8"));
+        out.close();
+    }
+
+    private static class CountingCache extends DefaultWSDLCache {
+        int parses = 0;
+
+        CountingCache(int maxEntries, long timeToLive) {
+            super(maxEntries, timeToLive, null);
+        }
+
+        protected Parser parse(String wsdlLocation) throws Exception {
+            parses++;
+            return super.parse(wsdlLocation);
+        }
+    }
+
+    /**
+     * Serves MAIN and PART, which are never modified.
+     */
+    private static class Server extends Thread {
+        private final ServerSocket socket;
+        private final Map counts = new HashMap();
+        private final Map notModified = new HashMap();
+
+        Server() throws IOException {
+            socket = new ServerSocket(0);
+            setDaemon(true);
+        }
+
+        String getURL(String path) {
+            return "http://localhost:" + socket.getLocalPort() + "/" + path;
+        }
+
+        synchronized int getCount(String path) {
+            Integer count = (Integer) counts.get(path);
+            return count == null ? 0 : count.intValue();
+        }
+
+        synchronized int getNotModifiedCount(String path) {
+            Integer count = (Integer) notModified.get(path);
+            return count == null ? 0 : count.intValue();
+        }
+
+        private synchronized void count(Map map, String path) {
+            Integer count = (Integer) map.get(path);
+            map.put(path, new Integer(count == null ? 1 : count.intValue() + 1));
+        }
+
+        void close() throws IOException {
+            socket.close();
+        }
+
+        public void run() {
+            while (true) {
+                Socket s;
+                try {
+                    s = socket.accept();
+                } catch (IOException e) {
+                    return;
+                }
+                try {
+                    serve(s);
+                } catch (IOException e) {
+                } finally {
+                    try {
+                        s.close();
+                    } catch (IOException e) {
+                    }
+                }
+            }
+        }
+
+        private void serve(Socket s) throws IOException {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(s.getInputStream(), "ISO-8859-1"));
+            String request = in.readLine();
+            boolean conditional = false;
+            for (String line; (line = in.readLine()) != null
+                    && line.length() > 0; ) {
+                if (line.toLowerCase().startsWith("if-modified-since:")) {
+                    conditional = true;
+                }
+            }
+            String path = request.split(" ")[1].substring(1);
+            String body = path.equals("main.wsdl") ? MAIN :
+                          path.equals("part.wsdl") ? PART : null;
+            String response;
+            if (body == null) {
+                response = "HTTP/1.0 404 Not Found\r\n\r\n";
+            } else {
+                count(counts, path);
+                if (conditional) {
+                    count(notModified, path);
+                    response = "HTTP/1.0 304 Not Modified\r\n\r\n";
+                } else {
+                    response = "HTTP/1.0 200 OK\r\n" +
+                        "Content-Type: text/xml\r\n" +
+                        "Last-Modified: Sat, 01 Jan 2005 00:00:00 GMT\r\n" +
+                        "Content-Length: " + body.length() + "\r\n\r\n" +
+                        body;
+                }
+            }
+            OutputStream out = s.getOutputStream();
+            out.write(response.getBytes("ISO-8859-1"));
+            out.flush();
+        }
+    }
+}
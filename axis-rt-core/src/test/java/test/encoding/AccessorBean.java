@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2004 The Apache Software Foundation.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.encoding;
+
+import org.apache.axis.utils.BeanAccessor;
+
+/**
+ * A bean providing a BeanAccessor, as WSDL2Java generates it
+ */
+public class AccessorBean {
+
+    private int count;
+    private String name;
+    private String[] items;
+
+    /** Number of property accesses made through the accessor */
+    public static int accesses = 0;
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String[] getItems() {
+        return items;
+    }
+
+    public void setItems(String[] items) {
+        this.items = items;
+    }
+
+    public String getItems(int i) {
+        return items[i];
+    }
+
+    public void setItems(int i, String item) {
+        items[i] = item;
+    }
+
+    private static final BeanAccessor beanAccessor = new BeanAccessor() {
+        public int getPropertyIndex(String name) {
+            if ("count".equals(name)) return 0;
+            if ("name".equals(name)) return 1;
+            if ("items".equals(name)) return 2;
+            return -1;
+        }
+
+        public Object get(Object bean, int property) {
+            accesses++;
+            AccessorBean b = (AccessorBean) bean;
+            switch (property) {
+            case 0: return new Integer(b.getCount());
+            case 1: return b.getName();
+            case 2: return b.getItems();
+            default: throw new IllegalArgumentException();
+            }
+        }
+
+        public void set(Object bean, int property, Object value) {
+            accesses++;
+            AccessorBean b = (AccessorBean) bean;
+            switch (property) {
+            case 0: b.setCount(((Integer) value).intValue()); break;
+            case 1: b.setName((String) value); break;
+            case 2: b.setItems((String[]) value); break;
+            default: throw new IllegalArgumentException();
+            }
+        }
+    };
+
+    public static BeanAccessor getBeanAccessor() {
+        return beanAccessor;
+    }
+
+    public boolean equals(Object obj) {
+        if (!(obj instanceof AccessorBean)) return false;
+        AccessorBean other = (AccessorBean) obj;
+        if (count != other.count) return false;
+        if (name == null ? other.name != null : !name.equals(other.name)) return false;
+        return java.util.Arrays.equals(items, other.items);
+    }
+
+    public int hashCode() {
+        return count;
+    }
+}
@@ -0,0 +1,149 @@
+package test.encoding;
+
+import junit.framework.TestCase;
+import org.apache.axis.Constants;
+import org.apache.axis.MessageContext;
+import org.apache.axis.attachments.ManagedMemoryDataSource;
+import org.apache.axis.encoding.Base64;
+import org.apache.axis.encoding.Base64Decoder;
+import org.apache.axis.encoding.DeserializationContext;
+import org.apache.axis.encoding.ser.Base64Deserializer;
+import org.apache.axis.message.RPCElement;
+import org.apache.axis.message.RPCParam;
+import org.apache.axis.server.AxisServer;
+import org.xml.sax.InputSource;
+
+import javax.activation.DataHandler;
+import javax.xml.soap.MessageFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+
+/**
+ * Test that base64 text decoded in pieces gives the same bytes as
+ * Base64.decode, and that the Base64Deserializer decodes as it goes.
+ */
+public class TestBase64Decoder extends TestCase {
+
+    public TestBase64Decoder(String name) {
+        super(name);
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 7 + i / 13);
+        }
+        return data;
+    }
+
+    /** Base64 text broken into lines, as many encoders do */
+    private static String text(byte[] data) {
+        String encoded = Base64.encode(data);
+        StringBuffer text = new StringBuffer();
+        for (int i = 0; i < encoded.length(); i += 76) {
+            text.append(encoded.substring(i, Math.min(encoded.length(), i + 76)));
+            text.append("\r\n");
+        }
+        return text.toString();
+    }
+
+    private static void assertBytes(byte[] expected, byte[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("byte " + i, expected[i], actual[i]);
+        }
+    }
+
+    public void testPieces() throws Exception {
+        int[] lengths = {0, 1, 2, 3, 4, 100, 10000};
+        for (int i = 0; i < lengths.length; i++) {
+            String text = text(data(lengths[i]));
+            for (int piece = 1; piece < 9; piece++) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                Base64Decoder decoder = new Base64Decoder(out);
+                char[] chars = text.toCharArray();
+                for (int off = 0; off < chars.length; off += piece) {
+                    decoder.write(chars, off,
+                                  Math.min(piece, chars.length - off));
+                }
+                decoder.close();
+                assertBytes(Base64.decode(text), out.toByteArray());
+            }
+        }
+    }
+
+    public void testInvalidText() throws Exception {
+        String[] texts = {"QUJD?RA==", "QU", "QUJDRA=", "=QUJ"};
+        for (int i = 0; i < texts.length; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Base64Decoder decoder = new Base64Decoder(out);
+            decoder.write(texts[i]);
+            decoder.close();
+            assertBytes(Base64.decode(texts[i]), out.toByteArray());
+        }
+    }
+
+    private Object deserialize(Class javaType, String text) throws Exception {
+        Base64Deserializer deser =
+                new Base64Deserializer(javaType, Constants.XSD_BASE64);
+        char[] chars = text.toCharArray();
+        for (int off = 0; off < chars.length; off += 1000) {
+            deser.characters(chars, off, Math.min(1000, chars.length - off));
+        }
+        deser.onEndElement("", "value", null);
+        return deser.getValue();
+    }
+
+    public void testDeserializer() throws Exception {
+        byte[] data = data(50000);
+        assertBytes(data, (byte[]) deserialize(byte[].class, text(data)));
+        assertEquals(0, ((byte[]) deserialize(byte[].class, "")).length);
+
+        Byte[] wrapped = (Byte[]) deserialize(Byte[].class, text(data(10)));
+        assertEquals(10, wrapped.length);
+        assertEquals(data[9], wrapped[9].byteValue());
+
+        DataHandler dh = (DataHandler) deserialize(DataHandler.class, text(data));
+        InputStream in = dh.getInputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[1000];
+        int read;
+        while ((read = in.read(buf)) != -1) {
+            out.write(buf, 0, read);
+        }
+        in.close();
+        assertBytes(data, out.toByteArray());
+
+        // The value was cached to disk; don't leave the file behind
+        ManagedMemoryDataSource source =
+                (ManagedMemoryDataSource) dh.getDataSource();
+        File file = source.getDiskCacheFile();
+        assertNotNull(file);
+        assertTrue(file.exists());
+        source.delete();
+        assertFalse(file.exists());
+    }
+
+    public void testMessage() throws Exception {
+        byte[] data = data(20000);
+        MessageContext msgContext = new MessageContext(new AxisServer());
+        org.apache.axis.Message message = (org.apache.axis.Message)
+                MessageFactory.newInstance().createMessage();
+        message.setMessageContext(msgContext);
+        RPCElement body = new RPCElement("urn:myNamespace", "method1",
+                new Object[] {new RPCParam("urn:myNamespace", "data", data)});
+        message.getSOAPBody().addChildElement(body);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        message.writeTo(baos);
+
+        DeserializationContext dser = new DeserializationContext(
+            new InputSource(new ByteArrayInputStream(baos.toByteArray())),
+            msgContext, org.apache.axis.Message.REQUEST);
+        dser.parse();
+        RPCElement rpcElem = (RPCElement) dser.getEnvelope().getFirstBody();
+        RPCParam output = rpcElem.getParam("data");
+        assertBytes(data, (byte[]) output.getObjectValue());
+    }
+}
@@ -0,0 +1,102 @@
+package test.encoding;
+
+import junit.framework.TestCase;
+import org.apache.axis.Constants;
+import org.apache.axis.Message;
+import org.apache.axis.MessageContext;
+import org.apache.axis.encoding.TypeMapping;
+import org.apache.axis.encoding.TypeMappingRegistry;
+import org.apache.axis.encoding.ser.BeanDeserializerFactory;
+import org.apache.axis.encoding.ser.BeanSerializerFactory;
+import org.apache.axis.message.RPCElement;
+import org.apache.axis.message.RPCParam;
+import org.apache.axis.message.SOAPEnvelope;
+import org.apache.axis.server.AxisServer;
+import org.apache.axis.utils.AccessorPropertyDescriptor;
+import org.apache.axis.utils.BeanPropertyDescriptor;
+import org.apache.axis.utils.BeanUtils;
+
+import javax.xml.namespace.QName;
+
+/**
+ * Test the use of BeanAccessors in place of reflection
+ */
+public class TestBeanAccessor extends TestCase {
+    private static final QName TYPE = new QName("urn:test.encoding", "AccessorBean");
+
+    private AxisServer server = new AxisServer();
+
+    public TestBeanAccessor(String name) {
+        super(name);
+        TypeMappingRegistry tmr = server.getTypeMappingRegistry();
+        TypeMapping tm = (TypeMapping) tmr.createTypeMapping();
+        tm.setSupportedEncodings(new String[]{Constants.URI_DEFAULT_SOAP_ENC});
+        tmr.register(Constants.URI_DEFAULT_SOAP_ENC, tm);
+        tm.register(AccessorBean.class, TYPE,
+                    new BeanSerializerFactory(AccessorBean.class, TYPE),
+                    new BeanDeserializerFactory(AccessorBean.class, TYPE));
+    }
+
+    public void testDescriptors() throws Exception {
+        BeanPropertyDescriptor[] pd = BeanUtils.getPd(AccessorBean.class);
+        for (int i = 0; i < pd.length; i++) {
+            // getClass() is not covered by the accessor
+            boolean covered = !pd[i].getName().equals("class");
+            assertEquals(pd[i].getName(), covered,
+                         pd[i] instanceof AccessorPropertyDescriptor);
+        }
+
+        AccessorBean bean = new AccessorBean();
+        BeanPropertyDescriptor count = BeanUtils.getSpecificPD(pd, "count");
+        int accesses = AccessorBean.accesses;
+        count.set(bean, new Integer(42));
+        assertEquals(42, bean.getCount());
+        assertEquals(new Integer(42), count.get(bean));
+        assertEquals(accesses + 2, AccessorBean.accesses);
+
+        // Indexed access to an array property goes through the indexed methods
+        BeanPropertyDescriptor items = BeanUtils.getSpecificPD(pd, "items");
+        assertTrue(items.isIndexed());
+        items.set(bean, 1, "b");
+        assertEquals(2, bean.getItems().length);
+        assertEquals("b", items.get(bean, 1));
+    }
+
+    public void testInheritedAccessor() throws Exception {
+        assertNull(BeanUtils.getBeanAccessor(DerivedAccessorBean.class));
+
+        BeanPropertyDescriptor[] pd = BeanUtils.getPd(DerivedAccessorBean.class);
+        for (int i = 0; i < pd.length; i++) {
+            boolean inherited = !pd[i].getName().equals("extra") &&
+                                !pd[i].getName().equals("class");
+            assertEquals(pd[i].getName(), inherited,
+                         pd[i] instanceof AccessorPropertyDescriptor);
+        }
+        assertNotNull(BeanUtils.getSpecificPD(pd, "extra"));
+    }
+
+    public void testRoundTrip() throws Exception {
+        AccessorBean bean = new AccessorBean();
+        bean.setCount(7);
+        bean.setName("seven");
+        bean.setItems(new String[] {"a", "b", "c"});
+
+        SOAPEnvelope env = new SOAPEnvelope();
+        env.addBodyElement(new RPCElement("urn:test.encoding", "echo",
+                                          new Object[] {bean}));
+        Message message = new Message(env);
+        message.setMessageContext(new MessageContext(server));
+
+        int accesses = AccessorBean.accesses;
+        String xml = message.getSOAPPartAsString();
+        assertTrue(AccessorBean.accesses > accesses);
+
+        Message message2 = new Message(xml);
+        message2.setMessageContext(new MessageContext(server));
+        RPCElement body = (RPCElement) message2.getSOAPEnvelope().getFirstBody();
+        accesses = AccessorBean.accesses;
+        Object result = ((RPCParam) body.getParams().get(0)).getObjectValue();
+        assertTrue(AccessorBean.accesses > accesses);
+        assertEquals(bean, result);
+    }
+}
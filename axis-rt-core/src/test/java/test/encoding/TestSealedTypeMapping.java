@@ -0,0 +1,97 @@
+package test.encoding;
+
+import junit.framework.TestCase;
+import org.apache.axis.Constants;
+import org.apache.axis.MessageContext;
+import org.apache.axis.encoding.SerializationContext;
+import org.apache.axis.encoding.TypeMapping;
+import org.apache.axis.encoding.TypeMappingRegistryImpl;
+import org.apache.axis.encoding.ser.BeanDeserializerFactory;
+import org.apache.axis.encoding.ser.BeanSerializerFactory;
+import org.apache.axis.server.AxisServer;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Test serializer lookups through a sealed TypeMappingRegistry, which
+ * are answered from a snapshot.
+ */
+public class TestSealedTypeMapping extends TestCase {
+    private static final QName SUPER_TYPE = new QName("typeNS", "SuperBean");
+    private static final QName DERIVED_TYPE = new QName("typeNS", "DerivatedBean");
+    private static final QName ELEMENT = new QName("", "bean");
+
+    private MessageContext msgContext;
+    private TypeMappingRegistryImpl reg;
+    private TypeMapping tm;
+
+    public TestSealedTypeMapping(String name) {
+        super(name);
+    }
+
+    protected void setUp() throws Exception {
+        msgContext = new MessageContext(new AxisServer());
+        reg = (TypeMappingRegistryImpl) msgContext.getTypeMappingRegistry();
+        tm = (TypeMapping) reg.createTypeMapping();
+        tm.setSupportedEncodings(new String[] {Constants.URI_DEFAULT_SOAP_ENC});
+        reg.register(Constants.URI_DEFAULT_SOAP_ENC, tm);
+        register(SuperBean.class, SUPER_TYPE);
+        reg.seal();
+    }
+
+    private void register(Class cls, QName xmlType) {
+        register(cls, xmlType, xmlType);
+    }
+
+    private void register(Class cls, QName xmlType, QName factoryType) {
+        tm.register(cls, xmlType,
+                    new BeanSerializerFactory(cls, factoryType),
+                    new BeanDeserializerFactory(cls, factoryType));
+    }
+
+    private String serialize(Object value, QName xmlType) throws IOException {
+        StringWriter writer = new StringWriter();
+        SerializationContext context =
+            new SerializationContext(writer, msgContext);
+        context.setSendDecl(false);
+        context.serialize(ELEMENT, null, value, xmlType,
+                          Boolean.TRUE, Boolean.TRUE);
+        return writer.toString();
+    }
+
+    // The lookups below pass an xmlType, so that they don't depend on
+    // whether auto-typing was turned on in the default type mapping.
+
+    public void testSubclassLookup() throws Exception {
+        assertTrue(reg.isSealed());
+        String first = serialize(new DerivatedBean(), SUPER_TYPE);
+        assertTrue(first, first.indexOf(":SuperBean\"") != -1);
+        assertEquals(first, serialize(new DerivatedBean(), SUPER_TYPE));
+    }
+
+    public void testRegistrationAfterSeal() throws Exception {
+        String xml = serialize(new DerivatedBean(), SUPER_TYPE);
+        assertTrue(xml, xml.indexOf(":SuperBean\"") != -1);
+
+        register(DerivatedBean.class, SUPER_TYPE, DERIVED_TYPE);
+        xml = serialize(new DerivatedBean(), SUPER_TYPE);
+        assertTrue(xml, xml.indexOf(":DerivatedBean\"") != -1);
+    }
+
+    public void testUnresolvedLookupRegisteredAfterSeal() throws Exception {
+        QName type = new QName("typeNS", "AccessorBean");
+        for (int i = 0; i < 2; i++) {
+            try {
+                serialize(new AccessorBean(), type);
+                fail("Serialized a class without mapping");
+            } catch (IOException e) {
+            }
+        }
+
+        register(AccessorBean.class, type);
+        String xml = serialize(new AccessorBean(), type);
+        assertTrue(xml, xml.indexOf(":AccessorBean\"") != -1);
+    }
+}
@@ -0,0 +1,166 @@
+package test.encoding;
+
+import junit.framework.TestCase;
+import org.apache.axis.AxisEngine;
+import org.apache.axis.Message;
+import org.apache.axis.MessageContext;
+import org.apache.axis.components.encoding.UTF8ByteWriter;
+import org.apache.axis.components.encoding.XMLEncoder;
+import org.apache.axis.message.RPCElement;
+import org.apache.axis.message.RPCParam;
+import org.apache.axis.server.AxisServer;
+import org.apache.axis.utils.XMLUtils;
+
+import javax.xml.soap.MessageFactory;
+import javax.xml.soap.SOAPMessage;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * Test that the UTF8ByteWriter produces the same bytes as an
+ * OutputStreamWriter and the UTF-8 XMLEncoder.
+ */
+public class TestUTF8ByteWriter extends TestCase {
+
+    private static final String[] STRINGS = {
+        "",
+        "plain ascii",
+        "<tag attr=\"&value\">text</tag>",
+        "caf\u00e9 \u00fcber \u20ac \u4e2d\u6587",
+        "pair \ud83d\ude00 end",
+        "lone high \ud800 and low \udc00",
+        "tab\tnewline\ncr\r del\u007f",
+    };
+
+    public TestUTF8ByteWriter(String name) {
+        super(name);
+    }
+
+    private static byte[] reference(String str) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(baos, "UTF-8");
+        writer.write(str);
+        writer.close();
+        return baos.toByteArray();
+    }
+
+    private static void assertBytes(byte[] expected, byte[] actual)
+            throws Exception {
+        assertEquals(new String(expected, "UTF-8"), new String(actual, "UTF-8"));
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("byte " + i, expected[i], actual[i]);
+        }
+    }
+
+    public void testWrite() throws Exception {
+        for (int i = 0; i < STRINGS.length; i++) {
+            // A small buffer forces flushes in the middle of the string
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            UTF8ByteWriter writer = new UTF8ByteWriter(baos, 16);
+            writer.write(STRINGS[i]);
+            writer.close();
+            assertBytes(reference(STRINGS[i]), baos.toByteArray());
+
+            baos = new ByteArrayOutputStream();
+            writer = new UTF8ByteWriter(baos, 16);
+            char[] chars = STRINGS[i].toCharArray();
+            for (int j = 0; j < chars.length; j++) {
+                // Split surrogate pairs across calls
+                if (j % 2 == 0) {
+                    writer.write(chars[j]);
+                } else {
+                    writer.write(chars, j, 1);
+                }
+            }
+            writer.close();
+            assertBytes(reference(STRINGS[i]), baos.toByteArray());
+        }
+    }
+
+    public void testWriteEncoded() throws Exception {
+        XMLEncoder encoder = XMLUtils.getXMLEncoder("UTF-8");
+        for (int i = 0; i < STRINGS.length; i++) {
+            StringWriter expected = new StringWriter();
+            encoder.writeEncoded(expected, STRINGS[i]);
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            UTF8ByteWriter writer = new UTF8ByteWriter(baos, 16);
+            encoder.writeEncoded(writer, STRINGS[i]);
+            writer.flush();
+            assertBytes(reference(expected.toString()), baos.toByteArray());
+        }
+    }
+
+    public void testInvalidCharacter() throws Exception {
+        UTF8ByteWriter writer = new UTF8ByteWriter(new ByteArrayOutputStream());
+        try {
+            writer.writeEncoded("bad \u0001 char");
+            fail("No exception for an invalid XML character");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    public void testFragments() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        UTF8ByteWriter writer = new UTF8ByteWriter(baos, 16);
+        for (int i = 0; i < 3; i++) {
+            writer.writeStartTag("ns1:element");
+            writer.writeNamespaceDeclaration("xmlns:ns1", "urn:test");
+            writer.writeNamespaceDeclaration("xmlns:ns2", "urn:test");
+            writer.writeNamespaceDeclaration("xmlns:ns3", "urn:a&b");
+            writer.write('>');
+            writer.writeEndTag("ns1:element");
+        }
+        writer.flush();
+        String element = "<ns1:element xmlns:ns1=\"urn:test\""
+                + " xmlns:ns2=\"urn:test\" xmlns:ns3=\"urn:a&amp;b\">"
+                + "</ns1:element>";
+        assertEquals(element + element + element, baos.toString("UTF-8"));
+    }
+
+    public void testReset() throws Exception {
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        UTF8ByteWriter writer = new UTF8ByteWriter(first);
+        writer.writeStartTag("ns1:element");
+        writer.write(">dropped");
+        writer.write('\uD800');
+
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        writer.reset(second);
+        writer.writeStartTag("ns1:element");
+        writer.write('>');
+        writer.writeEndTag("ns1:element");
+        writer.flush();
+        assertEquals(0, first.size());
+        assertEquals("<ns1:element></ns1:element>", second.toString("UTF-8"));
+    }
+
+    private byte[] serialize(String disable) throws Exception {
+        AxisServer server = new AxisServer();
+        server.setOption(AxisEngine.PROP_DISABLE_BYTE_WRITER, disable);
+        MessageContext msgContext = new MessageContext(server);
+        Message message = (Message) MessageFactory.newInstance().createMessage();
+        message.setMessageContext(msgContext);
+        message.setProperty(SOAPMessage.CHARACTER_SET_ENCODING, "UTF-8");
+        RPCElement body = new RPCElement("urn:myNamespace", "method1",
+                new Object[] {
+                    new RPCParam("urn:myNamespace", "p1", STRINGS[2]),
+                    new RPCParam("urn:myNamespace", "p2", STRINGS[3]),
+                    new RPCParam("urn:other", "p3", STRINGS[6]),
+                });
+        message.getSOAPBody().addChildElement(body);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        message.writeTo(baos);
+        return baos.toByteArray();
+    }
+
+    public void testMessage() throws Exception {
+        assertBytes(serialize("true"), serialize("false"));
+        // Again, with the writer the thread used for the first message
+        assertBytes(serialize("true"), serialize("false"));
+    }
+}
@@ -120,6 +120,43 @@ public class TestAxisFault extends TestCase {
         assertNull(old);
     }
 
+    /**
+     * test that details added later come after those filled in
+     */
+    public void testDetailOrder() {
+        AxisFault af = AxisFault.makeFault(new Exception("foo"));
+        af.addFaultDetailString("later");
+        Element[] details = af.getFaultDetails();
+        assertEquals(3, details.length);
+        assertEquals("stackTrace", details[0].getLocalName());
+        assertEquals("hostname", details[1].getLocalName());
+        assertEquals("string", details[2].getNodeName());
+        assertTrue(XMLUtils.getInnerXMLString(details[0]).indexOf("foo") >= 0);
+    }
+
+    /**
+     * test that lightweight faults have no stack trace
+     */
+    public void testLightweightFault() {
+        Exception e = new Exception("foo");
+        AxisFault af = AxisFault.makeLightweightFault(e);
+        assertNull(af.lookupFaultDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE));
+        assertNotNull(af.lookupFaultDetail(Constants.QNAME_FAULTDETAIL_HOSTNAME));
+        assertEquals(0, af.getStackTrace().length);
+        assertSame(e, af.detail);
+        assertEquals(e.toString(), af.getFaultString());
+
+        // later faults are not affected
+        af = AxisFault.makeFault(e);
+        assertTrue(af.getStackTrace().length > 0);
+        assertNotNull(af.lookupFaultDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE));
+
+        af = new NoEndPointException();
+        assertSame(af, AxisFault.makeLightweightFault(af));
+        assertNull(af.lookupFaultDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE));
+        assertNotNull(af.lookupFaultDetail(Constants.QNAME_FAULTDETAIL_EXCEPTIONNAME));
+    }
+
     public Element createElement(String tag,String child) {
         Document doc = null;
         try {
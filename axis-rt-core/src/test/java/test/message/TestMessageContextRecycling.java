@@ -0,0 +1,211 @@
+package test.message;
+
+import junit.framework.TestCase;
+import org.apache.axis.AxisEngine;
+import org.apache.axis.Constants;
+import org.apache.axis.Message;
+import org.apache.axis.MessageContext;
+import org.apache.axis.message.CompactSAX2EventRecorder;
+import org.apache.axis.message.MessageElement;
+import org.apache.axis.message.SAX2EventRecorder;
+import org.apache.axis.message.SOAPEnvelope;
+import org.apache.axis.server.AxisServer;
+import org.apache.axis.soap.SOAPConstants;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+
+/**
+ * Test the reuse of message contexts, and of the objects they hold, from
+ * one request to the next.
+ */
+public class TestMessageContextRecycling extends TestCase {
+
+    private static final String REQUEST =
+        "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+        "<soapenv:Body><echo xmlns=\"urn:test\"><arg>{0}</arg></echo></soapenv:Body>" +
+        "</soapenv:Envelope>";
+
+    public TestMessageContextRecycling(String name) {
+        super(name);
+    }
+
+    private static AxisServer server(boolean recycle) {
+        AxisServer server = new AxisServer();
+        if (recycle) {
+            server.setOption(AxisEngine.PROP_RECYCLE_MESSAGE_CONTEXTS, "true");
+        }
+        return server;
+    }
+
+    private static String parse(MessageContext msgContext, String arg)
+            throws Exception {
+        Message message = new Message(REQUEST.replaceAll("\\{0\\}", arg));
+        message.setMessageContext(msgContext);
+        msgContext.setRequestMessage(message);
+        SOAPEnvelope env = message.getSOAPEnvelope();
+        MessageElement echo = (MessageElement) env.getBodyElements().get(0);
+        return ((MessageElement) echo.getChildElements().next()).getValue();
+    }
+
+    public void testNotRecycledByDefault() throws Exception {
+        AxisServer server = server(false);
+        MessageContext first = MessageContext.obtain(server);
+        first.setProperty("test", "value");
+        first.release();
+        MessageContext second = MessageContext.obtain(server);
+        assertNotSame(first, second);
+        assertEquals("value", first.getProperty("test"));
+        assertNull(second.getRecycledRecorder(false));
+        assertNull(second.getRecycledNamespaces());
+    }
+
+    public void testRecycle() throws Exception {
+        AxisServer server = server(true);
+        server.setOption(AxisEngine.PROP_SOAP_VERSION, "1.2");
+        MessageContext msgContext = MessageContext.obtain(server);
+        Object attachmentsDir =
+                msgContext.getProperty(MessageContext.ATTACHMENTS_DIR);
+        assertSame(SOAPConstants.SOAP12_CONSTANTS,
+                   msgContext.getSOAPConstants());
+
+        assertEquals("one", parse(msgContext, "one"));
+        msgContext.setProperty("test", "value");
+        msgContext.setTargetService("AdminService");
+        msgContext.setSOAPConstants(SOAPConstants.SOAP11_CONSTANTS);
+        msgContext.setUsername("user");
+        msgContext.setMaintainSession(true);
+        msgContext.setTimeout(1);
+        msgContext.setPastPivot(true);
+        msgContext.release();
+
+        MessageContext recycled = MessageContext.obtain(server);
+        assertSame(msgContext, recycled);
+        assertNull(recycled.getRequestMessage());
+        assertNull(recycled.getProperty("test"));
+        assertNull(recycled.getTargetService());
+        assertNull(recycled.getService());
+        assertNull(recycled.getUsername());
+        assertFalse(recycled.getMaintainSession());
+        assertFalse(recycled.getPastPivot());
+        assertEquals(Constants.DEFAULT_MESSAGE_TIMEOUT, recycled.getTimeout());
+        assertEquals(attachmentsDir,
+                     recycled.getProperty(MessageContext.ATTACHMENTS_DIR));
+        assertSame(SOAPConstants.SOAP12_CONSTANTS,
+                   recycled.getSOAPConstants());
+        assertSame(server, recycled.getAxisEngine());
+
+        // the kept context lets go of the engine, and serves any engine
+        recycled.release();
+        assertNull(recycled.getAxisEngine());
+        AxisServer other = server(true);
+        assertSame(recycled, MessageContext.obtain(other));
+        assertSame(other, recycled.getAxisEngine());
+        assertSame(SOAPConstants.SOAP11_CONSTANTS,
+                   recycled.getSOAPConstants());
+    }
+
+    public void testDiscardRecycled() throws Exception {
+        AxisServer server = server(true);
+        MessageContext msgContext = MessageContext.obtain(server);
+        msgContext.release();
+        server.cleanup();
+        MessageContext other = MessageContext.obtain(server);
+        assertNotSame(msgContext, other);
+
+        // released contexts are kept again
+        other.release();
+        assertSame(other, MessageContext.obtain(server));
+    }
+
+    public void testRecorderShrinks() throws Exception {
+        SAX2EventRecorder recorder = new SAX2EventRecorder();
+        CompactSAX2EventRecorder compact = new CompactSAX2EventRecorder();
+        int length = arrayLength(recorder);
+        int compactLength = arrayLength(compact);
+        for (int i = 0; i < 100000; i++) {
+            recorder.startElement("urn:test", "e" + i, "e" + i, null);
+            compact.startElement("urn:test", "e" + i, "e" + i, null);
+        }
+        recorder.clear();
+        compact.clear();
+        assertEquals(0, recorder.getLength());
+        assertEquals(0, compact.getLength());
+        assertEquals(length, arrayLength(recorder));
+        assertEquals(compactLength, arrayLength(compact));
+
+        // names recorded again after the tables are given up
+        compact.startElement("urn:test", "e1", "e1", null);
+        compact.startElement("urn:test", "e1", "e1", null);
+        assertEquals(2, compact.getLength());
+
+        // small messages keep the arrays
+        for (int i = 0; i < 100; i++) {
+            recorder.startElement("urn:test", "e", "e", null);
+        }
+        int grown = arrayLength(recorder);
+        recorder.clear();
+        assertEquals(grown, arrayLength(recorder));
+    }
+
+    /**
+     * Returns the length of the array a recorder keeps its events in.
+     */
+    private static int arrayLength(SAX2EventRecorder recorder)
+            throws Exception {
+        Object array;
+        if (recorder instanceof CompactSAX2EventRecorder) {
+            Field ops = CompactSAX2EventRecorder.class.getDeclaredField("ops");
+            ops.setAccessible(true);
+            array = ops.get(recorder);
+        } else {
+            Field events = SAX2EventRecorder.class.getDeclaredField("events");
+            events.setAccessible(true);
+            Object vector = events.get(recorder);
+            Field objarray = vector.getClass().getDeclaredField("objarray");
+            objarray.setAccessible(true);
+            array = objarray.get(vector);
+        }
+        return Array.getLength(array);
+    }
+
+    public void testRecorderReused() throws Exception {
+        AxisServer server = server(true);
+        MessageContext msgContext = MessageContext.obtain(server);
+        assertEquals("one", parse(msgContext, "one"));
+        SAX2EventRecorder recorder =
+                msgContext.getRequestMessage().getSOAPEnvelope().getRecorder();
+        assertNotNull(recorder);
+        // handed out once per request only
+        assertNull(msgContext.getRecycledRecorder(false));
+        assertNull(msgContext.getRecycledNamespaces());
+        msgContext.release();
+
+        msgContext = MessageContext.obtain(server);
+        assertEquals("two & three", parse(msgContext, "two &amp; three"));
+        assertSame(recorder,
+                msgContext.getRequestMessage().getSOAPEnvelope().getRecorder());
+        assertEquals(new Message(REQUEST.replaceAll("\\{0\\}", "two &amp; three"))
+                             .getSOAPEnvelope().getAsString(),
+                     msgContext.getRequestMessage().getSOAPEnvelope().getAsString());
+        msgContext.release();
+    }
+
+    public void testOptionsSnapshot() throws Exception {
+        AxisServer server = server(false);
+        assertSame(server.getOptionsSnapshot(), server.getOptionsSnapshot());
+        assertFalse(server.getOptionsSnapshot().isRecycleMessageContexts());
+        server.setOption(AxisEngine.PROP_RECYCLE_MESSAGE_CONTEXTS, "true");
+        assertTrue(server.getOptionsSnapshot().isRecycleMessageContexts());
+        server.setOption(AxisEngine.PROP_SOAP_ALLOWED_VERSION, "1.1");
+        assertSame(SOAPConstants.SOAP11_CONSTANTS,
+                   new MessageContext(server).getProperty(
+                           Constants.MC_SINGLE_SOAP_VERSION));
+
+        // turning recycling off lets released contexts go
+        MessageContext msgContext = MessageContext.obtain(server);
+        server.setOption(AxisEngine.PROP_RECYCLE_MESSAGE_CONTEXTS, "false");
+        msgContext.release();
+        assertNotSame(msgContext, MessageContext.obtain(server));
+    }
+}
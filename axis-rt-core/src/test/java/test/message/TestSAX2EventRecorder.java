@@ -0,0 +1,189 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.message;
+
+import junit.framework.TestCase;
+import org.apache.axis.AxisEngine;
+import org.apache.axis.Message;
+import org.apache.axis.MessageContext;
+import org.apache.axis.message.CompactSAX2EventRecorder;
+import org.apache.axis.message.MessageElement;
+import org.apache.axis.message.SAX2EventRecorder;
+import org.apache.axis.message.SOAPEnvelope;
+import org.apache.axis.server.AxisServer;
+import org.apache.axis.utils.XMLUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.StringReader;
+
+/**
+ * Test that the compact event recorder replays exactly what the default
+ * recorder does.
+ */
+public class TestSAX2EventRecorder extends TestCase {
+
+    private static final String MSG =
+        "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+        "<soapenv:Body>" +
+        "<ns1:echo xmlns:ns1=\"urn:echo\" a=\"1\">" +
+        "<ns1:item>one &amp; two</ns1:item>\n" +
+        "<!-- a comment --><![CDATA[<raw>]]>" +
+        "<item xmlns=\"\">three</item><?pi data?>" +
+        "</ns1:echo>" +
+        "</soapenv:Body></soapenv:Envelope>";
+
+    private static final String SOAP_MSG =
+        "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+        "<soapenv:Body>" +
+        "<ns1:echo xmlns:ns1=\"urn:echo\" a=\"1\">" +
+        "<ns1:item>one &amp; two</ns1:item>\n" +
+        "<item xmlns=\"\">three</item>" +
+        "</ns1:echo>" +
+        "</soapenv:Body></soapenv:Envelope>";
+
+    /**
+     * Records every callback as a line of text.
+     */
+    static class Tracer extends DefaultHandler
+            implements org.xml.sax.ext.LexicalHandler {
+        StringBuffer trace = new StringBuffer();
+        public void startDocument() { trace.append("startDocument\n"); }
+        public void endDocument() { trace.append("endDocument\n"); }
+        public void startPrefixMapping(String p, String u) {
+            trace.append("startPrefix ").append(p).append('=').append(u).append('\n');
+        }
+        public void endPrefixMapping(String p) {
+            trace.append("endPrefix ").append(p).append('\n');
+        }
+        public void startElement(String ns, String local, String q, Attributes attrs) {
+            trace.append("start {").append(ns).append('}').append(local)
+                 .append(' ').append(q).append(' ').append(attrs.getLength()).append('\n');
+        }
+        public void endElement(String ns, String local, String q) {
+            trace.append("end {").append(ns).append('}').append(local)
+                 .append(' ').append(q).append('\n');
+        }
+        public void characters(char[] ch, int start, int length) {
+            trace.append("chars ").append(ch, start, length).append('\n');
+        }
+        public void ignorableWhitespace(char[] ch, int start, int length) {
+            trace.append("ws ").append(ch, start, length).append('\n');
+        }
+        public void processingInstruction(String target, String data) {
+            trace.append("pi ").append(target).append(' ').append(data).append('\n');
+        }
+        public void startDTD(String name, String publicId, String systemId) {
+            trace.append("startDTD ").append(name).append('\n');
+        }
+        public void endDTD() { trace.append("endDTD\n"); }
+        public void startEntity(String name) { trace.append("startEntity\n"); }
+        public void endEntity(String name) { trace.append("endEntity\n"); }
+        public void startCDATA() { trace.append("startCDATA\n"); }
+        public void endCDATA() { trace.append("endCDATA\n"); }
+        public void comment(char[] ch, int start, int length) {
+            trace.append("comment ").append(ch, start, length).append('\n');
+        }
+    }
+
+    /**
+     * Feeds the parse of a document into a recorder.
+     */
+    static class Recording extends Tracer {
+        final SAX2EventRecorder recorder;
+        Recording(SAX2EventRecorder recorder) { this.recorder = recorder; }
+        public void startDocument() { recorder.startDocument(); }
+        public void endDocument() { recorder.endDocument(); }
+        public void startPrefixMapping(String p, String u) { recorder.startPrefixMapping(p, u); }
+        public void endPrefixMapping(String p) { recorder.endPrefixMapping(p); }
+        public void startElement(String ns, String local, String q, Attributes attrs) {
+            recorder.startElement(ns, local, q, new AttributesImpl(attrs));
+        }
+        public void endElement(String ns, String local, String q) { recorder.endElement(ns, local, q); }
+        public void characters(char[] ch, int start, int length) { recorder.characters(ch, start, length); }
+        public void ignorableWhitespace(char[] ch, int start, int length) {
+            recorder.ignorableWhitespace(ch, start, length);
+        }
+        public void processingInstruction(String target, String data) {
+            recorder.processingInstruction(target, data);
+        }
+        public void startDTD(String name, String publicId, String systemId) {
+            recorder.startDTD(name, publicId, systemId);
+        }
+        public void endDTD() { recorder.endDTD(); }
+        public void startEntity(String name) { recorder.startEntity(name); }
+        public void endEntity(String name) { recorder.endEntity(name); }
+        public void startCDATA() { recorder.startCDATA(); }
+        public void endCDATA() { recorder.endCDATA(); }
+        public void comment(char[] ch, int start, int length) { recorder.comment(ch, start, length); }
+    }
+
+    private SAX2EventRecorder record(SAX2EventRecorder recorder) throws Exception {
+        XMLReader reader = XMLUtils.getSAXParser().getXMLReader();
+        Recording handler = new Recording(recorder);
+        reader.setContentHandler(handler);
+        reader.setProperty("http://xml.org/sax/properties/lexical-handler", handler);
+        reader.parse(new InputSource(new StringReader(MSG)));
+        return recorder;
+    }
+
+    private String replay(SAX2EventRecorder recorder, int start, int stop)
+            throws Exception {
+        Tracer tracer = new Tracer();
+        recorder.replay(start, stop, tracer);
+        return tracer.trace.toString();
+    }
+
+    public void testReplayMatchesDefaultRecorder() throws Exception {
+        SAX2EventRecorder expected = record(new SAX2EventRecorder());
+        SAX2EventRecorder actual = record(new CompactSAX2EventRecorder());
+        assertEquals(expected.getLength(), actual.getLength());
+        assertEquals(replay(expected, 0, -1), replay(actual, 0, -1));
+        for (int start = 0; start < expected.getLength(); start += 3) {
+            int stop = Math.min(start + 4, expected.getLength() - 1);
+            assertEquals(replay(expected, start, stop),
+                         replay(actual, start, stop));
+        }
+    }
+
+    public void testClear() throws Exception {
+        SAX2EventRecorder recorder = record(new CompactSAX2EventRecorder());
+        recorder.clear();
+        assertEquals(0, recorder.getLength());
+        assertEquals("", replay(recorder, 0, -1));
+        record(recorder);
+        assertEquals(replay(record(new SAX2EventRecorder()), 0, -1),
+                     replay(recorder, 0, -1));
+    }
+
+    public void testDeferredDeserialization() throws Exception {
+        AxisServer server = new AxisServer();
+        server.setOption(AxisEngine.PROP_COMPACT_EVENT_RECORDER, "true");
+        MessageContext msgContext = new MessageContext(server);
+        Message message = new Message(SOAP_MSG);
+        message.setMessageContext(msgContext);
+        SOAPEnvelope env = message.getSOAPEnvelope();
+        assertTrue(env.getRecorder() instanceof CompactSAX2EventRecorder);
+        MessageElement echo = (MessageElement) env.getBodyElements().get(0);
+        assertEquals("one & two", ((MessageElement) echo.getChildElements().next()).getValue());
+        assertEquals(new Message(SOAP_MSG).getSOAPEnvelope().getAsString(),
+                     env.getAsString());
+    }
+}
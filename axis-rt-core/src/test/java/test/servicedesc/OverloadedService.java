@@ -0,0 +1,16 @@
+package test.servicedesc;
+
+public class OverloadedService {
+
+    public String echo(String a, String b) {
+        return a + b;
+    }
+
+    public String echo(String a) {
+        return a;
+    }
+
+    public int other(int i) {
+        return i;
+    }
+}
@@ -0,0 +1,87 @@
+package test.servicedesc;
+
+import junit.framework.TestCase;
+import org.apache.axis.description.JavaServiceDesc;
+import org.apache.axis.description.OperationDesc;
+import org.apache.axis.encoding.DefaultTypeMappingImpl;
+
+import javax.xml.namespace.QName;
+
+/**
+ * Test the operation lookups answered by the dispatch table of a
+ * JavaServiceDesc.
+ */
+public class TestDispatchTable extends TestCase {
+
+    private JavaServiceDesc desc;
+    private QName echo;
+
+    protected void setUp() throws Exception {
+        desc = new JavaServiceDesc();
+        desc.setTypeMapping(DefaultTypeMappingImpl.getSingletonDelegate());
+        desc.loadServiceDescByIntrospection(OverloadedService.class);
+        echo = desc.getOperationsByName("echo")[0].getElementQName();
+    }
+
+    private static OperationDesc withParams(OperationDesc[] ops, int n) {
+        for (int i = 0; i < ops.length; i++) {
+            if (ops[i].getNumParams() == n) {
+                return ops[i];
+            }
+        }
+        return null;
+    }
+
+    public void testOverloadsSorted() throws Exception {
+        OperationDesc[] ops = desc.getOperationsByQName(echo);
+        assertEquals(2, ops.length);
+        assertEquals(1, ops[0].getMethod().getParameterTypes().length);
+        assertEquals(2, ops[1].getMethod().getParameterTypes().length);
+
+        // Callers get their own copy
+        ops[0] = null;
+        assertNotNull(desc.getOperationsByQName(echo)[0]);
+        assertSame(desc.getOperationsByQName(echo)[0],
+                   desc.getOperationByElementQName(echo));
+    }
+
+    public void testSOAPAction() throws Exception {
+        OperationDesc[] ops = desc.getOperationsByName("echo");
+        withParams(ops, 1).setSoapAction("urn:echo1");
+        withParams(ops, 2).setSoapAction("urn:echo2");
+        desc.buildDispatchTable();
+
+        OperationDesc[] match = desc.getOperationsByQName(echo, "urn:echo2");
+        assertEquals(1, match.length);
+        assertSame(withParams(ops, 2), match[0]);
+
+        assertEquals(2, desc.getOperationsByQName(echo, "urn:other").length);
+        assertEquals(2, desc.getOperationsByQName(echo, "").length);
+    }
+
+    public void testAmbiguousSOAPAction() throws Exception {
+        OperationDesc[] ops = desc.getOperationsByName("echo");
+        ops[0].setSoapAction("urn:echo");
+        ops[1].setSoapAction("urn:echo");
+
+        assertEquals(2, desc.getOperationsByQName(echo, "urn:echo").length);
+    }
+
+    public void testAddOperation() throws Exception {
+        QName qname = new QName("urn:test", "added");
+        assertNull(desc.getOperationsByQName(qname));
+
+        OperationDesc added = new OperationDesc();
+        added.setName("added");
+        added.setElementQName(qname);
+        added.setMethod(desc.getOperationByName("other").getMethod());
+        desc.addOperationDesc(added);
+
+        OperationDesc[] ops = desc.getOperationsByQName(qname);
+        assertEquals(1, ops.length);
+        assertSame(added, ops[0]);
+
+        desc.removeOperationDesc(added);
+        assertNull(desc.getOperationsByQName(qname));
+    }
+}
@@ -0,0 +1,92 @@
+package test.session;
+
+import junit.framework.TestCase;
+import org.apache.axis.session.SimpleSession;
+import org.apache.axis.session.SimpleSessionStore;
+
+import javax.xml.rpc.server.ServiceLifecycle;
+
+/**
+ * Test the timing out and evicting of sessions by the SimpleSessionStore.
+ */
+public class TestSimpleSessionStore extends TestCase {
+
+    public TestSimpleSessionStore(String name) {
+        super(name);
+    }
+
+    private static class Lifecycle implements ServiceLifecycle {
+        int destroyed = 0;
+
+        public void init(Object context) {
+        }
+
+        public void destroy() {
+            destroyed++;
+        }
+    }
+
+    private static SimpleSession session(int timeout, Lifecycle lifecycle) {
+        SimpleSession session = new SimpleSession();
+        session.setTimeout(timeout);
+        if (lifecycle != null) {
+            session.set("service", lifecycle);
+        }
+        return session;
+    }
+
+    public void testTimeout() throws Exception {
+        SimpleSessionStore store = new SimpleSessionStore();
+        Lifecycle idle = new Lifecycle();
+        Lifecycle used = new Lifecycle();
+        store.put(new Long(1), session(1, idle));
+        store.put(new Long(2), session(1, used));
+        store.put(new Long(3), session(100, null));
+        assertEquals(3, store.size());
+
+        // keep session 2 in use while session 1 times out
+        for (int i = 0; i < 8; i++) {
+            Thread.sleep(250);
+            assertNotNull(store.get(new Long(2)));
+        }
+        assertEquals(2, store.size());
+        assertNull(store.get(new Long(1)));
+        assertEquals(1, idle.destroyed);
+        assertEquals(0, used.destroyed);
+        assertEquals(1, store.getExpiredCount());
+        assertEquals(3, store.getCreatedCount());
+        store.stop();
+    }
+
+    public void testTimedOutOnLookup() throws Exception {
+        SimpleSessionStore store = new SimpleSessionStore();
+        Lifecycle lifecycle = new Lifecycle();
+        SimpleSession session = session(0, lifecycle);
+        store.put(new Long(1), session);
+        // leave it to the lookup
+        store.stop();
+        Thread.sleep(20);
+        assertNull(store.get(new Long(1)));
+        assertEquals(1, lifecycle.destroyed);
+        assertEquals(0, store.size());
+    }
+
+    public void testEviction() throws Exception {
+        SimpleSessionStore store = new SimpleSessionStore();
+        store.setMaxSessions(160);
+        Lifecycle[] lifecycles = new Lifecycle[1000];
+        for (int i = 0; i < lifecycles.length; i++) {
+            lifecycles[i] = new Lifecycle();
+            store.put(new Long(i), session(100, lifecycles[i]));
+            // keep session 0 in use
+            assertNotNull(store.get(new Long(0)));
+        }
+        assertTrue(store.size() <= 160);
+        assertEquals(lifecycles.length - store.size(), store.getEvictedCount());
+        assertNotNull(store.get(new Long(0)));
+        assertNotNull(store.get(new Long(lifecycles.length - 1)));
+        assertEquals(0, lifecycles[0].destroyed);
+        assertEquals(1, lifecycles[1].destroyed);
+        store.stop();
+    }
+}
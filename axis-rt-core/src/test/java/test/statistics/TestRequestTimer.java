@@ -0,0 +1,149 @@
+package test.statistics;
+
+import junit.framework.TestCase;
+import org.apache.axis.AxisFault;
+import org.apache.axis.Message;
+import org.apache.axis.MessageContext;
+import org.apache.axis.configuration.SimpleProvider;
+import org.apache.axis.handlers.soap.SOAPService;
+import org.apache.axis.providers.java.RPCProvider;
+import org.apache.axis.server.AxisServer;
+import org.apache.axis.statistics.RequestTimer;
+import org.apache.axis.statistics.StatisticsCollector;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Test that requests are timed by phase and given to the collector of
+ * the server.
+ */
+public class TestRequestTimer extends TestCase {
+
+    private static final String REQUEST =
+        "<?xml version=\"1.0\"?>" +
+        "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+        "<soap:Body><m:{0} xmlns:m=\"urn:reverse\">" +
+        "<arg0 xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" " +
+        "xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" " +
+        "xsi:type=\"xsd:string\">abc</arg0>" +
+        "</m:{0}></soap:Body></soap:Envelope>";
+
+    private static class Collector implements StatisticsCollector {
+        MessageContext msgContext;
+        RequestTimer timer;
+        boolean fault;
+        int count = 0;
+
+        public void requestCompleted(MessageContext msgContext,
+                                     RequestTimer timer, boolean fault) {
+            this.msgContext = msgContext;
+            this.timer = timer;
+            this.fault = fault;
+            count++;
+        }
+    }
+
+    private SimpleProvider provider = new SimpleProvider();
+    private AxisServer engine = new AxisServer(provider);
+    private Collector collector = new Collector();
+
+    public TestRequestTimer(String name) {
+        super(name);
+    }
+
+    protected void setUp() throws Exception {
+        engine.init();
+        SOAPService reverse = new SOAPService(new RPCProvider());
+        reverse.setOption("className", "test.RPCDispatch.Service");
+        reverse.setOption("allowedMethods", "reverseString");
+        provider.deployService(new QName(null, "urn:reverse"), reverse);
+        engine.setStatisticsCollector(collector);
+    }
+
+    public void testNotCollected() throws Exception {
+        engine.setStatisticsCollector(null);
+        MessageContext msgContext = new MessageContext(engine);
+        assertNull(RequestTimer.start(msgContext));
+        RequestTimer.enter(msgContext, RequestTimer.PARSE);
+        RequestTimer.exit(msgContext);
+        assertNull(msgContext.getRequestTimer());
+    }
+
+    public void testNesting() throws Exception {
+        MessageContext msgContext = new MessageContext(engine);
+        RequestTimer timer = RequestTimer.start(msgContext);
+        assertNotNull(timer);
+        assertNull("started twice", RequestTimer.start(msgContext));
+
+        RequestTimer.enter(msgContext, RequestTimer.HANDLERS);
+        Thread.sleep(20);
+        RequestTimer.enter(msgContext, RequestTimer.PROVIDER);
+        Thread.sleep(20);
+        RequestTimer.exit(msgContext);
+        RequestTimer.enter(msgContext, RequestTimer.SERIALIZATION);
+        timer.finish(msgContext, false);
+
+        assertSame(timer, collector.timer);
+        assertEquals(1, collector.count);
+        assertNull(msgContext.getRequestTimer());
+        long handlers = timer.getPhaseTime(RequestTimer.HANDLERS);
+        long provider = timer.getPhaseTime(RequestTimer.PROVIDER);
+        assertTrue(handlers >= 15000000L);
+        assertTrue(provider >= 15000000L);
+        assertEquals(0, timer.getPhaseTime(RequestTimer.PARSE));
+        long total = 0;
+        for (int i = 0; i < RequestTimer.PHASES; i++) {
+            total += timer.getPhaseTime(i);
+        }
+        assertTrue(total <= timer.getElapsedTime());
+    }
+
+    private void invoke(String method) throws Exception {
+        MessageContext msgContext = new MessageContext(engine);
+        msgContext.setTargetService("urn:reverse");
+        msgContext.setRequestMessage(new Message(
+                REQUEST.replaceAll("\\{0\\}", method)));
+        try {
+            engine.invoke(msgContext);
+        } catch (AxisFault e) {
+            // the collector is told
+        }
+    }
+
+    public void testEngine() throws Exception {
+        invoke("reverseString");
+        assertEquals(1, collector.count);
+        assertFalse(collector.fault);
+        assertEquals("urn:reverse", collector.msgContext.getTargetService());
+        assertEquals("reverseString",
+                     collector.msgContext.getOperation().getName());
+        RequestTimer timer = collector.timer;
+        assertTrue(timer.getPhaseTime(RequestTimer.PARSE) > 0);
+        assertTrue(timer.getPhaseTime(RequestTimer.HANDLERS) > 0);
+        assertTrue(timer.getPhaseTime(RequestTimer.PROVIDER) > 0);
+
+        invoke("noSuchMethod");
+        assertEquals(2, collector.count);
+        assertTrue(collector.fault);
+    }
+
+    public void testTransport() throws Exception {
+        // a transport owns the timer, and the engine leaves it alone
+        MessageContext msgContext = new MessageContext(engine);
+        RequestTimer timer = RequestTimer.start(msgContext);
+        msgContext.setTargetService("urn:reverse");
+        msgContext.setRequestMessage(new Message(
+                REQUEST.replaceAll("\\{0\\}", "reverseString")));
+        engine.invoke(msgContext);
+        assertEquals(0, collector.count);
+        assertSame(timer, msgContext.getRequestTimer());
+
+        RequestTimer.enter(msgContext, RequestTimer.TRANSPORT_WRITE);
+        msgContext.getResponseMessage().writeTo(new ByteArrayOutputStream());
+        RequestTimer.exit(msgContext);
+        timer.finish(msgContext, false);
+        assertEquals(1, collector.count);
+        assertTrue(timer.getPhaseTime(RequestTimer.SERIALIZATION) > 0);
+    }
+}
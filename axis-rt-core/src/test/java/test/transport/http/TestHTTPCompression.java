@@ -0,0 +1,170 @@
+package test.transport.http;
+
+import junit.framework.TestCase;
+import org.apache.axis.transport.http.GzipThresholdOutputStream;
+import org.apache.axis.transport.http.HTTPCompression;
+import org.apache.axis.transport.http.HTTPConstants;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Test the compression of HTTP bodies.
+ */
+public class TestHTTPCompression extends TestCase {
+
+    /** Headers set on the last response */
+    private Map responseHeaders;
+    private int contentLength;
+    private ByteArrayOutputStream body;
+
+    public TestHTTPCompression(String name) {
+        super(name);
+    }
+
+    private HttpServletResponse response() {
+        responseHeaders = new HashMap();
+        contentLength = -1;
+        body = new ByteArrayOutputStream();
+        final ServletOutputStream out = new ServletOutputStream() {
+            public void write(int b) {
+                body.write(b);
+            }
+        };
+        return (HttpServletResponse) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class[] {HttpServletResponse.class},
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("setHeader")) {
+                        responseHeaders.put(args[0], args[1]);
+                    } else if (method.getName().equals("setContentLength")) {
+                        contentLength = ((Integer) args[0]).intValue();
+                    } else if (method.getName().equals("getOutputStream")) {
+                        return out;
+                    }
+                    return null;
+                }
+            });
+    }
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) ('a' + i % 7);
+        }
+        return content;
+    }
+
+    private static byte[] read(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[1024];
+        for (int n; (n = in.read(buf)) != -1; ) {
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    public void testBelowThreshold() throws Exception {
+        GzipThresholdOutputStream out =
+                new GzipThresholdOutputStream(response(), 100);
+        byte[] content = content(100);
+        out.write(content, 0, 50);
+        out.write(content, 50, 50);
+        out.flush();
+        assertEquals(0, body.size());
+        out.finish();
+
+        assertFalse(out.isCompressing());
+        assertNull(responseHeaders.get(HTTPConstants.HEADER_CONTENT_ENCODING));
+        assertEquals(100, contentLength);
+        assertEquals(new String(content), body.toString());
+    }
+
+    public void testAboveThreshold() throws Exception {
+        GzipThresholdOutputStream out =
+                new GzipThresholdOutputStream(response(), 100);
+        byte[] content = content(100000);
+        out.write(content[0]);
+        for (int i = 1; i < content.length; i += 1000) {
+            out.write(content, i, Math.min(1000, content.length - i));
+        }
+        out.finish();
+
+        assertTrue(out.isCompressing());
+        assertEquals(HTTPConstants.COMPRESSION_GZIP,
+                     responseHeaders.get(HTTPConstants.HEADER_CONTENT_ENCODING));
+        assertEquals(-1, contentLength);
+        assertTrue(body.size() < content.length / 10);
+
+        InputStream in = HTTPCompression.decode(
+                new ByteArrayInputStream(body.toByteArray()), "gzip");
+        assertEquals(new String(content), new String(read(in)));
+    }
+
+    public void testDecode() throws Exception {
+        byte[] content = content(5000);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(gzipped);
+        gzip.write(content);
+        gzip.finish();
+
+        InputStream in = HTTPCompression.decode(
+                new ByteArrayInputStream(gzipped.toByteArray()), " X-GZIP ");
+        assertEquals(new String(content), new String(read(in)));
+
+        in = new ByteArrayInputStream(content);
+        assertSame(in, HTTPCompression.decode(in, null));
+        assertSame(in, HTTPCompression.decode(in, "identity"));
+        assertTrue(HTTPCompression.isSupported("deflate"));
+        assertFalse(HTTPCompression.isSupported("br"));
+        try {
+            HTTPCompression.decode(in, "br");
+            fail("IOException expected");
+        } catch (IOException e) {
+        }
+    }
+
+    public void testMaxInflatedLength() throws Exception {
+        byte[] content = content(100000);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(gzipped);
+        gzip.write(content);
+        gzip.finish();
+
+        InputStream in = HTTPCompression.decode(
+                new ByteArrayInputStream(gzipped.toByteArray()), "gzip",
+                content.length);
+        assertEquals(content.length, read(in).length);
+
+        in = HTTPCompression.decode(
+                new ByteArrayInputStream(gzipped.toByteArray()), "gzip",
+                content.length - 1);
+        try {
+            read(in);
+            fail("IOException expected");
+        } catch (IOException e) {
+        }
+    }
+
+    public void testAcceptsGzip() {
+        assertTrue(HTTPCompression.acceptsGzip("gzip"));
+        assertTrue(HTTPCompression.acceptsGzip("deflate, gzip;q=0.5"));
+        assertTrue(HTTPCompression.acceptsGzip("*"));
+        assertTrue(HTTPCompression.acceptsGzip("x-gzip"));
+        assertFalse(HTTPCompression.acceptsGzip(null));
+        assertFalse(HTTPCompression.acceptsGzip("deflate"));
+        assertFalse(HTTPCompression.acceptsGzip("gzip;q=0"));
+        assertFalse(HTTPCompression.acceptsGzip("*, gzip; q=0.0"));
+        assertFalse(HTTPCompression.acceptsGzip("*;q=0"));
+    }
+}
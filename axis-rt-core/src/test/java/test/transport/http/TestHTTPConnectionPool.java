@@ -0,0 +1,208 @@
+package test.transport.http;
+
+import junit.framework.TestCase;
+import org.apache.axis.AxisFault;
+import org.apache.axis.MessageContext;
+import org.apache.axis.client.Call;
+import org.apache.axis.client.Service;
+import org.apache.axis.transport.http.HTTPConnectionPool;
+import org.apache.axis.transport.http.HTTPConstants;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/**
+ * Test the reuse of persistent connections by the HTTPSender.
+ */
+public class TestHTTPConnectionPool extends TestCase {
+
+    private static final String RESPONSE =
+        "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"" +
+        " xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\"" +
+        " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">" +
+        "<soapenv:Body><echoResponse><return xsi:type=\"xsd:string\">hello</return>" +
+        "</echoResponse></soapenv:Body></soapenv:Envelope>";
+
+    private ServerSocket serverSocket;
+    private volatile int accepted = 0;
+    private volatile boolean closeAfterResponse = false;
+    private volatile boolean stall = false;
+    private volatile int requests = 0;
+
+    public TestHTTPConnectionPool(String name) {
+        super(name);
+    }
+
+    protected void setUp() throws Exception {
+        HTTPConnectionPool.shutdownAll();
+        serverSocket = new ServerSocket(0);
+        Thread acceptor = new Thread() {
+            public void run() {
+                try {
+                    while (true) {
+                        final Socket socket = serverSocket.accept();
+                        accepted++;
+                        new Thread() {
+                            public void run() {
+                                serve(socket);
+                            }
+                        }.start();
+                    }
+                } catch (IOException e) {
+                    // server socket closed
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    protected void tearDown() throws Exception {
+        serverSocket.close();
+        HTTPConnectionPool.shutdownAll();
+    }
+
+    /**
+     * Serves keep-alive requests on one connection until the client closes it.
+     */
+    private void serve(Socket socket) {
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            while (true) {
+                int contentLength = 0;
+                String line;
+                while ((line = readLine(in)) != null && line.length() > 0) {
+                    if (line.toLowerCase().startsWith("content-length:")) {
+                        contentLength = Integer.parseInt(line.substring(15).trim());
+                    }
+                }
+                if (line == null) {
+                    break;
+                }
+                for (int i = 0; i < contentLength; i++) {
+                    in.read();
+                }
+                requests++;
+                if (stall) {
+                    // read the request, and never answer
+                    while (in.read() != -1) {
+                    }
+                    break;
+                }
+                byte[] body = RESPONSE.getBytes("UTF-8");
+                out.write(("HTTP/1.1 200 OK\r\n" +
+                        "Content-Type: text/xml; charset=utf-8\r\n" +
+                        "Content-Length: " + body.length + "\r\n" +
+                        (closeAfterResponse ? "Connection: close\r\n" : "") +
+                        "\r\n").getBytes("ISO-8859-1"));
+                out.write(body);
+                out.flush();
+                if (closeAfterResponse) {
+                    break;
+                }
+            }
+            socket.close();
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                buf.write(b);
+            }
+        }
+        if (b == -1 && buf.size() == 0) {
+            return null;
+        }
+        return buf.toString("ISO-8859-1");
+    }
+
+    private Object invoke() throws Exception {
+        return invoke(0);
+    }
+
+    private Object invoke(int timeout) throws Exception {
+        Call call = (Call) new Service().createCall();
+        if (timeout > 0) {
+            call.setTimeout(new Integer(timeout));
+        }
+        call.setTargetEndpointAddress("http://localhost:" +
+                serverSocket.getLocalPort() + "/axis/services/Echo");
+        call.setProperty(MessageContext.HTTP_TRANSPORT_VERSION,
+                HTTPConstants.HEADER_PROTOCOL_V11);
+        call.setOperationName("echo");
+        return call.invoke(new Object[] { "hello" });
+    }
+
+    public void testConnectionIsReused() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals("hello", invoke());
+        }
+        assertEquals("persistent connection not reused", 1, accepted);
+        assertEquals(1, HTTPConnectionPool.getPool("http").getIdleCount());
+    }
+
+    public void testConnectionCloseIsHonoured() throws Exception {
+        closeAfterResponse = true;
+        for (int i = 0; i < 3; i++) {
+            assertEquals("hello", invoke());
+        }
+        assertEquals(3, accepted);
+        assertEquals(0, HTTPConnectionPool.getPool("http").getIdleCount());
+    }
+
+    public void testSlowServerIsNotAskedTwice() throws Exception {
+        assertEquals("hello", invoke());
+        stall = true;
+        long start = System.currentTimeMillis();
+        try {
+            invoke(500);
+            fail("AxisFault expected");
+        } catch (AxisFault e) {
+            assertTrue(e.detail instanceof SocketTimeoutException);
+        }
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertEquals(2, requests);
+        assertEquals(1, accepted);
+    }
+
+    public void testMaxPerRoute() throws Exception {
+        HTTPConnectionPool pool = new HTTPConnectionPool(1, 10, 60000, true);
+        String route = HTTPConnectionPool.getRoute("http", "localhost",
+                serverSocket.getLocalPort());
+        Socket s1 = new Socket("localhost", serverSocket.getLocalPort());
+        Socket s2 = new Socket("localhost", serverSocket.getLocalPort());
+        pool.release(new HTTPConnectionPool.Connection(route, s1, false, ""));
+        pool.release(new HTTPConnectionPool.Connection(route, s2, false, ""));
+        assertEquals(1, pool.getIdleCount());
+        assertTrue(s2.isClosed());
+        HTTPConnectionPool.Connection conn = pool.lease(route);
+        assertNotNull(conn);
+        assertSame(s1, conn.getSocket());
+        assertTrue(conn.isReused());
+        assertNull(pool.lease(route));
+        s1.close();
+    }
+
+    public void testIdleEviction() throws Exception {
+        HTTPConnectionPool pool = new HTTPConnectionPool(5, 10, 0, false);
+        String route = HTTPConnectionPool.getRoute("http", "localhost",
+                serverSocket.getLocalPort());
+        Socket s1 = new Socket("localhost", serverSocket.getLocalPort());
+        pool.release(new HTTPConnectionPool.Connection(route, s1, false, ""));
+        pool.closeExpiredConnections();
+        assertEquals(0, pool.getIdleCount());
+        assertTrue(s1.isClosed());
+    }
+}
@@ -0,0 +1,184 @@
+package test.transport.http;
+
+import junit.framework.TestCase;
+import org.apache.axis.MessageContext;
+import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.configuration.XMLStringProvider;
+import org.apache.axis.deployment.wsdd.WSDDDocument;
+import org.apache.axis.server.AxisServer;
+import org.apache.axis.transport.http.HTTPConstants;
+import org.apache.axis.transport.http.QSWSDLHandler;
+import org.apache.axis.utils.XMLUtils;
+import org.apache.axis.utils.cache.GeneratedWSDLCache;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Test the caching of generated WSDL by the QSWSDLHandler.
+ */
+public class TestQSWSDLHandler extends TestCase {
+
+    private static final String DEPLOY =
+        "<deployment xmlns=\"http://xml.apache.org/axis/wsdd/\" " +
+        "xmlns:java=\"http://xml.apache.org/axis/wsdd/providers/java\">" +
+        " <service name=\"echo\" provider=\"java:RPC\">" +
+        "  <parameter name=\"className\" value=\"test.RPCDispatch.Service\"/>" +
+        "  <parameter name=\"allowedMethods\" value=\"*\"/>" +
+        "  <parameter name=\"cacheWSDL\" value=\"true\"/>" +
+        " </service>" +
+        " <service name=\"uncached\" provider=\"java:RPC\">" +
+        "  <parameter name=\"className\" value=\"test.RPCDispatch.Service\"/>" +
+        "  <parameter name=\"allowedMethods\" value=\"*\"/>" +
+        " </service>" +
+        "</deployment>";
+
+    private static final String URL = "http://localhost:8080/axis/services/echo";
+
+    private XMLStringProvider provider;
+    private AxisServer server;
+
+    /** Headers set on the last response */
+    private Map responseHeaders;
+    private int status;
+    private String body;
+    private boolean generated;
+
+    public TestQSWSDLHandler(String name) {
+        super(name);
+    }
+
+    protected void setUp() throws Exception {
+        provider = new XMLStringProvider(DEPLOY);
+        server = new AxisServer(provider);
+        server.init();
+    }
+
+    private void getWSDL(String ifNoneMatch) throws Exception {
+        getWSDL("echo", ifNoneMatch);
+    }
+
+    private void getWSDL(String serviceName, String ifNoneMatch)
+            throws Exception {
+        responseHeaders = new HashMap();
+        status = HttpServletResponse.SC_OK;
+
+        final Map requestHeaders = new HashMap();
+        if (ifNoneMatch != null) {
+            requestHeaders.put(HTTPConstants.HEADER_IF_NONE_MATCH, ifNoneMatch);
+        }
+        HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class[] {HttpServletRequest.class},
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("getHeader")) {
+                        return requestHeaders.get(args[0]);
+                    }
+                    return null;
+                }
+            });
+        HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class[] {HttpServletResponse.class},
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("setHeader")) {
+                        responseHeaders.put(args[0], args[1]);
+                    } else if (method.getName().equals("setStatus")) {
+                        status = ((Integer) args[0]).intValue();
+                    }
+                    return null;
+                }
+            });
+
+        StringWriter out = new StringWriter();
+        MessageContext msgContext = new MessageContext(server);
+        msgContext.setTargetService(serviceName);
+        msgContext.setProperty(MessageContext.TRANS_URL, URL);
+        msgContext.setProperty(HTTPConstants.MC_HTTP_SERVLETREQUEST, request);
+        msgContext.setProperty(HTTPConstants.MC_HTTP_SERVLETRESPONSE, response);
+        msgContext.setProperty(HTTPConstants.PLUGIN_SERVICE_NAME, serviceName);
+        msgContext.setProperty(HTTPConstants.PLUGIN_ENGINE, server);
+        msgContext.setProperty(HTTPConstants.PLUGIN_WRITER, new PrintWriter(out));
+        msgContext.setProperty(HTTPConstants.PLUGIN_IS_DEVELOPMENT, Boolean.FALSE);
+        msgContext.setProperty(HTTPConstants.PLUGIN_LOG,
+                               LogFactory.getLog(getClass().getName()));
+        msgContext.setProperty(HTTPConstants.PLUGIN_EXCEPTION_LOG,
+                               LogFactory.getLog(getClass().getName()));
+
+        new QSWSDLHandler().invoke(msgContext);
+
+        body = out.toString();
+        generated = msgContext.getProperty("WSDL") != null;
+    }
+
+    public void testCachedWSDL() throws Exception {
+        getWSDL(null);
+        assertTrue(generated);
+        String wsdl = body;
+        String eTag = (String) responseHeaders.get(HTTPConstants.HEADER_ETAG);
+        assertNotNull("No ETag", eTag);
+        assertTrue(wsdl, wsdl.indexOf(URL) != -1);
+
+        getWSDL(null);
+        assertFalse("WSDL generated again", generated);
+        assertEquals(wsdl, body);
+        assertEquals(eTag, responseHeaders.get(HTTPConstants.HEADER_ETAG));
+    }
+
+    public void testNotModified() throws Exception {
+        getWSDL(null);
+        String eTag = (String) responseHeaders.get(HTTPConstants.HEADER_ETAG);
+
+        getWSDL("\"other\", " + eTag);
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, status);
+        assertEquals("", body);
+
+        getWSDL("\"other\"");
+        assertEquals(HttpServletResponse.SC_OK, status);
+        assertTrue(body.length() > 0);
+    }
+
+    public void testRedeployInvalidates() throws Exception {
+        getWSDL(null);
+        assertEquals(1, provider.getDeployment().getGeneratedWSDLCache().size());
+
+        WSDDDocument doc = new WSDDDocument(XMLUtils.newDocument(
+                new ByteArrayInputStream(DEPLOY.getBytes())));
+        doc.deploy(provider.getDeployment());
+        assertEquals(0, provider.getDeployment().getGeneratedWSDLCache().size());
+
+        getWSDL(null);
+        assertTrue("WSDL not generated after redeployment", generated);
+    }
+
+    public void testNotCachedUnlessAsked() throws Exception {
+        getWSDL("uncached", null);
+        assertTrue(generated);
+        assertNull(responseHeaders.get(HTTPConstants.HEADER_ETAG));
+
+        getWSDL("uncached", null);
+        assertTrue("WSDL not generated again", generated);
+        assertEquals(0, provider.getDeployment().getGeneratedWSDLCache().size());
+    }
+
+    public void testStaleWSDLNotCached() throws Exception {
+        GeneratedWSDLCache cache =
+                provider.getDeployment().getGeneratedWSDLCache();
+        long generation = cache.getGeneration();
+        cache.invalidate("echo");
+        cache.put("echo", URL, "<definitions/>", generation);
+        assertEquals(0, cache.size());
+        assertNull(cache.get("echo", URL));
+
+        cache.put("echo", URL, "<definitions/>", cache.getGeneration());
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,125 @@
+package test.transport.local;
+
+import org.apache.axis.AxisFault;
+import org.apache.axis.attachments.ManagedMemoryDataSource;
+import org.apache.axis.client.Call;
+import org.apache.axis.transport.local.LocalTransport;
+import org.apache.axis.utils.IOUtils;
+import test.GenericLocalTest;
+
+import javax.activation.DataHandler;
+import java.io.ByteArrayInputStream;
+
+/**
+ * Test the isolation levels of the local transport.
+ */
+public class TestLocalIsolation extends GenericLocalTest {
+
+    private static final String[] VALUES = {"one", "two & three", ""};
+
+    public TestLocalIsolation() {
+    }
+
+    public TestLocalIsolation(String name) {
+        super(name);
+    }
+
+    private Object echo(String isolation) throws Exception {
+        transport.setIsolation(isolation);
+        Call call = getCall();
+        Object result = call.invoke("echo", new Object[] {VALUES});
+        assertTrue(result instanceof String[]);
+        String[] values = (String[]) result;
+        assertEquals(VALUES.length, values.length);
+        for (int i = 0; i < VALUES.length; i++) {
+            assertEquals(VALUES[i], values[i]);
+        }
+        return result;
+    }
+
+    private void fault(String isolation) throws Exception {
+        transport.setIsolation(isolation);
+        try {
+            getCall().invoke("failure", null);
+            fail("Expected a fault");
+        } catch (AxisFault fault) {
+            // the message is only there in development mode
+            assertTrue(fault.getFaultString(),
+                       fault.getFaultString().startsWith("java.lang.Exception"));
+        }
+    }
+
+    private void attachment(String isolation) throws Exception {
+        transport.setIsolation(isolation);
+        byte[] data = new byte[30000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        DataHandler dh = new DataHandler(new ManagedMemoryDataSource(
+                new ByteArrayInputStream(data), Integer.MAX_VALUE,
+                "application/octet-stream", true));
+        Object result = getCall().invoke("echoData", new Object[] {dh});
+        assertTrue(result instanceof DataHandler);
+        byte[] echoed = IOUtils.readFully(
+                ((DataHandler) result).getInputStream());
+        assertEquals(data.length, echoed.length);
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(data[i], echoed[i]);
+        }
+    }
+
+    public void testSerialize() throws Exception {
+        assertNotSame(VALUES, echo(LocalTransport.ISOLATION_SERIALIZE));
+        fault(LocalTransport.ISOLATION_SERIALIZE);
+        attachment(LocalTransport.ISOLATION_SERIALIZE);
+    }
+
+    public void testBytes() throws Exception {
+        assertNotSame(VALUES, echo(LocalTransport.ISOLATION_BYTES));
+        fault(LocalTransport.ISOLATION_BYTES);
+        attachment(LocalTransport.ISOLATION_BYTES);
+    }
+
+    public void testShared() throws Exception {
+        // nothing is copied
+        assertSame(VALUES, echo(LocalTransport.ISOLATION_SHARED));
+        fault(LocalTransport.ISOLATION_SHARED);
+        attachment(LocalTransport.ISOLATION_SHARED);
+    }
+
+    public void testBadIsolation() throws Exception {
+        try {
+            transport.setIsolation("none");
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+        Call call = getCall();
+        call.setProperty(LocalTransport.ISOLATION, "none");
+        try {
+            call.invoke("echo", new Object[] {VALUES});
+            fail("Expected a fault");
+        } catch (AxisFault fault) {
+        }
+    }
+
+    /**
+     * Service method.
+     */
+    public String[] echo(String[] values) {
+        return values;
+    }
+
+    /**
+     * Service method.
+     */
+    public DataHandler echoData(DataHandler data) {
+        return data;
+    }
+
+    /**
+     * Service method.
+     */
+    public void failure() throws Exception {
+        throw new Exception("expected");
+    }
+}
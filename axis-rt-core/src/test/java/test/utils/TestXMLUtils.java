@@ -2,6 +2,8 @@ package test.utils;
 
 import org.apache.axis.encoding.DeserializationContext;
 import test.AxisTestBase;
+import org.apache.axis.utils.DefaultEntityResolver;
+import org.apache.axis.utils.SAXParserPool;
 import org.apache.axis.utils.XMLUtils;
 import org.apache.axis.message.PrefixedQName;
 import org.apache.axis.message.MessageElement;
@@ -408,4 +410,38 @@ public class TestXMLUtils extends AxisTestBase
             XMLUnit.setIgnoreWhitespace(oldIgnore);
         }
     }
+
+    public void testSAXParserReuse() throws Exception
+    {
+        SAXParserPool pool = XMLUtils.getSAXParserPool();
+        SAXParser parser = XMLUtils.getSAXParser();
+        XMLUtils.releaseSAXParser(parser);
+        long hits = pool.getHits();
+        SAXParser parser2 = XMLUtils.getSAXParser();
+        assertSame("released parser was not reused", parser, parser2);
+        assertEquals(hits + 1, pool.getHits());
+        assertSame("entity resolver not restored on release",
+                   DefaultEntityResolver.INSTANCE,
+                   parser2.getXMLReader().getEntityResolver());
+        XMLUtils.releaseSAXParser(parser2);
+    }
+
+    public void testSAXParserPoolBounded() throws Exception
+    {
+        SAXParserPool pool = new SAXParserPool(1, 2);
+        SAXParser[] parsers = new SAXParser[3];
+        for (int i = 0; i < parsers.length; i++) {
+            parsers[i] = XMLUtils.getSAXParser();
+        }
+        assertTrue(pool.put(parsers[0]));
+        assertTrue(pool.put(parsers[1]));
+        assertFalse(pool.put(parsers[2]));
+        assertEquals(2, pool.getSize());
+        assertEquals(1, pool.getDiscards());
+        assertSame(parsers[1], pool.get());
+        assertSame(parsers[0], pool.get());
+        assertNull(pool.get());
+        assertEquals(2, pool.getHits());
+        assertEquals(1, pool.getMisses());
+    }
 }
@@ -0,0 +1,195 @@
+package test.wsdl.gen;
+
+import junit.framework.TestCase;
+import org.apache.axis.wsdl.gen.Generator;
+import org.apache.axis.wsdl.gen.NoopFactory;
+import org.apache.axis.wsdl.gen.Parser;
+import org.apache.axis.wsdl.symbolTable.SymbolTable;
+import org.apache.axis.wsdl.symbolTable.TypeEntry;
+
+import javax.wsdl.Binding;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Test generating the entries of a symbol table with several threads.
+ */
+public class TestParallelGeneration extends TestCase {
+
+    private static final String NS = "urn:parallel";
+    private static final int TYPES = 8;
+
+    private File wsdl;
+
+    public TestParallelGeneration(String name) {
+        super(name);
+    }
+
+    protected void setUp() throws Exception {
+        StringBuffer types = new StringBuffer();
+        StringBuffer parts = new StringBuffer();
+        for (int i = 0; i < TYPES; i++) {
+            types.append("<xsd:complexType name='T" + i + "'><xsd:sequence>" +
+                         "<xsd:element name='v' type='xsd:int'/>" +
+                         "</xsd:sequence></xsd:complexType>");
+            parts.append("<part name='p" + i + "' type='tns:T" + i + "'/>");
+        }
+        String content =
+            "<definitions xmlns='http://schemas.xmlsoap.org/wsdl/'" +
+            " xmlns:soap='http://schemas.xmlsoap.org/wsdl/soap/'" +
+            " xmlns:xsd='http://www.w3.org/2001/XMLSchema'" +
+            " xmlns:tns='" + NS + "' targetNamespace='" + NS + "'>" +
+            "<types><xsd:schema targetNamespace='" + NS + "'>" + types +
+            "</xsd:schema></types>" +
+            "<message name='request'>" + parts + "</message>" +
+            "<message name='response'/>" +
+            "<portType name='Parallel'><operation name='op'>" +
+            "<input message='tns:request'/><output message='tns:response'/>" +
+            "</operation></portType>" +
+            "<binding name='ParallelBinding' type='tns:Parallel'>" +
+            "<soap:binding style='rpc' transport='http://schemas.xmlsoap.org/soap/http'/>" +
+            "<operation name='op'><soap:operation soapAction=''/>" +
+            "<input><soap:body use='literal' namespace='" + NS + "'/></input>" +
+            "<output><soap:body use='literal' namespace='" + NS + "'/></output>" +
+            "</operation></binding>" +
+            "<service name='ParallelService'>" +
+            "<port name='ParallelPort' binding='tns:ParallelBinding'>" +
+            "<soap:address location='http://localhost/parallel'/>" +
+            "</port></service></definitions>";
+        wsdl = File.createTempFile("parallel", ".wsdl");
+        OutputStream out = new FileOutputStream(wsdl);
+        out.write(content.getBytes("UTF-8"));
+        out.close();
+    }
+
+    protected void tearDown() throws Exception {
+        wsdl.delete();
+    }
+
+    private static List typeNames(List generated) {
+        List names = new ArrayList();
+        for (int i = 0; i < generated.size(); i++) {
+            String name = (String) generated.get(i);
+            if (name.startsWith("{" + NS + "}T")) {
+                names.add(name);
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    public void testParallel() throws Exception {
+        RecordingFactory factory = new RecordingFactory(false, 20);
+        Parser parser = new Parser();
+        parser.setFactory(factory);
+        parser.setThreads(4);
+        parser.run(wsdl.getPath());
+
+        List types = typeNames(factory.generated);
+        assertEquals(TYPES, types.size());
+        assertEquals(TYPES, new HashSet(types).size());
+        assertTrue(factory.maxRunning > 1);
+
+        // the types come before the binding
+        String last = (String) factory.generated.get(factory.generated.size() - 1);
+        assertEquals("{" + NS + "}ParallelBinding", last);
+    }
+
+    public void testSharedGenerator() throws Exception {
+        RecordingFactory factory = new RecordingFactory(true, 0);
+        Parser parser = new Parser();
+        parser.setFactory(factory);
+        parser.setThreads(4);
+        parser.run(wsdl.getPath());
+
+        List types = typeNames(factory.generated);
+        assertEquals(TYPES, new HashSet(types).size());
+        assertEquals(1, factory.maxRunning);
+    }
+
+    public void testFailure() throws Exception {
+        RecordingFactory factory = new RecordingFactory(false, 0);
+        factory.failing = "{" + NS + "}T3";
+        Parser parser = new Parser();
+        parser.setFactory(factory);
+        parser.setThreads(4);
+        try {
+            parser.run(wsdl.getPath());
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals(factory.failing, e.getMessage());
+        }
+    }
+
+    /**
+     * Records the types and the binding generated, and how many were being
+     * generated at once.
+     */
+    private static class RecordingFactory extends NoopFactory {
+        final List generated = Collections.synchronizedList(new ArrayList());
+        final boolean shared;
+        final long delay;
+        String failing;
+        int running;
+        int maxRunning;
+        private RecordingGenerator sharedGenerator;
+
+        RecordingFactory(boolean shared, long delay) {
+            this.shared = shared;
+            this.delay = delay;
+        }
+
+        public Generator getGenerator(TypeEntry type, SymbolTable symbolTable) {
+            return getGenerator(type.getQName().toString());
+        }
+
+        public Generator getGenerator(Binding binding, SymbolTable symbolTable) {
+            return getGenerator(binding.getQName().toString());
+        }
+
+        private Generator getGenerator(String name) {
+            if (!shared) {
+                return new RecordingGenerator(name);
+            }
+            if (sharedGenerator == null) {
+                sharedGenerator = new RecordingGenerator(name);
+            }
+            sharedGenerator.name = name;
+            return sharedGenerator;
+        }
+
+        private class RecordingGenerator implements Generator {
+            String name;
+
+            RecordingGenerator(String name) {
+                this.name = name;
+            }
+
+            public void generate() throws IOException {
+                synchronized (RecordingFactory.this) {
+                    running++;
+                    maxRunning = Math.max(maxRunning, running);
+                }
+                try {
+                    if (name.equals(failing)) {
+                        throw new IOException(name);
+                    }
+                    Thread.sleep(delay);
+                    generated.add(name);
+                } catch (InterruptedException e) {
+                    throw new IOException(e.toString());
+                } finally {
+                    synchronized (RecordingFactory.this) {
+                        running--;
+                    }
+                }
+            }
+        }
+    }
+}
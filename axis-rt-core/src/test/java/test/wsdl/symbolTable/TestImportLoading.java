@@ -0,0 +1,182 @@
+package test.wsdl.symbolTable;
+
+import junit.framework.TestCase;
+import org.apache.axis.wsdl.gen.NoopFactory;
+import org.apache.axis.wsdl.symbolTable.DocumentCache;
+import org.apache.axis.wsdl.symbolTable.DocumentTiming;
+import org.apache.axis.wsdl.symbolTable.SymbolTable;
+import org.apache.axis.wsdl.symbolTable.TypeEntry;
+
+import javax.wsdl.WSDLException;
+import javax.xml.namespace.QName;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Test reading the documents a WSDL document imports with several threads,
+ * and caching them.
+ */
+public class TestImportLoading extends TestCase {
+
+    private static final String NS = "urn:imports";
+    private static final String XSD = "http://www.w3.org/2001/XMLSchema";
+    private static final int SCHEMAS = 6;
+
+    private File directory;
+    private File wsdl;
+
+    public TestImportLoading(String name) {
+        super(name);
+    }
+
+    protected void setUp() throws Exception {
+        directory = File.createTempFile("imports", "");
+        directory.delete();
+        directory.mkdirs();
+
+        // Each schema imports the common one and includes a part of its own
+        StringBuffer imports = new StringBuffer();
+        for (int i = 0; i < SCHEMAS; i++) {
+            String ns = NS + ":" + i;
+            imports.append("<xsd:import namespace='" + ns + "'" +
+                           " schemaLocation='s" + i + ".xsd'/>");
+            write("s" + i + ".xsd",
+                  "<xsd:schema xmlns:xsd='" + XSD + "'" +
+                  " xmlns:c='" + NS + ":common' targetNamespace='" + ns + "'>" +
+                  "<xsd:import namespace='" + NS + ":common'" +
+                  " schemaLocation='common.xsd'/>" +
+                  "<xsd:include schemaLocation='p" + i + ".xsd'/>" +
+                  "<xsd:complexType name='T" + i + "'><xsd:sequence>" +
+                  "<xsd:element name='c' type='c:Common'/>" +
+                  "</xsd:sequence></xsd:complexType></xsd:schema>");
+            write("p" + i + ".xsd",
+                  "<xsd:schema xmlns:xsd='" + XSD + "'>" +
+                  "<xsd:complexType name='P" + i + "'><xsd:sequence>" +
+                  "<xsd:element name='v' type='xsd:int'/>" +
+                  "</xsd:sequence></xsd:complexType></xsd:schema>");
+        }
+        write("common.xsd",
+              "<xsd:schema xmlns:xsd='" + XSD + "'" +
+              " targetNamespace='" + NS + ":common'>" +
+              "<xsd:complexType name='Common'><xsd:sequence>" +
+              "<xsd:element name='v' type='xsd:string'/>" +
+              "</xsd:sequence></xsd:complexType></xsd:schema>");
+        wsdl = write("main.wsdl",
+              "<definitions xmlns='http://schemas.xmlsoap.org/wsdl/'" +
+              " xmlns:xsd='" + XSD + "'" +
+              " xmlns:tns='" + NS + "' targetNamespace='" + NS + "'>" +
+              "<types><xsd:schema targetNamespace='" + NS + "'>" + imports +
+              "</xsd:schema></types></definitions>");
+    }
+
+    protected void tearDown() throws Exception {
+        File[] files = directory.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            files[i].delete();
+        }
+        directory.delete();
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(directory, name);
+        OutputStream out = new FileOutputStream(file);
+        out.write(content.getBytes("UTF-8"));
+        out.close();
+        return file;
+    }
+
+    private SymbolTable populate(int threads, DocumentCache cache)
+            throws Exception {
+        SymbolTable symbolTable =
+            new SymbolTable(new NoopFactory().getBaseTypeMapping(),
+                            true, false, false);
+        symbolTable.setImportThreads(threads);
+        symbolTable.setDocumentCache(cache);
+        symbolTable.populate(wsdl.getPath());
+        return symbolTable;
+    }
+
+    private static Set typeNames(SymbolTable symbolTable) {
+        Set names = new HashSet();
+        for (Iterator i = symbolTable.getTypeIndex().values().iterator();
+                i.hasNext(); ) {
+            QName qname = ((TypeEntry) i.next()).getQName();
+            if (qname.getNamespaceURI().startsWith(NS)) {
+                names.add(qname);
+            }
+        }
+        return names;
+    }
+
+    public void testThreads() throws Exception {
+        Set sequential = typeNames(populate(1, null));
+        assertTrue(sequential.contains(new QName(NS + ":common", "Common")));
+        for (int i = 0; i < SCHEMAS; i++) {
+            assertTrue(sequential.contains(new QName(NS + ":" + i, "T" + i)));
+            assertTrue(sequential.contains(new QName(NS + ":" + i, "P" + i)));
+        }
+        assertEquals(sequential, typeNames(populate(4, null)));
+    }
+
+    public void testTimings() throws Exception {
+        List timings = populate(4, null).getDocumentTimings();
+
+        // the WSDL, the schemas and their parts, and the common schema
+        assertEquals(2 + SCHEMAS * 2, timings.size());
+        Set systemIds = new HashSet();
+        for (int i = 0; i < timings.size(); i++) {
+            DocumentTiming timing = (DocumentTiming) timings.get(i);
+            assertTrue(systemIds.add(timing.getSystemId()));
+            assertFalse(timing.isCached());
+            assertTrue(timing.getParseTime() >= 0);
+            assertTrue(timing.getWaitTime() >= 0);
+        }
+        DocumentTiming root = (DocumentTiming) timings.get(0);
+        assertEquals(wsdl.getPath(), root.getSystemId());
+        assertTrue(root.getReadTime() >= 0);
+    }
+
+    public void testCache() throws Exception {
+        DocumentCache cache = new DocumentCache(100, 0);
+        List timings = populate(4, cache).getDocumentTimings();
+        assertEquals(1 + SCHEMAS * 2, cache.size());
+        for (int i = 1; i < timings.size(); i++) {
+            assertFalse(((DocumentTiming) timings.get(i)).isCached());
+        }
+
+        timings = populate(4, cache).getDocumentTimings();
+        for (int i = 1; i < timings.size(); i++) {
+            assertTrue(((DocumentTiming) timings.get(i)).isCached());
+        }
+
+        // a modified file is read again
+        File common = new File(directory, "common.xsd");
+        write("common.xsd",
+              "<xsd:schema xmlns:xsd='" + XSD + "'" +
+              " targetNamespace='" + NS + ":common'>" +
+              "<xsd:complexType name='Common'/>" +
+              "<xsd:complexType name='Other'/></xsd:schema>");
+        common.setLastModified(common.lastModified() + 2000);
+        SymbolTable symbolTable = populate(4, cache);
+        assertTrue(typeNames(symbolTable).contains(
+                new QName(NS + ":common", "Other")));
+    }
+
+    public void testMissingImport() throws Exception {
+        new File(directory, "p3.xsd").delete();
+        for (int threads = 1; threads <= 4; threads += 3) {
+            try {
+                populate(threads, null);
+                fail("WSDLException expected");
+            } catch (WSDLException e) {
+                assertTrue(e.getMessage().indexOf("p3.xsd") >= 0);
+            }
+        }
+    }
+}
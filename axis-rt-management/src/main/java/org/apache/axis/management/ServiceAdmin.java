@@ -28,6 +28,8 @@ import org.apache.axis.handlers.soap.SOAPService;
 import org.apache.axis.management.jmx.DeploymentAdministrator;
 import org.apache.axis.management.jmx.DeploymentQuery;
 import org.apache.axis.management.jmx.ServiceAdministrator;
+import org.apache.axis.management.jmx.Statistics;
+import org.apache.axis.management.statistics.ServerStatistics;
 import org.apache.axis.server.AxisServer;
 
 import javax.xml.namespace.QName;
@@ -45,6 +47,9 @@ public class ServiceAdmin {
     //Singleton AxisServer for Management
             static private AxisServer axisServer = null;
 
+    //Request statistics of the server
+    static private ServerStatistics statistics = new ServerStatistics();
+
     /**
      * Start the Service
      *
@@ -142,6 +147,37 @@ public class ServiceAdmin {
         Registrar.register(new ServiceAdministrator(), "axis:type=server", "ServiceAdministrator");
         Registrar.register(new DeploymentAdministrator(), "axis:type=deploy", "DeploymentAdministrator");
         Registrar.register(new DeploymentQuery(), "axis:type=query", "DeploymentQuery");
+        axisSrv.setStatisticsCollector(statistics);
+        Registrar.register(new Statistics(), "axis:type=statistics", "Statistics");
+    }
+
+    /**
+     * Get the request statistics
+     *
+     * @return
+     */
+    static public ServerStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Are request statistics being collected
+     *
+     * @return
+     */
+    static public boolean isStatisticsEnabled() {
+        return axisServer != null
+                && axisServer.getStatisticsCollector() == statistics;
+    }
+
+    /**
+     * Start or stop collecting request statistics
+     *
+     * @param enabled
+     * @throws AxisFault
+     */
+    static public void setStatisticsEnabled(boolean enabled) throws AxisFault {
+        getEngine().setStatisticsCollector(enabled ? statistics : null);
     }
 
     static public void start() {
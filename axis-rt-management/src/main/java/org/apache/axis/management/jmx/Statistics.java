@@ -0,0 +1,206 @@
+/*
+ * Copyright 2003,2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.management.jmx;
+
+import org.apache.axis.AxisFault;
+import org.apache.axis.management.ServiceAdmin;
+import org.apache.axis.management.statistics.LatencyHistogram;
+import org.apache.axis.management.statistics.OperationStatistics;
+import org.apache.axis.statistics.RequestTimer;
+
+public class Statistics implements StatisticsMBean {
+    /**
+     * are statistics being collected
+     *
+     * @return
+     */
+    public boolean isEnabled() {
+        return ServiceAdmin.isStatisticsEnabled();
+    }
+
+    /**
+     * start or stop collecting statistics
+     *
+     * @param enabled
+     * @throws AxisFault
+     */
+    public void setEnabled(boolean enabled) throws AxisFault {
+        ServiceAdmin.setStatisticsEnabled(enabled);
+    }
+
+    /**
+     * the services that have been called
+     *
+     * @return
+     */
+    public String[] getServices() {
+        return ServiceAdmin.getStatistics().getServices();
+    }
+
+    /**
+     * the operations of a service that have been called
+     *
+     * @param service
+     * @return
+     */
+    public String[] getOperations(String service) {
+        return ServiceAdmin.getStatistics().getOperations(service);
+    }
+
+    /**
+     * the number of requests
+     *
+     * @param service
+     * @param operation
+     * @return
+     */
+    public long getRequestCount(String service, String operation) {
+        return snapshot(service, operation).requests;
+    }
+
+    /**
+     * the number of requests that failed
+     *
+     * @param service
+     * @param operation
+     * @return
+     */
+    public long getFaultCount(String service, String operation) {
+        return snapshot(service, operation).faults;
+    }
+
+    /**
+     * the mean time of a request
+     *
+     * @param service
+     * @param operation
+     * @return
+     */
+    public double getMeanLatency(String service, String operation) {
+        OperationStatistics.Snapshot snapshot = snapshot(service, operation);
+        return mean(snapshot.totalTime, snapshot.requests);
+    }
+
+    /**
+     * the longest time of a request
+     *
+     * @param service
+     * @param operation
+     * @return
+     */
+    public double getMaxLatency(String service, String operation) {
+        return millis(snapshot(service, operation).maxTime);
+    }
+
+    /**
+     * the time within which the given percentage of requests finished
+     *
+     * @param service
+     * @param operation
+     * @param percentile
+     * @return
+     */
+    public double getLatencyPercentile(String service, String operation,
+                                       double percentile) {
+        return percentile(snapshot(service, operation), percentile);
+    }
+
+    /**
+     * the mean time of a request spent in a phase
+     *
+     * @param service
+     * @param operation
+     * @param phase
+     * @return
+     */
+    public double getMeanPhaseTime(String service, String operation,
+                                   String phase) {
+        for (int i = 0; i < RequestTimer.PHASES; i++) {
+            if (RequestTimer.PHASE_NAMES[i].equals(phase)) {
+                OperationStatistics.Snapshot snapshot =
+                        snapshot(service, operation);
+                return mean(snapshot.phaseTimes[i], snapshot.requests);
+            }
+        }
+        throw new IllegalArgumentException(phase);
+    }
+
+    /**
+     * a table of the statistics of all operations
+     *
+     * @return
+     */
+    public String getReport() {
+        StringBuffer report = new StringBuffer();
+        report.append("service\toperation\trequests\tfaults\tmean\tp50\tp90\tp99\tmax");
+        for (int i = 0; i < RequestTimer.PHASES; i++) {
+            report.append('\t').append(RequestTimer.PHASE_NAMES[i]);
+        }
+        report.append('\n');
+
+        String[] services = getServices();
+        for (int i = 0; i < services.length; i++) {
+            String[] operations = getOperations(services[i]);
+            for (int j = 0; j < operations.length; j++) {
+                OperationStatistics.Snapshot snapshot =
+                        snapshot(services[i], operations[j]);
+                report.append(services[i]).append('\t')
+                      .append(operations[j]).append('\t')
+                      .append(snapshot.requests).append('\t')
+                      .append(snapshot.faults).append('\t')
+                      .append(mean(snapshot.totalTime, snapshot.requests)).append('\t')
+                      .append(percentile(snapshot, 50)).append('\t')
+                      .append(percentile(snapshot, 90)).append('\t')
+                      .append(percentile(snapshot, 99)).append('\t')
+                      .append(millis(snapshot.maxTime));
+                for (int k = 0; k < RequestTimer.PHASES; k++) {
+                    report.append('\t').append(
+                            mean(snapshot.phaseTimes[k], snapshot.requests));
+                }
+                report.append('\n');
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * clear the statistics
+     */
+    public void reset() {
+        ServiceAdmin.getStatistics().reset();
+    }
+
+    private static OperationStatistics.Snapshot snapshot(String service,
+                                                         String operation) {
+        return ServiceAdmin.getStatistics().getSnapshot(service, operation);
+    }
+
+    private static double percentile(OperationStatistics.Snapshot snapshot,
+                                     double percentile) {
+        long micros = LatencyHistogram.percentile(snapshot.buckets,
+                                                  percentile / 100);
+        return micros == Long.MAX_VALUE ? Double.POSITIVE_INFINITY
+                                        : millis(micros);
+    }
+
+    private static double mean(long micros, long requests) {
+        return requests == 0 ? 0 : millis(micros) / requests;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
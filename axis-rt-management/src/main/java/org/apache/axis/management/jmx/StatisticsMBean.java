@@ -0,0 +1,126 @@
+/*
+ * Copyright 2003,2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.management.jmx;
+
+import org.apache.axis.AxisFault;
+
+/**
+ * The Statistics MBean exposes the request statistics of the server.
+ * Where a service or an operation is asked for, null stands for all
+ * services or all operations.  Times are in milliseconds.
+ */
+public interface StatisticsMBean {
+    /**
+     * are statistics being collected
+     *
+     * @return
+     */
+    public boolean isEnabled();
+
+    /**
+     * start or stop collecting statistics
+     *
+     * @param enabled
+     * @throws AxisFault
+     */
+    public void setEnabled(boolean enabled) throws AxisFault;
+
+    /**
+     * the services that have been called
+     *
+     * @return
+     */
+    public String[] getServices();
+
+    /**
+     * the operations of a service that have been called
+     *
+     * @param service
+     * @return
+     */
+    public String[] getOperations(String service);
+
+    /**
+     * the number of requests
+     *
+     * @param service
+     * @param operation
+     * @return
+     */
+    public long getRequestCount(String service, String operation);
+
+    /**
+     * the number of requests that failed
+     *
+     * @param service
+     * @param operation
+     * @return
+     */
+    public long getFaultCount(String service, String operation);
+
+    /**
+     * the mean time of a request
+     *
+     * @param service
+     * @param operation
+     * @return
+     */
+    public double getMeanLatency(String service, String operation);
+
+    /**
+     * the longest time of a request
+     *
+     * @param service
+     * @param operation
+     * @return
+     */
+    public double getMaxLatency(String service, String operation);
+
+    /**
+     * the time within which the given percentage of requests finished
+     *
+     * @param service
+     * @param operation
+     * @param percentile e.g. 99 or 99.9
+     * @return
+     */
+    public double getLatencyPercentile(String service, String operation,
+                                       double percentile);
+
+    /**
+     * the mean time of a request spent in a phase
+     *
+     * @param service
+     * @param operation
+     * @param phase one of transportRead, parse, handlers, provider,
+     *        serialization or transportWrite
+     * @return
+     */
+    public double getMeanPhaseTime(String service, String operation,
+                                   String phase);
+
+    /**
+     * a table of the statistics of all operations
+     *
+     * @return
+     */
+    public String getReport();
+
+    /**
+     * clear the statistics
+     */
+    public void reset();
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2003,2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.management.statistics;
+
+import org.apache.axis.statistics.RequestTimer;
+
+/**
+ * The request count, fault count, latency histogram and phase times of
+ * one operation of a service.
+ * <p>
+ * Requests are recorded into one of several stripes, picked by the
+ * recording thread, so that threads recording the same operation at
+ * the same time seldom wait for each other.  The stripes are only added
+ * up when the statistics are read.
+ */
+public class OperationStatistics {
+
+    /**
+     * The number of stripes; a power of two.  Each stripe has its own
+     * histogram of about 4K, so there are no more than 8.
+     */
+    private static final int STRIPES;
+
+    static {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < processors * 2 && stripes < 8) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private static final class Stripe {
+        long requests = 0;
+        long faults = 0;
+        long totalTime = 0;
+        long maxTime = 0;
+        final long[] phaseTimes = new long[RequestTimer.PHASES];
+        final long[] buckets = new long[LatencyHistogram.BUCKETS];
+    }
+
+    /**
+     * The statistics of one or more operations added up at one time.
+     * Times are in microseconds.
+     */
+    public static final class Snapshot {
+        public long requests = 0;
+        public long faults = 0;
+        public long totalTime = 0;
+        public long maxTime = 0;
+        public final long[] phaseTimes = new long[RequestTimer.PHASES];
+        public final long[] buckets = new long[LatencyHistogram.BUCKETS];
+
+        void add(Stripe stripe) {
+            add(stripe.requests, stripe.faults, stripe.totalTime,
+                stripe.maxTime, stripe.phaseTimes, stripe.buckets);
+        }
+
+        public void add(Snapshot snapshot) {
+            add(snapshot.requests, snapshot.faults, snapshot.totalTime,
+                snapshot.maxTime, snapshot.phaseTimes, snapshot.buckets);
+        }
+
+        private void add(long requests, long faults, long totalTime,
+                         long maxTime, long[] phaseTimes, long[] buckets) {
+            this.requests += requests;
+            this.faults += faults;
+            this.totalTime += totalTime;
+            this.maxTime = Math.max(this.maxTime, maxTime);
+            for (int i = 0; i < phaseTimes.length; i++) {
+                this.phaseTimes[i] += phaseTimes[i];
+            }
+            for (int i = 0; i < buckets.length; i++) {
+                this.buckets[i] += buckets[i];
+            }
+        }
+    }
+
+    private final String service;
+    private final String operation;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public OperationStatistics(String service, String operation) {
+        this.service = service;
+        this.operation = operation;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Record a finished request.
+     */
+    public void record(RequestTimer timer, boolean fault) {
+        long time = timer.getElapsedTime() / 1000;
+        int bucket = LatencyHistogram.bucket(time);
+        Stripe stripe = stripes[System.identityHashCode(Thread.currentThread())
+                                & (STRIPES - 1)];
+        synchronized (stripe) {
+            stripe.requests++;
+            if (fault) {
+                stripe.faults++;
+            }
+            stripe.totalTime += time;
+            if (time > stripe.maxTime) {
+                stripe.maxTime = time;
+            }
+            for (int i = 0; i < RequestTimer.PHASES; i++) {
+                stripe.phaseTimes[i] += timer.getPhaseTime(i) / 1000;
+            }
+            stripe.buckets[bucket]++;
+        }
+    }
+
+    /**
+     * Add the statistics of this operation to a snapshot.
+     */
+    public void addTo(Snapshot snapshot) {
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (stripes[i]) {
+                snapshot.add(stripes[i]);
+            }
+        }
+    }
+}
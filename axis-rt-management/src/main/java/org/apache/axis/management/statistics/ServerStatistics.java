@@ -0,0 +1,156 @@
+/*
+ * Copyright 2003,2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.management.statistics;
+
+import org.apache.axis.MessageContext;
+import org.apache.axis.handlers.soap.SOAPService;
+import org.apache.axis.statistics.RequestTimer;
+import org.apache.axis.statistics.StatisticsCollector;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Collects the statistics of each operation of each service of a server.
+ * <p>
+ * The table of operations is copied when an operation is added, which
+ * only happens the first time it is called, so that looking up the
+ * operation of a request needs no lock.
+ */
+public class ServerStatistics implements StatisticsCollector {
+
+    /** The name used for requests that were not matched to a service */
+    public static final String NO_SERVICE = "";
+
+    /** The name used for requests that were not matched to an operation */
+    public static final String NO_OPERATION = "";
+
+    /** service name -> (operation name -> OperationStatistics) */
+    private volatile Map services = new HashMap();
+
+    public void requestCompleted(MessageContext msgContext,
+                                 RequestTimer timer,
+                                 boolean fault) {
+        String service = null;
+        SOAPService handler = msgContext.getService();
+        if (handler != null) {
+            service = handler.getName();
+        }
+        if (service == null) {
+            service = msgContext.getTargetService();
+        }
+        if (service == null) {
+            service = NO_SERVICE;
+        }
+        String operation = NO_OPERATION;
+        if (msgContext.getOperation() != null
+                && msgContext.getOperation().getName() != null) {
+            operation = msgContext.getOperation().getName();
+        }
+        getOperationStatistics(service, operation).record(timer, fault);
+    }
+
+    private OperationStatistics getOperationStatistics(String service,
+                                                       String operation) {
+        Map operations = (Map) services.get(service);
+        if (operations != null) {
+            OperationStatistics stats =
+                    (OperationStatistics) operations.get(operation);
+            if (stats != null) {
+                return stats;
+            }
+        }
+        synchronized (this) {
+            Map newServices = new HashMap(services);
+            operations = (Map) newServices.get(service);
+            OperationStatistics stats = null;
+            if (operations != null) {
+                stats = (OperationStatistics) operations.get(operation);
+            }
+            if (stats == null) {
+                stats = new OperationStatistics(service, operation);
+                operations = operations == null
+                        ? new HashMap() : new HashMap(operations);
+                operations.put(operation, stats);
+                newServices.put(service, operations);
+                services = newServices;
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Returns the names of the services that have been called, sorted.
+     */
+    public String[] getServices() {
+        return sortedKeys(services);
+    }
+
+    /**
+     * Returns the names of the operations of a service that have been
+     * called, sorted.
+     */
+    public String[] getOperations(String service) {
+        Map operations = (Map) services.get(service);
+        if (operations == null) {
+            return new String[0];
+        }
+        return sortedKeys(operations);
+    }
+
+    /**
+     * Add up the statistics of an operation, of all operations of a
+     * service, or of all services.
+     *
+     * @param service the service, or null for all services
+     * @param operation the operation, or null for all operations
+     */
+    public OperationStatistics.Snapshot getSnapshot(String service,
+                                                    String operation) {
+        OperationStatistics.Snapshot snapshot =
+                new OperationStatistics.Snapshot();
+        Map current = services;
+        for (Iterator i = current.entrySet().iterator(); i.hasNext();) {
+            Map.Entry serviceEntry = (Map.Entry) i.next();
+            if (service != null && !service.equals(serviceEntry.getKey())) {
+                continue;
+            }
+            Map operations = (Map) serviceEntry.getValue();
+            for (Iterator j = operations.entrySet().iterator(); j.hasNext();) {
+                Map.Entry entry = (Map.Entry) j.next();
+                if (operation == null || operation.equals(entry.getKey())) {
+                    ((OperationStatistics) entry.getValue()).addTo(snapshot);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Clear the statistics of all operations.
+     */
+    public synchronized void reset() {
+        services = new HashMap();
+    }
+
+    private static String[] sortedKeys(Map map) {
+        String[] keys = (String[]) map.keySet().toArray(new String[map.size()]);
+        Arrays.sort(keys);
+        return keys;
+    }
+}
@@ -20,19 +20,34 @@ import org.apache.axis.AxisFault;
 import org.apache.axis.Message;
 import org.apache.axis.MessageContext;
 import org.apache.axis.SOAPPart;
+import org.apache.axis.components.logger.LogFactory;
 import org.apache.axis.monitor.SOAPMonitorConstants;
 import org.apache.axis.monitor.SOAPMonitorService;
+import org.apache.axis.utils.Messages;
+import org.apache.commons.logging.Log;
 
 /**
  * This handler is used to route SOAP messages to the
  * SOAP monitor service.
  *
+ * Messages are only serialized for the monitor while a
+ * monitor is connected.  The option "sampleRate" publishes
+ * only one in so many requests, with their responses, and
+ * "maxMessageSize" cuts off longer SOAP text.
+ *
  * @author Brian Price (pricebe@us.ibm.com)
  */
 
 public class SOAPMonitorHandler extends BasicHandler {
 
+  protected static Log log =
+    LogFactory.getLog(SOAPMonitorHandler.class.getName());
+
   private static long next_message_id = 1;
+  private static long request_count = 0;
+
+  private int sample_rate = 1;
+  private int max_message_size = 0;
 
   /**
    * Constructor
@@ -41,6 +56,28 @@ public class SOAPMonitorHandler extends BasicHandler {
     super();
   }
 
+  /**
+   * Read the handler options
+   */
+  public void init() {
+    super.init();
+    sample_rate = getIntOption(SOAPMonitorConstants.SOAP_MONITOR_SAMPLE_RATE, 1);
+    max_message_size = getIntOption(SOAPMonitorConstants.SOAP_MONITOR_MAX_MESSAGE_SIZE, 0);
+  }
+
+  private int getIntOption(String name, int dephault) {
+    Object value = getOption(name);
+    if (value != null) {
+      try {
+        return Integer.parseInt(value.toString().trim());
+      } catch (NumberFormatException e) {
+        log.warn(Messages.getMessage("badIntProperty00", name,
+                                     value.toString()));
+      }
+    }
+    return dephault;
+  }
+
   /**
    * Process and SOAP message
    */
@@ -54,7 +91,14 @@ public class SOAPMonitorHandler extends BasicHandler {
     Long    id;
     Integer type;
     Message message;
+    if (!SOAPMonitorService.isMonitored()) {
+      // Nobody is watching, so don't bother serializing
+      return;
+    }
     if (!messageContext.getPastPivot()) {
+      if (!isSampled()) {
+        return;
+      }
       id = assignMessageId(messageContext);
       type = new Integer(SOAPMonitorConstants.SOAP_MONITOR_REQUEST);
       message = messageContext.getRequestMessage();
@@ -67,6 +111,10 @@ public class SOAPMonitorHandler extends BasicHandler {
     String  soap = null;
     if (message != null) {
       soap = ((SOAPPart)message.getSOAPPart()).getAsString();
+      if (max_message_size > 0 && soap != null &&
+          soap.length() > max_message_size) {
+        soap = soap.substring(0, max_message_size);
+      }
     }
     // If we have an id and a SOAP portion, then send the
     // message to the SOAP monitor service
@@ -75,6 +123,18 @@ public class SOAPMonitorHandler extends BasicHandler {
     }
   }
 
+  /**
+   * Decide whether this request is one of the sampled ones
+   */
+  boolean isSampled() {
+    if (sample_rate <= 1) {
+      return true;
+    }
+    synchronized(SOAPMonitorConstants.SOAP_MONITOR_ID) {
+      return (request_count++ % sample_rate) == 0;
+    }
+  }
+
   /**
    * Assign a new message id
    */
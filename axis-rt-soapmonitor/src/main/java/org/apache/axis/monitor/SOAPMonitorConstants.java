@@ -34,6 +34,19 @@ public class SOAPMonitorConstants {
    * Servlet initialization parameter names
    */
   public static final String SOAP_MONITOR_PORT = "SOAPMonitorPort";
+  public static final String SOAP_MONITOR_QUEUE_SIZE = "SOAPMonitorQueueSize";
+
+  /**
+   * Default number of messages waiting for each connection
+   */
+  public static final int SOAP_MONITOR_DEFAULT_QUEUE_SIZE = 100;
+
+  /**
+   * Handler option names: publish one in sampleRate requests, and
+   * cut off the SOAP text after maxMessageSize characters
+   */
+  public static final String SOAP_MONITOR_SAMPLE_RATE = "sampleRate";
+  public static final String SOAP_MONITOR_MAX_MESSAGE_SIZE = "maxMessageSize";
 
   /**
    * Unique SOAP monitor id tag
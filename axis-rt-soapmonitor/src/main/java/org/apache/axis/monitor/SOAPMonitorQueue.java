@@ -0,0 +1,97 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.monitor;
+
+/**
+ * A bounded ring buffer of messages waiting to be sent to a SOAP monitor
+ * connection.  Adding never blocks: when the buffer is full, the new
+ * message is dropped and counted, so that a slow viewer never holds up
+ * the thread processing the SOAP message.
+ */
+
+class SOAPMonitorQueue {
+
+  private final Object[] ring;
+  private int            head = 0;
+  private int            count = 0;
+  private boolean        closed = false;
+  private long           dropped = 0;
+
+  /**
+   * Constructor
+   */
+  SOAPMonitorQueue(int capacity) {
+    ring = new Object[Math.max(1, capacity)];
+  }
+
+  /**
+   * Add a message, unless the queue is full or closed
+   *
+   * @return false if the message was dropped
+   */
+  synchronized boolean offer(Object message) {
+    if (closed) {
+      return false;
+    }
+    if (count == ring.length) {
+      dropped++;
+      return false;
+    }
+    ring[(head + count) % ring.length] = message;
+    count++;
+    notify();
+    return true;
+  }
+
+  /**
+   * Wait for the next message
+   *
+   * @return null once the queue is closed
+   */
+  synchronized Object take() throws InterruptedException {
+    while (count == 0 && !closed) {
+      wait();
+    }
+    if (closed) {
+      return null;
+    }
+    Object message = ring[head];
+    ring[head] = null;
+    head = (head + 1) % ring.length;
+    count--;
+    return message;
+  }
+
+  /**
+   * Discard the waiting messages and release the taking thread
+   */
+  synchronized void close() {
+    closed = true;
+    for (int i = 0; i < ring.length; i++) {
+      ring[i] = null;
+    }
+    count = 0;
+    notifyAll();
+  }
+
+  /**
+   * Number of messages dropped because the queue was full
+   */
+  synchronized long getDropped() {
+    return dropped;
+  }
+}
@@ -16,6 +16,10 @@
 
 package org.apache.axis.monitor;
 
+import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.utils.Messages;
+import org.apache.commons.logging.Log;
+
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -51,18 +55,39 @@ import java.util.Vector;
  * handler when a SOAP message request or response is 
  * detected.  The information about the SOAP message is 
  * then forwared to all current socket connections for 
- * display by the applet.
+ * display by the applet.  Each connection has a bounded
+ * queue and a thread of its own writing to the socket, so
+ * publishing never waits for a viewer; messages that don't
+ * fit into a full queue are dropped and counted.
  *
  * @author Brian Price (pricebe@us.ibm.com)
  */
 
 public class SOAPMonitorService extends HttpServlet {
 
+  protected static Log log =
+    LogFactory.getLog(SOAPMonitorService.class.getName());
+
   /**
    * Private data 
    */
   private static ServerSocket server_socket = null;
   private static Vector       connections = null;
+  private static int          queue_size =
+                    SOAPMonitorConstants.SOAP_MONITOR_DEFAULT_QUEUE_SIZE;
+
+  /**
+   * The current connections, replaced whenever one is added
+   * or removed, so that publishing needs no lock
+   */
+  private static volatile ConnectionThread[] active =
+                    new ConnectionThread[0];
+
+  /**
+   * Message counters, guarded by the class lock
+   */
+  private static long published = 0;
+  private static long dropped = 0;
 
   /**
    * Constructor
@@ -78,13 +103,54 @@ public class SOAPMonitorService extends HttpServlet {
                                     Integer type, 
                                     String target,
                                     String soap) {
-    if (connections != null) {
-      Enumeration e = connections.elements();
-      while (e.hasMoreElements()) {
-        ConnectionThread ct = (ConnectionThread) e.nextElement();
-        ct.publishMessage(id,type,target,soap);
+    ConnectionThread[] cts = active;
+    if (cts.length == 0) {
+      return;
+    }
+    Object[] message = new Object[] {id, type, target, soap};
+    int lost = 0;
+    for (int i = 0; i < cts.length; i++) {
+      if (!cts[i].offer(message)) {
+        lost++;
       }
     }
+    synchronized (SOAPMonitorService.class) {
+      published++;
+      dropped += lost;
+    }
+  }
+
+  /**
+   * Returns true if a monitor is connected, i.e. if there
+   * is any point in publishing messages
+   */
+  public static boolean isMonitored() {
+    return active.length > 0;
+  }
+
+  /**
+   * Number of messages published
+   */
+  public static synchronized long getPublishedCount() {
+    return published;
+  }
+
+  /**
+   * Number of times a message could not be queued for a
+   * connection because its queue was full
+   */
+  public static synchronized long getDroppedCount() {
+    return dropped;
+  }
+
+  /**
+   * Update the lock free copy of the connection list; must
+   * be called holding the connections lock
+   */
+  private static void updateActive() {
+    ConnectionThread[] cts = new ConnectionThread[connections.size()];
+    connections.copyInto(cts);
+    active = cts;
   }
 
   /**
@@ -99,6 +165,15 @@ public class SOAPMonitorService extends HttpServlet {
       // Get the server socket port from the init params
       ServletConfig config = super.getServletConfig();
       String port = config.getInitParameter(SOAPMonitorConstants.SOAP_MONITOR_PORT);
+      String size = config.getInitParameter(SOAPMonitorConstants.SOAP_MONITOR_QUEUE_SIZE);
+      if (size != null) {
+        try {
+          queue_size = Integer.parseInt(size.trim());
+        } catch (NumberFormatException nfe) {
+          log.warn(Messages.getMessage("badIntProperty00",
+                   SOAPMonitorConstants.SOAP_MONITOR_QUEUE_SIZE, size));
+        }
+      }
       if (port == null) {
         // No port defined, so let the system assign a port
         port = "0";
@@ -197,7 +272,8 @@ public class SOAPMonitorService extends HttpServlet {
     private Socket             socket = null;
     private ObjectInputStream  in = null;
     private ObjectOutputStream out = null;
-    private boolean            closed = false;
+    private volatile boolean   closed = false;
+    private SOAPMonitorQueue   queue = new SOAPMonitorQueue(queue_size);
 
     /**
      * Constructor
@@ -218,7 +294,16 @@ public class SOAPMonitorService extends HttpServlet {
       // Add the connection to our list
       synchronized (connections) {
         connections.addElement(this);
+        updateActive();
       }
+      // Start the thread writing the queued messages
+      Thread writer = new Thread(new Runnable() {
+        public void run() {
+          writeMessages();
+        }
+      }, "SOAPMonitor writer");
+      writer.setDaemon(true);
+      writer.start();
     }
 
     /**
@@ -226,6 +311,7 @@ public class SOAPMonitorService extends HttpServlet {
      */
     public void close() {
       closed = true;
+      queue.close();
       try {
         socket.close();
       } catch (IOException ioe) {}
@@ -243,7 +329,9 @@ public class SOAPMonitorService extends HttpServlet {
       // Cleanup connection list
       synchronized (connections) {
         connections.removeElement(this);
+        updateActive();
       }
+      queue.close();
       // Cleanup I/O streams 
       if (out != null) {
         try {
@@ -261,6 +349,28 @@ public class SOAPMonitorService extends HttpServlet {
       close();
     }
 
+    /**
+     * Queue SOAP message information for the writer thread
+     *
+     * @return false if the message was dropped
+     */
+    boolean offer(Object[] message) {
+      return queue.offer(message);
+    }
+
+    /**
+     * Write the queued messages until the connection is closed
+     */
+    private void writeMessages() {
+      try {
+        Object[] message;
+        while ((message = (Object[]) queue.take()) != null) {
+          publishMessage((Long) message[0], (Integer) message[1],
+                         (String) message[2], (String) message[3]);
+        }
+      } catch (InterruptedException ie) {}
+    }
+
     /**
      * Publish SOAP message information
      */
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.handlers;
+
+import junit.framework.TestCase;
+import org.apache.axis.monitor.SOAPMonitorConstants;
+
+public class TestSOAPMonitorHandler extends TestCase {
+    private static SOAPMonitorHandler handler(String sampleRate) {
+        SOAPMonitorHandler handler = new SOAPMonitorHandler();
+        if (sampleRate != null) {
+            handler.setOption(SOAPMonitorConstants.SOAP_MONITOR_SAMPLE_RATE,
+                              sampleRate);
+        }
+        handler.init();
+        return handler;
+    }
+
+    private static int sampled(SOAPMonitorHandler handler, int requests) {
+        int sampled = 0;
+        for (int i = 0; i < requests; i++) {
+            if (handler.isSampled()) {
+                sampled++;
+            }
+        }
+        return sampled;
+    }
+
+    public void testSampleRate() {
+        assertEquals(4, sampled(handler("3"), 12));
+        assertEquals(12, sampled(handler(null), 12));
+        assertEquals(12, sampled(handler("1"), 12));
+    }
+
+    /**
+     * A sample rate which is not a number is ignored.
+     */
+    public void testBadSampleRate() {
+        assertEquals(12, sampled(handler("every third"), 12));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.monitor;
+
+import junit.framework.TestCase;
+
+public class TestSOAPMonitorQueue extends TestCase {
+    /**
+     * A full queue drops and counts new messages, and takes the others
+     * in order.
+     */
+    public void testBounded() throws Exception {
+        SOAPMonitorQueue queue = new SOAPMonitorQueue(2);
+        assertTrue(queue.offer("1"));
+        assertTrue(queue.offer("2"));
+        assertFalse(queue.offer("3"));
+        assertFalse(queue.offer("4"));
+        assertEquals(2, queue.getDropped());
+        assertEquals("1", queue.take());
+        assertTrue(queue.offer("5"));
+        assertEquals("2", queue.take());
+        assertEquals("5", queue.take());
+        assertEquals(2, queue.getDropped());
+    }
+
+    public void testClose() throws Exception {
+        final SOAPMonitorQueue queue = new SOAPMonitorQueue(2);
+        queue.offer("1");
+        final Object[] taken = new Object[] {"none"};
+        Thread taker = new Thread() {
+            public void run() {
+                try {
+                    queue.take();
+                    taken[0] = queue.take();
+                } catch (InterruptedException e) {
+                }
+            }
+        };
+        taker.start();
+        Thread.sleep(100);
+        queue.close();
+        taker.join(5000);
+        assertFalse(taker.isAlive());
+        assertNull(taken[0]);
+        assertFalse(queue.offer("2"));
+    }
+}
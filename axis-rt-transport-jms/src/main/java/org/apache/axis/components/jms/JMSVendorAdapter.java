@@ -132,6 +132,16 @@ public abstract class JMSVendorAdapter
         if (timeoutTime != null)
             connectorProps.put(JMSConstants.TIMEOUT_TIME, timeoutTime);
 
+        // JMSConstants.BATCH_SIZE,
+        String batchSize = jmsurl.getPropertyValue(JMSConstants._BATCH_SIZE);
+        if (batchSize != null)
+            connectorProps.put(JMSConstants.BATCH_SIZE, batchSize);
+
+        // JMSConstants.BATCH_TIMEOUT,
+        String batchTimeout = jmsurl.getPropertyValue(JMSConstants._BATCH_TIMEOUT);
+        if (batchTimeout != null)
+            connectorProps.put(JMSConstants.BATCH_TIMEOUT, batchTimeout);
+
         return connectorProps;
     }
 
@@ -17,6 +17,8 @@
 package org.apache.axis.transport.jms;
 
 import org.apache.axis.components.jms.JMSVendorAdapter;
+import org.apache.axis.components.logger.LogFactory;
+import org.apache.commons.logging.Log;
 
 import javax.jms.BytesMessage;
 import javax.jms.ConnectionFactory;
@@ -28,10 +30,13 @@ import javax.jms.MessageConsumer;
 import javax.jms.MessageProducer;
 import javax.jms.Session;
 import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
 
 // No vendor dependent exception classes
 //import progress.message.client.EUserAlreadyConnected;
@@ -51,17 +56,24 @@ import java.util.Map;
  */
 public abstract class JMSConnector
 {
+    protected static Log log =
+            LogFactory.getLog(JMSConnector.class.getName());
+
     protected int               m_numRetries;
     protected long              m_connectRetryInterval;
     protected long              m_interactRetryInterval;
     protected long              m_timeoutTime;
-    protected long              m_poolTimeout;
     protected AsyncConnection   m_receiveConnection;
     protected SyncConnection    m_sendConnection;
     protected int               m_numSessions;
     protected boolean           m_allowReceive;
     protected JMSVendorAdapter  m_adapter;
     protected JMSURLHelper      m_jmsurl;
+    protected volatile int      m_batchSize = JMSConstants.DEFAULT_BATCH_SIZE;
+    protected volatile long     m_batchTimeout = JMSConstants.DEFAULT_BATCH_TIMEOUT;
+
+    // commits the batches of all connectors which are held open too long
+    private static Timer        s_batchTimer;
 
     public JMSConnector(ConnectionFactory connectionFactory,
                         int numRetries,
@@ -81,7 +93,6 @@ public abstract class JMSConnector
         m_connectRetryInterval = connectRetryInterval;
         m_interactRetryInterval = interactRetryInterval;
         m_timeoutTime = timeoutTime;
-        m_poolTimeout = timeoutTime/(long)numRetries;
         m_numSessions = numSessions;
         m_allowReceive = allowReceive;
         m_adapter = adapter;
@@ -128,6 +139,45 @@ public abstract class JMSConnector
         return m_numSessions;
     }
 
+    /**
+     * Send the messages of one-way sends in batches.  Each batch is sent
+     *   in a transacted session, which is committed once it holds
+     *   batchSize messages, or batchTimeout milliseconds after its first
+     *   message was sent.
+     * <p>
+     * The messages of a batch are kept until it is committed.  If the
+     *   connection is lost, or the commit fails, they are sent again in a
+     *   new batch, so a message may be delivered twice if the provider
+     *   took a batch but failed to report it.  A batch which fails more
+     *   than numRetries times is dropped, and the drop logged as an error.
+     *
+     * @param batchSize the number of messages in a batch; 1 sends each
+     *   message on its own
+     * @param batchTimeout the longest time a batch is held open
+     */
+    public void setBatching(int batchSize, long batchTimeout)
+    {
+        m_batchSize = Math.max(batchSize, 1);
+        m_batchTimeout = batchTimeout;
+    }
+
+    public int getBatchSize()
+    {
+        return m_batchSize;
+    }
+
+    public long getBatchTimeout()
+    {
+        return m_batchTimeout;
+    }
+
+    private static synchronized Timer getBatchTimer()
+    {
+        if(s_batchTimer == null)
+            s_batchTimer = new Timer(true);
+        return s_batchTimer;
+    }
+
     public ConnectionFactory getConnectionFactory()
     {
         // there is always a send connection
@@ -224,7 +274,8 @@ public abstract class JMSConnector
     private abstract class Connection extends Thread implements ExceptionListener
     {
         private ConnectionFactory m_connectionFactory;
-        protected javax.jms.Connection m_connection;
+        // null while reconnecting
+        protected volatile javax.jms.Connection m_connection;
 
         protected boolean m_isActive;
         private boolean m_needsToConnect;
@@ -435,6 +486,22 @@ public abstract class JMSConnector
         int        m_numSessions;
         Object     m_senderLock;
 
+        // counts the connections lost, so that the sessions of a lost
+        // connection are not put back in the pool
+        volatile int m_generation;
+
+        // signalled when the connection has been made again
+        Object     m_connectLock;
+
+        // the transacted session of the open batch, if any, the messages
+        // of the batch not yet committed, and the number of times it failed;
+        // guarded by m_batchLock
+        Object      m_batchLock;
+        SendSession m_batchSession;
+        ArrayList   m_batchMessages;
+        int         m_batchFailures;
+        TimerTask   m_batchCommit;
+
         SyncConnection(ConnectionFactory connectionFactory,
                        javax.jms.Connection connection,
                        int numSessions,
@@ -449,9 +516,13 @@ public abstract class JMSConnector
             m_senders = new LinkedList();
             m_numSessions = numSessions;
             m_senderLock = new Object();
+            m_connectLock = new Object();
+            m_batchLock = new Object();
+            m_batchMessages = new ArrayList();
         }
 
-        protected abstract SendSession createSendSession(javax.jms.Connection connection)
+        protected abstract SendSession createSendSession(javax.jms.Connection connection,
+                                                         boolean transacted)
             throws JMSException;
 
         protected void onConnect()
@@ -461,10 +532,16 @@ public abstract class JMSConnector
             {
                 for(int i = 0; i < m_numSessions; i++)
                 {
-                    m_senders.add(createSendSession(m_connection));
+                    SendSession session = createSendSession(m_connection, false);
+                    session.m_generation = m_generation;
+                    m_senders.add(session);
                 }
                 m_senderLock.notifyAll();
             }
+            synchronized(m_connectLock)
+            {
+                m_connectLock.notifyAll();
+            }
         }
 
         byte[] call(JMSEndpoint endpoint, byte[] message, long timeout, HashMap properties)
@@ -473,15 +550,14 @@ public abstract class JMSConnector
             long timeoutTime = System.currentTimeMillis() + timeout;
             while(true)
             {
-                if(System.currentTimeMillis() > timeoutTime)
+                SendSession sendSession = getSessionFromPool(timeoutTime);
+                if(sendSession == null)
                 {
                     throw new InvokeTimeoutException("Unable to complete call in time allotted");
                 }
 
-                SendSession sendSession = null;
                 try
                 {
-                    sendSession = getSessionFromPool(m_poolTimeout);
                     byte[] response =  sendSession.call(endpoint,
                                                         message,
                                                         timeoutTime - System.currentTimeMillis(),
@@ -504,38 +580,38 @@ public abstract class JMSConnector
                     }
 
                     //for now we will assume this is a reconnect related issue
-                    //and let the sender be collected
-                    //give the reconnect thread a chance to fill the pool
-                    Thread.yield();
-                    continue;
-                }
-                catch(NullPointerException npe)
-                {
-                    Thread.yield();
-                    continue;
+                    //so replace the sender and give the reconnect thread a
+                    //chance to fill the pool
+                    replaceSession(sendSession);
+                    waitForConnection(sendSession.m_generation, timeoutTime);
                 }
             }
         }
 
-        /** @todo add in handling for security exceptions
-         *  @todo add support for timeouts */
+        /** @todo add in handling for security exceptions */
         void send(JMSEndpoint endpoint, byte[] message, HashMap properties)
             throws Exception
         {
             long timeoutTime = System.currentTimeMillis() + m_timeoutTime;
+            if(m_batchSize > 1)
+            {
+                sendInBatch(endpoint, message, properties, timeoutTime);
+                return;
+            }
+
             while(true)
             {
-                if(System.currentTimeMillis() > timeoutTime)
+                SendSession sendSession = getSessionFromPool(timeoutTime);
+                if(sendSession == null)
                 {
                     throw new InvokeTimeoutException("Cannot complete send in time allotted");
                 }
 
-                SendSession sendSession = null;
                 try
                 {
-                    sendSession = getSessionFromPool(m_poolTimeout);
                     sendSession.send(endpoint, message, properties);
                     returnSessionToPool(sendSession);
+                    return;
                 }
                 catch(JMSException jmse)
                 {
@@ -547,18 +623,215 @@ public abstract class JMSConnector
                         throw jmse;
                     }
                     //for now we will assume this is a reconnect related issue
-                    //and let the sender be collected
-                    //give the reconnect thread a chance to fill the pool
-                    Thread.yield();
-                    continue;
+                    //so replace the sender and give the reconnect thread a
+                    //chance to fill the pool
+                    replaceSession(sendSession);
+                    waitForConnection(sendSession.m_generation, timeoutTime);
                 }
-                catch(NullPointerException npe)
+            }
+        }
+
+        /**
+         * Send a message in the open batch, opening one if there is none,
+         *   and commit the batch if it is full.  The first message of a
+         *   batch schedules its commit for when the batch timeout is up.
+         */
+        private void sendInBatch(JMSEndpoint endpoint, byte[] message,
+                                 HashMap properties, long timeoutTime)
+            throws Exception
+        {
+            while(true)
+            {
+                int generation = m_generation;
+                synchronized(m_batchLock)
                 {
-                    //give the reconnect thread a chance to fill the pool
-                    Thread.yield();
-                    continue;
+                    try
+                    {
+                        if(openBatch(generation))
+                        {
+                            m_batchSession.send(endpoint, message, properties);
+                            m_batchMessages.add(new BatchedMessage(endpoint, message, properties));
+                            if(m_batchMessages.size() >= m_batchSize)
+                            {
+                                try
+                                {
+                                    commitBatch();
+                                }
+                                catch(JMSException jmse)
+                                {
+                                    // the message is kept in the batch, which
+                                    // is sent again
+                                    log.warn("JMSConnector: unable to commit a batch of messages", jmse);
+                                    scheduleCommit();
+                                }
+                            }
+                            else if(m_batchCommit == null)
+                            {
+                                scheduleCommit();
+                            }
+                            return;
+                        }
+                    }
+                    catch(JMSException jmse)
+                    {
+                        if(!m_adapter.isRecoverable(jmse, JMSVendorAdapter.SEND_ACTION))
+                        {
+                            throw jmse;
+                        }
+                        abortBatch();
+                    }
+                }
+
+                //we are reconnecting
+                if(System.currentTimeMillis() > timeoutTime)
+                {
+                    throw new InvokeTimeoutException("Cannot complete send in time allotted");
+                }
+                waitForConnection(generation, timeoutTime);
+            }
+        }
+
+        /**
+         * Make sure there is a batch session on the current connection,
+         *   sending the messages of the batch again in a new session if the
+         *   one they were sent in was lost.  Must be called with m_batchLock
+         *   held.
+         *
+         * @return false if there is no connection to open a session on
+         */
+        private boolean openBatch(int generation)
+            throws Exception
+        {
+            if(m_batchSession != null &&
+               m_batchSession.m_generation != generation)
+            {
+                // the connection was lost, and the session with it
+                abortBatch();
+            }
+            if(m_batchSession != null)
+                return true;
+            javax.jms.Connection connection = m_connection;
+            if(connection == null)
+                return false;
+            m_batchSession = createSendSession(connection, true);
+            m_batchSession.m_generation = generation;
+            try
+            {
+                for(int i = 0; i < m_batchMessages.size(); i++)
+                {
+                    BatchedMessage batched = (BatchedMessage)m_batchMessages.get(i);
+                    m_batchSession.send(batched.m_endpoint, batched.m_message,
+                                        batched.m_properties);
+                }
+            }
+            catch(Exception e)
+            {
+                abortBatch();
+                throw e;
+            }
+            return true;
+        }
+
+        /**
+         * Commit the open batch.  If it cannot be committed, it is closed,
+         *   and its messages are kept to be sent again.  Must be called with
+         *   m_batchLock held.
+         */
+        private void commitBatch()
+            throws JMSException
+        {
+            if(m_batchCommit != null)
+            {
+                m_batchCommit.cancel();
+                m_batchCommit = null;
+            }
+            try
+            {
+                m_batchSession.m_session.commit();
+                m_batchMessages.clear();
+                m_batchFailures = 0;
+            }
+            catch(JMSException jmse)
+            {
+                abortBatch();
+                throw jmse;
+            }
+        }
+
+        /**
+         * Close the session of the open batch without committing it.  Its
+         *   messages are kept to be sent again, unless the batch has failed
+         *   too many times.  Must be called with m_batchLock held.
+         */
+        private void abortBatch()
+        {
+            if(m_batchCommit != null)
+            {
+                m_batchCommit.cancel();
+                m_batchCommit = null;
+            }
+            if(m_batchSession != null)
+            {
+                m_batchSession.cleanup();
+                m_batchSession = null;
+                if(!m_batchMessages.isEmpty() && ++m_batchFailures > m_numRetries)
+                {
+                    dropBatch();
                 }
-                break;
+            }
+        }
+
+        /**
+         * Forget the messages of the open batch.  Must be called with
+         *   m_batchLock held.
+         */
+        private void dropBatch()
+        {
+            if(!m_batchMessages.isEmpty())
+            {
+                log.error("JMSConnector: dropping a batch of " + m_batchMessages.size() + " messages");
+            }
+            m_batchMessages.clear();
+            m_batchFailures = 0;
+        }
+
+        /**
+         * Schedule the commit of the open batch for when the batch timeout
+         *   is up.  Must be called with m_batchLock held.
+         */
+        private void scheduleCommit()
+        {
+            m_batchCommit = new BatchCommit();
+            getBatchTimer().schedule(m_batchCommit, m_batchTimeout);
+        }
+
+        /**
+         * Commit the open batch if it is the one the task was scheduled for,
+         *   sending its messages again first if their session was lost.
+         *   If that fails, the commit is tried again when the batch timeout
+         *   is next up.
+         */
+        void commitBatch(TimerTask task)
+        {
+            synchronized(m_batchLock)
+            {
+                if(m_batchCommit != task)
+                    return;
+                m_batchCommit = null;
+                if(m_batchMessages.isEmpty())
+                    return;
+                try
+                {
+                    if(openBatch(m_generation))
+                        commitBatch();
+                }
+                catch(Exception e)
+                {
+                    log.warn("JMSConnector: unable to commit a batch of messages", e);
+                    abortBatch();
+                }
+                if(!m_batchMessages.isEmpty())
+                    scheduleCommit();
             }
         }
 
@@ -566,12 +839,30 @@ public abstract class JMSConnector
         {
             synchronized(m_senderLock)
             {
+                m_generation++;
                 m_senders.clear();
             }
         }
 
         protected void onShutdown()
         {
+            synchronized(m_batchLock)
+            {
+                if(!m_batchMessages.isEmpty())
+                {
+                    try
+                    {
+                        if(openBatch(m_generation))
+                            commitBatch();
+                    }
+                    catch(Exception e)
+                    {
+                        log.warn("JMSConnector: unable to commit a batch of messages", e);
+                    }
+                }
+                abortBatch();
+                dropBatch();
+            }
             synchronized(m_senderLock)
             {
                 Iterator senders = m_senders.iterator();
@@ -584,24 +875,26 @@ public abstract class JMSConnector
             }
         }
 
-        private SendSession getSessionFromPool(long timeout)
+        /**
+         * Take a session from the pool, waiting for one to be returned or
+         *   for the pool to be filled after a reconnect.
+         *
+         * @param timeoutTime the time after which to give up
+         * @return a session, or null if none came in time
+         */
+        private SendSession getSessionFromPool(long timeoutTime)
+            throws InterruptedException
         {
             synchronized(m_senderLock)
             {
                 while(m_senders.size() == 0)
                 {
-                    try
-                    {
-                        m_senderLock.wait(timeout);
-                        if(m_senders.size() == 0)
-                        {
-                            return null;
-                        }
-                    }
-                    catch(InterruptedException ignore)
+                    long timeout = timeoutTime - System.currentTimeMillis();
+                    if(timeout <= 0)
                     {
                         return null;
                     }
+                    m_senderLock.wait(timeout);
                 }
                 return (SendSession)m_senders.removeFirst();
             }
@@ -611,14 +904,96 @@ public abstract class JMSConnector
         {
             synchronized(m_senderLock)
             {
-                m_senders.addLast(sendSession);
-                m_senderLock.notifyAll();
+                if(sendSession.m_generation == m_generation)
+                {
+                    m_senders.addLast(sendSession);
+                    // a single session can only serve a single waiter
+                    m_senderLock.notify();
+                    return;
+                }
+            }
+            // its connection has been lost
+            sendSession.cleanup();
+        }
+
+        /**
+         * Close a session that failed and, unless its connection has been
+         *   lost, put a new one in the pool in its place.
+         */
+        private void replaceSession(SendSession sendSession)
+        {
+            sendSession.cleanup();
+            javax.jms.Connection connection = m_connection;
+            if(connection == null || sendSession.m_generation != m_generation)
+            {
+                // the pool is filled again when the connection is made
+                return;
+            }
+            try
+            {
+                SendSession session = createSendSession(connection, false);
+                session.m_generation = sendSession.m_generation;
+                returnSessionToPool(session);
+            }
+            catch(JMSException jmse)
+            {
+                // the connection is going as well
+            }
+        }
+
+        /**
+         * Wait for the connection to be made again after it was lost, for no
+         *   longer than the interact retry interval, or than is left before
+         *   the given time.
+         *
+         * @param generation the generation of the session that failed
+         * @param timeoutTime the time after which to give up
+         */
+        private void waitForConnection(int generation, long timeoutTime)
+            throws InterruptedException
+        {
+            synchronized(m_connectLock)
+            {
+                long timeout = Math.min(m_interactRetryInterval,
+                                        timeoutTime - System.currentTimeMillis());
+                if(timeout > 0 &&
+                   (generation == m_generation || m_connection == null))
+                {
+                    m_connectLock.wait(timeout);
+                }
+            }
+        }
+
+        private final class BatchCommit extends TimerTask
+        {
+            public void run()
+            {
+                commitBatch(this);
+            }
+        }
+
+        /**
+         * A message sent in the open batch, kept to be sent again if the
+         *   batch cannot be committed.
+         */
+        private final class BatchedMessage
+        {
+            final JMSEndpoint m_endpoint;
+            final byte[]      m_message;
+            final HashMap     m_properties;
+
+            BatchedMessage(JMSEndpoint endpoint, byte[] message, HashMap properties)
+            {
+                m_endpoint = endpoint;
+                m_message = message;
+                m_properties = properties;
             }
         }
 
         protected abstract class SendSession extends ConnectorSession
         {
             MessageProducer m_producer;
+            int             m_generation;
 
             SendSession(Session session,
                         MessageProducer producer)
@@ -829,76 +1204,50 @@ public abstract class JMSConnector
                     return;
                 while(true)
                 {
-                    if(System.currentTimeMillis() > timeoutTime)
+                    long timeout = timeoutTime - System.currentTimeMillis();
+                    if(timeout < 0)
                     {
                         throw new InvokeTimeoutException("Cannot subscribe listener");
                     }
 
-                    try
-                    {
-                        ListenerSession session = createListenerSession(m_connection,
-                                                                        subscription);
-                        m_subscriptions.put(subscription, session);
-                        break;
-                    }
-                    catch(JMSException jmse)
+                    javax.jms.Connection connection = m_connection;
+                    if(connection != null)
                     {
-                        if(!m_adapter.isRecoverable(jmse, JMSVendorAdapter.SUBSCRIBE_ACTION))
+                        try
                         {
-                            throw jmse;
+                            ListenerSession session = createListenerSession(connection,
+                                                                            subscription);
+                            m_subscriptions.put(subscription, session);
+                            break;
+                        }
+                        catch(JMSException jmse)
+                        {
+                            if(!m_adapter.isRecoverable(jmse, JMSVendorAdapter.SUBSCRIBE_ACTION))
+                            {
+                                throw jmse;
+                            }
                         }
-
-                        try{m_subscriptionLock.wait(m_interactRetryInterval);}
-                        catch(InterruptedException ignore){}
-                        //give reconnect a chance
-                        Thread.yield();
-                        continue;
-                    }
-                    catch(NullPointerException jmse)
-                    {
-                        //we ARE reconnecting
-                        try{m_subscriptionLock.wait(m_interactRetryInterval);}
-                        catch(InterruptedException ignore){}
-                        //give reconnect a chance
-                        Thread.yield();
-                        continue;
                     }
+
+                    //we ARE reconnecting, and onConnect will notify us
+                    m_subscriptionLock.wait(Math.max(1, Math.min(m_interactRetryInterval,
+                                                                 timeout)));
                 }
             }
         }
 
         void unsubscribe(Subscription subscription)
         {
-            long timeoutTime = System.currentTimeMillis() + m_timeoutTime;
             synchronized(m_subscriptionLock)
             {
                 if(!m_subscriptions.containsKey(subscription))
                     return;
-                while(true)
-                {
-                    if(System.currentTimeMillis() > timeoutTime)
-                    {
-                        throw new InvokeTimeoutException("Cannot unsubscribe listener");
-                    }
-
-                    //give reconnect a chance
-                    Thread.yield();
-                    try
-                    {
-                        ListenerSession session = (ListenerSession)
-                                                m_subscriptions.get(subscription);
-                        session.cleanup();
-                        m_subscriptions.remove(subscription);
-                        break;
-                    }
-                    catch(NullPointerException jmse)
-                    {
-                        //we are reconnecting
-                        try{m_subscriptionLock.wait(m_interactRetryInterval);}
-                        catch(InterruptedException ignore){}
-                        continue;
-                    }
-                }
+                // there is no session while we are reconnecting, and once
+                // the subscription is removed none will be created for it
+                ListenerSession session = (ListenerSession)
+                                        m_subscriptions.remove(subscription);
+                if(session != null)
+                    session.cleanup();
             }
         }
 
@@ -86,6 +86,20 @@ public abstract class JMSConnectorFactory
             if (connectorNumRetries != numRetries)
                 continue;
 
+            // batching of one-way sends
+            String propertyBatchSize = (String)connectorProps.get(JMSConstants.BATCH_SIZE);
+            int batchSize = JMSConstants.DEFAULT_BATCH_SIZE;
+            if (propertyBatchSize != null)
+                batchSize = Integer.parseInt(propertyBatchSize);
+            if (conn.getBatchSize() != Math.max(batchSize, 1))
+                continue;
+            String propertyBatchTimeout = (String)connectorProps.get(JMSConstants.BATCH_TIMEOUT);
+            long batchTimeout = JMSConstants.DEFAULT_BATCH_TIMEOUT;
+            if (propertyBatchTimeout != null)
+                batchTimeout = Long.parseLong(propertyBatchTimeout);
+            if (conn.getBatchSize() > 1 && conn.getBatchTimeout() != batchTimeout)
+                continue;
+
             // client id
             String connectorClientID = conn.getClientID();
             String clientID = (String)connectorProps.get(JMSConstants.CLIENT_ID);
@@ -209,6 +223,14 @@ public abstract class JMSConnectorFactory
                                     JMSConstants.TIMEOUT_TIME,
                                     JMSConstants.DEFAULT_TIMEOUT_TIME);
 
+        int batchSize = MapUtils.removeIntProperty(connectorConfig,
+                                    JMSConstants.BATCH_SIZE,
+                                    JMSConstants.DEFAULT_BATCH_SIZE);
+
+        long batchTimeout = MapUtils.removeLongProperty(connectorConfig,
+                                    JMSConstants.BATCH_TIMEOUT,
+                                    JMSConstants.DEFAULT_BATCH_TIMEOUT);
+
         String clientID = MapUtils.removeStringProperty(connectorConfig,
                                     JMSConstants.CLIENT_ID,
                                     null);
@@ -222,21 +244,24 @@ public abstract class JMSConnectorFactory
         if(cfConfig == null)
             throw new IllegalArgumentException("noCfConfig");
 
+        JMSConnector connector;
         if(domain.equals(JMSConstants.DOMAIN_QUEUE))
         {
-            return new QueueConnector(adapter.getQueueConnectionFactory(cfConfig),
-                                      numRetries, numSessions, connectRetryInterval,
-                                      interactRetryInterval, timeoutTime,
-                                      allowReceive, clientID, username, password,
-                                      adapter, jmsurl);
+            connector = new QueueConnector(adapter.getQueueConnectionFactory(cfConfig),
+                                           numRetries, numSessions, connectRetryInterval,
+                                           interactRetryInterval, timeoutTime,
+                                           allowReceive, clientID, username, password,
+                                           adapter, jmsurl);
         }
         else // domain is Topic
         {
-            return new TopicConnector(adapter.getTopicConnectionFactory(cfConfig),
-                                      numRetries, numSessions, connectRetryInterval,
-                                      interactRetryInterval, timeoutTime,
-                                      allowReceive, clientID, username, password,
-                                      adapter, jmsurl);
+            connector = new TopicConnector(adapter.getTopicConnectionFactory(cfConfig),
+                                           numRetries, numSessions, connectRetryInterval,
+                                           interactRetryInterval, timeoutTime,
+                                           allowReceive, clientID, username, password,
+                                           adapter, jmsurl);
         }
+        connector.setBatching(batchSize, batchTimeout);
+        return connector;
     }
 }
\ No newline at end of file
@@ -63,6 +63,8 @@ public interface JMSConstants
     final static String _INTERACT_RETRY_INTERVAL      = "interactRetryInterval";
     final static String _TIMEOUT_TIME                 = "timeoutTime";
     final static String _MIN_TIMEOUT_TIME             = "minTimeoutTime";
+    final static String _BATCH_SIZE                   = "batchSize";
+    final static String _BATCH_TIMEOUT                = "batchTimeout";
     /** Defines a prefix added to each application-specific property in the 
      * JMS URL that should be added to the JMS Message when issued.
      */
@@ -240,6 +242,26 @@ public interface JMSConstants
      */
     final static String MIN_TIMEOUT_TIME                  = JMS_PROPERTY_PREFIX + _MIN_TIMEOUT_TIME;
 
+    /**
+     * Key for properties used in the <code>createConnector</code>
+     * method.  It changes the behavior of the wsclient: messages sent
+     * without waiting for a response (see <code>WAIT_FOR_RESPONSE</code>)
+     * are sent in a transacted session, which is committed once this many
+     * messages have been sent in it.  A message is not delivered until its
+     * batch is committed, and the messages of a batch that cannot be
+     * committed are lost.  A value of 1 sends each message on its own.
+     * The value must be a <code>java.lang.Integer</code>.
+     */
+    final static String BATCH_SIZE                        = JMS_PROPERTY_PREFIX + _BATCH_SIZE;
+    /**
+     * Key for properties used in the <code>createConnector</code>
+     * method.  The longest time, in milliseconds, that a batch (see
+     * <code>BATCH_SIZE</code>) is held open before it is committed,
+     * however few messages it has.
+     * The value must be a <code>java.lang.Long</code>.
+     */
+    final static String BATCH_TIMEOUT                     = JMS_PROPERTY_PREFIX + _BATCH_TIMEOUT;
+
     final static int DEFAULT_NUM_RETRIES      = 5;
     final static int DEFAULT_NUM_SESSIONS     = 5;
 
@@ -248,6 +270,9 @@ public interface JMSConstants
     final static long DEFAULT_MIN_TIMEOUT_TIME        = 1000;
     final static long DEFAULT_INTERACT_RETRY_INTERVAL = 250;
 
+    final static int DEFAULT_BATCH_SIZE               = 1;
+    final static long DEFAULT_BATCH_TIMEOUT           = 100;
+
     // key used to store the JMS connector in the message context
     final static String CONNECTOR       = JMS_PROPERTY_PREFIX + "Connector";
 
@@ -99,6 +99,7 @@ public class JMSSender extends BasicHandler
             }
             else
             {
+                // sent in a batch if the connector batches one-way sends
                 endpoint.send(out.toByteArray(), props);
             }
         }
@@ -40,7 +40,16 @@ public class MapUtils
         int value = defaultValue;
         if(properties != null && properties.containsKey(key))
         {
-            try{value = ((Integer)properties.remove(key)).intValue();}catch(Exception ignore){}
+            // values taken from a JMS URL are strings
+            Object property = properties.remove(key);
+            try
+            {
+                if(property instanceof String)
+                    value = Integer.parseInt(((String)property).trim());
+                else
+                    value = ((Integer)property).intValue();
+            }
+            catch(Exception ignore){}
         }
         return value;
     }
@@ -58,7 +67,15 @@ public class MapUtils
         long value = defaultValue;
         if(properties != null && properties.containsKey(key))
         {
-            try{value = ((Long)properties.remove(key)).longValue();}catch(Exception ignore){}
+            Object property = properties.remove(key);
+            try
+            {
+                if(property instanceof String)
+                    value = Long.parseLong(((String)property).trim());
+                else
+                    value = ((Long)property).longValue();
+            }
+            catch(Exception ignore){}
         }
         return value;
     }
@@ -114,7 +114,14 @@ public class QueueConnector extends JMSConnector
     private QueueSession createQueueSession(QueueConnection connection, int ackMode)
         throws JMSException
     {
-        return connection.createQueueSession(false, ackMode);
+        return createQueueSession(connection, false, ackMode);
+    }
+
+    private QueueSession createQueueSession(QueueConnection connection,
+                                            boolean transacted, int ackMode)
+        throws JMSException
+    {
+        return connection.createQueueSession(transacted, ackMode);
     }
 
     private Queue createQueue(QueueSession session, String subject)
@@ -146,11 +153,13 @@ public class QueueConnector extends JMSConnector
                   clientID, username, password);
         }
 
-        protected SendSession createSendSession(javax.jms.Connection connection)
+        protected SendSession createSendSession(javax.jms.Connection connection,
+                                                boolean transacted)
             throws JMSException
         {
             QueueSession session = createQueueSession((QueueConnection)connection,
-                                        JMSConstants.DEFAULT_ACKNOWLEDGE_MODE);
+                                                      transacted,
+                                                      JMSConstants.DEFAULT_ACKNOWLEDGE_MODE);
             QueueSender sender = session.createSender(null);
             return new QueueSendSession(session, sender);
         }
@@ -103,7 +103,7 @@ public class SimpleJMSWorker implements Runnable
             msg = new Message(in);
         }
 
-        MessageContext  msgContext = new MessageContext(server);
+        MessageContext  msgContext = MessageContext.obtain(server);
         msgContext.setRequestMessage( msg );
         try
         {
@@ -121,6 +121,9 @@ public class SimpleJMSWorker implements Runnable
             msg.setMessageContext(msgContext);
         }
 
+        boolean quit =
+            msgContext.getProperty(MessageContext.QUIT_REQUESTED) != null;
+
         try
         {
             // now we need to send the response
@@ -136,8 +139,14 @@ public class SimpleJMSWorker implements Runnable
         {
             e.printStackTrace();
         }
+        finally
+        {
+            // the response has been written, nothing of the request is
+            // used any more
+            msgContext.release();
+        }
 
-        if (msgContext.getProperty(MessageContext.QUIT_REQUESTED) != null)
+        if (quit)
             // why then, quit!
             try {listener.shutdown();} catch (Exception e) {}
     }
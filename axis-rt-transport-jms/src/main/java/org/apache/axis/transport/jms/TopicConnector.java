@@ -126,8 +126,14 @@ public class TopicConnector extends JMSConnector
     private TopicSession createTopicSession(TopicConnection connection, int ackMode)
         throws JMSException
     {
-        return connection.createTopicSession(false,
-                                             ackMode);
+        return createTopicSession(connection, false, ackMode);
+    }
+
+    private TopicSession createTopicSession(TopicConnection connection,
+                                            boolean transacted, int ackMode)
+        throws JMSException
+    {
+        return connection.createTopicSession(transacted, ackMode);
     }
 
     private Topic createTopic(TopicSession session, String subject)
@@ -249,11 +255,13 @@ public class TopicConnector extends JMSConnector
                   clientID, username, password);
         }
 
-        protected SendSession createSendSession(javax.jms.Connection connection)
+        protected SendSession createSendSession(javax.jms.Connection connection,
+                                                boolean transacted)
             throws JMSException
         {
             TopicSession session = createTopicSession((TopicConnection)connection,
-                                            JMSConstants.DEFAULT_ACKNOWLEDGE_MODE);
+                                                      transacted,
+                                                      JMSConstants.DEFAULT_ACKNOWLEDGE_MODE);
             TopicPublisher publisher = session.createPublisher(null);
             return new TopicSendSession(session, publisher);
         }
@@ -0,0 +1,472 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis.transport.jms;
+
+import junit.framework.TestCase;
+import org.apache.axis.components.jms.JMSVendorAdapter;
+
+import javax.jms.BytesMessage;
+import javax.jms.ConnectionFactory;
+import javax.jms.ExceptionListener;
+import javax.jms.JMSException;
+import javax.jms.QueueConnection;
+import javax.jms.QueueConnectionFactory;
+import javax.jms.QueueReceiver;
+import javax.jms.QueueSender;
+import javax.jms.QueueSession;
+import javax.jms.TemporaryQueue;
+import javax.jms.TopicConnectionFactory;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Tests the session pool and the batched sends of the JMS connector
+ * against a stub connection factory.
+ */
+public class TestJMSConnector extends TestCase {
+    private StubFactory factory;
+    private JMSConnector connector;
+    private JMSEndpoint endpoint;
+
+    protected void setUp() throws Exception {
+        factory = new StubFactory();
+        connector = new QueueConnector(factory.getConnectionFactory(),
+                3, 1, 10, 100, 5000, false, null, null, null,
+                new StubAdapter(), null);
+        endpoint = connector.createEndpoint("queue");
+    }
+
+    protected void tearDown() throws Exception {
+        factory.releaseReceivers();
+        connector.shutdown();
+    }
+
+    /**
+     * Batched messages are delivered when the batch is full, or when the
+     * batch timeout is up.
+     */
+    public void testBatching() throws Exception {
+        connector.setBatching(3, 60000);
+        endpoint.send("1".getBytes());
+        endpoint.send("2".getBytes());
+        assertEquals(0, factory.getDelivered().size());
+        endpoint.send("3".getBytes());
+        assertEquals(Arrays.asList(new String[] {"1", "2", "3"}),
+                     factory.getDelivered());
+
+        connector.setBatching(3, 50);
+        endpoint.send("4".getBytes());
+        factory.waitForDelivered(4);
+        assertEquals("4", factory.getDelivered().get(3));
+    }
+
+    /**
+     * A batch whose commit failed is sent again in a new session.
+     */
+    public void testFailedCommit() throws Exception {
+        connector.setBatching(2, 60000);
+        factory.failCommits(1);
+        endpoint.send("1".getBytes());
+        endpoint.send("2".getBytes());
+        assertEquals(0, factory.getDelivered().size());
+        endpoint.send("3".getBytes());
+        assertEquals(Arrays.asList(new String[] {"1", "2", "3"}),
+                     factory.getDelivered());
+    }
+
+    /**
+     * A batch whose connection was lost is sent again once the connection
+     * has been made again.
+     */
+    public void testConnectionLost() throws Exception {
+        connector.setBatching(2, 60000);
+        endpoint.send("1".getBytes());
+        factory.loseConnection();
+        endpoint.send("2".getBytes());
+        assertEquals(Arrays.asList(new String[] {"1", "2"}),
+                     factory.getDelivered());
+        assertEquals(2, factory.getConnectionCount());
+    }
+
+    /**
+     * A call waits for a session to be returned to the pool rather than
+     * fail or spin.
+     */
+    public void testPoolWait() throws Exception {
+        Caller first = new Caller("a", 5000);
+        first.start();
+        factory.waitForReceivers(1);
+
+        Caller second = new Caller("b", 5000);
+        second.start();
+        second.join(200);
+        assertTrue("Call did not wait for a session", second.isAlive());
+        assertEquals(1, factory.getDelivered().size());
+
+        factory.releaseReceivers();
+        first.join(5000);
+        second.join(5000);
+        assertEquals("response", first.response);
+        assertEquals("response", second.response);
+        assertEquals(Arrays.asList(new String[] {"a", "b"}),
+                     factory.getDelivered());
+    }
+
+    /**
+     * A call which gets no session in time fails.
+     */
+    public void testPoolTimeout() throws Exception {
+        Caller first = new Caller("a", 5000);
+        first.start();
+        factory.waitForReceivers(1);
+
+        long start = System.currentTimeMillis();
+        try {
+            endpoint.call("b".getBytes(), 200);
+            fail("No timeout");
+        } catch (InvokeTimeoutException e) {
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        assertTrue(elapsed >= 150);
+        assertTrue(elapsed < 5000);
+        assertEquals(1, factory.getDelivered().size());
+
+        factory.releaseReceivers();
+        first.join(5000);
+        assertEquals("response", first.response);
+    }
+
+    private class Caller extends Thread {
+        private final String message;
+        private final long timeout;
+        volatile String response;
+
+        Caller(String message, long timeout) {
+            this.message = message;
+            this.timeout = timeout;
+        }
+
+        public void run() {
+            try {
+                response = new String(endpoint.call(message.getBytes(), timeout));
+            } catch (Exception e) {
+                response = e.toString();
+            }
+        }
+    }
+
+    private static class StubAdapter extends JMSVendorAdapter {
+        public QueueConnectionFactory getQueueConnectionFactory(HashMap cfProps) {
+            return null;
+        }
+
+        public TopicConnectionFactory getTopicConnectionFactory(HashMap cfProps) {
+            return null;
+        }
+
+        public void addVendorConnectionFactoryProperties(JMSURLHelper jmsurl,
+                                                         HashMap cfProps) {
+        }
+
+        public boolean isMatchingConnectionFactory(ConnectionFactory cf,
+                                                   JMSURLHelper jmsurl,
+                                                   HashMap cfProps) {
+            return false;
+        }
+    }
+
+    /**
+     * Makes queue connections whose sessions deliver the messages sent
+     * straight away, or when a transacted session is committed.  Calls
+     * are answered with "response" once the receivers are released.
+     */
+    private static class StubFactory {
+        private static final long WAIT = 5000;
+
+        private final List delivered = new ArrayList();
+        private final List connections = new ArrayList();
+        private int commitsToFail = 0;
+        private int receivers = 0;
+        private boolean released = false;
+
+        ConnectionFactory getConnectionFactory() {
+            return (ConnectionFactory) proxy(QueueConnectionFactory.class,
+                    new Handler() {
+                        Object invoke(String name, Object[] args) {
+                            if (name.equals("createQueueConnection")) {
+                                return newConnection();
+                            }
+                            return null;
+                        }
+                    });
+        }
+
+        synchronized List getDelivered() {
+            return new ArrayList(delivered);
+        }
+
+        synchronized int getConnectionCount() {
+            return connections.size();
+        }
+
+        synchronized void failCommits(int count) {
+            commitsToFail = count;
+        }
+
+        /**
+         * Closes the current connection and tells its listener.
+         */
+        void loseConnection() {
+            StubConnection connection;
+            synchronized (this) {
+                connection = (StubConnection)
+                        connections.get(connections.size() - 1);
+            }
+            connection.closed = true;
+            connection.listener.onException(new JMSException("lost"));
+        }
+
+        synchronized void waitForDelivered(int count)
+                throws InterruptedException {
+            long deadline = System.currentTimeMillis() + WAIT;
+            while (delivered.size() < count) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    fail("Only " + delivered + " delivered");
+                }
+                wait(wait);
+            }
+        }
+
+        synchronized void waitForReceivers(int count)
+                throws InterruptedException {
+            long deadline = System.currentTimeMillis() + WAIT;
+            while (receivers < count) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    fail("No call is waiting for a response");
+                }
+                wait(wait);
+            }
+        }
+
+        synchronized void releaseReceivers() {
+            released = true;
+            notifyAll();
+        }
+
+        private synchronized void deliver(List messages) {
+            delivered.addAll(messages);
+            notifyAll();
+        }
+
+        private synchronized boolean failCommit() {
+            if (commitsToFail > 0) {
+                commitsToFail--;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized Object receive(long timeout)
+                throws InterruptedException {
+            receivers++;
+            notifyAll();
+            long deadline = System.currentTimeMillis() + timeout;
+            while (!released) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return null;
+                }
+                wait(wait);
+            }
+            return newMessage("response".getBytes());
+        }
+
+        private Object newConnection() {
+            StubConnection connection = new StubConnection();
+            synchronized (this) {
+                connections.add(connection);
+            }
+            return proxy(QueueConnection.class, connection);
+        }
+
+        private class StubConnection extends Handler {
+            volatile boolean closed = false;
+            volatile ExceptionListener listener;
+
+            Object invoke(String name, Object[] args) throws Exception {
+                if (name.equals("setExceptionListener")) {
+                    listener = (ExceptionListener) args[0];
+                } else if (name.equals("createQueueSession")) {
+                    if (closed) {
+                        throw new JMSException("closed");
+                    }
+                    return proxy(QueueSession.class, new StubSession(
+                            ((Boolean) args[0]).booleanValue(), this));
+                }
+                return null;
+            }
+        }
+
+        private class StubSession extends Handler {
+            private final boolean transacted;
+            private final StubConnection connection;
+            private final List pending = new ArrayList();
+
+            StubSession(boolean transacted, StubConnection connection) {
+                this.transacted = transacted;
+                this.connection = connection;
+            }
+
+            Object invoke(String name, Object[] args) throws Exception {
+                if (connection.closed && !name.equals("close")) {
+                    throw new JMSException("closed");
+                }
+                if (name.equals("createBytesMessage")) {
+                    return newMessage(null);
+                } else if (name.equals("createSender")) {
+                    return proxy(QueueSender.class, new Handler() {
+                        Object invoke(String name, Object[] args)
+                                throws Exception {
+                            if (name.equals("send")) {
+                                send(new String(((StubMessage) Proxy
+                                        .getInvocationHandler(args[1]))
+                                        .content.toByteArray()));
+                            }
+                            return null;
+                        }
+                    });
+                } else if (name.equals("createTemporaryQueue")) {
+                    return proxy(TemporaryQueue.class, new Handler());
+                } else if (name.equals("createReceiver")) {
+                    return proxy(QueueReceiver.class, new Handler() {
+                        Object invoke(String name, Object[] args)
+                                throws Exception {
+                            if (name.equals("receive")) {
+                                return StubFactory.this.receive(
+                                        ((Long) args[0]).longValue());
+                            }
+                            return null;
+                        }
+                    });
+                } else if (name.equals("createQueue")) {
+                    return proxy(javax.jms.Queue.class, new Handler());
+                } else if (name.equals("commit")) {
+                    if (failCommit()) {
+                        pending.clear();
+                        throw new JMSException("commit failed");
+                    }
+                    deliver(pending);
+                    pending.clear();
+                } else if (name.equals("close")) {
+                    pending.clear();
+                }
+                return null;
+            }
+
+            private void send(String message) throws JMSException {
+                if (connection.closed) {
+                    throw new JMSException("closed");
+                }
+                if (transacted) {
+                    pending.add(message);
+                } else {
+                    deliver(Arrays.asList(new String[] {message}));
+                }
+            }
+        }
+
+        private Object newMessage(byte[] content) {
+            StubMessage message = new StubMessage();
+            if (content != null) {
+                message.content.write(content, 0, content.length);
+            }
+            return proxy(BytesMessage.class, message);
+        }
+
+        private class StubMessage extends Handler {
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            private int read = 0;
+
+            Object invoke(String name, Object[] args) {
+                if (name.equals("writeBytes")) {
+                    byte[] bytes = (byte[]) args[0];
+                    content.write(bytes, 0, bytes.length);
+                } else if (name.equals("readBytes")) {
+                    byte[] all = content.toByteArray();
+                    byte[] buffer = (byte[]) args[0];
+                    if (read == all.length) {
+                        return new Integer(-1);
+                    }
+                    int length = Math.min(buffer.length, all.length - read);
+                    System.arraycopy(all, read, buffer, 0, length);
+                    read += length;
+                    return new Integer(length);
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Answers the methods of a stub JMS object by name; the methods not
+     * answered do nothing.
+     */
+    private static class Handler implements InvocationHandler {
+        Object invoke(String name, Object[] args) throws Exception {
+            return null;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args)
+                throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return Boolean.valueOf(proxy == args[0]);
+            } else if (name.equals("hashCode")) {
+                return new Integer(System.identityHashCode(proxy));
+            } else if (name.equals("toString")) {
+                return getClass().getName();
+            }
+            Object result = invoke(name, args);
+            if (result == null && method.getReturnType().isPrimitive()) {
+                Class type = method.getReturnType();
+                if (type == Boolean.TYPE) {
+                    return Boolean.FALSE;
+                } else if (type == Integer.TYPE) {
+                    return new Integer(0);
+                } else if (type == Long.TYPE) {
+                    return new Long(0);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static Object proxy(Class type, InvocationHandler handler) {
+        return Proxy.newProxyInstance(TestJMSConnector.class.getClassLoader(),
+                                      new Class[] {type}, handler);
+    }
+}
@@ -213,6 +213,23 @@ public abstract class AbstractWsdl2JavaMojo extends AbstractMojo {
      */
     private JavaXmlTypeMapping[] javaXmlTypeMappings;
     
+    /**
+     * Flag indicating whether sources should only be generated if the WSDL, the documents it
+     * imports or the configuration of the plugin have changed since the last build. If this
+     * parameter is set to <code>true</code>, a fingerprint of these is kept in the output
+     * directory, and generated files whose content has not changed are not rewritten.
+     * 
+     * @parameter default-value="false"
+     */
+    private boolean incremental;
+    
+    /**
+     * The number of threads used to generate the Java classes.
+     * 
+     * @parameter default-value="1"
+     */
+    private int threads;
+    
     public void execute() throws MojoExecutionException, MojoFailureException {
         String wsdlUrl;
         if (file != null && url != null) {
@@ -283,6 +300,8 @@ public abstract class AbstractWsdl2JavaMojo extends AbstractMojo {
 //        }
 //        emitter.setTimeout(timeout);
         emitter.setImplementationClassName(implementationClassName);
+        emitter.setIncremental(incremental);
+        emitter.setThreads(threads);
 
 //        Authenticator.setDefault(new DefaultAuthenticator(username, password));
 //        if (classpath != null) {
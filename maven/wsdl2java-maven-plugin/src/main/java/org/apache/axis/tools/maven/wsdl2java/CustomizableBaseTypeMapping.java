@@ -19,7 +19,9 @@
 package org.apache.axis.tools.maven.wsdl2java;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.TreeMap;
 
 import javax.xml.namespace.QName;
 
@@ -41,4 +43,16 @@ public class CustomizableBaseTypeMapping extends BaseTypeMapping {
         String javaType = (String)mappings.get(qName);
         return javaType != null ? javaType : parent.getBaseName(qName);
     }
+
+    /**
+     * Returns the mappings, sorted by XML type, for the fingerprint of an incremental run.
+     */
+    public String toString() {
+        Map sorted = new TreeMap();
+        for (Iterator it = mappings.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry entry = (Map.Entry)it.next();
+            sorted.put(entry.getKey().toString(), entry.getValue());
+        }
+        return sorted.toString();
+    }
 }
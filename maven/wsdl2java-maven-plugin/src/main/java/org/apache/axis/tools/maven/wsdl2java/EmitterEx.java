@@ -18,6 +18,9 @@
  */
 package org.apache.axis.tools.maven.wsdl2java;
 
+import java.util.Properties;
+
+import org.apache.axis.wsdl.symbolTable.BaseTypeMapping;
 import org.apache.axis.wsdl.toJava.Emitter;
 
 public class EmitterEx extends Emitter {
@@ -84,4 +87,19 @@ public class EmitterEx extends Emitter {
     public void setTestDefaultHttpPort(int testDefaultHttpPort) {
         this.testDefaultHttpPort = testDefaultHttpPort;
     }
+
+    protected void addOptions(Properties options) {
+        super.addOptions(options);
+        options.setProperty("clientSide", String.valueOf(clientSide));
+        options.setProperty("generateImplementation", String.valueOf(generateImplementation));
+        options.setProperty("clientOutputDirectory", String.valueOf(clientOutputDirectory));
+        options.setProperty("deployWsdd", String.valueOf(deployWsdd));
+        options.setProperty("undeployWsdd", String.valueOf(undeployWsdd));
+        options.setProperty("testHttpPortSystemProperty", String.valueOf(testHttpPortSystemProperty));
+        options.setProperty("testDefaultHttpPort", String.valueOf(testDefaultHttpPort));
+        BaseTypeMapping btm = getFactory().getBaseTypeMapping();
+        if (btm instanceof CustomizableBaseTypeMapping) {
+            options.setProperty("javaXmlTypeMappings", btm.toString());
+        }
+    }
 }
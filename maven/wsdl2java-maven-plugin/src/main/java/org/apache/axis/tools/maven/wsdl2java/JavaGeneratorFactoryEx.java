@@ -50,8 +50,9 @@ public class JavaGeneratorFactoryEx extends JavaGeneratorFactory {
         if (((EmitterEx)emitter).isClientSide() && include(service.getQName())) {
             Generator writer = new JavaServiceWriterEx(emitter, service, symbolTable);
             ServiceEntry sEntry = symbolTable.getServiceEntry(service.getQName());
-            serviceWriters.addStuff(writer, sEntry, symbolTable);
-            return serviceWriters;
+            Writers writers = serviceWriters.copy();
+            writers.addStuff(writer, sEntry, symbolTable);
+            return writers;
         } else {
             return new NoopGenerator();
         }
@@ -61,8 +62,9 @@ public class JavaGeneratorFactoryEx extends JavaGeneratorFactory {
         if (include(binding.getQName())) {
             Generator writer = new JavaBindingWriterEx(emitter, binding, symbolTable);
             BindingEntry bEntry = symbolTable.getBindingEntry(binding.getQName());
-            bindingWriters.addStuff(writer, bEntry, symbolTable);
-            return bindingWriters;
+            Writers writers = bindingWriters.copy();
+            writers.addStuff(writer, bEntry, symbolTable);
+            return writers;
         } else {
             return new NoopGenerator();
         }